@@ -0,0 +1,33 @@
+package org.evrete.benchmarks;
+
+import org.evrete.benchmarks.jmh.EnginePhases;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+class EnginePhasesBenchmarks {
+
+    @Test
+    void benchmark() throws RunnerException {
+        TimeValue duration = TimeValue.milliseconds(1000L);
+        int iterations = 5;
+        Options opt = new OptionsBuilder()
+                .include(EnginePhases.class.getSimpleName())
+                .jvmArgs("-Xms2G", "-Xmx2G", "-Djava.util.logging.config.file=src/test/resources/logging.properties")
+                .addProfiler(GCProfiler.class)
+                .result("benchmarks-engine-phases.csv")
+                .resultFormat(ResultFormatType.CSV)
+                .warmupIterations(iterations)
+                .warmupTime(duration)
+                .measurementIterations(iterations)
+                .measurementTime(duration)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
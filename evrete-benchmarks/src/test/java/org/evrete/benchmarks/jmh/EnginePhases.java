@@ -0,0 +1,307 @@
+package org.evrete.benchmarks.jmh;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.ActivationManager;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.RuntimeRule;
+import org.evrete.api.StatefulSession;
+import org.evrete.benchmarks.models.misc.TypeA;
+import org.evrete.benchmarks.models.misc.TypeB;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Benchmarks of separate engine phases. Every benchmark method performs a single phase
+ * on a session that has been prepared by the state's setup, so that engine regressions
+ * can be attributed to a specific phase:
+ * </p>
+ * <ul>
+ *     <li><code>insert</code> fact registration, without firing</li>
+ *     <li><code>alphaDelta</code> memory delta computation of facts with alpha conditions</li>
+ *     <li><code>betaDelta</code> delta computation of a two-type join, RHS calls are vetoed</li>
+ *     <li><code>deltaAndRhs</code> memory delta and RHS calls of an unconditional rule</li>
+ *     <li><code>purge</code> a fire cycle of deletes only, dominated by memory purge</li>
+ *     <li><code>hotDeployment</code> deploying a new join rule into a live session</li>
+ * </ul>
+ * <p>
+ * Allocation rates are reported when run with the GC profiler (<code>-prof gc</code>).
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, warmups = 1)
+@SuppressWarnings({"unused", "MethodMayBeStatic"})
+public class EnginePhases {
+    private static final ActivationManager NO_RHS = new ActivationManager() {
+        @Override
+        public boolean test(RuntimeRule rule) {
+            return false;
+        }
+    };
+
+    @Benchmark
+    public void insert(InsertState state, Blackhole blackhole) {
+        StatefulSession session = state.session;
+        for (TypeA a : state.pending) {
+            blackhole.consume(session.insert(a));
+        }
+    }
+
+    @Benchmark
+    public void alphaDelta(AlphaState state) {
+        state.session.fire();
+    }
+
+    @Benchmark
+    public void betaDelta(BetaState state) {
+        state.session.fire();
+    }
+
+    @Benchmark
+    public void deltaAndRhs(RhsState state) {
+        state.session.fire();
+    }
+
+    @Benchmark
+    public void purge(PurgeState state) {
+        state.session.fire();
+    }
+
+    @Benchmark
+    public void hotDeployment(HotDeploymentState state) {
+        state.session.newRule("hot deployment")
+                .forEach("$a", TypeA.class, "$b", TypeB.class)
+                .where("$a.l == $b.l")
+                .execute(ctx -> ctx.get("$b"));
+    }
+
+    @State(Scope.Benchmark)
+    public abstract static class PhaseState {
+        @Param({"1000", "10000", "100000"})
+        int facts;
+        // Number of distinct field values
+        @Param({"16", "1024"})
+        int keys;
+        KnowledgeService service;
+        Knowledge knowledge;
+        StatefulSession session;
+        final List<FactHandle> aHandles = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void initKnowledge() {
+            service = new KnowledgeService();
+            knowledge = service.newKnowledge();
+            initRules(knowledge);
+        }
+
+        @TearDown(Level.Trial)
+        public void destroyKnowledge() {
+            service.shutdown();
+        }
+
+        @TearDown(Level.Invocation)
+        public void closeSession() {
+            session.close();
+            aHandles.clear();
+        }
+
+        abstract void initRules(Knowledge knowledge);
+
+        final TypeA newFact(int i) {
+            TypeA a = new TypeA();
+            a.setAllNumeric(i % keys);
+            return a;
+        }
+
+        final void insertFacts() {
+            for (int i = 0; i < facts; i++) {
+                TypeA a = newFact(i);
+                aHandles.add(session.insert(a));
+            }
+        }
+
+        /**
+         * @return share of the preceding cycle's facts that get deleted before the measured phase
+         */
+        double deleteRatio() {
+            return 0.5;
+        }
+
+        final void deleteFacts() {
+            double deleteRatio = deleteRatio();
+            int step = deleteRatio == 0.0 ? 0 : (int) Math.max(1, Math.round(1.0 / deleteRatio));
+            if (step == 0) return;
+            for (int i = 0; i < aHandles.size(); i += step) {
+                session.delete(aHandles.get(i));
+            }
+        }
+
+        /**
+         * Fills and fires the session, then deletes the configured share of facts and
+         * inserts new ones, so that the next fire computes a mixed delta.
+         */
+        final void prepareDelta() {
+            insertFacts();
+            session.fire();
+            deleteFacts();
+            for (int i = 0; i < facts; i++) {
+                session.insert(newFact(i + 1));
+            }
+        }
+    }
+
+    public static class InsertState extends PhaseState {
+        List<TypeA> pending;
+
+        @Override
+        void initRules(Knowledge knowledge) {
+            knowledge.newRule()
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i >= 0")
+                    .execute();
+        }
+
+        @Setup(Level.Invocation)
+        public void initSession() {
+            session = knowledge.newStatefulSession();
+            pending = new ArrayList<>(facts);
+            for (int i = 0; i < facts; i++) {
+                pending.add(newFact(i));
+            }
+        }
+    }
+
+    public static class AlphaState extends PhaseState {
+
+        @Override
+        void initRules(Knowledge knowledge) {
+            // RHS calls are rare, the fire cycle is dominated by alpha conditions and memory inserts
+            knowledge.newRule("alpha 1")
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i == 0", "$a.d >= 0.0")
+                    .execute();
+            knowledge.newRule("alpha 2")
+                    .forEach("$a", TypeA.class)
+                    .where("$a.l < 0")
+                    .execute();
+        }
+
+        @Setup(Level.Invocation)
+        public void initSession() {
+            session = knowledge.newStatefulSession();
+            prepareDelta();
+        }
+    }
+
+    public static class BetaState extends PhaseState {
+
+        @Override
+        void initRules(Knowledge knowledge) {
+            knowledge.newRule("beta")
+                    .forEach("$a", TypeA.class, "$b", TypeB.class)
+                    .where("$a.i == $b.i")
+                    .where("$a.s >= $b.s")
+                    .execute();
+        }
+
+        @Setup(Level.Invocation)
+        public void initSession() {
+            session = knowledge.newStatefulSession();
+            // One B per key, so that the number of matches equals the number of A facts
+            for (int i = 0; i < keys; i++) {
+                TypeB b = new TypeB();
+                b.setAllNumeric(i);
+                session.insert(b);
+            }
+            session.fire();
+            prepareDelta();
+            session.setActivationManager(NO_RHS);
+        }
+    }
+
+    public static class RhsState extends PhaseState {
+
+        @Override
+        void initRules(Knowledge knowledge) {
+            knowledge.newRule("rhs")
+                    .forEach("$a", TypeA.class)
+                    .execute(ctx -> {
+                        TypeA a = ctx.get("$a");
+                        Blackhole.consumeCPU(a.i & 1);
+                    });
+        }
+
+        @Setup(Level.Invocation)
+        public void initSession() {
+            session = knowledge.newStatefulSession();
+            insertFacts();
+        }
+    }
+
+    public static class PurgeState extends PhaseState {
+        @Param({"0.0", "0.5"})
+        double deleteRatio;
+
+        @Override
+        double deleteRatio() {
+            return deleteRatio;
+        }
+
+        @Override
+        void initRules(Knowledge knowledge) {
+            knowledge.newRule("purge")
+                    .forEach("$a", TypeA.class, "$b", TypeB.class)
+                    .where("$a.i == $b.i")
+                    .execute();
+        }
+
+        @Setup(Level.Invocation)
+        public void initSession() {
+            session = knowledge.newStatefulSession();
+            for (int i = 0; i < keys; i++) {
+                TypeB b = new TypeB();
+                b.setAllNumeric(i);
+                session.insert(b);
+            }
+            insertFacts();
+            session.fire();
+            // Deletes only, at least one fact so that the purge isn't a no-op
+            if (deleteRatio == 0.0) {
+                session.delete(aHandles.get(0));
+            } else {
+                deleteFacts();
+            }
+        }
+    }
+
+    public static class HotDeploymentState extends PhaseState {
+
+        @Override
+        void initRules(Knowledge knowledge) {
+            knowledge.newRule("existing")
+                    .forEach("$a", TypeA.class, "$b", TypeB.class)
+                    .where("$a.i == $b.i")
+                    .execute();
+        }
+
+        @Setup(Level.Invocation)
+        public void initSession() {
+            session = knowledge.newStatefulSession();
+            for (int i = 0; i < keys; i++) {
+                TypeB b = new TypeB();
+                b.setAllNumeric(i);
+                session.insert(b);
+            }
+            insertFacts();
+            session.fire();
+            deleteFacts();
+            session.fire();
+        }
+    }
+}
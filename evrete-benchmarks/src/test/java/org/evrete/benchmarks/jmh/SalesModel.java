@@ -1,12 +1,14 @@
 package org.evrete.benchmarks.jmh;
 
 import org.evrete.KnowledgeService;
+import org.evrete.api.Aggregate;
 import org.evrete.api.Knowledge;
 import org.evrete.benchmarks.helper.SessionWrapper;
 import org.evrete.benchmarks.helper.TestUtils;
 import org.evrete.benchmarks.models.sales.Customer;
 import org.evrete.benchmarks.models.sales.Invoice;
 import org.evrete.benchmarks.models.sales.SalesReport;
+import org.evrete.benchmarks.models.sales.SalesTotal;
 import org.evrete.benchmarks.models.sales.SalesUnit;
 import org.kie.api.runtime.KieContainer;
 import org.openjdk.jmh.annotations.*;
@@ -34,6 +36,17 @@ public class SalesModel {
         benchmark(state, state.evreteSession);
     }
 
+    @Benchmark
+    public void evreteAggregate(BenchmarkState state) {
+        // Totals are derived facts, there's no report to insert
+        SessionWrapper s = state.evreteAggregateSession;
+        for (Object o : state.sessionObjects) {
+            s.insert(o);
+        }
+        s.fire();
+        s.close();
+    }
+
     private void benchmark(BenchmarkState state, SessionWrapper s) {
         for (Object o : state.sessionObjects) {
             s.insert(o);
@@ -80,9 +93,11 @@ public class SalesModel {
         int scale;
         SessionWrapper droolsSession;
         SessionWrapper evreteSession;
+        SessionWrapper evreteAggregateSession;
         private KnowledgeService service;
         private KieContainer dKnowledge;
         private Knowledge eKnowledge;
+        private Knowledge eAggregateKnowledge;
 
         @Setup(Level.Iteration)
         public void initInvocationData() {
@@ -113,6 +128,7 @@ public class SalesModel {
         public void initSessions() {
             droolsSession = SessionWrapper.of(dKnowledge.newKieSession());
             evreteSession = SessionWrapper.of(eKnowledge.newStatefulSession());
+            evreteAggregateSession = SessionWrapper.of(eAggregateKnowledge.newStatefulSession());
             Collections.shuffle(sessionObjects);
         }
 
@@ -137,6 +153,23 @@ public class SalesModel {
                         report.add(unit, i.amount);
                     });
 
+            // The same report, maintained as an incremental aggregate
+            eAggregateKnowledge = service.newKnowledge();
+            eAggregateKnowledge.newRule("sales")
+                    .forEach(
+                            "$unit", SalesUnit.class,
+                            "$i", Invoice.class,
+                            "$c", Customer.class
+                    )
+                    .where("$i.salesUnit == $unit")
+                    .where("$i.customer.id == $c.id")
+                    .where("$c.rating > 4.0")
+                    .aggregate(
+                            ctx -> ctx.<SalesUnit>get("$unit"),
+                            Aggregate.sum(ctx -> ctx.<Invoice>get("$i").amount),
+                            SalesTotal::new
+                    );
+
             // Drools
             dKnowledge = TestUtils.droolsKnowledge("src/test/drl/sales-model.drl");
         }
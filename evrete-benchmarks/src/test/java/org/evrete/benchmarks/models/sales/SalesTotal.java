@@ -0,0 +1,19 @@
+package org.evrete.benchmarks.models.sales;
+
+public class SalesTotal {
+    public final SalesUnit unit;
+    public final double amount;
+
+    public SalesTotal(SalesUnit unit, double amount) {
+        this.unit = unit;
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return "SalesTotal{" +
+                "unit=" + unit +
+                ", amount=" + amount +
+                '}';
+    }
+}
@@ -14,11 +14,78 @@ public class Configuration extends Properties implements Copyable<Configuration>
     public static final int INSERT_BUFFER_SIZE_DEFAULT = 4096;
     public static final String IDENTITY_METHOD_EQUALS = "equals";
     public static final String IDENTITY_METHOD_IDENTITY = "identity";
-    static final String SPI_MEMORY_FACTORY = "evrete.spi.memory-factory";
-    static final String SPI_EXPRESSION_RESOLVER = "evrete.spi.expression-resolver";
-    static final String SPI_TYPE_RESOLVER = "evrete.spi.type-resolver";
-    static final String SPI_RHS_COMPILER = "evrete.spi.rhs-compiler";
+    public static final String SPI_MEMORY_FACTORY = "evrete.spi.memory-factory";
+    public static final String SPI_EXPRESSION_RESOLVER = "evrete.spi.expression-resolver";
+    public static final String SPI_TYPE_RESOLVER = "evrete.spi.type-resolver";
+    public static final String SPI_RHS_COMPILER = "evrete.spi.rhs-compiler";
     static final String PARALLELISM = "evrete.core.parallelism";
+    public static final String PARALLEL_DELTA_THRESHOLD = "evrete.core.parallel-delta-threshold";
+    public static final int PARALLEL_DELTA_THRESHOLD_DEFAULT = 65536;
+    /**
+     * <p>
+     * Enables the multi-producer mode of sessions: facts can be inserted, updated, and deleted
+     * from multiple threads without external locking. Each thread's actions are buffered separately
+     * and become visible to rules on the next fire. Firing, clearing, and scanning a session must
+     * still be performed by one thread at a time.
+     * </p>
+     */
+    public static final String CONCURRENT_INSERTS = "evrete.core.concurrent-inserts";
+    /**
+     * <p>
+     * Enables deferred memory purge. Instead of sweeping deleted and updated facts at the end of
+     * every fire, sessions only collect them and compact their memories in the background, once
+     * the share of stale entries reaches the {@link #PURGE_THRESHOLD}. Each background run is limited
+     * by the {@link #PURGE_BUDGET}, the remaining work is resumed after the next fire.
+     * </p>
+     */
+    public static final String DEFERRED_PURGE = "evrete.core.deferred-purge";
+    /**
+     * <p>
+     * Ratio of stale memory entries, relative to all facts of the affected types, that triggers
+     * a deferred purge.
+     * </p>
+     */
+    public static final String PURGE_THRESHOLD = "evrete.core.purge-threshold";
+    public static final double PURGE_THRESHOLD_DEFAULT = 0.25;
+    /**
+     * <p>
+     * Time budget of a single deferred purge run in milliseconds, zero or negative values disable the limit.
+     * </p>
+     */
+    public static final String PURGE_BUDGET = "evrete.core.purge-budget-ms";
+    public static final int PURGE_BUDGET_DEFAULT = 5;
+    /**
+     * <p>
+     * Directory of the persistent cache of compiled conditions and actions. When set, classes compiled
+     * from identical sources are loaded from the cache instead of being compiled again, which shortens
+     * the start-up of rulesets across JVM runs. The cache must be cleared whenever the fact classes change.
+     * </p>
+     */
+    public static final String CLASS_CACHE_DIR = "evrete.core.class-cache-dir";
+    /**
+     * <p>
+     * Maximum number of idle stateless sessions a knowledge instance keeps for reuse. When set, fired
+     * stateless sessions are cleared and handed out again by {@link org.evrete.api.Knowledge#newStatelessSession()},
+     * so that new sessions skip the deployment of rules. Pooled sessions are discarded when rules are added to
+     * the knowledge. Sessions that have rules of their own, or whose rules, environment, configuration, or types have
+     * been changed, are closed instead of being pooled. The activation manager, the execution predicate, and
+     * the lifecycle listeners of a pooled session are reset. Zero, the default, disables the pool.
+     * </p>
+     */
+    public static final String STATELESS_SESSION_POOL_SIZE = "evrete.core.stateless-session-pool-size";
+    public static final int STATELESS_SESSION_POOL_SIZE_DEFAULT = 0;
+    /**
+     * <p>
+     * Enables sharing of condition nodes between rules. Rules that join the same fact declarations
+     * under the same conditions subscribe to a single node of a session, which computes and stores
+     * the join only once. Conditions of shared nodes are evaluated by the evaluators of the rule that
+     * has been deployed first, so that replacing the evaluators of a single rule should not be combined
+     * with this option.
+     * </p>
+     */
+    public static final String SHARE_BETA_NODES = "evrete.core.share-beta-nodes";
+    public static final String JOIN_REPLAN_INTERVAL = "evrete.core.join-replan-interval";
+    public static final int JOIN_REPLAN_INTERVAL_DEFAULT = 16;
     public static final String CONDITION_BASE_CLASS = "evrete.impl.condition-base-class";
 
     private static final Logger LOGGER = Logger.getLogger(Configuration.class.getName());
@@ -75,6 +142,17 @@ public class Configuration extends Properties implements Copyable<Configuration>
         }
     }
 
+    public double getAsDouble(String property, double defaultValue) {
+        String val = getProperty(property);
+        if (val == null || val.trim().isEmpty()) return defaultValue;
+        try {
+            return Double.parseDouble(val.trim());
+        } catch (Exception e) {
+            LOGGER.warning("Property '" + property + "' is not a number, returning default value of " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     @Override
     public Imports getImports() {
         return imports;
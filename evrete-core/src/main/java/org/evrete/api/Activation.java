@@ -0,0 +1,64 @@
+package org.evrete.api;
+
+import java.util.Comparator;
+
+/**
+ * <p>
+ * A single pending activation of a rule, i.e. a matching combination of facts, in the
+ * {@link ActivationMode#AGENDA} mode. Conflict resolution strategies are comparators of activations,
+ * activations that compare as lower are fired first.
+ * </p>
+ */
+public interface Activation {
+    /**
+     * The most recently created activations fire first.
+     */
+    Comparator<Activation> LIFO = Comparator.comparingLong(a -> -a.getSequence());
+
+    /**
+     * Activations fire in the order they were created.
+     */
+    Comparator<Activation> FIFO = Comparator.comparingLong(Activation::getSequence);
+
+    /**
+     * Activations are ordered by comparing their facts' time tags, the most recent first,
+     * so that activations with more recent facts fire first. If one activation's time tags are a prefix
+     * of the other's, the one with more facts fires first. Ties are resolved by recency of activations.
+     */
+    Comparator<Activation> LEXICOGRAPHIC = ((Comparator<Activation>) (a1, a2) -> {
+        long[] tags1 = a1.getTimeTags();
+        long[] tags2 = a2.getTimeTags();
+        for (int i = 0; i < Math.min(tags1.length, tags2.length); i++) {
+            int cmp = Long.compare(tags2[i], tags1[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(tags2.length, tags1.length);
+    }).thenComparing(LIFO);
+
+    /**
+     * Activations are ordered by their rules' salience, and then as by the {@link #LEXICOGRAPHIC} strategy.
+     */
+    Comparator<Activation> SALIENCE = Comparator.<Activation>comparingInt(a -> -a.getRule().getSalience()).thenComparing(LEXICOGRAPHIC);
+
+    /**
+     * @return activated rule
+     */
+    RuntimeRule getRule();
+
+    /**
+     * @return sequence number of the activation, activations created later have greater numbers
+     */
+    long getSequence();
+
+    /**
+     * <p>
+     * Time tags of the activation's distinct facts, sorted in descending order. A fact gets a new time tag when it is
+     * inserted or updated, and time tags of facts changed later are greater.
+     * </p>
+     *
+     * @return time tags of the facts
+     */
+    long[] getTimeTags();
+}
@@ -2,5 +2,24 @@ package org.evrete.api;
 
 public enum ActivationMode {
     CONTINUOUS,
-    DEFAULT
+    DEFAULT,
+    /**
+     * <p>
+     * Every matching combination of facts becomes an individual activation. Activations are fired one by one
+     * in the order of the context's conflict resolution strategy, and the changes made by each RHS call are
+     * applied before the next activation is selected. Pending activations of deleted and updated facts are
+     * cancelled as soon as the RHS that changes them returns.
+     * </p>
+     * <p>
+     * Unlike the other modes, where a rule's RHS is called for all of its matches of a cycle, including matches
+     * of facts deleted by earlier calls in the same cycle, this mode never fires an activation of a deleted or
+     * changed fact. Rules whose outcome depends on those calls, like a prime number sieve that deletes both
+     * products and factors, may therefore produce different results depending on the conflict resolution
+     * strategy. With the default {@link Activation#SALIENCE} strategy, activations of the most recent facts
+     * fire first.
+     * </p>
+     *
+     * @see RuntimeContext#setConflictResolution(java.util.Comparator)
+     */
+    AGENDA
 }
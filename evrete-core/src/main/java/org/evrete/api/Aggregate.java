@@ -0,0 +1,242 @@
+package org.evrete.api;
+
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>
+ * An incrementally maintained aggregate, see {@link LhsBuilder#aggregate(Function, Aggregate, java.util.function.BiFunction)}.
+ * The engine reads one value per matching combination of facts, and adds it to, or removes it from,
+ * the accumulator of the combination's group as the facts are inserted, updated, or deleted.
+ * </p>
+ *
+ * @param <V> type of aggregated values
+ * @param <R> type of the aggregate's result
+ */
+public interface Aggregate<V, R> {
+
+    /**
+     * @param ctx matching combination of facts
+     * @return value to aggregate
+     */
+    V value(RhsContext ctx);
+
+    /**
+     * @return new accumulator for a group of values
+     */
+    Accumulator<V, R> newAccumulator();
+
+    /**
+     * <p>
+     * Number of matching fact combinations.
+     * </p>
+     *
+     * @return aggregate
+     */
+    static Aggregate<Object, Long> count() {
+        return new Aggregate<Object, Long>() {
+            @Override
+            public Object value(RhsContext ctx) {
+                return null;
+            }
+
+            @Override
+            public Accumulator<Object, Long> newAccumulator() {
+                return new Accumulator<Object, Long>() {
+                    long count = 0L;
+
+                    @Override
+                    public void add(Object value) {
+                        count++;
+                    }
+
+                    @Override
+                    public void remove(Object value) {
+                        count--;
+                    }
+
+                    @Override
+                    public Long result() {
+                        return count;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * Sum of the values of matching fact combinations.
+     * </p>
+     *
+     * @param function value function
+     * @return aggregate
+     */
+    static Aggregate<Double, Double> sum(ToDoubleFunction<RhsContext> function) {
+        Objects.requireNonNull(function);
+        return new Aggregate<Double, Double>() {
+            @Override
+            public Double value(RhsContext ctx) {
+                return function.applyAsDouble(ctx);
+            }
+
+            @Override
+            public Accumulator<Double, Double> newAccumulator() {
+                return new Accumulator<Double, Double>() {
+                    double sum = 0.0;
+
+                    @Override
+                    public void add(Double value) {
+                        sum += value;
+                    }
+
+                    @Override
+                    public void remove(Double value) {
+                        sum -= value;
+                    }
+
+                    @Override
+                    public Double result() {
+                        return sum;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * Exact sum of the integer values of matching fact combinations.
+     * </p>
+     *
+     * @param function value function
+     * @return aggregate
+     */
+    static Aggregate<Long, Long> sumLong(ToLongFunction<RhsContext> function) {
+        Objects.requireNonNull(function);
+        return new Aggregate<Long, Long>() {
+            @Override
+            public Long value(RhsContext ctx) {
+                return function.applyAsLong(ctx);
+            }
+
+            @Override
+            public Accumulator<Long, Long> newAccumulator() {
+                return new Accumulator<Long, Long>() {
+                    long sum = 0L;
+
+                    @Override
+                    public void add(Long value) {
+                        sum += value;
+                    }
+
+                    @Override
+                    public void remove(Long value) {
+                        sum -= value;
+                    }
+
+                    @Override
+                    public Long result() {
+                        return sum;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * <p>
+     * The smallest of the values of matching fact combinations, {@code null} values are ignored.
+     * </p>
+     *
+     * @param function value function
+     * @param <V>      value type
+     * @return aggregate
+     */
+    static <V extends Comparable<V>> Aggregate<V, V> min(Function<RhsContext, V> function) {
+        return new SortedAggregate<>(function, true);
+    }
+
+    /**
+     * <p>
+     * The largest of the values of matching fact combinations, {@code null} values are ignored.
+     * </p>
+     *
+     * @param function value function
+     * @param <V>      value type
+     * @return aggregate
+     */
+    static <V extends Comparable<V>> Aggregate<V, V> max(Function<RhsContext, V> function) {
+        return new SortedAggregate<>(function, false);
+    }
+
+    /**
+     * <p>
+     * Accumulator of a single group. Values are removed exactly as they were added.
+     * </p>
+     *
+     * @param <V> type of aggregated values
+     * @param <R> type of the result
+     */
+    interface Accumulator<V, R> {
+        void add(V value);
+
+        void remove(V value);
+
+        R result();
+    }
+
+    /**
+     * <p>
+     * Minimum and maximum aggregates. Values are kept in a sorted multiset, so that removing
+     * the current minimum or maximum does not require a scan of the group.
+     * </p>
+     */
+    final class SortedAggregate<V extends Comparable<V>> implements Aggregate<V, V> {
+        private final Function<RhsContext, V> function;
+        private final boolean min;
+
+        private SortedAggregate(Function<RhsContext, V> function, boolean min) {
+            this.function = Objects.requireNonNull(function);
+            this.min = min;
+        }
+
+        @Override
+        public V value(RhsContext ctx) {
+            return function.apply(ctx);
+        }
+
+        @Override
+        public Accumulator<V, V> newAccumulator() {
+            return new Accumulator<V, V>() {
+                final TreeMap<V, Integer> values = new TreeMap<>();
+
+                @Override
+                public void add(V value) {
+                    if (value != null) {
+                        values.merge(value, 1, Integer::sum);
+                    }
+                }
+
+                @Override
+                public void remove(V value) {
+                    if (value != null) {
+                        values.computeIfPresent(value, (v, count) -> count == 1 ? null : count - 1);
+                    }
+                }
+
+                @Override
+                public V result() {
+                    if (values.isEmpty()) {
+                        return null;
+                    } else {
+                        return min ? values.firstKey() : values.lastKey();
+                    }
+                }
+            };
+        }
+    }
+}
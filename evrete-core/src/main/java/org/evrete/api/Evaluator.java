@@ -45,6 +45,34 @@ public interface Evaluator extends ValuesPredicate {
         return array;
     }
 
+    /**
+     * <p>
+     * Tests the condition against arguments that are given as an array, in the order of the
+     * {@link #descriptor()}. The engine uses this method in its join loops, evaluators that
+     * can read the arguments directly are encouraged to override it.
+     * </p>
+     *
+     * @param values evaluator's arguments, the array must not be modified
+     * @return test result
+     */
+    default boolean test(Object[] values) {
+        return test(i -> values[i]);
+    }
+
+    /**
+     * <p>
+     * Tells whether the condition can only hold for two arguments that are equal in terms of
+     * {@link Object#equals(Object)}, like <code>$a.id == $b.id</code> on two <code>int</code> fields.
+     * The engine may then look up matching keys by hash instead of scanning them, the condition itself
+     * is still tested on every key combination found.
+     * </p>
+     *
+     * @return true if the condition implies the equality of its two arguments, false by default
+     */
+    default boolean impliesEquality() {
+        return false;
+    }
+
     default boolean sameDescriptor(Evaluator other) {
         return FieldReference.sameAs(descriptor(), other.descriptor());
     }
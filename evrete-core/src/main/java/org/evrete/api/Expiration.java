@@ -0,0 +1,99 @@
+package org.evrete.api;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * <p>
+ * Expiration policy of a fact type, see {@link StatefulSession#setExpiration(String, Expiration)}.
+ * Expired facts are deleted by the engine at the start of the next {@link StatefulSession#fire()},
+ * all in the same batch as the other pending changes. Times are read from the session's clock,
+ * which is expected to return milliseconds, see {@link StatefulSession#setClock(java.util.function.LongSupplier)}.
+ * </p>
+ *
+ * @param <T> Java type of the facts
+ */
+public interface Expiration<T> {
+
+    /**
+     * <p>
+     * Computes the time when an inserted or updated fact expires.
+     * </p>
+     *
+     * @param fact fact
+     * @param now  current time of the session's clock
+     * @return expiration time, or {@link Long#MAX_VALUE} if the fact never expires by time
+     */
+    long expiresAt(T fact, long now);
+
+    /**
+     * <p>
+     * Maximum number of facts of the type. When the number is exceeded, the oldest facts expire first.
+     * </p>
+     *
+     * @return maximum number of facts
+     */
+    default int capacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * <p>
+     * Facts expire after the given time since they were inserted or last updated.
+     * </p>
+     *
+     * @param time time to live
+     * @param unit time unit
+     * @param <T>  Java type of the facts
+     * @return expiration policy
+     */
+    static <T> Expiration<T> timeToLive(long time, TimeUnit unit) {
+        long ttl = unit.toMillis(time);
+        return (fact, now) -> now + ttl;
+    }
+
+    /**
+     * <p>
+     * Sliding event-time window: facts expire once the session's clock is past the
+     * fact's own timestamp by the window's size.
+     * </p>
+     *
+     * @param size      window size
+     * @param unit      time unit
+     * @param timestamp timestamp of a fact
+     * @param <T>       Java type of the facts
+     * @return expiration policy
+     */
+    static <T> Expiration<T> slidingWindow(long size, TimeUnit unit, ToLongFunction<T> timestamp) {
+        Objects.requireNonNull(timestamp);
+        long window = unit.toMillis(size);
+        return (fact, now) -> timestamp.applyAsLong(fact) + window;
+    }
+
+    /**
+     * <p>
+     * Count window: only the given number of the most recently inserted facts are kept.
+     * </p>
+     *
+     * @param size number of facts to keep
+     * @param <T>  Java type of the facts
+     * @return expiration policy
+     */
+    static <T> Expiration<T> countWindow(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Negative window size");
+        }
+        return new Expiration<T>() {
+            @Override
+            public long expiresAt(T fact, long now) {
+                return Long.MAX_VALUE;
+            }
+
+            @Override
+            public int capacity() {
+                return size;
+            }
+        };
+    }
+}
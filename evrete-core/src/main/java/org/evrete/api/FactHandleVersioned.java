@@ -2,7 +2,14 @@ package org.evrete.api;
 
 import java.io.Serializable;
 
-public final class FactHandleVersioned implements Serializable {
+/**
+ * <p>
+ * A fact handle and the version of the fact it was stored with. Iterators of some memory implementations
+ * return the same instance on every step, so instances that are to be kept after the iterator advances
+ * must be obtained via {@link #copy()}.
+ * </p>
+ */
+public class FactHandleVersioned implements Serializable {
     private static final long serialVersionUID = 7190204658108518551L;
     private final int version;
     private final FactHandle handle;
@@ -12,6 +19,13 @@ public final class FactHandleVersioned implements Serializable {
         this.version = version;
     }
 
+    /**
+     * @return this instance, or a copy of an instance that is reused by its iterator
+     */
+    public FactHandleVersioned copy() {
+        return this;
+    }
+
     public int getVersion() {
         return version;
     }
@@ -22,8 +36,8 @@ public final class FactHandleVersioned implements Serializable {
 
     @Override
     public String toString() {
-        return "{v=" + version +
-                ", h=" + handle +
+        return "{v=" + getVersion() +
+                ", h=" + getHandle() +
                 '}';
     }
 }
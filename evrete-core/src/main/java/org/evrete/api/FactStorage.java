@@ -21,6 +21,36 @@ public interface FactStorage<T> extends ReIterable<FactStorage.Entry<T>> {
 
     void clear();
 
+    /**
+     * <p>
+     * Returns the number of stored entries. The default implementation creates an iterator,
+     * implementations are expected to provide a cheaper alternative.
+     * </p>
+     *
+     * @return number of entries in the storage
+     */
+    default long size() {
+        return iterator().reset();
+    }
+
+    /**
+     * <p>
+     * Creates an independent copy of this storage. Existing handles must resolve to the same entries
+     * in both storages, and subsequent changes of either storage must not be visible to the other one.
+     * Implementations are free to share unchanged data between the two, e.g. in a copy-on-write manner.
+     * </p>
+     * <p>
+     * The default implementation throws an {@link UnsupportedOperationException}, which means that sessions
+     * backed by such storages can not be forked.
+     * </p>
+     *
+     * @return copy of this storage
+     * @see StatefulSession#fork()
+     */
+    default FactStorage<T> copyOf() {
+        throw new UnsupportedOperationException("Fact storage " + getClass().getName() + " can not be copied");
+    }
+
     interface Entry<Z> {
         FactHandle getHandle();
 
@@ -1,6 +1,9 @@
 package org.evrete.api;
 
 import java.util.Collection;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
 
 public interface KeyedFactStorage extends InnerFactMemory {
@@ -29,4 +32,27 @@ public interface KeyedFactStorage extends InnerFactMemory {
      * @param factHandles fact handles to save under the sequence of keys
      */
     void write(Collection<FactHandleVersioned> factHandles);
+
+    /**
+     * <p>
+     * Targeted counterpart of a full purge scan. Implementations that keep track of the keys their fact handles
+     * are stored under only need to visit the keys of the given handles. Every visited key must lose the handles
+     * that match the predicate, and keys that get empty must be removed and passed to the consumer.
+     * </p>
+     * <p>
+     * The default implementation does nothing and returns false, so that the caller scans the whole storage instead.
+     * </p>
+     * <p>
+     * Tracking the keys costs memory on every write, e.g. a map entry per stored handle, whether purges happen
+     * or not. Implementations aimed at small heap footprints may prefer to keep the default behaviour.
+     * </p>
+     *
+     * @param handles           fact handles that have been deleted or updated since the last purge
+     * @param predicate         tells whether a handle is stale and needs to be removed
+     * @param emptyKeysConsumer consumer of keys that have become empty
+     * @return true if the storage has been purged, false if targeted purge is not supported
+     */
+    default boolean purge(Set<FactHandle> handles, Predicate<FactHandleVersioned> predicate, Consumer<MemoryKey> emptyKeysConsumer) {
+        return false;
+    }
 }
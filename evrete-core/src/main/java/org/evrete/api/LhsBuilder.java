@@ -2,7 +2,9 @@ package org.evrete.api;
 
 import org.evrete.api.annotations.NonNull;
 
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 public interface LhsBuilder<C extends RuntimeContext<C>> extends NamedType.Resolver {
@@ -38,6 +40,80 @@ public interface LhsBuilder<C extends RuntimeContext<C>> extends NamedType.Resol
      */
     C execute(Consumer<RhsContext> consumer);
 
+    /**
+     * <p>
+     * Adds a negation condition: a matching combination of the rule's facts activates the rule only
+     * if there are no facts of the given type with the same key as the combination, keys are compared
+     * with {@code equals}. Facts of the type are
+     * counted by their keys as they are inserted, updated, or deleted, and combinations are activated
+     * again when the last fact with their key is deleted or updated.
+     * </p>
+     *
+     * @param type  type of the negated facts
+     * @param key   key of a negated fact, facts with {@code null} keys are not counted
+     * @param match key of a matching combination of the rule's facts, {@code null} keys are never blocked
+     * @param <T>   type of the negated facts
+     * @return this builder
+     */
+    <T> LhsBuilder<C> not(@NonNull Class<T> type, @NonNull Function<T, ?> key, @NonNull Function<RhsContext, ?> match);
+
+    /**
+     * <p>
+     * Adds an existential condition, the opposite of {@link #not(Class, Function, Function)}: a matching
+     * combination of the rule's facts activates the rule only if there is at least one fact of the given
+     * type with the same key as the combination. The rule is activated once per combination regardless
+     * of the number of such facts.
+     * </p>
+     *
+     * @param type  type of the facts
+     * @param key   key of a fact, facts with {@code null} keys are not counted
+     * @param match key of a matching combination of the rule's facts, {@code null} keys never match
+     * @param <T>   type of the facts
+     * @return this builder
+     */
+    <T> LhsBuilder<C> exists(@NonNull Class<T> type, @NonNull Function<T, ?> key, @NonNull Function<RhsContext, ?> match);
+
+    /**
+     * <p>
+     * Terminates the rule builder with an incrementally maintained aggregate instead of an RHS, and adds
+     * the rule to the current context. Every matching combination of facts is assigned to a group by the
+     * {@code groupBy} function, and each non-empty group is represented in the working memory by a derived fact
+     * that the {@code result} function creates from the group's key and the aggregate's result.
+     * Derived facts are inserted, replaced, and deleted in the same fire as the matching facts change,
+     * so that other rules can use them as ordinary facts. A derived fact is replaced only if the new result
+     * is not equal to the previous one.
+     * </p>
+     * <p>
+     * Aggregates are updated in proportion to the number of changed combinations, and values are read
+     * from the facts only when a combination is matched, i.e. changes of facts must be reported
+     * via update methods as usual. The RHS of an aggregating rule must not be changed.
+     * </p>
+     *
+     * @param groupBy   group key function, keys must implement {@code equals} and {@code hashCode}
+     * @param aggregate aggregate
+     * @param result    derived fact function
+     * @param <K>       group key type
+     * @param <R>       aggregate's result type
+     * @return context
+     * @see Aggregate
+     */
+    <K, R> C aggregate(Function<RhsContext, K> groupBy, Aggregate<?, R> aggregate, BiFunction<K, R, ?> result);
+
+    /**
+     * <p>
+     * Same as {@link #aggregate(Function, Aggregate, BiFunction)} with a single group of all matching
+     * combinations of facts.
+     * </p>
+     *
+     * @param aggregate aggregate
+     * @param result    derived fact function
+     * @param <R>       aggregate's result type
+     * @return context
+     */
+    default <R> C aggregate(Aggregate<?, R> aggregate, Function<R, ?> result) {
+        return aggregate(ctx -> Boolean.TRUE, aggregate, (key, r) -> result.apply(r));
+    }
+
 
     default LhsBuilder<C> where(String... expressions) {
         if (expressions != null) {
@@ -1,5 +1,6 @@
 package org.evrete.api;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -41,6 +42,23 @@ public interface RuleSet<R extends Rule> {
      */
     void addRule(RuleBuilder<?> builder);
 
+    /**
+     * <p>
+     * Compiles the given rule builders and adds them to the current ruleset. Unlike subsequent calls of
+     * the {@link #addRule(RuleBuilder)} method, implementations compile the literal conditions and
+     * actions of all the builders at once, which considerably reduces the build time of large rulesets.
+     * </p>
+     *
+     * @param builders rule builders
+     * @throws RuntimeException instances that can be optionally handled by {@link RuleBuilderExceptionHandler}
+     * @see LhsBuilder#create()
+     */
+    default void addRules(Collection<? extends RuleBuilder<?>> builders) {
+        for (RuleBuilder<?> builder : builders) {
+            addRule(builder);
+        }
+    }
+
 
     default boolean ruleExists(String name) {
         return getRule(name) != null;
@@ -45,6 +45,19 @@ public interface RuntimeContext<C extends RuntimeContext<C>> extends Listeners,
 
     C setActivationMode(ActivationMode activationMode);
 
+    /**
+     * <p>
+     * Sets the conflict resolution strategy of the {@link ActivationMode#AGENDA} mode, the default
+     * strategy is {@link Activation#SALIENCE}.
+     * </p>
+     *
+     * @param strategy comparator of activations, activations that compare as lower are fired first
+     * @return this context
+     */
+    C setConflictResolution(Comparator<Activation> strategy);
+
+    Comparator<Activation> getConflictResolution();
+
     ExpressionResolver getExpressionResolver();
 
     ClassLoader getClassLoader();
@@ -5,6 +5,7 @@ import java.util.concurrent.RejectedExecutionException;
 import java.util.function.BiConsumer;
 import java.util.function.BiPredicate;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 import java.util.function.Predicate;
 
 public interface StatefulSession extends RuleSession<StatefulSession>, AutoCloseable {
@@ -88,6 +89,68 @@ public interface StatefulSession extends RuleSession<StatefulSession>, AutoClose
      */
     void clear();
 
+    /**
+     * <p>
+     * Sets the expiration policy of a fact type, replacing the existing one. Expired facts are deleted by the engine
+     * at the start of the next {@link #fire()}. Facts of the type that already exist in the working memory
+     * are treated as if they were inserted at the current time.
+     * </p>
+     *
+     * @param type       type name
+     * @param expiration expiration policy, or {@code null} to remove the existing policy
+     * @return this session
+     * @throws IllegalArgumentException if the type is unknown
+     * @see Expiration
+     */
+    StatefulSession setExpiration(String type, Expiration<?> expiration);
+
+    /**
+     * <p>
+     * Same as {@link #setExpiration(String, Expiration)}, with the type named after the Java class.
+     * </p>
+     *
+     * @param type       Java class
+     * @param expiration expiration policy, or {@code null} to remove the existing policy
+     * @param <T>        Java type
+     * @return this session
+     */
+    default <T> StatefulSession setExpiration(Class<T> type, Expiration<? super T> expiration) {
+        return setExpiration(type.getName(), expiration);
+    }
+
+    /**
+     * <p>
+     * Sets the clock of expiration policies, the default clock is {@link System#currentTimeMillis()}.
+     * The clock is read once at the start of each {@link #fire()}.
+     * </p>
+     *
+     * @param clock clock that returns milliseconds
+     * @return this session
+     */
+    StatefulSession setClock(LongSupplier clock);
+
+    /**
+     * <p>
+     * Creates a new session with the same rules, settings, and working memory as this one. Fact handles
+     * of this session remain valid in the fork, and changes of either session are not visible to the other one.
+     * </p>
+     * <p>
+     * Only the fact storage is copy-on-write: the fork shares its unchanged pages with this session.
+     * Alpha and beta condition memories are copied in full, so forking takes time and memory linear
+     * in the size of those memories. The copies are made as they are, no conditions are evaluated
+     * and no field values are read.
+     * </p>
+     * <p>
+     * Only fired sessions can be forked. Lifecycle listeners are not inherited, and the fork gets a new
+     * instance of the activation manager.
+     * </p>
+     *
+     * @return forked session
+     * @throws IllegalStateException         if the session has changes that have not been fired yet
+     * @throws UnsupportedOperationException if the session's memory implementation does not support copying
+     * @see FactStorage#copyOf()
+     */
+    StatefulSession fork();
 
     /**
      * <p>
@@ -3,6 +3,7 @@ package org.evrete.api;
 import org.evrete.api.annotations.NonNull;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.function.*;
 
 /**
@@ -132,4 +133,40 @@ public interface Type<T> extends Named, Copyable<Type<T>> {
     default TypeField declareBooleanField(final String name, final Predicate<T> function) {
         return declareField(name, boolean.class, function::test);
     }
+
+    /**
+     * <p>
+     * Declares a field of {@link Map} facts. The field's value is the map's value for the given key.
+     * Unlike fields declared with arbitrary functions, such fields can be read by generated code.
+     * </p>
+     *
+     * @param name field name
+     * @param type field value class
+     * @param key  map key
+     * @param <V>  field value generic type
+     * @return a newly created field or an existing one if already declared/resolved
+     */
+    @SuppressWarnings("unchecked")
+    default <V> TypeField declareMapField(final String name, final Class<V> type, final String key) {
+        return declareField(name, type, o -> (V) ((Map<?, ?>) o).get(key));
+    }
+
+    /**
+     * <p>
+     * Returns a reader that copies the values of the given fields of a fact into an array, in the order
+     * of the fields. The default implementation reads the fields one by one, implementations may
+     * generate a class that reads resolved fields, getters, and map values directly.
+     * </p>
+     *
+     * @param fields fields of this type
+     * @return reader that accepts a fact and the array to copy the values to
+     */
+    default BiConsumer<Object, Object[]> fieldsReader(TypeField[] fields) {
+        final TypeField[] copy = fields.clone();
+        return (fact, values) -> {
+            for (int i = 0; i < copy.length; i++) {
+                values[i] = copy[i].readValue(fact);
+            }
+        };
+    }
 }
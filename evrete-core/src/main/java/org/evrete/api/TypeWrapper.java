@@ -3,6 +3,7 @@ package org.evrete.api;
 import org.evrete.api.annotations.NonNull;
 
 import java.util.Collection;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 
 public class TypeWrapper<T> implements Type<T> {
@@ -51,6 +52,16 @@ public class TypeWrapper<T> implements Type<T> {
         return delegate.declareField(name, type, function);
     }
 
+    @Override
+    public <V> TypeField declareMapField(String name, Class<V> type, String key) {
+        return delegate.declareMapField(name, type, key);
+    }
+
+    @Override
+    public BiConsumer<Object, Object[]> fieldsReader(TypeField[] fields) {
+        return delegate.fieldsReader(fields);
+    }
+
     @Override
     public Type<T> copyOf() {
         return new TypeWrapper<>(delegate.copyOf());
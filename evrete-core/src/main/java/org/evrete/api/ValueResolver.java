@@ -5,4 +5,18 @@ public interface ValueResolver {
 
     Object getValue(ValueHandle handle);
 
+    /**
+     * <p>
+     * Reads the field's value and converts it into a {@link ValueHandle}. Implementations may
+     * override this method to read primitive fields without boxing their values.
+     * </p>
+     *
+     * @param field   field to read
+     * @param subject fact instance
+     * @return value handle of the field
+     */
+    default ValueHandle readValueHandle(TypeField field, Object subject) {
+        return getValueHandle(field.getValueType(), field.readValue(subject));
+    }
+
 }
@@ -6,7 +6,9 @@ import org.evrete.api.RhsContext;
 import org.evrete.api.RuntimeContext;
 import org.evrete.runtime.compiler.CompilationException;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.function.Consumer;
 
 public interface LiteralRhsCompiler extends OrderedServiceProvider {
@@ -16,4 +18,29 @@ public interface LiteralRhsCompiler extends OrderedServiceProvider {
     }
 
     Consumer<RhsContext> compileRhs(RuntimeContext<?> context, String literalRhs, NamedType[] types) throws CompilationException;
+
+    /**
+     * <p>
+     * Compiles several literal actions at once. The default implementation compiles them one by one,
+     * implementations are encouraged to compile them in a single compiler task.
+     * </p>
+     *
+     * @param context runtime context
+     * @param sources literal actions to compile
+     * @return compiled actions in the order of their sources
+     * @throws CompilationException if compilation failed
+     */
+    default List<Consumer<RhsContext>> compileRhs(RuntimeContext<?> context, List<? extends RhsSource> sources) throws CompilationException {
+        List<Consumer<RhsContext>> result = new ArrayList<>(sources.size());
+        for (RhsSource source : sources) {
+            result.add(compileRhs(context, source.getLiteralRhs(), source.getFactTypes()));
+        }
+        return result;
+    }
+
+    interface RhsSource {
+        String getLiteralRhs();
+
+        NamedType[] getFactTypes();
+    }
 }
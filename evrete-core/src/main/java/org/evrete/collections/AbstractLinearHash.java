@@ -245,6 +245,14 @@ public abstract class AbstractLinearHash<E> implements ReIterable<E> {
         return removeEntry(pos);
     }
 
+    /**
+     * @param pos bin index as returned by {@link #findBinIndex(Object, int, BiPredicate)}
+     * @return true if an entry has been deleted
+     */
+    public final boolean removeAt(int pos) {
+        return removeEntry(pos);
+    }
+
     private boolean removeEntry(int pos) {
         if (data[pos] == null) {
             // Nothing to delete
@@ -5,6 +5,7 @@ import org.evrete.api.annotations.NonNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public abstract class AbstractBetaConditionNode implements BetaMemoryNode {
     private final ConditionNodeDescriptor descriptor;
@@ -13,6 +14,8 @@ public abstract class AbstractBetaConditionNode implements BetaMemoryNode {
     private final RuntimeRuleImpl rule;
     private final MemoryKeyCollection[] stores = new MemoryKeyCollection[KeyMode.values().length];
     private final MemoryKeyCollection tempCollection;
+    // Hash indices of the committed rows, created on demand by equality joins of the subscribing nodes
+    private final List<EqualityJoin.Index> joinIndices = new ArrayList<>();
 
     private boolean mergeToMain = true;
 
@@ -41,6 +44,67 @@ public abstract class AbstractBetaConditionNode implements BetaMemoryNode {
     }
 
 
+    /**
+     * <p>
+     * Copies the memory of a parent session's node, and optionally of its source condition nodes, to this node of
+     * a forked session. Both nodes are expected to be built from equal descriptors. Keys that have no copies
+     * in the forked session's key buckets, e.g. keys of deleted facts, are copied as well. Memory keys carry
+     * per-session state, so the stores can not be shared and are copied in full.
+     * </p>
+     *
+     * @param other       node of the parent session
+     * @param keyCopies   parent session's memory keys and their copies
+     * @param withSources whether source nodes should be copied too, shared nodes are copied separately
+     */
+    void copyFrom(AbstractBetaConditionNode other, Map<MemoryKey, MemoryKey> keyCopies, boolean withSources) {
+        for (KeyMode mode : KeyMode.values()) {
+            MemoryKeyCollection source = other.getStore(mode);
+            if (source instanceof MemoryKeyCollectionWrapper) {
+                // Reading the keys as they are, without changing their meta values
+                source = ((MemoryKeyCollectionWrapper) source).delegate;
+            }
+            MemoryKeyCollection destination = getStore(mode);
+            for (MemoryKey key : source) {
+                destination.add(keyCopies.computeIfAbsent(key, KeyCopy::new));
+            }
+        }
+        if (withSources) {
+            for (int i = 0; i < conditionSources.length; i++) {
+                conditionSources[i].copyFrom(other.conditionSources[i], keyCopies, true);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Returns the hash index of the committed rows. The index is built on the first request and is then
+     * kept up to date by {@link #commitDelta1()} and purges, at the cost of an array slot per row.
+     * </p>
+     */
+    @Override
+    public synchronized EqualityJoin.Index getJoinIndex(int column, int field) {
+        for (EqualityJoin.Index index : joinIndices) {
+            if (index.column == column && index.field == field) {
+                return index;
+            }
+        }
+        MemoryKeyCollection main = ((MemoryKeyCollectionWrapper) getStore(KeyMode.OLD_OLD)).delegate;
+        EqualityJoin.Index index = new EqualityJoin.Index(descriptor.getTypes().length, column, field).addAll(main.iterator());
+        joinIndices.add(index);
+        return index;
+    }
+
+    /**
+     * <p>
+     * Drops the rows with deleted keys from the join indices, to be called after the main store has been purged.
+     * </p>
+     */
+    public synchronized void purgeJoinIndices() {
+        for (EqualityJoin.Index index : joinIndices) {
+            index.purge();
+        }
+    }
+
     public boolean hasMainStorage() {
         return mergeToMain;
     }
@@ -53,6 +117,9 @@ public abstract class AbstractBetaConditionNode implements BetaMemoryNode {
             for (MemoryKey key : delta1) {
                 main.add(key);
             }
+            for (EqualityJoin.Index index : joinIndices) {
+                index.addAll(delta1.iterator());
+            }
         }
         delta1.clear();
         delta2.clear();
@@ -98,11 +165,44 @@ public abstract class AbstractBetaConditionNode implements BetaMemoryNode {
         for (MemoryKeyCollection s : stores) {
             s.clear();
         }
+        for (EqualityJoin.Index index : joinIndices) {
+            index.clear();
+        }
         for (BetaMemoryNode source : getSources()) {
             source.clear();
         }
     }
 
+    private static class KeyCopy implements MemoryKey {
+        private final MemoryKey original;
+        private int metaValue;
+
+        KeyCopy(MemoryKey original) {
+            this.original = original;
+            this.metaValue = original.getMetaValue();
+        }
+
+        @Override
+        public ValueHandle get(int fieldIndex) {
+            return original.get(fieldIndex);
+        }
+
+        @Override
+        public int getMetaValue() {
+            return metaValue;
+        }
+
+        @Override
+        public void setMetaValue(int i) {
+            this.metaValue = i;
+        }
+
+        @Override
+        public String toString() {
+            return original.toString();
+        }
+    }
+
     private static class MemoryKeyCollectionWrapper implements MemoryKeyCollection {
         final MemoryKeyCollection delegate;
         final KeyMode forcedMode;
@@ -3,7 +3,6 @@ package org.evrete.runtime;
 import org.evrete.Configuration;
 import org.evrete.api.*;
 import org.evrete.runtime.async.RuleHotDeploymentTask;
-import org.evrete.runtime.compiler.CompilationException;
 import org.evrete.runtime.evaluation.MemoryAddress;
 import org.evrete.util.SessionCollector;
 
@@ -27,6 +26,14 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
     final SessionMemory memory;
     final RuntimeRules ruleStorage;
     final FactActionBuffer actionBuffer;
+    // Per-thread buffers of the multi-producer mode, null if the mode is off
+    final ProducerBuffers producerBuffers;
+    // Background memory purge, null if the deferred purge mode is off
+    final DeferredPurge deferredPurge;
+    // Condition nodes shared by the session's rules, null if node sharing is off
+    final SharedBetaNodes sharedNodes;
+    final FactExpirations expirations;
+    final Agenda agenda;
     private final boolean warnUnknownTypes;
     private final KnowledgeRuntime knowledge;
     ActivationManager activationManager;
@@ -40,16 +47,58 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
         this.activationManager = newActivationManager();
         //int bufferSize = getConfiguration().getAsInteger(Configuration.INSERT_BUFFER_SIZE, Configuration.INSERT_BUFFER_SIZE_DEFAULT);
         this.actionBuffer = newActionBuffer();
+        this.producerBuffers = getConfiguration().getAsBoolean(Configuration.CONCURRENT_INSERTS, false) ? new ProducerBuffers(this::newActionBuffer) : null;
 
         this.ruleStorage = new RuntimeRules();
         MemoryFactory memoryFactory = getService().getMemoryFactoryProvider().instance(this);
         this.memory = new SessionMemory(this, memoryFactory);
+        this.deferredPurge = getConfiguration().getAsBoolean(Configuration.DEFERRED_PURGE, false) ? new DeferredPurge(this) : null;
+        this.sharedNodes = getConfiguration().getAsBoolean(Configuration.SHARE_BETA_NODES, false) ? new SharedBetaNodes(this) : null;
+        this.expirations = new FactExpirations(this);
+        this.agenda = new Agenda(getConflictResolution());
         // Deploy existing rules
         for (RuleDescriptor descriptor : knowledge.getRules()) {
             deployRule(descriptor, false);
         }
     }
 
+    /**
+     * Constructor for forked sessions. The parent session is expected to have no unfired changes
+     * and no running memory purge.
+     *
+     * @param parent session to fork
+     */
+    AbstractRuleSession(AbstractRuleSession<?> parent) {
+        super(parent);
+        this.knowledge = parent.knowledge;
+        this.warnUnknownTypes = parent.warnUnknownTypes;
+        this.activationManager = newActivationManager();
+        this.fireCriteria = parent.fireCriteria;
+        this.actionBuffer = newActionBuffer();
+        this.producerBuffers = getConfiguration().getAsBoolean(Configuration.CONCURRENT_INSERTS, false) ? new ProducerBuffers(this::newActionBuffer) : null;
+
+        this.ruleStorage = new RuntimeRules();
+        MemoryFactory memoryFactory = getService().getMemoryFactoryProvider().instance(this);
+        // Parent's memory keys and their copies, so that condition nodes refer to the same keys as the buckets do
+        Map<MemoryKey, MemoryKey> keyCopies = new IdentityHashMap<>();
+        this.memory = new SessionMemory(this, memoryFactory, parent.memory, keyCopies);
+        this.deferredPurge = parent.deferredPurge == null ? null : new DeferredPurge(this);
+        this.sharedNodes = parent.sharedNodes == null ? null : new SharedBetaNodes(this);
+        this.expirations = new FactExpirations(this);
+        this.expirations.copyFrom(parent.expirations);
+        this.agenda = new Agenda(getConflictResolution());
+        this.agenda.copyFrom(parent.agenda);
+        for (RuntimeRuleImpl rule : parent.ruleStorage) {
+            ruleStorage.copyRule(rule, this).copyMemory(rule, keyCopies);
+        }
+        if (sharedNodes != null) {
+            sharedNodes.copyMemory(parent.sharedNodes, keyCopies);
+        }
+        if (deferredPurge != null) {
+            deferredPurge.copyFrom(parent.deferredPurge);
+        }
+    }
+
     static void bufferUpdate(FactHandle handle, FactRecord previous, Object updatedFact, FactActionBuffer buffer) {
         buffer.newUpdate(handle, previous, updatedFact);
     }
@@ -124,7 +173,7 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
     }
 
     final FactRecord getFactRecord(FactHandle handle) {
-        AtomicMemoryAction bufferedAction = actionBuffer.find(handle);
+        AtomicMemoryAction bufferedAction = findBufferedAction(handle);
         FactRecord found;
         if (bufferedAction == null) {
             found = memory.get(handle.getTypeId()).getFactRecord(handle);
@@ -134,6 +183,21 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
         return found;
     }
 
+    private AtomicMemoryAction findBufferedAction(FactHandle handle) {
+        if (producerBuffers == null) {
+            return actionBuffer.find(handle);
+        } else {
+            // Producers' actions are newer than those already drained into the main buffer
+            AtomicMemoryAction found = producerBuffers.find(handle);
+            if (found == null) {
+                synchronized (actionBuffer) {
+                    found = actionBuffer.find(handle);
+                }
+            }
+            return found;
+        }
+    }
+
     @Override
     final void _assertActive() {
         if (!active) {
@@ -153,13 +217,19 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
     }
 
     private synchronized void deployRule(RuleDescriptor descriptor, boolean hotDeployment) {
+        awaitPurge();
         for (FactType factType : descriptor.getLhs().getFactTypes()) {
             TypeMemory tm = memory.getCreateUpdate(factType.type());
             tm.touchMemory(factType.getMemoryAddress());
         }
+        for (Existence existence : descriptor.getExistence()) {
+            // Facts of not/exists conditions are counted, they need no memory buckets
+            memory.getCreateUpdate(existence.type);
+        }
         RuntimeRuleImpl rule = ruleStorage.addRule(descriptor, this);
         if (hotDeployment) {
             getExecutor().invoke(new RuleHotDeploymentTask(rule));
+            rule.onHotDeployment(actionBuffer);
         }
         reSortRules();
     }
@@ -170,9 +240,7 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
 
 
     @Override
-    protected void addRuleInner(RuleBuilder<?> builder) throws CompilationException {
-        RuleBuilderImpl<?> impl = (RuleBuilderImpl<?>) builder;
-        RuleDescriptor rd = compileRuleBuilder(impl);
+    protected void addRuleDescriptor(RuleDescriptor rd) {
         deployRule(rd, true);
     }
 
@@ -187,6 +255,7 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
     }
 
     final void forEachFactFull(BiConsumer<FactHandle, Object> consumer) {
+        drainProducerBuffers();
         Set<FactHandle> buffered = new HashSet<>();
         this.actionBuffer.forEach(a -> {
             FactHandle handle = a.handle;
@@ -226,6 +295,7 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
             return;
         }
 
+        drainProducerBuffers();
         Set<FactHandle> buffered = new HashSet<>();
         this.actionBuffer.forEach(t, a -> {
             FactHandle handle = a.handle;
@@ -271,11 +341,48 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
             for (SessionLifecycleListener e : lifecycleListeners) {
                 e.onEvent(SessionLifecycleListener.Event.PRE_CLOSE);
             }
+            awaitPurge();
             invalidateSession();
             knowledge.close(this);
         }
     }
 
+    /**
+     * <p>
+     * Prepares a fired session for reuse. Lifecycle listeners are notified as if the session was closed,
+     * then the session's memory is cleared and its activation settings are restored from the knowledge.
+     * </p>
+     *
+     * @return {@code false} if the session has rules of its own, orders its rules differently, or if its rules,
+     * environment, configuration, or types have been changed, such sessions can not be reused
+     */
+    final boolean resetForReuse() {
+        synchronized (this) {
+            if (!reusable()) {
+                return false;
+            }
+            for (SessionLifecycleListener e : lifecycleListeners) {
+                e.onEvent(SessionLifecycleListener.Event.PRE_CLOSE);
+            }
+            lifecycleListeners.clear();
+            awaitPurge();
+            clearInner();
+            resetActivationSettings(knowledge);
+            this.activationManager = newActivationManager();
+            applyFireCriteria(() -> true);
+            return true;
+        }
+    }
+
+    private boolean reusable() {
+        return !isModified()
+                && ruleStorage.getList().size() == knowledge.getRules().size()
+                && getRuleComparator() == knowledge.getRuleComparator()
+                && getConfiguration().equals(knowledge.getConfiguration())
+                // Types declared directly on the session's type resolver
+                && getTypeResolver().getKnownTypes().size() == knowledge.getTypeResolver().getKnownTypes().size();
+    }
+
     private void invalidateSession() {
         this.active = false;
         this.memory.destroy();
@@ -283,20 +390,52 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
 
     @Override
     public void onNewActiveField(ActiveField newField) {
+        awaitPurge();
         memory.onNewActiveField(newField);
     }
 
     @Override
     public final void onNewAlphaBucket(MemoryAddress address) {
+        awaitPurge();
         memory.onNewAlphaBucket(address);
     }
 
     void clearInner() {
+        if (deferredPurge != null) {
+            deferredPurge.clear();
+        }
         for (RuntimeRuleImpl rule : ruleStorage) {
             rule.clear();
         }
         memory.clear();
+        expirations.clear();
+        agenda.clear();
         this.actionBuffer.clear();
+        if (producerBuffers != null) {
+            producerBuffers.clear();
+        }
+    }
+
+    /**
+     * <p>
+     * Waits for the background memory purge, if any, to complete.
+     * </p>
+     */
+    final void awaitPurge() {
+        if (deferredPurge != null) {
+            deferredPurge.await();
+        }
+    }
+
+    /**
+     * <p>
+     * Moves actions of producer threads, if any, into the session's main buffer.
+     * </p>
+     */
+    final void drainProducerBuffers() {
+        if (producerBuffers != null) {
+            producerBuffers.drainTo(actionBuffer);
+        }
     }
 
     abstract void bufferUpdate(FactHandle handle, FactRecord previous, Object fact);
@@ -349,6 +488,27 @@ abstract class AbstractRuleSession<S extends RuleSession<S>> extends AbstractRun
         }
     }
 
+    /**
+     * <p>
+     * Inserts a fact derived by the engine itself. Unlike user facts, derived facts are always
+     * accepted: their type is declared, and its memory is allocated, on the first insert.
+     * </p>
+     *
+     * @param fact   derived fact
+     * @param buffer destination buffer
+     * @return fact handle
+     */
+    final FactHandle bufferInsertDerived(Object fact, FactActionBuffer buffer) {
+        _assertActive();
+        Type<?> type = resolve(fact);
+        if (type == null) {
+            type = getTypeResolver().getOrDeclare(fact.getClass());
+        }
+        Optional<FactTuple> insertResult = memory.getCreateUpdate(type.getId()).register(fact);
+        insertResult.ifPresent(t -> buffer.newInsert(t.handle, t.record));
+        return insertResult.map(t -> t.handle).orElse(null);
+    }
+
     private Optional<FactTuple> insertAtomic(Object o) {
         Type<?> type = resolve(o);
         if (type == null) {
@@ -8,17 +8,39 @@ import org.evrete.runtime.evaluation.MemoryAddress;
 import org.evrete.util.Mask;
 
 import java.util.*;
+import java.util.function.Function;
 
 abstract class AbstractRuleSessionIO<S extends RuleSession<S>> extends AbstractRuleSession<S> {
+    private volatile Thread firingThread;
 
     AbstractRuleSessionIO(KnowledgeRuntime knowledge) {
         super(knowledge);
     }
 
+    AbstractRuleSessionIO(AbstractRuleSessionIO<?> parent) {
+        super(parent);
+    }
+
     void fireInner() {
         for (SessionLifecycleListener e : lifecycleListeners) {
             e.onEvent(SessionLifecycleListener.Event.PRE_FIRE);
         }
+        awaitPurge();
+        drainProducerBuffers();
+        // Expired facts are deleted in the same batch as the pending changes
+        synchronized (actionBuffer) {
+            expirations.expire(actionBuffer);
+        }
+        // Changes that the firing thread makes, e.g. in listeners or via the session in RHS, go to the main buffer
+        this.firingThread = Thread.currentThread();
+        try {
+            fireByMode();
+        } finally {
+            this.firingThread = null;
+        }
+    }
+
+    private void fireByMode() {
         switch (getAgendaMode()) {
             case DEFAULT:
                 fireDefault(new ActivationContext());
@@ -26,6 +48,9 @@ abstract class AbstractRuleSessionIO<S extends RuleSession<S>> extends AbstractR
             case CONTINUOUS:
                 fireContinuous(new ActivationContext());
                 break;
+            case AGENDA:
+                fireAgenda(new ActivationContext());
+                break;
             default:
                 throw new IllegalStateException("Unknown mode " + getAgendaMode());
         }
@@ -43,10 +68,12 @@ abstract class AbstractRuleSessionIO<S extends RuleSession<S>> extends AbstractR
                 for (RuntimeRuleImpl rule : agenda) {
                     if (activationManager.test(rule)) {
                         activationManager.onActivation(rule, rule.callRhs(buff));
-                        buff.copyToAndClear(actionBuffer);
+                        toMainBuffer(buff);
                     }
                 }
             }
+            flushAggregations(buff);
+            toMainBuffer(buff);
             deltaStatus.commitDeltas();
             deleteMask.or(deltaStatus.getDeleteMask());
         }
@@ -68,15 +95,82 @@ abstract class AbstractRuleSessionIO<S extends RuleSession<S>> extends AbstractR
                         activationManager.onActivation(rule, rule.callRhs(buff));
                     }
                 }
-                buff.copyToAndClear(actionBuffer);
             }
+            flushAggregations(buff);
+            toMainBuffer(buff);
             deltaStatus.commitDeltas();
             deleteMask.or(deltaStatus.getDeleteMask());
         }
         purge(deleteMask);
     }
 
+    private void fireAgenda(ActivationContext ctx) {
+        List<RuntimeRuleImpl> rules;
+        Mask<MemoryAddress> deleteMask = Mask.addressMask();
+        FactActionBuffer buff = newActionBuffer();
+        agenda.setStrategy(getConflictResolution());
+        while (fireCriteriaMet()) {
+            if (actionBuffer.hasData()) {
+                // New changes are matched before the next activation is selected
+                agenda.onActions(actionBuffer);
+                DeltaMemoryStatus deltaStatus = buildDeltaMemory();
+                rules = deltaStatus.getAgenda();
+                if (!rules.isEmpty()) {
+                    activationManager.onAgenda(ctx.incrementFireCount(), Collections.unmodifiableList(rules));
+                    for (RuntimeRuleImpl rule : rules) {
+                        rule.collectActivations(agenda, buff);
+                    }
+                }
+                flushAggregations(buff);
+                toMainBuffer(buff);
+                deltaStatus.commitDeltas();
+                deleteMask.or(deltaStatus.getDeleteMask());
+            } else {
+                Agenda.ActivationImpl activation = agenda.poll();
+                if (activation == null) {
+                    break;
+                }
+                RuntimeRuleImpl rule = activation.getRuntimeRule();
+                if (activationManager.test(rule)) {
+                    activationManager.onActivation(rule, rule.fire(activation, buff));
+                    // Deleted and updated facts lose their activations right away
+                    agenda.cancel(buff);
+                    toMainBuffer(buff);
+                }
+            }
+        }
+        purge(deleteMask);
+    }
+
+    /**
+     * <p>
+     * Moves the actions into the main buffer, which producer threads may be reading at the same time
+     * </p>
+     *
+     * @param buff actions to move
+     */
+    private void toMainBuffer(FactActionBuffer buff) {
+        synchronized (actionBuffer) {
+            buff.copyToAndClear(actionBuffer);
+        }
+    }
+
+    private void flushAggregations(FactActionBuffer destination) {
+        for (RuntimeRuleImpl rule : ruleStorage) {
+            rule.flushAggregation(destination);
+        }
+    }
+
     private DeltaMemoryStatus buildDeltaMemory() {
+        // Tracking the changes of facts with expiration policies, some of them may expire right away
+        expirations.onActions(actionBuffer);
+
+        // Aggregating rules withdraw contributions of deleted and updated facts,
+        // rules with not/exists conditions update their counters
+        for (RuntimeRuleImpl rule : ruleStorage) {
+            rule.onActions(actionBuffer);
+        }
+
         // Compute entry done deltas
         ComputeDeltaMemoryTask deltaTask = new ComputeDeltaMemoryTask(actionBuffer, memory);
 
@@ -98,7 +192,9 @@ abstract class AbstractRuleSessionIO<S extends RuleSession<S>> extends AbstractR
         DeltaMemoryStatus status = new DeltaMemoryStatus(deleteMask, bucketsToCommit, agenda);
         //status.setAgenda(agenda);
 
-        actionBuffer.clear();
+        synchronized (actionBuffer) {
+            actionBuffer.clear();
+        }
         return status;
     }
 
@@ -122,6 +218,15 @@ abstract class AbstractRuleSessionIO<S extends RuleSession<S>> extends AbstractR
                     }
                 }
             }
+
+            if (!ruleAdded && rule.hasPendingActivations()) {
+                affectedRules.add(rule);
+            }
+        }
+
+        if (sharedNodes != null && !affectedEndNodes.isEmpty()) {
+            // Shared nodes are computed once, before the nodes that subscribe to them
+            sharedNodes.computeDeltas(getExecutor(), matchMask);
         }
 
         List<Completer> tasks = new LinkedList<>();
@@ -139,6 +244,10 @@ abstract class AbstractRuleSessionIO<S extends RuleSession<S>> extends AbstractR
     }
 
     private void purge(Mask<MemoryAddress> factPurgeMask) {
+        if (deferredPurge != null) {
+            deferredPurge.onFire(factPurgeMask);
+            return;
+        }
         if (factPurgeMask.cardinality() > 0) {
             ForkJoinExecutor executor = getExecutor();
             MemoryPurgeTask purgeTask = new MemoryPurgeTask(memory, factPurgeMask);
@@ -149,28 +258,76 @@ abstract class AbstractRuleSessionIO<S extends RuleSession<S>> extends AbstractR
                 executor.invoke(new ConditionMemoryPurgeTask(ruleStorage, emptyKeysMask));
             }
         }
+        for (TypeMemory tm : memory) {
+            tm.clearRetractedHandles();
+        }
     }
 
     @Override
     void bufferUpdate(FactHandle handle, FactRecord previous, Object updatedFact) {
-        bufferUpdate(handle, previous, updatedFact, this.actionBuffer);
+        if (producerBuffers == null) {
+            bufferUpdate(handle, previous, updatedFact, this.actionBuffer);
+        } else {
+            applyConcurrent(handle, buffer -> {
+                bufferUpdate(handle, previous, updatedFact, buffer);
+                return null;
+            });
+        }
     }
 
     @Override
     void bufferDelete(FactHandle handle) {
         FactRecord existing = getFactRecord(handle);
         if (existing != null) {
-            bufferDelete(handle, existing, this.actionBuffer);
+            if (producerBuffers == null) {
+                bufferDelete(handle, existing, this.actionBuffer);
+            } else {
+                applyConcurrent(handle, buffer -> {
+                    bufferDelete(handle, existing, buffer);
+                    return null;
+                });
+            }
         }
     }
 
     @Override
     public FactHandle insert0(Object fact, boolean resolveCollections) {
-        return bufferInsert(fact, resolveCollections, this.actionBuffer);
+        if (producerBuffers == null) {
+            return bufferInsert(fact, resolveCollections, this.actionBuffer);
+        } else {
+            return applyConcurrent(null, buffer -> bufferInsert(fact, resolveCollections, buffer));
+        }
     }
 
     @Override
     public FactHandle insert0(String type, Object fact, boolean resolveCollections) {
-        return bufferInsert(fact, type, resolveCollections, this.actionBuffer);
+        if (producerBuffers == null) {
+            return bufferInsert(fact, type, resolveCollections, this.actionBuffer);
+        } else {
+            return applyConcurrent(null, buffer -> bufferInsert(fact, type, resolveCollections, buffer));
+        }
+    }
+
+    /**
+     * <p>
+     * Applies an action in the multi-producer mode. The firing thread writes to the main buffer,
+     * other threads write to their own buffers, or to the buffer that holds the fact's pending action.
+     * </p>
+     *
+     * @param handle handle of an existing fact, or null for inserts
+     * @param action action to apply
+     * @param <T>    result type
+     * @return action's result
+     */
+    private <T> T applyConcurrent(FactHandle handle, Function<FactActionBuffer, T> action) {
+        if (Thread.currentThread() == firingThread) {
+            synchronized (actionBuffer) {
+                return action.apply(actionBuffer);
+            }
+        } else if (handle == null) {
+            return producerBuffers.apply(action);
+        } else {
+            return producerBuffers.apply(handle, action);
+        }
     }
 }
@@ -4,6 +4,7 @@ import org.evrete.Configuration;
 import org.evrete.KnowledgeService;
 import org.evrete.api.*;
 import org.evrete.runtime.async.ForkJoinExecutor;
+import org.evrete.runtime.compiler.ClassCache;
 import org.evrete.runtime.compiler.CompilationException;
 import org.evrete.runtime.compiler.RuntimeClassloader;
 import org.evrete.runtime.compiler.SourceCompiler;
@@ -28,8 +29,10 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
     private Comparator<Rule> ruleComparator = SALIENCE_COMPARATOR;
     private Class<? extends ActivationManager> activationManagerFactory;
     private ActivationMode agendaMode;
+    private Comparator<Activation> conflictResolution = Activation.SALIENCE;
     private RuleBuilderExceptionHandler ruleBuilderExceptionHandler;
     private RuntimeClassloader classloader;
+    private final ConditionStatistics conditionStatistics;
 
     AbstractRuntime(KnowledgeService service, TypeResolver typeResolver) {
         super(service, typeResolver);
@@ -42,6 +45,7 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
             throw e;
         };
         this.noNameRuleCounter = new AtomicInteger();
+        this.conditionStatistics = new ConditionStatistics();
     }
 
     AbstractRuntime(KnowledgeService service) {
@@ -60,13 +64,19 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
         this.ruleComparator = parent.ruleComparator;
         this.activationManagerFactory = parent.activationManagerFactory;
         this.agendaMode = parent.agendaMode;
+        this.conflictResolution = parent.conflictResolution;
         this.expressionResolver = null;
         this.ruleBuilderExceptionHandler = parent.ruleBuilderExceptionHandler;
         this.noNameRuleCounter = parent.noNameRuleCounter;
         this.classloader = new RuntimeClassloader(parent.classloader);
+        this.conditionStatistics = parent.conditionStatistics;
     }
 
-    protected abstract void addRuleInner(RuleBuilder<?> builder) throws CompilationException;
+    protected abstract void addRuleDescriptor(RuleDescriptor descriptor);
+
+    ConditionStatistics getConditionStatistics() {
+        return conditionStatistics;
+    }
 
     ActivationMode getAgendaMode() {
         return agendaMode;
@@ -75,7 +85,7 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
     @Override
     public final void addRule(RuleBuilder<?> builder) {
         try {
-            addRuleInner(builder);
+            addRuleDescriptor(compileRuleBuilder((RuleBuilderImpl<?>) builder));
         } catch (RuntimeException e) {
             this.ruleBuilderExceptionHandler.handle(this, builder, e);
         } catch (CompilationException e) {
@@ -84,6 +94,33 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
         }
     }
 
+    @Override
+    public final void addRules(Collection<? extends RuleBuilder<?>> builders) {
+        List<RuleBuilderImpl<?>> impls = new ArrayList<>(builders.size());
+        Function<RuleBuilderImpl<?>, LhsConditionHandles> lhsConditions;
+        try {
+            for (RuleBuilder<?> builder : builders) {
+                impls.add((RuleBuilderImpl<?>) builder);
+            }
+            lhsConditions = compileRuleBuilders(impls);
+        } catch (RuntimeException | CompilationException e) {
+            // Adding the rules one by one, so that errors are reported for each rule separately
+            LOGGER.log(Level.FINE, "Failed to compile rules at once, compiling them separately", e);
+            for (RuleBuilder<?> builder : builders) {
+                addRule(builder);
+            }
+            return;
+        }
+
+        for (RuleBuilderImpl<?> builder : impls) {
+            try {
+                addRuleDescriptor(compileRuleBuilder(builder, lhsConditions));
+            } catch (RuntimeException e) {
+                this.ruleBuilderExceptionHandler.handle(this, builder, e);
+            }
+        }
+    }
+
     @Override
     public final RuntimeClassloader getClassLoader() {
         return classloader;
@@ -91,6 +128,7 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
 
     @Override
     public void setClassLoader(ClassLoader classLoader) {
+        markModified();
         this.classloader = new RuntimeClassloader(classLoader);
     }
 
@@ -101,7 +139,7 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
 
     @Override
     public final JavaSourceCompiler getSourceCompiler() {
-        return new SourceCompiler(classloader);
+        return new SourceCompiler(classloader, ClassCache.of(getConfiguration()));
     }
 
     @Override
@@ -112,6 +150,19 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
         return (C) this;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public C setConflictResolution(Comparator<Activation> strategy) {
+        _assertActive();
+        this.conflictResolution = Objects.requireNonNull(strategy);
+        return (C) this;
+    }
+
+    @Override
+    public Comparator<Activation> getConflictResolution() {
+        return conflictResolution;
+    }
+
     @Override
     public KnowledgeService getService() {
         _assertActive();
@@ -142,6 +193,19 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
         }
     }
 
+    /**
+     * <p>
+     * Restores the activation settings of a session from its parent context.
+     * </p>
+     *
+     * @param parent parent context
+     */
+    void resetActivationSettings(AbstractRuntime<?, ?> parent) {
+        this.activationManagerFactory = parent.activationManagerFactory;
+        this.agendaMode = parent.agendaMode;
+        this.conflictResolution = parent.conflictResolution;
+    }
+
     ActivationManager newActivationManager() {
         try {
             return activationManagerFactory.getDeclaredConstructor().newInstance();
@@ -196,6 +260,34 @@ public abstract class AbstractRuntime<R extends Rule, C extends RuntimeContext<C
         return compileRuleBuilder(ruleBuilder, func);
     }
 
+    /**
+     * <p>
+     * Compiles literal actions and conditions of the given rule builders, each in a single compiler task.
+     * </p>
+     *
+     * @param ruleBuilders rule builders
+     * @return condition handles of each builder
+     * @throws CompilationException if compilation failed
+     */
+    synchronized Function<RuleBuilderImpl<?>, LhsConditionHandles> compileRuleBuilders(List<RuleBuilderImpl<?>> ruleBuilders) throws CompilationException {
+        _assertActive();
+        List<RuleBuilderImpl<?>> literalRhs = new ArrayList<>(ruleBuilders.size());
+        for (RuleBuilderImpl<?> ruleBuilder : ruleBuilders) {
+            if (ruleBuilder.getLiteralRhs() != null) {
+                literalRhs.add(ruleBuilder);
+            }
+        }
+
+        if (!literalRhs.isEmpty()) {
+            List<Consumer<RhsContext>> compiled = service.getLiteralRhsCompiler().compileRhs(this, literalRhs);
+            for (int i = 0; i < compiled.size(); i++) {
+                literalRhs.get(i).setRhs(compiled.get(i));
+            }
+        }
+
+        return LhsConditions.compile(this, ruleBuilders);
+    }
+
     synchronized RuleDescriptor compileRuleBuilder(RuleBuilderImpl<?> ruleBuilder, Function<RuleBuilderImpl<?>, LhsConditionHandles> lhsConditions) {
         _assertActive();
         if (!this.ruleBuilders.remove(ruleBuilder)) {
@@ -0,0 +1,265 @@
+package org.evrete.runtime;
+
+import org.evrete.api.Action;
+import org.evrete.api.Activation;
+import org.evrete.api.FactHandle;
+import org.evrete.api.RuntimeRule;
+
+import java.util.*;
+
+/**
+ * <p>
+ * Pending activations of the {@link org.evrete.api.ActivationMode#AGENDA} mode, kept in a priority heap
+ * ordered by the session's conflict resolution strategy. Activations are indexed by their fact handles,
+ * so that deleting or updating a fact cancels its activations at the cost of the number of those activations.
+ * Activations of rules with {@code not} and {@code exists} conditions are also cancelled when their facts
+ * stop satisfying those conditions.
+ * Cancelled activations are marked rather than removed from the heap, and skipped when they reach its head.
+ * </p>
+ * <p>
+ * Time tags are stored in the facts' records, so that they go away along with the facts.
+ * </p>
+ */
+class Agenda {
+    private PriorityQueue<ActivationImpl> queue;
+    private final Map<FactHandle, Set<ActivationImpl>> activations = new HashMap<>();
+    private long sequence = 0L;
+    private long timeTag = 0L;
+
+    Agenda(Comparator<Activation> strategy) {
+        this.queue = new PriorityQueue<>(strategy);
+    }
+
+    /**
+     * <p>
+     * Re-orders pending activations if the strategy has changed.
+     * </p>
+     *
+     * @param strategy conflict resolution strategy
+     */
+    void setStrategy(Comparator<Activation> strategy) {
+        if (queue.comparator() != strategy) {
+            PriorityQueue<ActivationImpl> reordered = new PriorityQueue<>(Math.max(1, queue.size()), strategy);
+            reordered.addAll(queue);
+            this.queue = reordered;
+        }
+    }
+
+    /**
+     * <p>
+     * Assigns time tags to the inserted and updated facts, and cancels activations
+     * of the deleted and updated ones.
+     * </p>
+     *
+     * @param buffer pending memory actions
+     */
+    void onActions(FactActionBuffer buffer) {
+        buffer.forEach(action -> {
+            if (action.action != Action.INSERT) {
+                cancel(action.handle);
+            }
+            if (action.action != Action.RETRACT) {
+                action.getDelta().getLatest().timeTag = ++timeTag;
+            }
+        });
+    }
+
+    /**
+     * <p>
+     * Cancels activations of the facts that are deleted or updated by an RHS call.
+     * </p>
+     *
+     * @param buffer actions of an RHS call
+     */
+    void cancel(FactActionBuffer buffer) {
+        buffer.forEach(action -> {
+            if (action.action != Action.INSERT) {
+                cancel(action.handle);
+            }
+        });
+    }
+
+    private void cancel(FactHandle handle) {
+        Set<ActivationImpl> set = activations.remove(handle);
+        if (set != null) {
+            for (ActivationImpl activation : set) {
+                activation.cancelled = true;
+                unIndex(activation);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Cancels the activation of a rule on the given facts, used when a combination of facts
+     * no longer satisfies the rule's {@code not} or {@code exists} conditions.
+     * </p>
+     *
+     * @param rule    rule
+     * @param handles fact handles of the activation, in the order of the rule's fact types
+     */
+    void cancel(RuntimeRuleImpl rule, List<FactHandle> handles) {
+        Set<ActivationImpl> set = activations.get(handles.get(0));
+        if (set != null) {
+            for (ActivationImpl activation : set.toArray(new ActivationImpl[0])) {
+                if (activation.rule == rule && handles.equals(Arrays.asList(activation.handles))) {
+                    activation.cancelled = true;
+                    unIndex(activation);
+                }
+            }
+        }
+    }
+
+    private void unIndex(ActivationImpl activation) {
+        for (FactHandle handle : activation.handles) {
+            Set<ActivationImpl> set = activations.get(handle);
+            if (set != null) {
+                set.remove(activation);
+                if (set.isEmpty()) {
+                    activations.remove(handle);
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Adds the current combination of a rule's facts as a new activation.
+     * </p>
+     *
+     * @param rule          rule
+     * @param factTypeNodes rule's current facts
+     */
+    void add(RuntimeRuleImpl rule, RhsFactType[] factTypeNodes) {
+        int size = factTypeNodes.length;
+        FactHandle[] handles = new FactHandle[size];
+        FactRecord[] records = new FactRecord[size];
+        long[] tags = new long[size];
+        for (int i = 0; i < size; i++) {
+            handles[i] = factTypeNodes[i].handle();
+            records[i] = factTypeNodes[i].record;
+            tags[i] = records[i].timeTag;
+        }
+        ActivationImpl activation = new ActivationImpl(rule, ++sequence, handles, records, distinctDescending(tags));
+        for (FactHandle handle : handles) {
+            activations.computeIfAbsent(handle, h -> new HashSet<>()).add(activation);
+        }
+        queue.add(activation);
+    }
+
+    /**
+     * @return next activation or {@code null} if the agenda is empty
+     */
+    ActivationImpl poll() {
+        ActivationImpl next;
+        while ((next = queue.poll()) != null) {
+            if (!next.cancelled) {
+                unIndex(next);
+                return next;
+            }
+        }
+        return null;
+    }
+
+    boolean isEmpty() {
+        ActivationImpl head;
+        while ((head = queue.peek()) != null && head.cancelled) {
+            queue.poll();
+        }
+        return queue.isEmpty();
+    }
+
+    void copyFrom(Agenda other) {
+        if (!other.isEmpty()) {
+            throw new IllegalStateException("Session has pending activations");
+        }
+        this.timeTag = other.timeTag;
+        this.sequence = other.sequence;
+    }
+
+    void clear() {
+        queue.clear();
+        activations.clear();
+    }
+
+    /**
+     * <p>
+     * Sorts time tags in descending order and drops the duplicates, which appear when several
+     * fact types of a rule are matched by the same fact.
+     * </p>
+     */
+    private static long[] distinctDescending(long[] tags) {
+        Arrays.sort(tags);
+        long[] result = new long[tags.length];
+        int count = 0;
+        for (int i = tags.length - 1; i >= 0; i--) {
+            if (count == 0 || result[count - 1] != tags[i]) {
+                result[count++] = tags[i];
+            }
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    static class ActivationImpl implements Activation {
+        private final RuntimeRuleImpl rule;
+        private final long sequence;
+        private final FactHandle[] handles;
+        private final FactRecord[] records;
+        private final long[] timeTags;
+        private boolean cancelled;
+
+        ActivationImpl(RuntimeRuleImpl rule, long sequence, FactHandle[] handles, FactRecord[] records, long[] timeTags) {
+            this.rule = rule;
+            this.sequence = sequence;
+            this.handles = handles;
+            this.records = records;
+            this.timeTags = timeTags;
+        }
+
+        @Override
+        public RuntimeRule getRule() {
+            return rule;
+        }
+
+        RuntimeRuleImpl getRuntimeRule() {
+            return rule;
+        }
+
+        @Override
+        public long getSequence() {
+            return sequence;
+        }
+
+        @Override
+        public long[] getTimeTags() {
+            return timeTags;
+        }
+
+        /**
+         * <p>
+         * Copies the activation's facts to the rule's RHS state.
+         * </p>
+         *
+         * @param session       session
+         * @param factTypeNodes rule's RHS state
+         * @return {@code false} if any of the facts has been deleted or changed since the activation was created
+         */
+        boolean readFacts(AbstractRuleSession<?> session, RhsFactType[] factTypeNodes) {
+            for (int i = 0; i < handles.length; i++) {
+                FactRecord current = session.getFactRecord(handles[i]);
+                if (current == null || current.getVersion() != records[i].getVersion()) {
+                    return false;
+                }
+                factTypeNodes[i].setCurrentFact(handles[i], current);
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "{rule=" + rule.getName() +
+                    ", sequence=" + sequence +
+                    '}';
+        }
+    }
+}
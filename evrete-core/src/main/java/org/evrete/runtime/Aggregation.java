@@ -0,0 +1,36 @@
+package org.evrete.runtime;
+
+import org.evrete.api.Aggregate;
+import org.evrete.api.RhsContext;
+
+import java.util.Objects;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Definition of an aggregating rule. The definition takes the place of the rule's RHS, so that it is
+ * copied along with the rule, and every session builds its own {@link RuntimeAggregation} from it.
+ * </p>
+ *
+ * @param <K> group key type
+ * @param <V> aggregated value type
+ * @param <R> aggregate's result type
+ */
+final class Aggregation<K, V, R> implements Consumer<RhsContext> {
+    final Function<RhsContext, K> groupBy;
+    final Aggregate<V, R> aggregate;
+    final BiFunction<K, R, ?> result;
+
+    Aggregation(Function<RhsContext, K> groupBy, Aggregate<V, R> aggregate, BiFunction<K, R, ?> result) {
+        this.groupBy = Objects.requireNonNull(groupBy);
+        this.aggregate = Objects.requireNonNull(aggregate);
+        this.result = Objects.requireNonNull(result);
+    }
+
+    @Override
+    public void accept(RhsContext ctx) {
+        throw new IllegalStateException("Aggregating rules can only be evaluated by sessions");
+    }
+}
@@ -0,0 +1,319 @@
+package org.evrete.runtime;
+
+import org.evrete.api.Evaluator;
+import org.evrete.api.LiteralEvaluator;
+import org.evrete.api.LiteralExpression;
+import org.evrete.api.TypeField;
+import org.evrete.runtime.evaluation.AlphaEvaluator;
+import org.evrete.runtime.evaluation.EvaluatorWrapper;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * An interval index of alpha conditions that compare the same primitive numeric field with
+ * constants, like <code>$a.price &gt; 100</code> or <code>$a.price &lt;= 500</code>. The constants split the
+ * field's domain into intervals, and for each interval the index stores the results of all its conditions.
+ * A fact's alpha tests are then computed with a single binary search over the constants instead of
+ * evaluating every condition.
+ * </p>
+ * <p>
+ * The index only holds while its conditions stay unchanged and nobody listens to their evaluations,
+ * otherwise the conditions are evaluated one by one as usual.
+ * </p>
+ */
+class AlphaIntervalIndex {
+    // Minimal number of conditions on a field that makes an index worthwhile
+    static final int MIN_CONDITIONS = 2;
+    private static final String OPERATOR = "(<=|>=|==|!=|<|>)";
+    private static final String NUMBER = "(-?\\d+(?:\\.\\d+)?[lLfFdD]?)";
+    private static final Pattern FIELD_FIRST = Pattern.compile("^\\s*\\$[\\w.]+\\s*" + OPERATOR + "\\s*" + NUMBER + "\\s*$");
+    private static final Pattern CONSTANT_FIRST = Pattern.compile("^\\s*" + NUMBER + "\\s*" + OPERATOR + "\\s*\\$[\\w.]+\\s*$");
+    private static final Pattern INTEGRAL = Pattern.compile("^-?\\d+[lL]?$");
+    private final int valueIndex;
+    private final boolean floating;
+    private final long[] longBounds;
+    private final double[] doubleBounds;
+    // Passed conditions for each interval: even positions are open intervals between
+    // the bounds, odd positions are the bounds themselves
+    private final BitSet[] intervals;
+    private final EvaluatorWrapper[] wrappers;
+    private final Evaluator[] delegates;
+    private final int[] alphaIndices;
+
+    private AlphaIntervalIndex(int valueIndex, boolean floating, List<Term> terms) {
+        this.valueIndex = valueIndex;
+        this.floating = floating;
+        this.wrappers = new EvaluatorWrapper[terms.size()];
+        this.delegates = new Evaluator[terms.size()];
+        this.alphaIndices = new int[terms.size()];
+
+        // Sorted distinct bounds
+        TreeSet<Double> doubles = new TreeSet<>();
+        TreeSet<Long> longs = new TreeSet<>();
+        for (Term term : terms) {
+            if (floating) {
+                // Normalizing negative zero, Java's comparison operators don't tell it from the positive one
+                doubles.add(term.doubleBound + 0.0);
+            } else {
+                longs.add(term.longBound);
+            }
+        }
+        int boundCount = floating ? doubles.size() : longs.size();
+        this.doubleBounds = new double[floating ? boundCount : 0];
+        this.longBounds = new long[floating ? 0 : boundCount];
+        int b = 0;
+        for (Double d : doubles) {
+            this.doubleBounds[b++] = d;
+        }
+        b = 0;
+        for (Long l : longs) {
+            this.longBounds[b++] = l;
+        }
+
+        this.intervals = new BitSet[boundCount * 2 + 1];
+        for (int i = 0; i < intervals.length; i++) {
+            intervals[i] = new BitSet();
+        }
+
+        for (int t = 0; t < terms.size(); t++) {
+            Term term = terms.get(t);
+            this.wrappers[t] = term.wrapper;
+            this.delegates[t] = term.wrapper.getDelegate();
+            this.alphaIndices[t] = term.alphaIndex;
+            int rank = floating ? Arrays.binarySearch(doubleBounds, term.doubleBound + 0.0) : Arrays.binarySearch(longBounds, term.longBound);
+            for (int interval = 0; interval < intervals.length; interval++) {
+                // Sign of the comparison between any value in the interval and the term's bound
+                int sign;
+                if (interval % 2 == 0) {
+                    sign = rank < interval / 2 ? 1 : -1;
+                } else {
+                    int bound = interval / 2;
+                    sign = Integer.compare(bound, rank);
+                }
+                if (term.test(sign)) {
+                    intervals[interval].set(term.alphaIndex);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param alphaEvaluators type's alpha conditions
+     * @param evaluators      evaluator storage
+     * @param fields          type's active fields
+     * @return interval indices of eligible conditions, grouped by field
+     */
+    static AlphaIntervalIndex[] build(AlphaEvaluator[] alphaEvaluators, EvaluatorStorageImpl evaluators, TypeField[] fields) {
+        Map<Integer, List<Term>> byField = new TreeMap<>();
+        for (AlphaEvaluator alphaEvaluator : alphaEvaluators) {
+            ActiveField[] descriptor = alphaEvaluator.getDescriptor();
+            if (descriptor.length != 1) continue;
+            int valueIndex = descriptor[0].getValueIndex();
+            EvaluatorWrapper wrapper = evaluators.get(alphaEvaluator.getDelegate(), false);
+            Term term = Term.parse(wrapper, alphaEvaluator.getIndex(), fields[valueIndex].getValueType());
+            if (term != null) {
+                byField.computeIfAbsent(valueIndex, k -> new ArrayList<>()).add(term);
+            }
+        }
+
+        List<AlphaIntervalIndex> result = new ArrayList<>(byField.size());
+        for (Map.Entry<Integer, List<Term>> entry : byField.entrySet()) {
+            List<Term> terms = entry.getValue();
+            if (terms.size() >= MIN_CONDITIONS) {
+                result.add(new AlphaIntervalIndex(entry.getKey(), isFloating(fields[entry.getKey()].getValueType()), terms));
+            }
+        }
+        return result.toArray(new AlphaIntervalIndex[0]);
+    }
+
+    private static boolean isFloating(Class<?> type) {
+        return type == double.class || type == float.class;
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == int.class || type == long.class || type == short.class || type == byte.class || type == char.class;
+    }
+
+    /**
+     * @return indices of the alpha conditions that this index covers
+     */
+    int[] getAlphaIndices() {
+        return alphaIndices;
+    }
+
+    /**
+     * @return false if any of the conditions has been replaced, or if their evaluations are being listened to
+     */
+    boolean isValid() {
+        for (int i = 0; i < wrappers.length; i++) {
+            EvaluatorWrapper wrapper = wrappers[i];
+            if (wrapper.getDelegate() != delegates[i] || wrapper.hasListeners()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Sets the alpha bits of the passed conditions.
+     * </p>
+     *
+     * @param values     current field values
+     * @param alphaTests fact's alpha test results
+     * @return false if the value can not be looked up (NaN), so that the conditions need to be evaluated directly
+     */
+    boolean test(Object[] values, BitSet alphaTests) {
+        int interval;
+        Object value = values[valueIndex];
+        if (floating) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d)) {
+                return false;
+            }
+            interval = search(d);
+        } else {
+            interval = search(value instanceof Character ? (long) (Character) value : ((Number) value).longValue());
+        }
+        alphaTests.or(intervals[interval]);
+        return true;
+    }
+
+    private int search(long value) {
+        int low = 0;
+        int high = longBounds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long bound = longBounds[mid];
+            if (bound < value) {
+                low = mid + 1;
+            } else if (bound > value) {
+                high = mid - 1;
+            } else {
+                return mid * 2 + 1;
+            }
+        }
+        return low * 2;
+    }
+
+    private int search(double value) {
+        int low = 0;
+        int high = doubleBounds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            double bound = doubleBounds[mid];
+            if (bound < value) {
+                low = mid + 1;
+            } else if (bound > value) {
+                high = mid - 1;
+            } else {
+                return mid * 2 + 1;
+            }
+        }
+        return low * 2;
+    }
+
+    /**
+     * A single comparison of a field with a constant
+     */
+    private static class Term {
+        private final EvaluatorWrapper wrapper;
+        private final int alphaIndex;
+        private final String operator;
+        private final long longBound;
+        private final double doubleBound;
+
+        private Term(EvaluatorWrapper wrapper, int alphaIndex, String operator, long longBound, double doubleBound) {
+            this.wrapper = wrapper;
+            this.alphaIndex = alphaIndex;
+            this.operator = operator;
+            this.longBound = longBound;
+            this.doubleBound = doubleBound;
+        }
+
+        /**
+         * @return parsed term, or null if the condition is not a comparison of the field with a constant
+         */
+        static Term parse(EvaluatorWrapper wrapper, int alphaIndex, Class<?> fieldType) {
+            Evaluator delegate = wrapper.getDelegate();
+            if (!(delegate instanceof LiteralEvaluator)) return null;
+            LiteralExpression source = ((LiteralEvaluator) delegate).getSource();
+            if (source == null) return null;
+
+            String operator;
+            String constant;
+            Matcher m = FIELD_FIRST.matcher(source.getSource());
+            if (m.matches()) {
+                operator = m.group(1);
+                constant = m.group(2);
+            } else {
+                m = CONSTANT_FIRST.matcher(source.getSource());
+                if (!m.matches()) return null;
+                constant = m.group(1);
+                operator = flip(m.group(2));
+            }
+
+            try {
+                if (isIntegral(fieldType)) {
+                    if (!INTEGRAL.matcher(constant).matches()) return null;
+                    long bound = Long.parseLong(stripSuffix(constant));
+                    return new Term(wrapper, alphaIndex, operator, bound, 0.0);
+                } else if (isFloating(fieldType)) {
+                    char last = constant.charAt(constant.length() - 1);
+                    double bound = last == 'f' || last == 'F' ? Float.parseFloat(constant) : Double.parseDouble(stripSuffix(constant));
+                    return new Term(wrapper, alphaIndex, operator, 0L, bound);
+                } else {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private static String stripSuffix(String constant) {
+            char last = constant.charAt(constant.length() - 1);
+            return Character.isDigit(last) ? constant : constant.substring(0, constant.length() - 1);
+        }
+
+        private static String flip(String operator) {
+            switch (operator) {
+                case "<":
+                    return ">";
+                case "<=":
+                    return ">=";
+                case ">":
+                    return "<";
+                case ">=":
+                    return "<=";
+                default:
+                    return operator;
+            }
+        }
+
+        /**
+         * @param sign sign of the comparison between a field value and the term's constant
+         * @return the term's result for such values
+         */
+        boolean test(int sign) {
+            switch (operator) {
+                case "<":
+                    return sign < 0;
+                case "<=":
+                    return sign <= 0;
+                case ">":
+                    return sign > 0;
+                case ">=":
+                    return sign >= 0;
+                case "==":
+                    return sign == 0;
+                case "!=":
+                    return sign != 0;
+                default:
+                    throw new IllegalStateException();
+            }
+        }
+    }
+}
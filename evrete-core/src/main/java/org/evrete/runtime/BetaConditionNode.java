@@ -1,26 +1,63 @@
 package org.evrete.runtime;
 
+import org.evrete.Configuration;
 import org.evrete.api.*;
 import org.evrete.runtime.evaluation.BetaEvaluator;
 import org.evrete.runtime.evaluation.EvaluatorWrapper;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.function.Consumer;
 
 import static org.evrete.util.Constants.DELETED_MEMORY_KEY_FLAG;
 
 public class BetaConditionNode extends AbstractBetaConditionNode {
     static final BetaConditionNode[] EMPTY_ARRAY = new BetaConditionNode[0];
-    private final MemoryKeyNode[] evaluationState;
+    private static final long REPLAN_DRIFT_FACTOR = 2L;
     private final SourceMeta[] sourceMetas;
-    private final CachingEvaluator cachingEvaluator;
+    // Current order of nested source loops, the innermost source comes last
+    private SourceMeta[] plan;
+    private final KeyMode[] planModes;
+    // Source cardinalities the current plan is based on
+    private long[] plannedCardinalities;
+    private final long replanInterval;
+    // Delta computations that have evaluated the condition since the last planning
+    private long sampledComputations = 0L;
     private final int[] descriptorIndices;
+    private final FactType[] allFactTypes;
+    private final BetaEvaluator expression;
+    private final ValueResolver valueResolver;
+    private final RuntimeBetaEvaluator betaEvaluator;
+    // Evaluator arguments' coordinates, per constituent: fact type index and field position
+    private final int[][] argumentTypes;
+    private final int[][] argumentFields;
+    private final EvaluationState mainState;
+    // Evaluation states of parallel forks, created on demand and reused
+    private final List<EvaluationState> forkStates = new ArrayList<>();
+    private final long parallelThreshold;
+    // Hash indices of the innermost source's delta keys, built on demand per key mode during a single
+    // delta computation. The index of the committed keys is kept by the source itself.
+    private final EqualityJoin.Index[] joinIndices = new EqualityJoin.Index[KeyMode.values().length];
+    // Equality term of the innermost source, or null if hash lookups are not available
+    private EqualityJoin equalityJoin;
+    private EqualityJoin.Index currentJoinIndex;
+    // Whether the current index is the source's committed one, whose lookups mark the keys
+    // as OLD_OLD ones just like the iterators of sources' main stores do
+    private boolean currentJoinCommitted;
+    // Whether the node is subscribed to by more than one node or rule, see SharedBetaNodes
+    private boolean shared = false;
 
     BetaConditionNode(RuntimeRuleImpl rule, ConditionNodeDescriptor descriptor, BetaMemoryNode[] sources) {
         super(rule, descriptor, sources);
-        BetaEvaluator expression = descriptor.getExpression();
-        ValueResolver valueResolver = rule.getRuntime().memory.memoryFactory.getValueResolver();
-        FactType[] allFactTypes = rule.getFactTypes();
-        this.evaluationState = new MemoryKeyNode[allFactTypes.length];
+        this.expression = descriptor.getExpression();
+        this.valueResolver = rule.getRuntime().memory.memoryFactory.getValueResolver();
+        this.allFactTypes = rule.getFactTypes();
+        Configuration configuration = rule.getRuntime().getConfiguration();
+        this.parallelThreshold = configuration.getAsInteger(Configuration.PARALLEL_DELTA_THRESHOLD, Configuration.PARALLEL_DELTA_THRESHOLD_DEFAULT);
+        this.replanInterval = configuration.getAsInteger(Configuration.JOIN_REPLAN_INTERVAL, Configuration.JOIN_REPLAN_INTERVAL_DEFAULT);
 
         FactType[] types = getDescriptor().getTypes();
         this.descriptorIndices = new int[types.length];
@@ -28,40 +65,33 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
             this.descriptorIndices[i] = types[i].getInRuleIndex();
         }
 
-        RuntimeBetaEvaluator betaEvaluator = new RuntimeBetaEvaluator(getRuntime(), expression);
-        this.cachingEvaluator = new CachingEvaluator(betaEvaluator);
-
-        for (FactType type : allFactTypes) {
-            MemoryKeyNode keyMeta;
-            if (expression.getFactTypeMask().get(type)) {
-                // This fact type is a part of condition evaluation
-                keyMeta = new ConditionMemoryKeyNode(type, valueResolver, expression, cachingEvaluator);
-            } else {
-                // This is a pass-through type, no field value reads are required
-                keyMeta = new MemoryKeyNode();
-            }
-            this.evaluationState[type.getInRuleIndex()] = keyMeta;
-        }
+        this.betaEvaluator = new RuntimeBetaEvaluator(getRuntime(), expression);
 
+        EvaluatorWrapper[] childConditions = betaEvaluator.constituents();
+        // Shared sources may have been built for other rules, so the fact types are taken from this node's descriptor
+        NodeDescriptor[] sourceDescriptors = descriptor.getSources();
         this.sourceMetas = new SourceMeta[sources.length];
         for (int i = 0; i < sources.length; i++) {
-            sourceMetas[i] = new SourceMeta(sources[i]);
+            sourceMetas[i] = new SourceMeta(i, sources[i], sourceDescriptors[i].getTypes(), rule, childConditions);
         }
-
-        EvaluatorWrapper[] childConditions = betaEvaluator.constituents();
-        for (EvaluatorWrapper e : childConditions) {
-            FieldReference[] refs = e.descriptor();
-            final ConditionValueReader[] valueReaders = new ConditionValueReader[refs.length];
+        this.plan = sourceMetas.clone();
+        this.planModes = new KeyMode[sources.length];
+
+        this.argumentTypes = new int[childConditions.length][];
+        this.argumentFields = new int[childConditions.length][];
+        for (int c = 0; c < childConditions.length; c++) {
+            FieldReference[] refs = childConditions[c].descriptor();
+            this.argumentTypes[c] = new int[refs.length];
+            this.argumentFields[c] = new int[refs.length];
             for (int i = 0; i < refs.length; i++) {
                 FieldReference ref = refs[i];
                 FactType factType = rule.resolveFactType(ref.type());
-                final int typeId = factType.getInRuleIndex();
-                final int fieldPosition = factType.findFieldPosition(ref.field());
-                valueReaders[i] = new ConditionValueReader(evaluationState, typeId, fieldPosition);
+                this.argumentTypes[c][i] = factType.getInRuleIndex();
+                this.argumentFields[c][i] = factType.findFieldPosition(ref.field());
             }
-            e.setStateValues(i -> valueReaders[i].get());
         }
 
+        this.mainState = new EvaluationState();
     }
 
     public static void forEachConditionNode(BetaConditionNode node, Consumer<BetaConditionNode> consumer) {
@@ -73,13 +103,102 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
         }
     }
 
+    /**
+     * @return {@code true} if the node's delta is computed separately from its subscribers' deltas
+     * @see SharedBetaNodes
+     */
+    public boolean isShared() {
+        return shared;
+    }
+
+    void setShared() {
+        this.shared = true;
+    }
+
     @Override
     public void commitDelta() {
         throw new UnsupportedOperationException();
     }
 
     public void computeDelta(boolean deltaOnly) {
+        if (sourceMetas.length > 1 && replanInterval > 0 && sampledComputations >= replanInterval) {
+            sampledComputations = 0L;
+            replan();
+        }
+        Arrays.fill(joinIndices, null);
+        EqualityJoin join = plan[plan.length - 1].equalityJoin;
+        this.equalityJoin = join != null && join.isValid() ? join : null;
         forEachKeyMode(0, false, false, new KeyMode[this.sourceMetas.length], deltaOnly);
+        reportStatistics();
+    }
+
+    /**
+     * <p>
+     * Re-orders nested source loops if sources' cardinalities have drifted since the last planning.
+     * The method is called once per {@link Configuration#JOIN_REPLAN_INTERVAL} delta computations
+     * that have evaluated the condition, until then the planner's order is kept.
+     * The largest source that can be joined via a hash index becomes the innermost one,
+     * the remaining sources are ordered by their cardinalities.
+     * </p>
+     */
+    private void replan() {
+        long[] cardinalities = new long[sourceMetas.length];
+        for (SourceMeta meta : sourceMetas) {
+            long total = 0L;
+            for (KeyMode mode : KeyMode.values()) {
+                total += mainState.size(meta, mode) / meta.factTypeIndices.length;
+            }
+            cardinalities[meta.index] = total;
+        }
+
+        if (plannedCardinalities != null && !drifted(plannedCardinalities, cardinalities)) {
+            return;
+        }
+        this.plannedCardinalities = cardinalities;
+
+        SourceMeta inner = null;
+        for (SourceMeta meta : sourceMetas) {
+            EqualityJoin join = meta.equalityJoin;
+            if (join != null && join.isValid() && (inner == null || cardinalities[meta.index] > cardinalities[inner.index])) {
+                inner = meta;
+            }
+        }
+        final SourceMeta innermost = inner;
+        SourceMeta[] newPlan = sourceMetas.clone();
+        Arrays.sort(newPlan, (m1, m2) -> {
+            if (m1 == innermost) return 1;
+            if (m2 == innermost) return -1;
+            return Long.compare(cardinalities[m1.index], cardinalities[m2.index]);
+        });
+        this.plan = newPlan;
+    }
+
+    private static boolean drifted(long[] planned, long[] actual) {
+        for (int i = 0; i < planned.length; i++) {
+            long min = Math.max(1L, Math.min(planned[i], actual[i]));
+            long max = Math.max(planned[i], actual[i]);
+            if (max > REPLAN_DRIFT_FACTOR * min) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void reportStatistics() {
+        long evaluations = mainState.evaluations;
+        long passes = mainState.passes;
+        mainState.evaluations = 0L;
+        mainState.passes = 0L;
+        for (EvaluationState state : forkStates) {
+            evaluations += state.evaluations;
+            passes += state.passes;
+            state.evaluations = 0L;
+            state.passes = 0L;
+        }
+        if (evaluations > 0) {
+            sampledComputations++;
+            getRuntime().getConditionStatistics().record(expression, evaluations, passes);
+        }
     }
 
     private void forEachKeyMode(int sourceIndex, boolean hasDelta, boolean hasKnownKeys, KeyMode[] modes, boolean deltaOnly) {
@@ -100,75 +219,296 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
 
     private void forEachModeSelection(KeyMode destinationMode, KeyMode[] sourceModes) {
         MemoryKeyCollection destination = getStore(destinationMode);
-        for (int i = 0; i < sourceMetas.length; i++) {
-            if (!sourceMetas[i].setIterator(sourceModes[i])) {
+        KeyMode[] modes = this.planModes;
+        for (int i = 0; i < plan.length; i++) {
+            modes[i] = sourceModes[plan[i].index];
+        }
+        // Estimated number of key combinations
+        long work = 1L;
+        for (int i = 0; i < plan.length; i++) {
+            long rows = mainState.setIterator(i, modes[i]) / plan[i].factTypeIndices.length;
+            if (rows == 0) {
                 return;
             }
+            work *= rows;
         }
-        // Reset cached states
-        for (MemoryKeyNode meta : evaluationState) {
-            meta.clear();
+
+        if (equalityJoin != null) {
+            int last = plan.length - 1;
+            KeyMode mode = modes[last];
+            EqualityJoin.Index index = joinIndices[mode.ordinal()];
+            if (index == null) {
+                index = mode == KeyMode.OLD_OLD ?
+                        equalityJoin.committedIndex(plan[last].source)
+                        :
+                        equalityJoin.buildIndex(mainState.iterators[last]);
+                joinIndices[mode.ordinal()] = index;
+            }
+            this.currentJoinIndex = index;
+            this.currentJoinCommitted = mode == KeyMode.OLD_OLD;
+        } else {
+            this.currentJoinIndex = null;
+        }
+
+        int forks = forkCount(work);
+        if (forks > 1) {
+            computeParallel(forks, modes, destination);
+        } else {
+            mainState.clear();
+            mainState.forEachMemoryKey(0, destination);
         }
-        // Evaluate current mode selection
-        forEachMemoryKey(0, destination);
     }
 
-    private void forEachMemoryKey(int sourceIndex, MemoryKeyCollection destination) {
-        SourceMeta meta = this.sourceMetas[sourceIndex];
-        ReIterator<MemoryKey> it = meta.currentIterator;
-        if (it.reset() == 0) return;
-
-        if (sourceIndex == this.sourceMetas.length - 1) {
-            while (it.hasNext()) {
-                if (setState(it, meta.factTypeIndices)) {
-                    if (cachingEvaluator.test()) {
-                        for (int ruleIndex : descriptorIndices) {
-                            destination.add(evaluationState[ruleIndex].currentKey);
-                        }
-                    }
-                }
-            }
+    private int forkCount(long work) {
+        if (parallelThreshold <= 0 || work < 2 * parallelThreshold || !ForkJoinTask.inForkJoinPool()) {
+            return 1;
         } else {
-            while (it.hasNext()) {
-                if (setState(it, meta.factTypeIndices)) {
-                    forEachMemoryKey(sourceIndex + 1, destination);
-                }
-            }
+            ForkJoinPool pool = ForkJoinTask.getPool();
+            return (int) Math.min(pool.getParallelism(), work / parallelThreshold);
         }
     }
 
-    private boolean setState(ReIterator<MemoryKey> it, int[] indices) {
-        MemoryKey key;
-        boolean ret = true;
-        for (int idx : indices) {
-            key = it.next();
-            ret = ret & key.getMetaValue() != DELETED_MEMORY_KEY_FLAG;
-            this.evaluationState[idx].setKey(key);
+    /**
+     * <p>
+     * Splits the outermost source's keys into ranges and evaluates each range in its own fork with its own
+     * evaluation state. Every fork collects matching keys into a separate buffer, and the buffers are then
+     * appended to the destination in fork order, i.e. in the same order as the sequential evaluation would do.
+     * </p>
+     */
+    private void computeParallel(int forks, KeyMode[] modes, MemoryKeyCollection destination) {
+        SourceMeta outer = plan[0];
+        int width = outer.factTypeIndices.length;
+        ReIterator<MemoryKey> it = mainState.iterators[0];
+        MemoryKey[] outerKeys = new MemoryKey[(int) it.reset()];
+        int size = 0;
+        while (it.hasNext()) {
+            outerKeys[size++] = it.next();
+        }
+        int rows = size / width;
+        forks = Math.min(forks, rows);
+        if (forks < 2) {
+            mainState.clear();
+            mainState.forEachMemoryKey(0, destination);
+            return;
+        }
+
+        while (forkStates.size() < forks) {
+            forkStates.add(new EvaluationState());
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(forks);
+        for (int f = 0; f < forks; f++) {
+            final EvaluationState state = forkStates.get(f);
+            final int from = (int) ((long) rows * f / forks);
+            final int to = (int) ((long) rows * (f + 1) / forks);
+            tasks.add(ForkJoinTask.adapt(() -> state.evaluateRange(modes, outerKeys, width, from, to)));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        for (int f = 0; f < forks; f++) {
+            MemoryKeyCollection buffer = forkStates.get(f).buffer;
+            for (MemoryKey key : buffer) {
+                destination.add(key);
+            }
+            buffer.clear();
         }
-        return ret;
     }
 
     void forEachConditionNode(Consumer<BetaConditionNode> consumer) {
         forEachConditionNode(this, consumer);
     }
 
+    /**
+     * <p>
+     * A mutable state of condition evaluation. The main state is used by sequential evaluation,
+     * and each parallel fork gets a state of its own.
+     * </p>
+     */
+    private class EvaluationState {
+        private final MemoryKeyNode[] evaluationState;
+        private final CachingEvaluator cachingEvaluator;
+        private final ReIterator<MemoryKey>[][] allIterators;
+        private final ReIterator<MemoryKey>[] iterators;
+        private final MemoryKeyCollection buffer;
+        // Evaluation counters for the planner's statistics
+        long evaluations;
+        long passes;
+
+        @SuppressWarnings("unchecked")
+        EvaluationState() {
+            this.evaluationState = new MemoryKeyNode[allFactTypes.length];
+            Object[][] values = new Object[argumentTypes.length][];
+            for (int c = 0; c < values.length; c++) {
+                values[c] = new Object[argumentTypes[c].length];
+            }
+            this.cachingEvaluator = new CachingEvaluator(betaEvaluator, values);
+
+            for (FactType type : allFactTypes) {
+                MemoryKeyNode keyMeta;
+                if (expression.getFactTypeMask().get(type)) {
+                    // This fact type is a part of condition evaluation
+                    keyMeta = new ConditionMemoryKeyNode(type, valueResolver, expression, cachingEvaluator);
+                } else {
+                    // This is a pass-through type, no field value reads are required
+                    keyMeta = new MemoryKeyNode();
+                }
+                this.evaluationState[type.getInRuleIndex()] = keyMeta;
+            }
+
+            // Field nodes write their values directly into the arguments of the conditions
+            for (int c = 0; c < values.length; c++) {
+                int[] types = argumentTypes[c];
+                int[] fields = argumentFields[c];
+                for (int i = 0; i < types.length; i++) {
+                    ((ConditionMemoryKeyNode) evaluationState[types[i]]).bind(fields[i], values[c], i);
+                }
+            }
+
+            this.allIterators = new ReIterator[sourceMetas.length][KeyMode.values().length];
+            this.iterators = new ReIterator[sourceMetas.length];
+            this.buffer = getRuntime().memory.memoryFactory.newMemoryKeyCollection(getDescriptor().getTypes());
+        }
+
+        /**
+         * @param planIndex source's position in the current plan
+         * @param mode      key mode
+         * @return number of the source's keys
+         */
+        long setIterator(int planIndex, KeyMode mode) {
+            ReIterator<MemoryKey> it = iterator(plan[planIndex], mode);
+            this.iterators[planIndex] = it;
+            return it.reset();
+        }
+
+        long size(SourceMeta meta, KeyMode mode) {
+            return iterator(meta, mode).reset();
+        }
+
+        private ReIterator<MemoryKey> iterator(SourceMeta meta, KeyMode mode) {
+            ReIterator<MemoryKey>[] sourceIterators = allIterators[meta.index];
+            ReIterator<MemoryKey> it = sourceIterators[mode.ordinal()];
+            if (it == null) {
+                it = meta.source.iterator(mode);
+                sourceIterators[mode.ordinal()] = it;
+            }
+            return it;
+        }
+
+        void clear() {
+            // Reset cached states
+            for (MemoryKeyNode meta : evaluationState) {
+                meta.clear();
+            }
+        }
+
+        void evaluateRange(KeyMode[] modes, MemoryKey[] outerKeys, int width, int fromRow, int toRow) {
+            for (int i = 1; i < plan.length; i++) {
+                setIterator(i, modes[i]);
+            }
+            clear();
+            int[] indices = plan[0].factTypeIndices;
+            for (int row = fromRow; row < toRow; row++) {
+                int offset = row * width;
+                boolean ret = true;
+                for (int j = 0; j < width; j++) {
+                    MemoryKey key = outerKeys[offset + j];
+                    ret = ret & key.getMetaValue() != DELETED_MEMORY_KEY_FLAG;
+                    this.evaluationState[indices[j]].setKey(key);
+                }
+                if (ret) {
+                    if (plan.length == 1) {
+                        testAndSave(buffer);
+                    } else {
+                        forEachMemoryKey(1, buffer);
+                    }
+                }
+            }
+        }
+
+        private void forEachMemoryKey(int sourceIndex, MemoryKeyCollection destination) {
+            SourceMeta meta = plan[sourceIndex];
+            ReIterator<MemoryKey> it = iterators[sourceIndex];
+            if (it.reset() == 0) return;
+
+            if (sourceIndex == plan.length - 1) {
+                if (currentJoinIndex != null) {
+                    forEachIndexedKey(meta.factTypeIndices, destination);
+                    return;
+                }
+                while (it.hasNext()) {
+                    if (setState(it, meta.factTypeIndices)) {
+                        testAndSave(destination);
+                    }
+                }
+            } else {
+                while (it.hasNext()) {
+                    if (setState(it, meta.factTypeIndices)) {
+                        forEachMemoryKey(sourceIndex + 1, destination);
+                    }
+                }
+            }
+        }
+
+        private void forEachIndexedKey(int[] indices, MemoryKeyCollection destination) {
+            MemoryKey probe = evaluationState[equalityJoin.probeType].currentKey;
+            EqualityJoin.Rows rows = currentJoinIndex.get(probe.get(equalityJoin.probeField));
+            if (rows == null) return;
+            MemoryKey[] keys = rows.keys;
+            int committed = KeyMode.OLD_OLD.ordinal();
+            for (int offset = 0; offset < rows.size; offset += indices.length) {
+                boolean ret = true;
+                for (int j = 0; j < indices.length; j++) {
+                    MemoryKey key = keys[offset + j];
+                    if (key.getMetaValue() == DELETED_MEMORY_KEY_FLAG) {
+                        ret = false;
+                    } else if (currentJoinCommitted) {
+                        key.setMetaValue(committed);
+                    }
+                    this.evaluationState[indices[j]].setKey(key);
+                }
+                if (ret) {
+                    testAndSave(destination);
+                }
+            }
+        }
+
+        private void testAndSave(MemoryKeyCollection destination) {
+            evaluations++;
+            if (cachingEvaluator.test()) {
+                passes++;
+                for (int ruleIndex : descriptorIndices) {
+                    destination.add(evaluationState[ruleIndex].currentKey);
+                }
+            }
+        }
+
+        private boolean setState(ReIterator<MemoryKey> it, int[] indices) {
+            MemoryKey key;
+            boolean ret = true;
+            for (int idx : indices) {
+                key = it.next();
+                ret = ret & key.getMetaValue() != DELETED_MEMORY_KEY_FLAG;
+                this.evaluationState[idx].setKey(key);
+            }
+            return ret;
+        }
+    }
+
     private static class SourceMeta {
+        final int index;
         final BetaMemoryNode source;
         final int[] factTypeIndices;
-        ReIterator<MemoryKey> currentIterator;
+        // Equality term for hash lookups when this source is the innermost one
+        final EqualityJoin equalityJoin;
 
-        SourceMeta(BetaMemoryNode source) {
+        SourceMeta(int index, BetaMemoryNode source, FactType[] factTypes, RuntimeRuleImpl rule, EvaluatorWrapper[] conditions) {
+            this.index = index;
             this.source = source;
-            FactType[] factTypes = source.getDescriptor().getTypes();
             this.factTypeIndices = new int[factTypes.length];
             for (int i = 0; i < factTypes.length; i++) {
                 this.factTypeIndices[i] = factTypes[i].getInRuleIndex();
             }
-        }
-
-        boolean setIterator(KeyMode mode) {
-            this.currentIterator = source.iterator(mode);
-            return this.currentIterator.reset() > 0;
+            this.equalityJoin = EqualityJoin.find(rule, conditions, factTypeIndices);
         }
     }
 
@@ -185,10 +525,6 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
         void setKey(MemoryKey key) {
             this.currentKey = key;
         }
-
-        Object value(int fieldIndex) {
-            throw new UnsupportedOperationException();
-        }
     }
 
     private static class ConditionMemoryKeyNode extends MemoryKeyNode {
@@ -215,8 +551,8 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
             for (FieldNode fn : fieldNodes) fn.clear();
         }
 
-        Object value(int fieldIndex) {
-            return fieldNodes[fieldIndex].value;
+        void bind(int fieldIndex, Object[] arguments, int argumentIndex) {
+            fieldNodes[fieldIndex].bind(arguments, argumentIndex);
         }
 
         public void setKey(MemoryKey key) {
@@ -231,21 +567,37 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
 
     private static class FieldNode {
         final ValueResolver valueResolver;
-        Object value;
         ValueHandle lastHandle;
+        // Condition arguments that this field supplies
+        private Object[][] arguments = new Object[0][];
+        private int[] argumentIndices = new int[0];
 
         FieldNode(ValueResolver valueResolver) {
             this.valueResolver = valueResolver;
         }
 
+        final void bind(Object[] args, int index) {
+            int size = arguments.length;
+            this.arguments = Arrays.copyOf(arguments, size + 1);
+            this.argumentIndices = Arrays.copyOf(argumentIndices, size + 1);
+            this.arguments[size] = args;
+            this.argumentIndices[size] = index;
+        }
+
         final void clear() {
             this.lastHandle = null;
-            this.value = null;
+            setValue(null);
+        }
+
+        final void setValue(Object value) {
+            for (int i = 0; i < arguments.length; i++) {
+                arguments[i][argumentIndices[i]] = value;
+            }
         }
 
         void update(ValueHandle handle) {
             if (handle != lastHandle) {
-                value = valueResolver.getValue(handle);
+                setValue(valueResolver.getValue(handle));
                 lastHandle = handle;
             }
         }
@@ -261,7 +613,7 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
 
         void update(ValueHandle handle) {
             if (handle != lastHandle) {
-                value = valueResolver.getValue(handle);
+                setValue(valueResolver.getValue(handle));
                 lastHandle = handle;
                 evaluator.valuesChanged();
             }
@@ -270,11 +622,13 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
 
     private static class CachingEvaluator {
         private final RuntimeBetaEvaluator delegate;
+        private final Object[][] values;
         private boolean cached = false;
         private boolean lastResponse;
 
-        CachingEvaluator(RuntimeBetaEvaluator delegate) {
+        CachingEvaluator(RuntimeBetaEvaluator delegate, Object[][] values) {
             this.delegate = delegate;
+            this.values = values;
         }
 
         void valuesChanged() {
@@ -283,27 +637,10 @@ public class BetaConditionNode extends AbstractBetaConditionNode {
 
         boolean test() {
             if (!cached) {
-                lastResponse = delegate.test();
+                lastResponse = delegate.test(values);
                 cached = true;
             }
             return lastResponse;
         }
     }
-
-    private static class ConditionValueReader {
-        private final MemoryKeyNode[] evaluationState;
-        private final int type;
-        private final int field;
-
-        ConditionValueReader(MemoryKeyNode[] evaluationState, int type, int field) {
-            this.evaluationState = evaluationState;
-            this.type = type;
-            this.field = field;
-        }
-
-        Object get() {
-            return this.evaluationState[type].value(field);
-        }
-    }
-
 }
@@ -19,16 +19,25 @@ public class BetaEndNode extends BetaConditionNode implements RhsFactGroup {
 
     private static BetaMemoryNode create(RuntimeRuleImpl rule, NodeDescriptor desc) {
         if (desc.isConditionNode()) {
-            return new BetaConditionNode(
-                    rule, (ConditionNodeDescriptor) desc,
-                    create(desc.getSources(), rule)
-            );
+            SharedBetaNodes sharedNodes = rule.getRuntime().sharedNodes;
+            if (sharedNodes == null) {
+                return create(rule, (ConditionNodeDescriptor) desc);
+            } else {
+                return sharedNodes.subscribe((ConditionNodeDescriptor) desc, d -> create(rule, d));
+            }
         } else {
             EntryNodeDescriptor descriptor = (EntryNodeDescriptor) desc;
             return new BetaEntryNode(rule.getRuntime(), descriptor);
         }
     }
 
+    private static BetaConditionNode create(RuntimeRuleImpl rule, ConditionNodeDescriptor desc) {
+        return new BetaConditionNode(
+                rule, desc,
+                create(desc.getSources(), rule)
+        );
+    }
+
     private static BetaMemoryNode[] create(NodeDescriptor[] sources, RuntimeRuleImpl rule) {
         BetaMemoryNode[] result = new BetaMemoryNode[sources.length];
         for (int i = 0; i < sources.length; i++) {
@@ -1,28 +1,35 @@
 package org.evrete.runtime;
 
 import org.evrete.api.KeyMode;
+import org.evrete.api.KeyedFactStorage;
 import org.evrete.api.MemoryKey;
 import org.evrete.api.ReIterator;
 
-import java.util.EnumMap;
-
 public class BetaEntryNode implements BetaMemoryNode {
     private final EntryNodeDescriptor descriptor;
-    private final EnumMap<KeyMode, ReIterator<MemoryKey>> stores = new EnumMap<>(KeyMode.class);
+    private final KeyMemoryBucket bucket;
+    private final KeyedFactStorage fieldData;
 
     BetaEntryNode(AbstractRuleSession<?> runtime, EntryNodeDescriptor node) {
         this.descriptor = node;
-        KeyMemoryBucket bucket = runtime.getMemory().getMemoryBucket(node.getFactType().getMemoryAddress());
-        for (KeyMode mode : KeyMode.values()) {
-            ReIterator<MemoryKey> delegate = bucket.getFieldData().keys(mode);
-            ReIterator<MemoryKey> mapped = new MemoryKeyIterator(delegate, mode);
-            stores.put(mode, mapped);
-        }
+        this.bucket = runtime.getMemory().getMemoryBucket(node.getFactType().getMemoryAddress());
+        this.fieldData = bucket.getFieldData();
     }
 
+    /**
+     * <p>
+     * Returns a new iterator on each call, so that concurrent readers do not share
+     * iteration state. Callers are expected to reuse the returned iterators via {@link ReIterator#reset()}.
+     * </p>
+     */
     @Override
     public ReIterator<MemoryKey> iterator(KeyMode mode) {
-        return stores.get(mode);
+        return new MemoryKeyIterator(fieldData.keys(mode), mode);
+    }
+
+    @Override
+    public EqualityJoin.Index getJoinIndex(int column, int field) {
+        return bucket.getJoinIndex(field);
     }
 
     @Override
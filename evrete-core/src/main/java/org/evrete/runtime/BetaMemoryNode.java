@@ -10,6 +10,18 @@ interface BetaMemoryNode {
 
     void commitDelta();
 
+    /**
+     * <p>
+     * Returns the hash index of the node's committed ({@link KeyMode#OLD_OLD}) key rows by a single field.
+     * The index is created on the first request and is then maintained by the node, along with its memory.
+     * </p>
+     *
+     * @param column position of the indexed key in a row
+     * @param field  position of the indexed field in the key
+     * @return index of the committed rows
+     */
+    EqualityJoin.Index getJoinIndex(int column, int field);
+
     void clear();
 
     NodeDescriptor getDescriptor();
@@ -0,0 +1,47 @@
+package org.evrete.runtime;
+
+import org.evrete.api.EvaluatorHandle;
+import org.evrete.runtime.evaluation.BetaEvaluator;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Observed pass rates of beta conditions. Condition nodes report their evaluation counts,
+ * and the rule planner consults the collected rates when it allocates conditions of newly
+ * deployed rules. The statistics is shared between a knowledge and all its sessions.
+ * </p>
+ */
+class ConditionStatistics {
+    // Minimum number of evaluations before the observed pass rate is trusted
+    static final long MIN_SAMPLE_SIZE = 1024;
+    private final Map<Set<EvaluatorHandle>, Counter> counters = new ConcurrentHashMap<>();
+
+    void record(BetaEvaluator evaluator, long evaluations, long passes) {
+        Counter counter = counters.computeIfAbsent(evaluator.constituentSet(), k -> new Counter());
+        counter.evaluations.add(evaluations);
+        counter.passes.add(passes);
+    }
+
+    /**
+     * @param evaluator    condition
+     * @param defaultValue estimated selectivity
+     * @return observed pass rate of the condition, or the default value if the condition
+     * hasn't been evaluated enough times
+     */
+    double selectivity(BetaEvaluator evaluator, double defaultValue) {
+        Counter counter = counters.get(evaluator.constituentSet());
+        if (counter == null) return defaultValue;
+        long evaluations = counter.evaluations.sum();
+        if (evaluations < MIN_SAMPLE_SIZE) return defaultValue;
+        return (double) counter.passes.sum() / evaluations;
+    }
+
+    private static class Counter {
+        final LongAdder evaluations = new LongAdder();
+        final LongAdder passes = new LongAdder();
+    }
+}
@@ -0,0 +1,189 @@
+package org.evrete.runtime;
+
+import org.evrete.Configuration;
+import org.evrete.api.FactHandle;
+import org.evrete.api.FactHandleVersioned;
+import org.evrete.runtime.async.ConditionMemoryPurgeTask;
+import org.evrete.runtime.evaluation.MemoryAddress;
+import org.evrete.util.Mask;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Deferred and budgeted alternative to the end-of-fire memory purge. At the end of each fire, the session
+ * only records which buckets need purging and the current versions of deleted or updated facts. Once the share
+ * of such facts reaches the configured threshold, the memory is compacted in the background: first the key
+ * buckets, then the condition nodes that reference deleted keys. A run stops when its time budget is exhausted,
+ * and the remaining work is resumed after the next fire.
+ * </p>
+ * <p>
+ * Until compaction catches up, stale handles are skipped by version checks, and deleted keys by
+ * their {@link org.evrete.util.Constants#DELETED_MEMORY_KEY_FLAG} flag. The background run never reads
+ * fact storages, which may be concurrently updated by inserts, it only relies on the version snapshots.
+ * Every operation that reads or changes the session's memories must first call {@link #await()}.
+ * </p>
+ */
+final class DeferredPurge {
+    private static final Integer DELETED = -1;
+    private final AbstractRuleSession<?> session;
+    private final double threshold;
+    private final long budgetNanos;
+    // Buckets that have stale handles
+    private final Mask<MemoryAddress> factPurgeMask = Mask.addressMask();
+    // Buckets that have deleted keys, not yet propagated to condition nodes
+    private final Mask<MemoryAddress> keyPurgeMask = Mask.addressMask();
+    // Deleted keys of condition nodes awaiting purge
+    private final Mask<MemoryAddress> nodePurgeMask = Mask.addressMask();
+    private final Deque<BetaConditionNode> pendingNodes = new ArrayDeque<>();
+    // Current fact versions of retracted handles, by type memory
+    private final Map<TypeMemory, Map<FactHandle, Integer>> versions = new HashMap<>();
+    private int pendingHandles;
+    private boolean resume;
+    private ForkJoinTask<?> running;
+
+    DeferredPurge(AbstractRuleSession<?> session) {
+        this.session = session;
+        Configuration conf = session.getConfiguration();
+        this.threshold = conf.getAsDouble(Configuration.PURGE_THRESHOLD, Configuration.PURGE_THRESHOLD_DEFAULT);
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(conf.getAsInteger(Configuration.PURGE_BUDGET, Configuration.PURGE_BUDGET_DEFAULT));
+    }
+
+    /**
+     * <p>
+     * Waits for the running compaction, if any, to complete.
+     * </p>
+     */
+    void await() {
+        ForkJoinTask<?> task = this.running;
+        if (task != null) {
+            this.running = null;
+            task.join();
+        }
+    }
+
+    /**
+     * <p>
+     * Collects the results of a fire and starts a background compaction if the thresholds are met.
+     * </p>
+     *
+     * @param deleteMask addresses of buckets that have stale handles
+     */
+    void onFire(Mask<MemoryAddress> deleteMask) {
+        await();
+        factPurgeMask.or(deleteMask);
+        long liveFacts = 0L;
+        for (TypeMemory tm : session.getMemory()) {
+            Set<FactHandle> retracted = tm.getRetractedHandles();
+            if (!retracted.isEmpty()) {
+                Map<FactHandle, Integer> typeVersions = versions.computeIfAbsent(tm, k -> new HashMap<>());
+                for (FactHandle handle : retracted) {
+                    FactRecord record = tm.getFactRecord(handle);
+                    if (typeVersions.put(handle, record == null ? DELETED : record.getVersion()) == null) {
+                        pendingHandles++;
+                    }
+                }
+                tm.clearRetractedHandles();
+            }
+            if (versions.containsKey(tm)) {
+                liveFacts += tm.getFactStorage().size();
+            }
+        }
+
+        if (hasWork() && (resume || pendingHandles >= threshold * (pendingHandles + liveFacts))) {
+            this.running = session.getExecutor().submit(this::compact, null);
+        }
+    }
+
+    private boolean hasWork() {
+        return !versions.isEmpty() || factPurgeMask.cardinality() > 0 || keyPurgeMask.cardinality() > 0 || !pendingNodes.isEmpty();
+    }
+
+    private void compact() {
+        long deadline = System.nanoTime() + budgetNanos;
+        this.resume = true;
+        // At least one unit of work per run, so that the compaction always makes progress
+        boolean progress = false;
+
+        // Purging key buckets
+        for (Map.Entry<TypeMemory, Map<FactHandle, Integer>> entry : versions.entrySet()) {
+            Map<FactHandle, Integer> typeVersions = entry.getValue();
+            for (KeyMemoryBucket bucket : entry.getKey()) {
+                if (factPurgeMask.get(bucket.address)) {
+                    if (progress && outOfBudget(deadline)) return;
+                    bucket.purgeDeleted(handle -> isStale(typeVersions, handle), typeVersions.keySet(), k -> keyPurgeMask.set(bucket.address));
+                    factPurgeMask.clear(bucket.address);
+                    progress = true;
+                }
+            }
+        }
+        versions.clear();
+        factPurgeMask.clear();
+        pendingHandles = 0;
+
+        // Purging condition nodes
+        if (keyPurgeMask.cardinality() > 0) {
+            nodePurgeMask.or(keyPurgeMask);
+            keyPurgeMask.clear();
+            pendingNodes.clear();
+            ConditionMemoryPurgeTask.forEachAffectedNode(session.ruleStorage, nodePurgeMask, pendingNodes::add);
+        }
+        while (!pendingNodes.isEmpty()) {
+            if (progress && outOfBudget(deadline)) return;
+            ConditionMemoryPurgeTask.purge(pendingNodes.poll(), nodePurgeMask);
+            progress = true;
+        }
+        nodePurgeMask.clear();
+        this.resume = false;
+    }
+
+    private boolean outOfBudget(long deadline) {
+        return budgetNanos > 0 && System.nanoTime() - deadline > 0;
+    }
+
+    private static boolean isStale(Map<FactHandle, Integer> typeVersions, FactHandleVersioned handle) {
+        Integer version = typeVersions.get(handle.getHandle());
+        return version != null && version != handle.getVersion();
+    }
+
+    /**
+     * <p>
+     * Takes over the pending work of a parent session, to be called once a forked session's memories
+     * have been copied. The parent's compaction is expected to be completed.
+     * </p>
+     *
+     * @param other deferred purge of the parent session
+     */
+    void copyFrom(DeferredPurge other) {
+        factPurgeMask.or(other.factPurgeMask);
+        keyPurgeMask.or(other.keyPurgeMask);
+        nodePurgeMask.or(other.nodePurgeMask);
+        for (Map.Entry<TypeMemory, Map<FactHandle, Integer>> entry : other.versions.entrySet()) {
+            versions.put(session.getMemory().get(entry.getKey().getType()), new HashMap<>(entry.getValue()));
+        }
+        if (!other.pendingNodes.isEmpty()) {
+            // Some of these nodes may have been purged already, purging them again does no harm
+            ConditionMemoryPurgeTask.forEachAffectedNode(session.ruleStorage, nodePurgeMask, pendingNodes::add);
+        }
+        this.pendingHandles = other.pendingHandles;
+        this.resume = other.resume;
+    }
+
+    /**
+     * <p>
+     * Drops the pending work, to be called when the session's memories get cleared.
+     * </p>
+     */
+    void clear() {
+        await();
+        factPurgeMask.clear();
+        keyPurgeMask.clear();
+        nodePurgeMask.clear();
+        pendingNodes.clear();
+        versions.clear();
+        pendingHandles = 0;
+        resume = false;
+    }
+}
@@ -0,0 +1,276 @@
+package org.evrete.runtime;
+
+import org.evrete.api.*;
+import org.evrete.runtime.evaluation.EvaluatorWrapper;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.evrete.util.Constants.DELETED_MEMORY_KEY_FLAG;
+
+/**
+ * <p>
+ * An equality term of a beta condition, like <code>$a.id == $b.id</code>, that allows condition nodes
+ * to replace nested-loop scans of their innermost source with hash lookups. Conditions qualify if their
+ * evaluators report that they imply the equality of their two arguments, see {@link Evaluator#impliesEquality()}.
+ * </p>
+ * <p>
+ * The term only narrows down the candidates, the condition itself is still evaluated against
+ * every key combination found in the index. The index of the source's committed keys is kept
+ * by the source itself, see {@link BetaMemoryNode#getJoinIndex(int, int)}, indices of the delta keys
+ * are built for each delta computation.
+ * </p>
+ */
+class EqualityJoin {
+    private final EvaluatorWrapper wrapper;
+    private final Evaluator delegate;
+    // In-rule index and field position of the indexed (innermost source's) side
+    private final int indexedType;
+    private final int indexedField;
+    // Column of the indexed type in the innermost source's key rows
+    private final int indexedColumn;
+    private final int width;
+    // In-rule index and field position of the probing side
+    final int probeType;
+    final int probeField;
+
+    private EqualityJoin(EvaluatorWrapper wrapper, FactType indexed, TypeField indexedField, int[] innerIndices, FactType probe, TypeField probeField) {
+        this.wrapper = wrapper;
+        this.delegate = wrapper.getDelegate();
+        this.indexedType = indexed.getInRuleIndex();
+        this.indexedField = indexed.findFieldPosition(indexedField);
+        this.probeType = probe.getInRuleIndex();
+        this.probeField = probe.findFieldPosition(probeField);
+        this.width = innerIndices.length;
+        int column = -1;
+        for (int i = 0; i < innerIndices.length; i++) {
+            if (innerIndices[i] == indexedType) {
+                column = i;
+            }
+        }
+        this.indexedColumn = column;
+    }
+
+    /**
+     * @param rule         the condition node's rule
+     * @param conditions   the node's conditions
+     * @param innerIndices in-rule indices of the innermost source's fact types
+     * @return first equality term that joins the innermost source with any other source, or null if there's none
+     */
+    static EqualityJoin find(AbstractRuntimeRule<?> rule, EvaluatorWrapper[] conditions, int[] innerIndices) {
+        for (EvaluatorWrapper wrapper : conditions) {
+            Evaluator delegate = wrapper.getDelegate();
+            if (!isEqualityTerm(delegate)) continue;
+
+            FieldReference[] refs = delegate.descriptor();
+            FactType t0 = rule.resolveFactType(refs[0].type());
+            FactType t1 = rule.resolveFactType(refs[1].type());
+            boolean inner0 = contains(innerIndices, t0.getInRuleIndex());
+            boolean inner1 = contains(innerIndices, t1.getInRuleIndex());
+            if (inner0 && !inner1) {
+                return new EqualityJoin(wrapper, t0, refs[0].field(), innerIndices, t1, refs[1].field());
+            } else if (inner1 && !inner0) {
+                return new EqualityJoin(wrapper, t1, refs[1].field(), innerIndices, t0, refs[0].field());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param evaluator condition
+     * @return true if the condition is an equality of two fields that can be served by a hash index
+     */
+    static boolean isEqualityTerm(Evaluator evaluator) {
+        return evaluator.impliesEquality() && evaluator.descriptor().length == 2;
+    }
+
+    private static boolean contains(int[] arr, int value) {
+        for (int i : arr) {
+            if (i == value) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return false if the condition has been replaced and the term doesn't hold anymore, or if
+     * the condition's evaluations are being listened to, so that no key combination may be skipped
+     */
+    boolean isValid() {
+        return wrapper.getDelegate() == delegate && !wrapper.hasListeners();
+    }
+
+    /**
+     * @param source the innermost source
+     * @return hash index of the source's committed rows
+     */
+    Index committedIndex(BetaMemoryNode source) {
+        return source.getJoinIndex(indexedColumn, indexedField);
+    }
+
+    /**
+     * @param it the innermost source's key iterator
+     * @return hash index of the source's rows
+     */
+    Index buildIndex(ReIterator<MemoryKey> it) {
+        return new Index(width, indexedColumn, indexedField).addAll(it);
+    }
+
+    /**
+     * <p>
+     * Source rows grouped by the value of a single field. Rows with deleted keys are skipped by lookups
+     * and dropped by purges.
+     * </p>
+     */
+    static class Index {
+        private final Map<ValueHandle, Rows> map = new HashMap<>();
+        private final int width;
+        final int column;
+        final int field;
+
+        /**
+         * @param width  number of keys in a row
+         * @param column position of the indexed key in a row
+         * @param field  position of the indexed field in the key
+         */
+        Index(int width, int column, int field) {
+            this.width = width;
+            this.column = column;
+            this.field = field;
+        }
+
+        /**
+         * <p>
+         * Adds the iterator's rows, rows with deleted keys are skipped.
+         * </p>
+         *
+         * @param it key iterator
+         * @return this index
+         */
+        Index addAll(ReIterator<MemoryKey> it) {
+            if (it.reset() == 0) return this;
+            MemoryKey[] row = new MemoryKey[width];
+            while (it.hasNext()) {
+                boolean active = true;
+                for (int i = 0; i < width; i++) {
+                    MemoryKey key = it.next();
+                    active = active & key.getMetaValue() != DELETED_MEMORY_KEY_FLAG;
+                    row[i] = key;
+                }
+                if (active) {
+                    map.computeIfAbsent(row[column].get(field), k -> new Rows()).add(row);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * <p>
+         * Adds the iterator's single-key rows that have no equal active key in the index yet.
+         * </p>
+         *
+         * @param it key iterator
+         */
+        void addAbsent(ReIterator<MemoryKey> it) {
+            if (it.reset() == 0) return;
+            while (it.hasNext()) {
+                MemoryKey key = it.next();
+                Rows rows = map.computeIfAbsent(key.get(field), k -> new Rows());
+                if (!rows.contains(key)) {
+                    rows.add(new MemoryKey[]{key});
+                }
+            }
+        }
+
+        Rows get(ValueHandle value) {
+            return map.get(value);
+        }
+
+        /**
+         * @param key removed key of a single-key row
+         */
+        void remove(MemoryKey key) {
+            ValueHandle value = key.get(field);
+            Rows rows = map.get(value);
+            if (rows != null && rows.remove(key) && rows.size == 0) {
+                map.remove(value);
+            }
+        }
+
+        /**
+         * <p>
+         * Drops the rows that have deleted keys.
+         * </p>
+         */
+        void purge() {
+            map.values().removeIf(rows -> rows.purge(width) == 0);
+        }
+
+        void clear() {
+            map.clear();
+        }
+    }
+
+    /**
+     * <p>
+     * Source rows that share the same indexed value, stored as a flat key array.
+     * </p>
+     */
+    static class Rows {
+        MemoryKey[] keys = new MemoryKey[4];
+        int size;
+
+        private void add(MemoryKey[] row) {
+            if (size + row.length > keys.length) {
+                keys = Arrays.copyOf(keys, Math.max(keys.length * 2, size + row.length));
+            }
+            System.arraycopy(row, 0, keys, size, row.length);
+            size += row.length;
+        }
+
+        private boolean contains(MemoryKey key) {
+            for (int i = 0; i < size; i++) {
+                MemoryKey k = keys[i];
+                if (k.getMetaValue() != DELETED_MEMORY_KEY_FLAG && k.equals(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean remove(MemoryKey key) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i] == key) {
+                    keys[i] = keys[--size];
+                    keys[size] = null;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int purge(int width) {
+            int retained = 0;
+            for (int offset = 0; offset < size; offset += width) {
+                boolean active = true;
+                for (int j = 0; j < width; j++) {
+                    active = active & keys[offset + j].getMetaValue() != DELETED_MEMORY_KEY_FLAG;
+                }
+                if (active) {
+                    if (retained != offset) {
+                        System.arraycopy(keys, offset, keys, retained, width);
+                    }
+                    retained += width;
+                }
+            }
+            Arrays.fill(keys, retained, size, null);
+            size = retained;
+            return size;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "{delegate=" + delegate + ", indexedType=" + indexedType + ", probeType=" + probeType + '}';
+    }
+}
@@ -0,0 +1,36 @@
+package org.evrete.runtime;
+
+import org.evrete.api.RhsContext;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Definition of a {@code not} or {@code exists} condition. Facts of the condition's type are counted
+ * by their keys, and a matching combination of the rule's facts passes the condition depending on
+ * whether the count of the combination's key is zero.
+ * </p>
+ */
+final class Existence {
+    static final Existence[] ZERO_ARRAY = new Existence[0];
+    final int type;
+    final Function<Object, ?> key;
+    final Function<RhsContext, ?> match;
+    final boolean exists;
+
+    Existence(int type, Function<Object, ?> key, Function<RhsContext, ?> match, boolean exists) {
+        this.type = type;
+        this.key = Objects.requireNonNull(key);
+        this.match = Objects.requireNonNull(match);
+        this.exists = exists;
+    }
+
+    /**
+     * @param count number of facts with the same key
+     * @return {@code true} if combinations with the key pass the condition
+     */
+    boolean test(int count) {
+        return exists == count > 0;
+    }
+}
@@ -0,0 +1,197 @@
+package org.evrete.runtime;
+
+import org.evrete.api.Action;
+import org.evrete.api.Expiration;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Type;
+
+import java.util.*;
+import java.util.function.LongSupplier;
+
+/**
+ * <p>
+ * Expiration policies of a session's fact types. Facts are bucketed by their expiration time as they
+ * are inserted and updated, so that expiring N facts costs O(N) rather than a scan of the working memory.
+ * Deleted and updated facts are not removed from the buckets, their stale entries are skipped instead.
+ * </p>
+ */
+class FactExpirations {
+    private final AbstractRuleSession<?> session;
+    private final Map<Integer, TypeExpiration> types = new HashMap<>();
+    private LongSupplier clock = System::currentTimeMillis;
+    // Time of the current fire
+    private long now;
+
+    FactExpirations(AbstractRuleSession<?> session) {
+        this.session = session;
+    }
+
+    void setClock(LongSupplier clock) {
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    /**
+     * <p>
+     * Sets or removes the policy of a type. Existing facts of the type are tracked as if they
+     * were inserted at the current time.
+     * </p>
+     *
+     * @param type       fact type
+     * @param expiration policy or {@code null}
+     */
+    @SuppressWarnings("unchecked")
+    void set(Type<?> type, Expiration<?> expiration) {
+        if (expiration == null) {
+            types.remove(type.getId());
+        } else {
+            TypeExpiration te = new TypeExpiration(type, (Expiration<Object>) expiration);
+            types.put(type.getId(), te);
+            now = clock.getAsLong();
+            List<FactHandle> expired = new LinkedList<>();
+            session.getMemory().getCreateUpdate(type.getId()).forEachFact((handle, fact) -> {
+                if (te.register(handle, fact)) {
+                    expired.add(handle);
+                }
+            });
+            Iterator<FactHandle> oldest = te.order.iterator();
+            while (te.order.size() > te.policy.capacity()) {
+                FactHandle handle = oldest.next();
+                oldest.remove();
+                te.expiry.remove(handle);
+                expired.add(handle);
+            }
+            for (FactHandle handle : expired) {
+                session.bufferDelete(handle);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Buffers deletes of the facts that have expired by now. Facts with pending changes
+     * are skipped, they are re-evaluated along with the changes.
+     * </p>
+     *
+     * @param buffer destination buffer
+     */
+    void expire(FactActionBuffer buffer) {
+        if (types.isEmpty()) return;
+        now = clock.getAsLong();
+        for (TypeExpiration te : types.values()) {
+            TypeMemory memory = session.getMemory().get(te.type);
+            Map.Entry<Long, List<FactHandle>> bucket;
+            while ((bucket = te.buckets.firstEntry()) != null && bucket.getKey() <= now) {
+                te.buckets.pollFirstEntry();
+                for (FactHandle handle : bucket.getValue()) {
+                    if (bucket.getKey().equals(te.expiry.get(handle)) && buffer.find(handle) == null) {
+                        FactRecord record = memory.getFactRecord(handle);
+                        if (record != null) {
+                            te.forget(handle);
+                            AbstractRuleSession.bufferDelete(handle, record, buffer);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Tracks the pending changes of the facts, and buffers deletes of those that have
+     * expired already, e.g. late events or facts exceeding count windows.
+     * </p>
+     *
+     * @param buffer pending memory actions
+     */
+    void onActions(FactActionBuffer buffer) {
+        if (types.isEmpty()) return;
+        for (TypeExpiration te : types.values()) {
+            List<AtomicMemoryAction> expired = new LinkedList<>();
+            buffer.forEach(te.type, action -> {
+                if (action.action == Action.RETRACT) {
+                    te.forget(action.handle);
+                } else if (te.register(action.handle, action.getDelta().getLatest().instance)) {
+                    expired.add(action);
+                }
+            });
+            Iterator<FactHandle> oldest = te.order.iterator();
+            while (te.order.size() > te.policy.capacity()) {
+                FactHandle handle = oldest.next();
+                oldest.remove();
+                te.expiry.remove(handle);
+                AtomicMemoryAction action = buffer.find(handle);
+                if (action == null) {
+                    FactRecord record = session.getMemory().get(te.type).getFactRecord(handle);
+                    if (record != null) {
+                        AbstractRuleSession.bufferDelete(handle, record, buffer);
+                    }
+                } else if (action.action != Action.RETRACT) {
+                    expired.add(action);
+                }
+            }
+            for (AtomicMemoryAction action : expired) {
+                AbstractRuleSession.bufferDelete(action.handle, action.getDelta().getLatest(), buffer);
+            }
+        }
+    }
+
+    void copyFrom(FactExpirations other) {
+        this.clock = other.clock;
+        for (TypeExpiration te : other.types.values()) {
+            TypeExpiration copy = new TypeExpiration(te.type, te.policy);
+            for (Map.Entry<Long, List<FactHandle>> entry : te.buckets.entrySet()) {
+                copy.buckets.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+            copy.expiry.putAll(te.expiry);
+            copy.order.addAll(te.order);
+            types.put(te.type.getId(), copy);
+        }
+    }
+
+    void clear() {
+        for (TypeExpiration te : types.values()) {
+            te.buckets.clear();
+            te.expiry.clear();
+            te.order.clear();
+        }
+    }
+
+    private class TypeExpiration {
+        final Type<?> type;
+        final Expiration<Object> policy;
+        final TreeMap<Long, List<FactHandle>> buckets = new TreeMap<>();
+        final Map<FactHandle, Long> expiry = new HashMap<>();
+        // Insertion order, used by count windows only
+        final LinkedHashSet<FactHandle> order = new LinkedHashSet<>();
+
+        TypeExpiration(Type<?> type, Expiration<Object> policy) {
+            this.type = type;
+            this.policy = policy;
+        }
+
+        /**
+         * @return {@code true} if the fact has expired already
+         */
+        boolean register(FactHandle handle, Object fact) {
+            long time = policy.expiresAt(fact, now);
+            if (policy.capacity() != Integer.MAX_VALUE) {
+                order.add(handle);
+            }
+            if (time <= now) {
+                forget(handle);
+                return true;
+            } else if (time == Long.MAX_VALUE) {
+                expiry.remove(handle);
+            } else {
+                expiry.put(handle, time);
+                buckets.computeIfAbsent(time, t -> new ArrayList<>()).add(handle);
+            }
+            return false;
+        }
+
+        void forget(FactHandle handle) {
+            expiry.remove(handle);
+            order.remove(handle);
+        }
+    }
+}
@@ -7,6 +7,8 @@ public class FactRecord {
     final Object instance;
     private final Mask<MemoryAddress> bucketsMask;
     private int version = 0;
+    // Recency of the record in the AGENDA activation mode, see Agenda
+    long timeTag = 0L;
 
     FactRecord(Object instance) {
         this.instance = instance;
@@ -20,10 +22,22 @@ public class FactRecord {
         this.version = prev.version + 1;
     }
 
+    private FactRecord(FactRecord other) {
+        this.instance = other.instance;
+        this.bucketsMask = Mask.addressMask();
+        this.bucketsMask.or(other.bucketsMask);
+        this.version = other.version;
+        this.timeTag = other.timeTag;
+    }
+
     static FactRecord updated(FactRecord previous, Object updated) {
         return new FactRecord(previous, updated);
     }
 
+    static FactRecord copyOf(FactRecord record) {
+        return new FactRecord(record);
+    }
+
     void markLocation(MemoryAddress address) {
         this.bucketsMask.set(address);
     }
@@ -3,20 +3,24 @@ package org.evrete.runtime;
 import org.evrete.api.*;
 import org.evrete.runtime.evaluation.MemoryAddress;
 
-import java.util.Collection;
-import java.util.LinkedList;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
-import static org.evrete.runtime.RuntimeFact.DUMMY_FACT;
 import static org.evrete.util.Constants.DELETED_MEMORY_KEY_FLAG;
 
 public abstract class KeyMemoryBucket extends MemoryComponent {
     public final MemoryAddress address;
     final KeyedFactStorage fieldData;
     final ActiveField[] activeFields;
-    final Collection<FactHandleVersioned> buffer = new LinkedList<>();
-    RuntimeFact current = null;
+    // Retains its capacity between inserts
+    final Collection<FactHandleVersioned> buffer = new ArrayList<>();
+    // Hash indices of the committed keys by field position, created on demand by equality joins
+    private final Map<Integer, EqualityJoin.Index> joinIndices = new ConcurrentHashMap<>();
+    RuntimeFactBatch batch;
+    // Batch row of the current key, or -1 if there's none
+    int current = -1;
 
     KeyMemoryBucket(MemoryComponent runtime, MemoryAddress address) {
         super(runtime);
@@ -49,7 +53,82 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
         }
     }
 
-    public void purgeDeleted(Predicate<FactHandleVersioned> predicate, Consumer<MemoryKey> emptyKeysConsumer) {
+    /**
+     * <p>
+     * Creates a bucket of a forked session and fills it with the keys and fact handles of the parent
+     * session's bucket. Keys are written to the new storage as they are, no alpha conditions get evaluated.
+     * The copy is a full one, its cost is linear in the number of keys and fact handles.
+     * </p>
+     *
+     * @param runtime   parent memory component
+     * @param other     bucket of the parent session
+     * @param keyCopies collects parent session's memory keys and their copies
+     * @return new bucket
+     */
+    static KeyMemoryBucket copyOf(MemoryComponent runtime, KeyMemoryBucket other, Map<MemoryKey, MemoryKey> keyCopies) {
+        KeyMemoryBucket bucket = factory(runtime, other.address);
+        bucket.copyData(other.fieldData, keyCopies);
+        return bucket;
+    }
+
+    private void copyData(KeyedFactStorage source, Map<MemoryKey, MemoryKey> keyCopies) {
+        List<MemoryKey> sourceKeys = new ArrayList<>();
+        ReIterator<MemoryKey> keys = source.keys(KeyMode.OLD_OLD);
+        while (keys.hasNext()) {
+            MemoryKey key = keys.next();
+            sourceKeys.add(key);
+            for (int i = 0; i < activeFields.length; i++) {
+                fieldData.write(key.get(i));
+            }
+            ReIterator<FactHandleVersioned> handles = source.values(KeyMode.OLD_OLD, key);
+            while (handles.hasNext()) {
+                buffer.add(handles.next().copy());
+            }
+            fieldData.write(buffer);
+            buffer.clear();
+        }
+        fieldData.commitChanges();
+
+        // Matching the keys by their values, which are unique within a single storage
+        Map<MemoryKey, MemoryKey> copies = new HashMap<>();
+        ReIterator<MemoryKey> written = fieldData.keys(KeyMode.OLD_OLD);
+        while (written.hasNext()) {
+            MemoryKey copy = written.next();
+            copies.put(copy, copy);
+        }
+        for (MemoryKey key : sourceKeys) {
+            MemoryKey copy = copies.get(key);
+            if (copy != null) {
+                copy.setMetaValue(key.getMetaValue());
+                keyCopies.put(key, copy);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Removes stale fact handles from this bucket. If the storage supports targeted purge, only the keys
+     * of the retracted handles are visited, otherwise the whole storage gets scanned.
+     * </p>
+     *
+     * @param predicate         tells whether a handle is stale
+     * @param retracted         handles of facts that have been deleted or updated since the last purge
+     * @param emptyKeysConsumer consumer of keys that have become empty
+     */
+    public void purgeDeleted(Predicate<FactHandleVersioned> predicate, Set<FactHandle> retracted, Consumer<MemoryKey> emptyKeysConsumer) {
+        Consumer<MemoryKey> deletedKeys = key -> {
+            key.setMetaValue(DELETED_MEMORY_KEY_FLAG);
+            for (EqualityJoin.Index index : joinIndices.values()) {
+                index.remove(key);
+            }
+            emptyKeysConsumer.accept(key);
+        };
+        if (!fieldData.purge(retracted, predicate, deletedKeys)) {
+            purgeDeleted(predicate, deletedKeys);
+        }
+    }
+
+    private void purgeDeleted(Predicate<FactHandleVersioned> predicate, Consumer<MemoryKey> deletedKeys) {
         ReIterator<MemoryKey> keys = fieldData.keys(KeyMode.OLD_OLD);
         long remaining;
         while (keys.hasNext()) {
@@ -64,15 +143,27 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
             remaining = handles.reset();
             if (remaining == 0) {
                 // Deleting key as well
-                key.setMetaValue(DELETED_MEMORY_KEY_FLAG);
-                emptyKeysConsumer.accept(key);
+                deletedKeys.accept(key);
                 keys.remove();
             }
         }
     }
 
+    /**
+     * <p>
+     * Returns the hash index of the committed keys by the given field. The index is built on the first
+     * request and is then kept up to date by commits and purges, at the cost of a map entry per key.
+     * </p>
+     *
+     * @param field field position in the keys
+     * @return index of the committed keys
+     */
+    EqualityJoin.Index getJoinIndex(int field) {
+        return joinIndices.computeIfAbsent(field, f -> new EqualityJoin.Index(1, 0, f).addAll(fieldData.keys(KeyMode.OLD_OLD)));
+    }
+
     ValueHandle currentFactField(ActiveField field) {
-        return current.getValue(field);
+        return batch.getValue(current, field);
     }
 
     abstract void flushBuffer();
@@ -81,12 +172,13 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
      * @param facts facts to insert
      * @return true if at least one fact passed alpha tests and got saved
      */
-    public abstract boolean insert(Iterable<RuntimeFact> facts);
+    public abstract boolean insert(RuntimeFactBatch facts);
 
     @Override
     protected final void clearLocalData() {
         fieldData.clear();
         buffer.clear();
+        joinIndices.clear();
     }
 
     public final KeyedFactStorage getFieldData() {
@@ -94,6 +186,11 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
     }
 
     void commitBuffer() {
+        for (EqualityJoin.Index index : joinIndices.values()) {
+            index.addAll(fieldData.keys(KeyMode.NEW_NEW));
+            // Known keys take the place of their main counterparts if those have been purged meanwhile
+            index.addAbsent(fieldData.keys(KeyMode.OLD_NEW));
+        }
         fieldData.commitChanges();
     }
 
@@ -109,20 +206,21 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
         }
 
         @Override
-        public final boolean insert(Iterable<RuntimeFact> facts) {
-            current = DUMMY_FACT;
+        public final boolean insert(RuntimeFactBatch facts) {
+            batch = facts;
+            current = -1;
             boolean ret = false;
-            for (RuntimeFact fact : facts) {
-                if (address.testAlphaBits(fact.alphaTests)) {
+            for (int row = 0; row < facts.size(); row++) {
+                if (address.testAlphaBits(facts.getAlphaTests(row))) {
                     ret = true;
-                    fact.factRecord.markLocation(address);
-                    if (current.sameValues(fact)) {
-                        buffer.add(fact.factHandle);
+                    facts.getRecord(row).markLocation(address);
+                    if (current >= 0 && facts.sameValues(current, row)) {
+                        buffer.add(facts.getHandle(row));
                     } else {
                         // Key changed, ready for batch insert
                         flushBuffer();
-                        buffer.add(fact.factHandle);
-                        current = fact;
+                        buffer.add(facts.getHandle(row));
+                        current = row;
                     }
                 }
             }
@@ -130,6 +228,7 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
             if (!buffer.isEmpty()) {
                 flushBuffer();
             }
+            batch = null;
             return ret;
         }
 
@@ -141,7 +240,7 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
 
             @Override
             final void flushBuffer() {
-                if (current != DUMMY_FACT) {
+                if (current >= 0) {
                     fieldData.write(buffer);
                     buffer.clear();
                 }
@@ -159,7 +258,7 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
 
             @Override
             final void flushBuffer() {
-                if (current != DUMMY_FACT) {
+                if (current >= 0) {
                     fieldData.write(currentFactField(field));
                     fieldData.write(buffer);
                     buffer.clear();
@@ -175,7 +274,7 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
 
             @Override
             final void flushBuffer() {
-                if (current != DUMMY_FACT) {
+                if (current >= 0) {
                     for (ActiveField field : activeFields) {
                         fieldData.write(currentFactField(field));
                     }
@@ -193,24 +292,26 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
         }
 
         @Override
-        public final boolean insert(Iterable<RuntimeFact> facts) {
-            current = DUMMY_FACT;
+        public final boolean insert(RuntimeFactBatch facts) {
+            batch = facts;
+            current = -1;
             boolean ret = false;
-            for (RuntimeFact fact : facts) {
+            for (int row = 0; row < facts.size(); row++) {
                 ret = true;
-                fact.factRecord.markLocation(address);
-                if (current.sameValues(fact)) {
-                    buffer.add(fact.factHandle);
+                facts.getRecord(row).markLocation(address);
+                if (current >= 0 && facts.sameValues(current, row)) {
+                    buffer.add(facts.getHandle(row));
                 } else {
                     // Key changed, ready for batch insert
                     flushBuffer();
-                    buffer.add(fact.factHandle);
-                    current = fact;
+                    buffer.add(facts.getHandle(row));
+                    current = row;
                 }
             }
             if (!buffer.isEmpty()) {
                 flushBuffer();
             }
+            batch = null;
             return ret;
         }
 
@@ -222,7 +323,7 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
 
             @Override
             final void flushBuffer() {
-                if (current != DUMMY_FACT) {
+                if (current >= 0) {
                     fieldData.write(buffer);
                     buffer.clear();
                 }
@@ -240,7 +341,7 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
 
             @Override
             final void flushBuffer() {
-                if (current != DUMMY_FACT) {
+                if (current >= 0) {
                     fieldData.write(currentFactField(field));
                     fieldData.write(buffer);
                     buffer.clear();
@@ -256,7 +357,7 @@ public abstract class KeyMemoryBucket extends MemoryComponent {
 
             @Override
             final void flushBuffer() {
-                if (current != DUMMY_FACT) {
+                if (current >= 0) {
                     for (ActiveField field : activeFields) {
                         fieldData.write(currentFactField(field));
                     }
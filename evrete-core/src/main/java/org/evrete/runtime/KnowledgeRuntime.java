@@ -1,20 +1,18 @@
 package org.evrete.runtime;
 
+import org.evrete.Configuration;
 import org.evrete.KnowledgeService;
 import org.evrete.api.*;
-import org.evrete.runtime.compiler.CompilationException;
 import org.evrete.runtime.evaluation.MemoryAddress;
 import org.evrete.util.SearchList;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
-import java.util.WeakHashMap;
+import java.util.*;
 
 public class KnowledgeRuntime extends AbstractRuntime<RuleDescriptor, Knowledge> implements Knowledge {
     private final WeakHashMap<RuleSession<?>, Object> sessions = new WeakHashMap<>();
     private final Object VALUE = new Object();
     private final SearchList<RuleDescriptor> ruleDescriptors = new SearchList<>();
+    private final StatelessSessionPool statelessSessions = new StatelessSessionPool();
 
     public KnowledgeRuntime(KnowledgeService service) {
         super(service);
@@ -35,11 +33,16 @@ public class KnowledgeRuntime extends AbstractRuntime<RuleDescriptor, Knowledge>
     }
 
     @Override
-    protected void addRuleInner(org.evrete.api.RuleBuilder<?> builder) throws CompilationException {
-        RuleBuilderImpl<?> impl = (RuleBuilderImpl<?>) builder;
-        RuleDescriptor rd = super.compileRuleBuilder(impl);
+    protected void addRuleDescriptor(RuleDescriptor rd) {
         this.ruleDescriptors.add(rd);
         this.ruleDescriptors.sort(getRuleComparator());
+        this.statelessSessions.invalidate();
+    }
+
+    @Override
+    public void setRuleComparator(Comparator<Rule> ruleComparator) {
+        super.setRuleComparator(ruleComparator);
+        this.statelessSessions.invalidate();
     }
 
     @Override
@@ -75,10 +78,39 @@ public class KnowledgeRuntime extends AbstractRuntime<RuleDescriptor, Knowledge>
 
     @Override
     public StatelessSession newStatelessSession() {
-        return register(new StatelessSessionImpl(this));
+        if (statelessPoolSize() > 0) {
+            StatelessSessionImpl session = statelessSessions.poll();
+            if (session == null) {
+                session = new StatelessSessionImpl(this, statelessSessions.generation());
+            }
+            return register(session);
+        } else {
+            return register(new StatelessSessionImpl(this));
+        }
+    }
+
+    private int statelessPoolSize() {
+        return getConfiguration().getAsInteger(Configuration.STATELESS_SESSION_POOL_SIZE, Configuration.STATELESS_SESSION_POOL_SIZE_DEFAULT);
+    }
+
+    /**
+     * <p>
+     * Returns a fired stateless session to the pool.
+     * </p>
+     *
+     * @param session fired session
+     * @return {@code false} if the session can not be reused and must be closed
+     */
+    boolean release(StatelessSessionImpl session) {
+        int capacity = statelessPoolSize();
+        if (capacity <= 0 || session.getPoolGeneration() != statelessSessions.generation() || !session.resetForReuse()) {
+            return false;
+        }
+        close(session);
+        return statelessSessions.offer(session, capacity);
     }
 
-    private <S extends RuleSession<S>> S register(S session) {
+    <S extends RuleSession<S>> S register(S session) {
         sessions.put(session, VALUE);
         return session;
     }
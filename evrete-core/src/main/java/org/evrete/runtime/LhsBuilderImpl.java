@@ -6,15 +6,20 @@ import org.evrete.runtime.evaluation.EvaluatorOfArray;
 import org.evrete.runtime.evaluation.EvaluatorOfPredicate;
 import org.evrete.util.NamedTypeImpl;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 class LhsBuilderImpl<C extends RuntimeContext<C>> extends  DefaultTypeResolver implements LhsBuilder<C> {
     private final RuleBuilderImpl<C> ruleBuilder;
     private final AbstractRuntime<?, C> runtime;
     private final LhsConditions conditions = new LhsConditions();
+    private final List<Existence> existence = new ArrayList<>();
 
     LhsBuilderImpl(RuleBuilderImpl<C> ruleBuilder) {
         this.ruleBuilder = ruleBuilder;
@@ -33,6 +38,10 @@ class LhsBuilderImpl<C extends RuntimeContext<C>> extends  DefaultTypeResolver i
         return conditions;
     }
 
+    Existence[] getExistence() {
+        return existence.toArray(Existence.ZERO_ARRAY);
+    }
+
     @Override
     public RuleBuilder<C> create() {
         return ruleBuilder;
@@ -43,6 +52,32 @@ class LhsBuilderImpl<C extends RuntimeContext<C>> extends  DefaultTypeResolver i
         return ruleBuilder.build(consumer);
     }
 
+    @Override
+    public <K, R> C aggregate(Function<RhsContext, K> groupBy, Aggregate<?, R> aggregate, BiFunction<K, R, ?> result) {
+        if (!existence.isEmpty()) {
+            throw new IllegalStateException("Aggregating rules can not have not/exists conditions");
+        }
+        return ruleBuilder.build(new Aggregation<>(groupBy, aggregate, result));
+    }
+
+    @Override
+    public <T> LhsBuilderImpl<C> not(@NonNull Class<T> type, @NonNull Function<T, ?> key, @NonNull Function<RhsContext, ?> match) {
+        addExistence(type, key, match, false);
+        return this;
+    }
+
+    @Override
+    public <T> LhsBuilderImpl<C> exists(@NonNull Class<T> type, @NonNull Function<T, ?> key, @NonNull Function<RhsContext, ?> match) {
+        addExistence(type, key, match, true);
+        return this;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void addExistence(Class<T> type, Function<T, ?> key, Function<RhsContext, ?> match, boolean exists) {
+        Type<?> t = runtime.getTypeResolver().getOrDeclare(type);
+        this.existence.add(new Existence(t.getId(), (Function<Object, ?>) key, match, exists));
+    }
+
     @Override
     public C execute(String literalRhs) {
         return ruleBuilder.build(literalRhs);
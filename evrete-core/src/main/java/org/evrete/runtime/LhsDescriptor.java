@@ -11,6 +11,9 @@ import java.util.*;
 import java.util.function.ToDoubleFunction;
 
 class LhsDescriptor {
+    // Estimated pass rates of conditions that haven't been observed yet
+    private static final double EQUALITY_SELECTIVITY = 0.1;
+    private static final double DEFAULT_SELECTIVITY = 0.5;
     private static final Set<EvaluatorHandle> EMPTY_ALPHA_CONDITIONS = new HashSet<>();
     private static final Set<TypeField> EMPTY_TYPE_FIELDS = new HashSet<>();
 
@@ -66,7 +69,7 @@ class LhsDescriptor {
 
         this.factTypes = allFactTypes.toArray(FactType.ZERO_ARRAY);
 
-        ConditionNodeDescriptor[] finalNodes = findBestAllocation(betaHandles, typeMapping);
+        ConditionNodeDescriptor[] finalNodes = findBestAllocation(runtime, betaHandles, typeMapping);
 
         List<RhsFactGroupDescriptor> allFactGroups = new ArrayList<>();
 
@@ -85,7 +88,7 @@ class LhsDescriptor {
         this.allFactGroups = allFactGroups.toArray(RhsFactGroupDescriptor.ZERO_ARRAY);
     }
 
-    private static ConditionNodeDescriptor[] findBestAllocation(Set<EvaluatorHandle> betaConditions, MapFunction<NamedType, FactType> mapping) {
+    private static ConditionNodeDescriptor[] findBestAllocation(AbstractRuntime<?, ?> runtime, Set<EvaluatorHandle> betaConditions, MapFunction<NamedType, FactType> mapping) {
         // Compiling conditions
         if (betaConditions.isEmpty()) return ConditionNodeDescriptor.ZERO_ARRAY;
 
@@ -112,21 +115,35 @@ class LhsDescriptor {
 
         }
 
-        // MinMax complexities (times
-        Map<BetaEvaluator, Double> minMaxComplexities = new HashMap<>();
+        // Estimated costs: MinMax complexities times the number of involved types and the condition's selectivity.
+        // Cheap and selective conditions come first and get allocated closer to the entry nodes,
+        // so that the subsequent joins operate on smaller intermediate results.
+        ConditionStatistics statistics = runtime.getConditionStatistics();
+        double complexityRange = maxComplexity - minComplexity;
+        Map<BetaEvaluator, Double> costs = new HashMap<>();
         for (BetaEvaluator g : evaluators) {
-            double newComplexity = 1.0 + (g.getComplexity() - minComplexity) / (maxComplexity - minComplexity);
-            minMaxComplexities.put(g, newComplexity * g.getTotalTypesInvolved());
+            double newComplexity = complexityRange > 0.0 ? 1.0 + (g.getComplexity() - minComplexity) / complexityRange : 1.0;
+            double selectivity = statistics.selectivity(g, estimatedSelectivity(runtime, g));
+            costs.put(g, newComplexity * g.getTotalTypesInvolved() * selectivity);
         }
 
         // Sorting
-        // Same complexity
-        evaluators.sort(Comparator.comparingDouble((ToDoubleFunction<BetaEvaluator>) minMaxComplexities::get).thenComparing(BetaEvaluator::toString));
+        // Same cost
+        evaluators.sort(Comparator.comparingDouble((ToDoubleFunction<BetaEvaluator>) costs::get).thenComparing(BetaEvaluator::toString));
 
         Collection<ConditionNodeDescriptor> finalNodes = ConditionNodeDescriptor.allocateConditions(betaTypes, evaluators);
         return finalNodes.toArray(ConditionNodeDescriptor.ZERO_ARRAY);
     }
 
+    private static double estimatedSelectivity(AbstractRuntime<?, ?> runtime, BetaEvaluator evaluator) {
+        double selectivity = 1.0;
+        for (EvaluatorHandle handle : evaluator.constituents()) {
+            Evaluator e = runtime.getEvaluator(handle);
+            selectivity *= EqualityJoin.isEqualityTerm(e) ? EQUALITY_SELECTIVITY : DEFAULT_SELECTIVITY;
+        }
+        return selectivity;
+    }
+
     RhsFactGroupDescriptor[] getAllFactGroups() {
         return allFactGroups;
     }
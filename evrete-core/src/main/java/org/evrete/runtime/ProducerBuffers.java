@@ -0,0 +1,158 @@
+package org.evrete.runtime;
+
+import org.evrete.api.FactHandle;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * <p>
+ * Action buffers of a session that accepts inserts, updates, and deletes from multiple threads
+ * (see {@link org.evrete.Configuration#CONCURRENT_INSERTS}). Every producer thread gets a buffer of its own,
+ * so producers never contend with each other. Each buffer is guarded by its own monitor, which is only
+ * contended when the session drains the buffers into its main buffer at the start of a fire cycle, or when
+ * a producer looks up or changes a fact that has a pending action in another producer's buffer.
+ * </p>
+ * <p>
+ * A thread is registered as a producer on its first action, threads that fire the session write
+ * to the session's main buffer instead. Actions on a fact are drained in the order they were made
+ * as long as each of them sees the previous one; the relative order of concurrent actions
+ * on the same fact is undefined.
+ * </p>
+ */
+class ProducerBuffers {
+    private final Queue<Producer> producers = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Producer> current = new ThreadLocal<>();
+    private final Supplier<FactActionBuffer> bufferFactory;
+
+    ProducerBuffers(Supplier<FactActionBuffer> bufferFactory) {
+        this.bufferFactory = bufferFactory;
+    }
+
+    /**
+     * @param action action to apply to the current thread's buffer
+     * @param <T>    result type
+     * @return action's result
+     */
+    <T> T apply(Function<FactActionBuffer, T> action) {
+        return apply(producer().buffer, action);
+    }
+
+    /**
+     * <p>
+     * Applies the action to the buffer that already holds a pending action on the given fact, so that
+     * actions on a fact that was inserted or changed by another producer are drained in the order they were made.
+     * If there's no such buffer, the current thread's buffer is used.
+     * </p>
+     *
+     * @param handle fact handle
+     * @param action action to apply
+     * @param <T>    result type
+     * @return action's result
+     */
+    <T> T apply(FactHandle handle, Function<FactActionBuffer, T> action) {
+        Producer local = current.get();
+        if (local == null || !contains(local.buffer, handle)) {
+            for (Producer producer : producers) {
+                if (producer != local && contains(producer.buffer, handle)) {
+                    return apply(producer.buffer, action);
+                }
+            }
+        }
+        return apply(local == null ? producer().buffer : local.buffer, action);
+    }
+
+    /**
+     * @param handle fact handle
+     * @return pending action of the current thread or, if there's none, of any other producer
+     */
+    AtomicMemoryAction find(FactHandle handle) {
+        Producer local = current.get();
+        AtomicMemoryAction found;
+        if (local != null && (found = find(local.buffer, handle)) != null) {
+            return found;
+        }
+        for (Producer producer : producers) {
+            if (producer != local && (found = find(producer.buffer, handle)) != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * <p>
+     * Moves all pending actions into the destination buffer. Buffers of terminated threads are released.
+     * </p>
+     *
+     * @param destination session's main buffer
+     */
+    void drainTo(FactActionBuffer destination) {
+        Iterator<Producer> it = producers.iterator();
+        while (it.hasNext()) {
+            Producer producer = it.next();
+            // Checking the owner before draining, a live owner may still add actions after the drain
+            Thread owner = producer.owner.get();
+            boolean terminated = owner == null || !owner.isAlive();
+            FactActionBuffer buffer = producer.buffer;
+            synchronized (buffer) {
+                if (buffer.hasData()) {
+                    synchronized (destination) {
+                        buffer.copyToAndClear(destination);
+                    }
+                }
+            }
+            if (terminated) {
+                it.remove();
+            }
+        }
+    }
+
+    void clear() {
+        for (Producer producer : producers) {
+            FactActionBuffer buffer = producer.buffer;
+            synchronized (buffer) {
+                buffer.clear();
+            }
+        }
+    }
+
+    private Producer producer() {
+        Producer producer = current.get();
+        if (producer == null) {
+            producer = new Producer(bufferFactory.get());
+            current.set(producer);
+            producers.add(producer);
+        }
+        return producer;
+    }
+
+    private static <T> T apply(FactActionBuffer buffer, Function<FactActionBuffer, T> action) {
+        synchronized (buffer) {
+            return action.apply(buffer);
+        }
+    }
+
+    private static AtomicMemoryAction find(FactActionBuffer buffer, FactHandle handle) {
+        synchronized (buffer) {
+            return buffer.find(handle);
+        }
+    }
+
+    private static boolean contains(FactActionBuffer buffer, FactHandle handle) {
+        return find(buffer, handle) != null;
+    }
+
+    private static class Producer {
+        final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+        final FactActionBuffer buffer;
+
+        Producer(FactActionBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+}
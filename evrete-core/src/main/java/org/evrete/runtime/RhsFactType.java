@@ -9,11 +9,13 @@ import java.util.Objects;
  */
 class RhsFactType {
     private final RuntimeFactType type;
-    FactHandle handle;
     FactRecord record;
     ReIterator<FactHandleVersioned> factIterator;
     private MemoryKey currentKey;
+    // Current fact as returned by the iterator, possibly an instance the iterator reuses
     private FactHandleVersioned currentFactHandle;
+    // Handle of the current fact that is safe to keep, materialized on demand
+    private FactHandle handle;
 
     RhsFactType(RuntimeFactType type) {
         this.type = type;
@@ -44,23 +46,42 @@ class RhsFactType {
     }
 
     boolean setCurrentFact(FactHandleVersioned v) {
-        if (Objects.equals(v, currentFactHandle)) {
-            // The same as previous, no need to query memory
-            return true;
+        // Some iterators reuse their instances, so the same instance doesn't mean the same fact
+        FactRecord rec = type.get(v.getHandle());
+        if (rec == null || rec.getVersion() != v.getVersion()) {
+            return false;
         } else {
-            FactHandle handle = v.getHandle();
-            FactRecord rec = type.get(handle);
-            if (rec == null || rec.getVersion() != v.getVersion()) {
-                return false;
-            } else {
-                this.currentFactHandle = v;
-                this.handle = handle;
-                this.record = rec;
-                return true;
-            }
+            this.currentFactHandle = v;
+            this.handle = null;
+            this.record = rec;
+            return true;
         }
     }
 
+    /**
+     * @return handle of the current fact
+     */
+    FactHandle handle() {
+        if (handle == null) {
+            handle = currentFactHandle.copy().getHandle();
+        }
+        return handle;
+    }
+
+    /**
+     * <p>
+     * Sets the current fact directly, bypassing the fact iterator.
+     * </p>
+     *
+     * @param handle fact handle
+     * @param record fact record
+     */
+    void setCurrentFact(FactHandle handle, FactRecord record) {
+        this.currentFactHandle = null;
+        this.handle = handle;
+        this.record = record;
+    }
+
     @Override
     public String toString() {
         return "{" +
@@ -3,6 +3,7 @@ package org.evrete.runtime;
 import org.evrete.AbstractRule;
 import org.evrete.api.*;
 import org.evrete.api.annotations.NonNull;
+import org.evrete.api.spi.LiteralRhsCompiler;
 import org.evrete.runtime.compiler.CompilationException;
 import org.evrete.runtime.evaluation.EvaluatorOfArray;
 import org.evrete.runtime.evaluation.EvaluatorOfPredicate;
@@ -11,7 +12,7 @@ import java.util.Collection;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 
-class RuleBuilderImpl<C extends RuntimeContext<C>> extends AbstractRule implements RuleBuilder<C>, LhsConditionsHolder {
+class RuleBuilderImpl<C extends RuntimeContext<C>> extends AbstractRule implements RuleBuilder<C>, LhsConditionsHolder, LiteralRhsCompiler.RhsSource {
     public static final int NULL_SALIENCE = Integer.MIN_VALUE;
     private final AbstractRuntime<?, C> runtime;
     private final LhsBuilderImpl<C> lhsBuilder;
@@ -32,6 +33,16 @@ class RuleBuilderImpl<C extends RuntimeContext<C>> extends AbstractRule implemen
         return lhsBuilder.getDeclaredFactTypes();
     }
 
+    @Override
+    public String getLiteralRhs() {
+        return super.getLiteralRhs();
+    }
+
+    @Override
+    public NamedType[] getFactTypes() {
+        return getDeclaredFactTypes().toArray(new NamedType[0]);
+    }
+
     @Override
     public RuleBuilderImpl<C> set(String property, Object value) {
         super.set(property, value);
@@ -6,21 +6,30 @@ import org.evrete.util.NextIntSupplier;
 
 public final class RuleDescriptor extends AbstractRuntimeRule<FactType> {
     private final LhsDescriptor lhsDescriptor;
+    private final Existence[] existence;
 
-    private RuleDescriptor(AbstractRuntime<?, ?> runtime, AbstractRule other, String ruleName, int salience, LhsDescriptor lhsDescriptor) {
+    private RuleDescriptor(AbstractRuntime<?, ?> runtime, AbstractRule other, String ruleName, int salience, LhsDescriptor lhsDescriptor, Existence[] existence) {
         super(runtime, other, ruleName, salience, lhsDescriptor.getFactTypes());
         this.lhsDescriptor = lhsDescriptor;
+        this.existence = existence;
     }
 
     static RuleDescriptor factory(AbstractRuntime<?, ?> runtime, RuleBuilderImpl<?> rule, LhsConditionHandles lhsConditions,  String ruleName, int salience) {
         LhsDescriptor lhsDescriptor = new LhsDescriptor(runtime, rule.getLhs(), lhsConditions, new NextIntSupplier(), new MapFunction<>());
-        return new RuleDescriptor(runtime, rule, ruleName, salience, lhsDescriptor);
+        return new RuleDescriptor(runtime, rule, ruleName, salience, lhsDescriptor, rule.getLhs().getExistence());
     }
 
     LhsDescriptor getLhs() {
         return lhsDescriptor;
     }
 
+    /**
+     * @return {@code not} and {@code exists} conditions of the rule
+     */
+    Existence[] getExistence() {
+        return existence;
+    }
+
     @Override
     public RuleDescriptor set(String property, Object value) {
         super.set(property, value);
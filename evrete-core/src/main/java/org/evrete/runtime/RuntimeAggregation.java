@@ -0,0 +1,219 @@
+package org.evrete.runtime;
+
+import org.evrete.api.Action;
+import org.evrete.api.Aggregate;
+import org.evrete.api.FactHandle;
+import org.evrete.api.RhsContext;
+import org.evrete.api.Type;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Session state of an aggregating rule. Every matching combination of facts contributes a single
+ * value to its group, and the contribution is remembered by the combination's fact handles.
+ * New combinations arrive as the rule's deltas, while deleted and updated facts withdraw all
+ * their contributions before the deltas are computed. Updated facts that still match
+ * contribute again with the rule's next deltas, so that every change costs time proportional to the
+ * number of affected combinations only.
+ * </p>
+ * <p>
+ * Changed groups are flushed to the working memory as derived facts once per fire cycle.
+ * </p>
+ */
+class RuntimeAggregation implements Consumer<RhsContext> {
+    private final Aggregation<Object, Object, Object> definition;
+    private final RhsFactType[] factTypeNodes;
+    private final Type<?>[] types;
+    private final Map<Object, Group> groups = new HashMap<>();
+    private final Map<List<FactHandle>, Contribution> contributions = new HashMap<>();
+    private final Map<FactHandle, Set<Contribution>> handleContributions = new HashMap<>();
+    private final Set<Group> changed = new LinkedHashSet<>();
+
+    @SuppressWarnings("unchecked")
+    RuntimeAggregation(Aggregation<?, ?, ?> definition, RuntimeRuleImpl rule, RhsFactType[] factTypeNodes) {
+        this.definition = (Aggregation<Object, Object, Object>) definition;
+        this.factTypeNodes = factTypeNodes;
+        Set<Type<?>> ruleTypes = new HashSet<>();
+        for (FactType factType : rule.getFactTypes()) {
+            ruleTypes.add(rule.getRuntime().getTypeResolver().getType(factType.type()));
+        }
+        this.types = ruleTypes.toArray(new Type<?>[0]);
+    }
+
+    /**
+     * <p>
+     * Adds the value of the current combination of facts.
+     * </p>
+     *
+     * @param ctx RHS context of the rule
+     */
+    @Override
+    public void accept(RhsContext ctx) {
+        FactHandle[] handles = new FactHandle[factTypeNodes.length];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = factTypeNodes[i].handle();
+        }
+        Object key = definition.groupBy.apply(ctx);
+        Object value = definition.aggregate.value(ctx);
+        add(new Contribution(Arrays.asList(handles), groups.computeIfAbsent(key, Group::new), value));
+    }
+
+    private void add(Contribution contribution) {
+        Contribution previous = contributions.put(contribution.handles, contribution);
+        if (previous != null) {
+            // The same combination matches again
+            withdraw(previous, false);
+        }
+        for (FactHandle handle : contribution.handles) {
+            handleContributions.computeIfAbsent(handle, h -> new HashSet<>()).add(contribution);
+        }
+        Group group = contribution.group;
+        group.accumulator.add(contribution.value);
+        group.size++;
+        changed.add(group);
+    }
+
+    private void withdraw(Contribution contribution, boolean removeKey) {
+        if (removeKey) {
+            contributions.remove(contribution.handles);
+        }
+        for (FactHandle handle : contribution.handles) {
+            Set<Contribution> set = handleContributions.get(handle);
+            if (set != null) {
+                set.remove(contribution);
+                if (set.isEmpty()) {
+                    handleContributions.remove(handle);
+                }
+            }
+        }
+        Group group = contribution.group;
+        group.accumulator.remove(contribution.value);
+        group.size--;
+        changed.add(group);
+    }
+
+    /**
+     * <p>
+     * Withdraws contributions of the deleted and updated facts of the rule's types.
+     * </p>
+     *
+     * @param buffer pending memory actions
+     */
+    void onActions(FactActionBuffer buffer) {
+        if (handleContributions.isEmpty()) return;
+        for (Type<?> type : types) {
+            buffer.forEach(type, action -> {
+                if (action.action != Action.INSERT) {
+                    Set<Contribution> set = handleContributions.get(action.handle);
+                    if (set != null) {
+                        for (Contribution contribution : set.toArray(new Contribution[0])) {
+                            withdraw(contribution, true);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * <p>
+     * Inserts, replaces, or deletes the derived facts of the changed groups.
+     * </p>
+     *
+     * @param session     session
+     * @param destination destination buffer
+     */
+    void flush(AbstractRuleSession<?> session, FactActionBuffer destination) {
+        if (changed.isEmpty()) return;
+        for (Group group : changed) {
+            if (group.size == 0) {
+                groups.remove(group.key);
+                if (group.handle != null) {
+                    FactRecord record = session.getFactRecord(group.handle);
+                    if (record != null) {
+                        AbstractRuleSession.bufferDelete(group.handle, record, destination);
+                    }
+                }
+            } else {
+                Object result = group.accumulator.result();
+                FactRecord record = group.handle == null ? null : session.getFactRecord(group.handle);
+                if (record == null) {
+                    group.handle = session.bufferInsertDerived(definition.result.apply(group.key, result), destination);
+                    group.result = result;
+                } else if (!Objects.equals(result, group.result)) {
+                    AbstractRuleSession.bufferUpdate(group.handle, record, definition.result.apply(group.key, result), destination);
+                    group.result = result;
+                }
+            }
+        }
+        changed.clear();
+    }
+
+    /**
+     * <p>
+     * Copies the state of a parent session's aggregation. Accumulators can not be copied,
+     * so the contributions are added again to the accumulators of new groups.
+     * </p>
+     *
+     * @param other aggregation of the parent session
+     */
+    void copyFrom(RuntimeAggregation other) {
+        for (Group group : other.groups.values()) {
+            Group copy = new Group(group.key);
+            copy.handle = group.handle;
+            copy.result = group.result;
+            groups.put(copy.key, copy);
+        }
+        for (Contribution contribution : other.contributions.values()) {
+            Group group = groups.get(contribution.group.key);
+            Contribution copy = new Contribution(contribution.handles, group, contribution.value);
+            contributions.put(copy.handles, copy);
+            for (FactHandle handle : copy.handles) {
+                handleContributions.computeIfAbsent(handle, h -> new HashSet<>()).add(copy);
+            }
+            group.accumulator.add(copy.value);
+            group.size++;
+        }
+        for (Group group : other.changed) {
+            Group copy = groups.get(group.key);
+            if (copy != null) {
+                changed.add(copy);
+            }
+        }
+    }
+
+    void clear() {
+        groups.clear();
+        contributions.clear();
+        handleContributions.clear();
+        changed.clear();
+    }
+
+    private class Group {
+        final Object key;
+        final Aggregate.Accumulator<Object, Object> accumulator;
+        int size;
+        // Derived fact and its current result
+        FactHandle handle;
+        Object result;
+
+        Group(Object key) {
+            this.key = key;
+            this.accumulator = definition.aggregate.newAccumulator();
+        }
+    }
+
+    private static class Contribution {
+        final List<FactHandle> handles;
+        final Group group;
+        final Object value;
+
+        Contribution(List<FactHandle> handles, Group group, Object value) {
+            this.handles = handles;
+            this.group = group;
+            this.value = value;
+        }
+    }
+}
@@ -15,9 +15,13 @@ class RuntimeBetaEvaluator {
         }
     }
 
-    public boolean test() {
-        for (EvaluatorWrapper w : constituents) {
-            if (!w.test()) return false;
+    /**
+     * @param values constituents' arguments, one array per constituent
+     * @return true if all the constituents pass
+     */
+    public boolean test(Object[][] values) {
+        for (int i = 0; i < constituents.length; i++) {
+            if (!constituents[i].test(values[i])) return false;
         }
         return true;
     }
@@ -0,0 +1,376 @@
+package org.evrete.runtime;
+
+import org.evrete.api.Action;
+import org.evrete.api.FactHandle;
+import org.evrete.api.RhsContext;
+import org.evrete.api.Type;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Session state of a rule with {@code not} and {@code exists} conditions. Facts of each condition's
+ * type are counted by their keys, so that an inserted, updated, or deleted fact costs a single counter
+ * update. Matching combinations of the rule's facts are remembered by their keys too, and those whose
+ * conditions become satisfied after a counter update are activated again with the rule's next RHS call.
+ * </p>
+ * <p>
+ * The state is kept on the heap alongside the beta memory, its cost is: for each condition, a map entry
+ * per counted fact and per distinct key; for each matching combination, a {@link Combination} instance
+ * and a set entry per each of its facts and non-null keys.
+ * </p>
+ */
+class RuntimeExistence {
+    private final Existence[] conditions;
+    private final RhsFactType[] factTypeNodes;
+    // Type ids of the rule's facts and of the conditions' facts
+    private final int[] typeIds;
+    private final int[] conditionTypeIds;
+    private final Type<?>[] conditionTypes;
+    private final Map<Object, Integer>[] counts;
+    private final Map<FactHandle, Object>[] factKeys;
+    private final Map<Object, Set<Combination>>[] keyCombinations;
+    private final Map<FactHandle, Set<Combination>> handleCombinations = new HashMap<>();
+    private final Set<Combination> pending = new LinkedHashSet<>();
+
+    @SuppressWarnings("unchecked")
+    RuntimeExistence(Existence[] conditions, RuntimeRuleImpl rule, RhsFactType[] factTypeNodes) {
+        this.conditions = conditions;
+        this.factTypeNodes = factTypeNodes;
+        Set<Integer> ruleTypes = new HashSet<>();
+        for (FactType factType : rule.getFactTypes()) {
+            ruleTypes.add(rule.getRuntime().getTypeResolver().getType(factType.type()).getId());
+        }
+        this.typeIds = ruleTypes.stream().mapToInt(Integer::intValue).toArray();
+        this.conditionTypes = new Type<?>[conditions.length];
+        this.conditionTypeIds = new int[conditions.length];
+        this.counts = new Map[conditions.length];
+        this.factKeys = new Map[conditions.length];
+        this.keyCombinations = new Map[conditions.length];
+        for (int i = 0; i < conditions.length; i++) {
+            this.conditionTypes[i] = rule.getRuntime().getTypeResolver().getType(conditions[i].type);
+            this.conditionTypeIds[i] = conditionTypes[i].getId();
+            this.counts[i] = new HashMap<>();
+            this.factKeys[i] = new HashMap<>();
+            this.keyCombinations[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * <p>
+     * Remembers the current combination of facts and passes it to the action if
+     * the combination satisfies the conditions.
+     * </p>
+     *
+     * @param ctx    RHS context of the rule
+     * @param action rule's action
+     */
+    void accept(RhsContext ctx, Consumer<RhsContext> action) {
+        if (add(ctx)) {
+            action.accept(ctx);
+        }
+    }
+
+    private boolean add(RhsContext ctx) {
+        FactHandle[] handles = new FactHandle[factTypeNodes.length];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = factTypeNodes[i].handle();
+        }
+        Object[] keys = new Object[conditions.length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = conditions[i].match.apply(ctx);
+        }
+        Combination combination = new Combination(Arrays.asList(handles), keys);
+        Combination previous = find(combination.handles);
+        if (previous != null) {
+            // The same combination matches again
+            remove(previous);
+        }
+        for (FactHandle handle : combination.handles) {
+            handleCombinations.computeIfAbsent(handle, h -> new HashSet<>()).add(combination);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                keyCombinations[i].computeIfAbsent(keys[i], k -> new HashSet<>()).add(combination);
+            }
+        }
+        combination.satisfied = test(keys);
+        return combination.satisfied;
+    }
+
+    /**
+     * @param handles fact handles of a combination
+     * @return remembered combination of the same facts, or null if there's none
+     */
+    private Combination find(List<FactHandle> handles) {
+        // Scanning the smallest of the facts' combination sets
+        Set<Combination> candidates = null;
+        for (FactHandle handle : handles) {
+            Set<Combination> set = handleCombinations.get(handle);
+            if (set == null) {
+                return null;
+            } else if (candidates == null || set.size() < candidates.size()) {
+                candidates = set;
+            }
+        }
+        if (candidates != null) {
+            for (Combination c : candidates) {
+                if (c.handles.equals(handles)) {
+                    return c;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void remove(Combination combination) {
+        pending.remove(combination);
+        for (FactHandle handle : combination.handles) {
+            Set<Combination> set = handleCombinations.get(handle);
+            if (set != null) {
+                set.remove(combination);
+                if (set.isEmpty()) {
+                    handleCombinations.remove(handle);
+                }
+            }
+        }
+        for (int i = 0; i < conditions.length; i++) {
+            Object key = combination.keys[i];
+            if (key != null) {
+                Set<Combination> set = keyCombinations[i].get(key);
+                if (set != null) {
+                    set.remove(combination);
+                    if (set.isEmpty()) {
+                        keyCombinations[i].remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean test(Object[] keys) {
+        for (int i = 0; i < conditions.length; i++) {
+            Object key = keys[i];
+            int count = key == null ? 0 : counts[i].getOrDefault(key, 0);
+            if (!conditions[i].test(count)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Forgets combinations of the deleted and updated facts of the rule's types, and updates
+     * the counters of the conditions' types. Combinations which satisfy the conditions as a result
+     * become pending activations, those which no longer satisfy them are reported as revoked.
+     * </p>
+     *
+     * @param buffer  pending memory actions
+     * @param revoked consumer of the fact handles of revoked combinations
+     */
+    @SuppressWarnings("unchecked")
+    void onActions(FactActionBuffer buffer, Consumer<List<FactHandle>> revoked) {
+        // Per condition, keys and their counts before the changes
+        Map<Object, Integer>[] changed = new Map[conditions.length];
+        for (int i = 0; i < changed.length; i++) {
+            changed[i] = new HashMap<>();
+        }
+
+        buffer.forEach(action -> {
+            int typeId = action.handle.getTypeId();
+            if (action.action != Action.INSERT && !handleCombinations.isEmpty() && contains(typeIds, typeId)) {
+                Set<Combination> set = handleCombinations.get(action.handle);
+                if (set != null) {
+                    for (Combination combination : set.toArray(new Combination[0])) {
+                        remove(combination);
+                    }
+                }
+            }
+            for (int condition = 0; condition < conditions.length; condition++) {
+                if (conditionTypeIds[condition] == typeId) {
+                    count(condition, action, changed[condition]);
+                }
+            }
+        });
+
+        for (int i = 0; i < conditions.length; i++) {
+            Existence existence = conditions[i];
+            for (Map.Entry<Object, Integer> entry : changed[i].entrySet()) {
+                Object key = entry.getKey();
+                Integer before = entry.getValue();
+                boolean wasSatisfied = existence.test(before == null ? 0 : before);
+                if (wasSatisfied != existence.test(counts[i].getOrDefault(key, 0))) {
+                    Set<Combination> set = keyCombinations[i].get(key);
+                    if (set != null) {
+                        for (Combination combination : set) {
+                            boolean satisfied = test(combination.keys);
+                            if (satisfied && !combination.satisfied) {
+                                pending.add(combination);
+                            } else if (!satisfied && combination.satisfied) {
+                                pending.remove(combination);
+                                revoked.accept(combination.handles);
+                            }
+                            combination.satisfied = satisfied;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void count(int condition, AtomicMemoryAction action, Map<Object, Integer> changed) {
+        if (action.action != Action.INSERT) {
+            Object key = factKeys[condition].remove(action.handle);
+            if (key != null) {
+                changed.putIfAbsent(key, counts[condition].get(key));
+                counts[condition].compute(key, (k, count) -> count == 1 ? null : count - 1);
+            }
+        }
+        if (action.action != Action.RETRACT) {
+            Object key = countFact(condition, action.handle, action.getDelta().getLatest().instance);
+            if (key != null) {
+                changed.putIfAbsent(key, counts[condition].get(key) - 1);
+            }
+        }
+    }
+
+    private static boolean contains(int[] arr, int value) {
+        for (int i : arr) {
+            if (i == value) return true;
+        }
+        return false;
+    }
+
+    private Object countFact(int condition, FactHandle handle, Object fact) {
+        Object key = conditions[condition].key.apply(fact);
+        if (key != null) {
+            factKeys[condition].put(handle, key);
+            counts[condition].merge(key, 1, Integer::sum);
+        }
+        return key;
+    }
+
+    boolean hasPending() {
+        return !pending.isEmpty();
+    }
+
+    /**
+     * <p>
+     * Passes the pending activations to the action. The combinations' facts are read from the session's
+     * current state, and combinations which no longer satisfy the conditions are skipped.
+     * </p>
+     *
+     * @param session session
+     * @param ctx     RHS context of the rule
+     * @param action  rule's action
+     */
+    void firePending(AbstractRuleSession<?> session, RhsContext ctx, Consumer<RhsContext> action) {
+        if (pending.isEmpty()) return;
+        List<Combination> activations = new ArrayList<>(pending);
+        pending.clear();
+        for (Combination combination : activations) {
+            if (combination.satisfied && readFacts(session, combination)) {
+                action.accept(ctx);
+            }
+        }
+    }
+
+    private boolean readFacts(AbstractRuleSession<?> session, Combination combination) {
+        for (int i = 0; i < factTypeNodes.length; i++) {
+            FactHandle handle = combination.handles.get(i);
+            FactRecord record = session.getFactRecord(handle);
+            if (record == null) {
+                return false;
+            }
+            factTypeNodes[i].setCurrentFact(handle, record);
+        }
+        return true;
+    }
+
+    /**
+     * <p>
+     * Counts the existing facts of the conditions' types, used when a rule is deployed
+     * into a session which already has facts.
+     * </p>
+     *
+     * @param session session
+     */
+    void countExisting(AbstractRuleSession<?> session) {
+        for (int i = 0; i < conditions.length; i++) {
+            final int condition = i;
+            session.getMemory().get(conditionTypes[i]).forEachFact((handle, fact) -> countFact(condition, handle, fact));
+        }
+    }
+
+    /**
+     * <p>
+     * Remembers the current combination of facts without activating it.
+     * </p>
+     *
+     * @param ctx RHS context of the rule
+     */
+    void record(RhsContext ctx) {
+        add(ctx);
+    }
+
+    /**
+     * <p>
+     * Copies the state of a parent session's rule.
+     * </p>
+     *
+     * @param other state of the parent session's rule
+     */
+    void copyFrom(RuntimeExistence other) {
+        for (int i = 0; i < conditions.length; i++) {
+            counts[i].putAll(other.counts[i]);
+            factKeys[i].putAll(other.factKeys[i]);
+        }
+        Map<Combination, Combination> copies = new IdentityHashMap<>();
+        for (Set<Combination> set : other.handleCombinations.values()) {
+            for (Combination combination : set) {
+                copies.computeIfAbsent(combination, Combination::new);
+            }
+        }
+        for (Combination copy : copies.values()) {
+            for (FactHandle handle : copy.handles) {
+                handleCombinations.computeIfAbsent(handle, h -> new HashSet<>()).add(copy);
+            }
+            for (int i = 0; i < conditions.length; i++) {
+                if (copy.keys[i] != null) {
+                    keyCombinations[i].computeIfAbsent(copy.keys[i], k -> new HashSet<>()).add(copy);
+                }
+            }
+        }
+        for (Combination combination : other.pending) {
+            pending.add(copies.get(combination));
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < conditions.length; i++) {
+            counts[i].clear();
+            factKeys[i].clear();
+            keyCombinations[i].clear();
+        }
+        handleCombinations.clear();
+        pending.clear();
+    }
+
+    private static class Combination {
+        final List<FactHandle> handles;
+        final Object[] keys;
+        boolean satisfied;
+
+        Combination(List<FactHandle> handles, Object[] keys) {
+            this.handles = handles;
+            this.keys = keys;
+        }
+
+        Combination(Combination other) {
+            this(other.handles, other.keys);
+            this.satisfied = other.satisfied;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.evrete.runtime;
+
+import org.evrete.api.FactHandleVersioned;
+import org.evrete.api.ValueHandle;
+import org.evrete.util.Mask;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.StringJoiner;
+
+/**
+ * <p>
+ * A columnar batch of runtime facts, ready for insert operation. Instead of an object per fact,
+ * the batch keeps fact handles, records, value handles and alpha test results in parallel arrays
+ * that are indexed by the fact's row number. Value handles of all rows share a single flat array.
+ * </p>
+ * <p>
+ * Batches are meant to be reused: clearing a batch keeps its arrays and alpha bit sets, so that
+ * once a batch has reached its working size, filling it again allocates nothing but the
+ * versioned handles that get stored in memory buckets.
+ * </p>
+ */
+public final class RuntimeFactBatch {
+    private static final int INITIAL_CAPACITY = 16;
+    private int fieldCount;
+    private int size;
+    private FactHandleVersioned[] handles = new FactHandleVersioned[INITIAL_CAPACITY];
+    private FactRecord[] records = new FactRecord[INITIAL_CAPACITY];
+    private BitSet[] alphaTests = new BitSet[INITIAL_CAPACITY];
+    private ValueHandle[] values = new ValueHandle[0];
+
+    /**
+     * <p>
+     * Empties the batch and sets the number of value handles per row.
+     * </p>
+     *
+     * @param fieldCount number of active fields of the batch's type
+     */
+    void reset(int fieldCount) {
+        clear();
+        if (this.fieldCount != fieldCount) {
+            this.fieldCount = fieldCount;
+            this.values = new ValueHandle[handles.length * fieldCount];
+        }
+    }
+
+    /**
+     * <p>
+     * Empties the batch. Object references are released, while the arrays are retained for the next use.
+     * </p>
+     */
+    public void clear() {
+        Arrays.fill(handles, 0, size, null);
+        Arrays.fill(records, 0, size, null);
+        Arrays.fill(values, 0, size * fieldCount, null);
+        this.size = 0;
+    }
+
+    /**
+     * @param handle     versioned fact handle
+     * @param record     fact record
+     * @param alphaTests whether the batch's type has alpha conditions to test
+     * @return row number of the new entry
+     */
+    int add(FactHandleVersioned handle, FactRecord record, boolean alphaTests) {
+        if (size == handles.length) {
+            int capacity = size * 2;
+            this.handles = Arrays.copyOf(handles, capacity);
+            this.records = Arrays.copyOf(records, capacity);
+            this.alphaTests = Arrays.copyOf(this.alphaTests, capacity);
+            this.values = Arrays.copyOf(values, capacity * fieldCount);
+        }
+        int row = size++;
+        this.handles[row] = handle;
+        this.records[row] = record;
+        if (alphaTests) {
+            BitSet bits = this.alphaTests[row];
+            if (bits == null || bits == Mask.EMPTY) {
+                this.alphaTests[row] = new BitSet();
+            } else {
+                bits.clear();
+            }
+        } else {
+            this.alphaTests[row] = Mask.EMPTY;
+        }
+        return row;
+    }
+
+    void setValue(int row, int valueIndex, ValueHandle value) {
+        this.values[row * fieldCount + valueIndex] = value;
+    }
+
+    ValueHandle getValue(int row, ActiveField field) {
+        return this.values[row * fieldCount + field.getValueIndex()];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public FactHandleVersioned getHandle(int row) {
+        return handles[row];
+    }
+
+    public FactRecord getRecord(int row) {
+        return records[row];
+    }
+
+    BitSet getAlphaTests(int row) {
+        return alphaTests[row];
+    }
+
+    boolean sameValues(int row1, int row2) {
+        int offset1 = row1 * fieldCount;
+        int offset2 = row2 * fieldCount;
+        for (int i = 0; i < fieldCount; i++) {
+            ValueHandle h1 = values[offset1 + i];
+            ValueHandle h2 = values[offset2 + i];
+            // Typed handles compare their values without boxing
+            if (h1 != h2 && (h1 == null || !h1.equals(h2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner(", ", "[", "]");
+        for (int row = 0; row < size; row++) {
+            sj.add("{handle=" + handles[row] +
+                    ", values=" + Arrays.toString(Arrays.copyOfRange(values, row * fieldCount, (row + 1) * fieldCount)) +
+                    '}');
+        }
+        return sj.toString();
+    }
+}
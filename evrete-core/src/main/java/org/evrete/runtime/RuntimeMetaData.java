@@ -20,6 +20,8 @@ abstract class RuntimeMetaData<C extends RuntimeContext<C>> implements RuntimeCo
     private final EvaluatorStorageImpl evaluators;
     private final AtomicInteger bucketIds;
     private TypeResolver typeResolver;
+    // Whether the environment, imports, evaluators, or types have been changed after creation
+    private volatile boolean modified;
     //private ClassLoader classLoader;
 
     RuntimeMetaData(KnowledgeService service, TypeResolver typeResolver) {
@@ -53,6 +55,14 @@ abstract class RuntimeMetaData<C extends RuntimeContext<C>> implements RuntimeCo
         return evaluators;
     }
 
+    final void markModified() {
+        this.modified = true;
+    }
+
+    final boolean isModified() {
+        return modified;
+    }
+
 /*
     @Override
     public ClassLoader getClassLoader() {
@@ -67,6 +77,7 @@ abstract class RuntimeMetaData<C extends RuntimeContext<C>> implements RuntimeCo
 
     @Override
     public final void wrapTypeResolver(TypeResolverWrapper wrapper) {
+        markModified();
         this.typeResolver = wrapper;
     }
 
@@ -92,16 +103,19 @@ abstract class RuntimeMetaData<C extends RuntimeContext<C>> implements RuntimeCo
 
     @Override
     public void replaceEvaluator(EvaluatorHandle handle, Evaluator newEvaluator) {
+        markModified();
         evaluators.replace(handle, newEvaluator);
     }
 
     @Override
     public void replaceEvaluator(EvaluatorHandle handle, final ValuesPredicate predicate) {
+        markModified();
         evaluators.replace(handle, predicate);
     }
 
     @Override
     public void addListener(EvaluationListener listener) {
+        markModified();
         this.evaluators.addListener(listener);
     }
 
@@ -158,6 +172,7 @@ abstract class RuntimeMetaData<C extends RuntimeContext<C>> implements RuntimeCo
 
     @SuppressWarnings("unchecked")
     public final C addImport(String imp) {
+        markModified();
         this.imports.add(imp);
         return (C) this;
     }
@@ -170,6 +185,7 @@ abstract class RuntimeMetaData<C extends RuntimeContext<C>> implements RuntimeCo
     @Override
     @SuppressWarnings("unchecked")
     public final C set(String property, Object value) {
+        markModified();
         this.properties.put(property, value);
         return (C) this;
     }
@@ -212,18 +228,21 @@ abstract class RuntimeMetaData<C extends RuntimeContext<C>> implements RuntimeCo
 
     @Override
     public void wrapType(TypeWrapper<?> typeWrapper) {
+        markModified();
         typeResolver.wrapType(typeWrapper);
     }
 
     @Override
     @NonNull
     public <T> Type<T> declare(@NonNull String typeName, @NonNull Class<T> javaType) {
+        markModified();
         return typeResolver.declare(typeName, javaType);
     }
 
     @NonNull
     @Override
     public <T> Type<T> declare(@NonNull String typeName, @NonNull String javaType) {
+        markModified();
         return typeResolver.declare(typeName, javaType);
     }
 
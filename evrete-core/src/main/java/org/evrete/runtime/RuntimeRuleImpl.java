@@ -1,5 +1,6 @@
 package org.evrete.runtime;
 
+import org.evrete.AbstractRule;
 import org.evrete.api.*;
 
 import java.util.HashMap;
@@ -18,10 +19,28 @@ public class RuntimeRuleImpl extends AbstractRuntimeRule<RuntimeFactType> implem
     private final Map<String, Integer> nameMapping = new HashMap<>();
     private final RhsContextImpl rhsContext;
     private final BetaEndNode[] endNodes;
+    // Session state of an aggregating rule, null for ordinary rules
+    private final RuntimeAggregation aggregation;
+    // Session state of not/exists conditions, null if the rule has none
+    private final RuntimeExistence existence;
     private long rhsCallCounter = 0;
 
     public RuntimeRuleImpl(RuleDescriptor rd, AbstractRuleSession<?> runtime) {
-        super(runtime, rd, build(runtime, rd.getLhs().getFactTypes()));
+        this(rd, rd, runtime);
+    }
+
+    /**
+     * Constructor for forked sessions, the new rule inherits the other rule's name, salience, properties, and RHS
+     *
+     * @param other   rule of the parent session
+     * @param runtime forked session
+     */
+    RuntimeRuleImpl(RuntimeRuleImpl other, AbstractRuleSession<?> runtime) {
+        this(other.descriptor, other, runtime);
+    }
+
+    private RuntimeRuleImpl(RuleDescriptor rd, AbstractRule settings, AbstractRuleSession<?> runtime) {
+        super(runtime, settings, build(runtime, rd.getLhs().getFactTypes()));
         this.descriptor = rd;
         this.runtime = runtime;
         this.lhs = new RuntimeLhs(this, rd.getLhs());
@@ -54,6 +73,8 @@ public class RuntimeRuleImpl extends AbstractRuntimeRule<RuntimeFactType> implem
 
         this.endNodes = lhs.getEndNodes().toArray(new BetaEndNode[0]);
         this.rhsContext = new RhsContextImpl();
+        this.aggregation = getRhs() instanceof Aggregation ? new RuntimeAggregation((Aggregation<?, ?, ?>) getRhs(), this, factTypeNodes) : null;
+        this.existence = rd.getExistence().length == 0 ? null : new RuntimeExistence(rd.getExistence(), this, factTypeNodes);
 
     }
 
@@ -82,17 +103,147 @@ public class RuntimeRuleImpl extends AbstractRuntimeRule<RuntimeFactType> implem
 
 
     final long callRhs(FactActionBuffer destination) {
+        return callRhs(destination, false);
+    }
+
+    /**
+     * <p>
+     * Aggregates of a hot-deployed rule start from all the existing matches, not just the deltas.
+     * Rules with {@code not} and {@code exists} conditions count the existing facts and remember
+     * the existing matches without activating them.
+     * </p>
+     *
+     * @param destination destination buffer
+     */
+    void onHotDeployment(FactActionBuffer destination) {
+        if (aggregation != null) {
+            callRhs(destination, true);
+            aggregation.flush(runtime, destination);
+        }
+        if (existence != null) {
+            existence.countExisting(runtime);
+            for (RhsFactType type : this.factTypeNodes) {
+                type.resetState();
+            }
+            this.forEachFactGroup(0, true, existence::record);
+            this.commitDeltas();
+        }
+    }
+
+    private long callRhs(FactActionBuffer destination, boolean allMatches) {
+        return forEachActivation(destination, allMatches, aggregation == null ? rhs : aggregation);
+    }
+
+    /**
+     * <p>
+     * Adds the rule's new matches to the agenda instead of calling the RHS.
+     * Aggregating rules are never put on the agenda, their RHS is called as usual.
+     * </p>
+     *
+     * @param agenda      agenda
+     * @param destination destination buffer
+     * @return number of new activations
+     */
+    long collectActivations(Agenda agenda, FactActionBuffer destination) {
+        if (aggregation != null) {
+            return callRhs(destination, false);
+        } else {
+            return forEachActivation(destination, false, ctx -> agenda.add(this, factTypeNodes));
+        }
+    }
+
+    /**
+     * <p>
+     * Calls the RHS on the facts of an activation.
+     * </p>
+     *
+     * @param activation  activation of the rule
+     * @param destination destination buffer
+     * @return number of RHS calls, zero if the activation's facts have changed since it was created
+     */
+    long fire(Agenda.ActivationImpl activation, FactActionBuffer destination) {
+        if (activation.readFacts(runtime, factTypeNodes)) {
+            this.rhsContext.setBuffer(destination);
+            rhs.accept(rhsContext);
+            return 1L;
+        } else {
+            return 0L;
+        }
+    }
+
+    private long forEachActivation(FactActionBuffer destination, boolean allMatches, Consumer<RhsContext> action) {
         this.rhsContext.setBuffer(destination);
         this.rhsCallCounter = 0;
+        Consumer<RhsContext> counted = action.andThen(ctx -> increaseCallCount());
+        if (existence != null) {
+            // Matches that became activated by the conditions' facts
+            existence.firePending(runtime, rhsContext, counted);
+            Consumer<RhsContext> target = counted;
+            counted = ctx -> existence.accept(ctx, target);
+        }
         // Reset state if any
         for (RhsFactType type : this.factTypeNodes) {
             type.resetState();
         }
-        this.forEachFactGroup(0, false, rhs.andThen(ctx -> increaseCallCount()));
+        this.forEachFactGroup(0, allMatches, counted);
         this.commitDeltas();
         return this.rhsCallCounter;
     }
 
+    /**
+     * @return {@code true} if the rule has activations that are not caused by deltas of its own facts
+     */
+    boolean hasPendingActivations() {
+        return existence != null && existence.hasPending();
+    }
+
+    /**
+     * @return {@code true} if the rule maintains an aggregate instead of calling an RHS
+     */
+    public boolean isAggregating() {
+        return aggregation != null;
+    }
+
+    /**
+     * @param buffer pending memory actions
+     * @see RuntimeAggregation#onActions(FactActionBuffer)
+     * @see RuntimeExistence#onActions(FactActionBuffer, Consumer)
+     */
+    void onActions(FactActionBuffer buffer) {
+        if (aggregation != null) {
+            aggregation.onActions(buffer);
+        }
+        if (existence != null) {
+            existence.onActions(buffer, handles -> runtime.agenda.cancel(this, handles));
+        }
+    }
+
+    /**
+     * @param destination destination buffer
+     * @see RuntimeAggregation#flush(AbstractRuleSession, FactActionBuffer)
+     */
+    void flushAggregation(FactActionBuffer destination) {
+        if (aggregation != null) {
+            aggregation.flush(runtime, destination);
+        }
+    }
+
+    /**
+     * @param other     the same rule of the parent session
+     * @param keyCopies parent session's memory keys and their copies
+     */
+    void copyMemory(RuntimeRuleImpl other, Map<MemoryKey, MemoryKey> keyCopies) {
+        for (int i = 0; i < endNodes.length; i++) {
+            endNodes[i].copyFrom(other.endNodes[i], keyCopies, runtime.sharedNodes == null);
+        }
+        if (aggregation != null) {
+            aggregation.copyFrom(other.aggregation);
+        }
+        if (existence != null) {
+            existence.copyFrom(other.existence);
+        }
+    }
+
     public BetaEndNode[] getEndNodes() {
         return endNodes;
     }
@@ -170,14 +321,46 @@ public class RuntimeRuleImpl extends AbstractRuntimeRule<RuntimeFactType> implem
         for (BetaEndNode endNode : lhs.getEndNodes()) {
             endNode.clear();
         }
+        if (aggregation != null) {
+            aggregation.clear();
+        }
+        if (existence != null) {
+            existence.clear();
+        }
     }
 
     @Override
     public RuntimeRule set(String property, Object value) {
         super.set(property, value);
+        onChange();
         return this;
     }
 
+    @Override
+    public void setRhs(Consumer<RhsContext> rhs) {
+        super.setRhs(rhs);
+        onChange();
+    }
+
+    @Override
+    public void setSalience(int salience) {
+        super.setSalience(salience);
+        onChange();
+    }
+
+    @Override
+    public void setName(String name) {
+        super.setName(name);
+        onChange();
+    }
+
+    private void onChange() {
+        // The super constructor sets the rule's RHS before the rule is bound to its session
+        if (runtime != null) {
+            runtime.markModified();
+        }
+    }
+
     public RuleDescriptor getDescriptor() {
         return descriptor;
     }
@@ -275,7 +458,7 @@ public class RuntimeRuleImpl extends AbstractRuntimeRule<RuntimeFactType> implem
             Objects.requireNonNull(obj);
             for (RhsFactType state : factTypeNodes) {
                 if (state.record.instance == obj) {
-                    AbstractRuleSession.bufferUpdate(state.handle, state.record, obj, buffer);
+                    AbstractRuleSession.bufferUpdate(state.handle(), state.record, obj, buffer);
                     return this;
                 }
             }
@@ -287,7 +470,7 @@ public class RuntimeRuleImpl extends AbstractRuntimeRule<RuntimeFactType> implem
             Objects.requireNonNull(obj);
             for (RhsFactType state : factTypeNodes) {
                 if (state.record.instance == obj) {
-                    AbstractRuleSession.bufferDelete(state.handle, state.record, buffer);
+                    AbstractRuleSession.bufferDelete(state.handle(), state.record, buffer);
                     return this;
                 }
             }
@@ -9,4 +9,10 @@ class RuntimeRules extends SearchList<RuntimeRuleImpl> {
         this.add(r);
         return r;
     }
+
+    RuntimeRuleImpl copyRule(RuntimeRuleImpl other, AbstractRuleSession<?> session) {
+        RuntimeRuleImpl r = new RuntimeRuleImpl(other, session);
+        this.add(r);
+        return r;
+    }
 }
@@ -2,11 +2,14 @@ package org.evrete.runtime;
 
 import org.evrete.api.KeyedFactStorage;
 import org.evrete.api.MemoryFactory;
+import org.evrete.api.MemoryKey;
 import org.evrete.api.ReIterator;
 import org.evrete.api.Type;
 import org.evrete.collections.ArrayOf;
 import org.evrete.runtime.evaluation.MemoryAddress;
 
+import java.util.Map;
+
 public class SessionMemory extends MemoryComponent implements Iterable<TypeMemory> {
     private final ArrayOf<TypeMemory> typedMemories;
 
@@ -15,6 +18,19 @@ public class SessionMemory extends MemoryComponent implements Iterable<TypeMemor
         this.typedMemories = new ArrayOf<>(new TypeMemory[]{});
     }
 
+    /**
+     * Constructor for forked sessions
+     *
+     * @param runtime       forked session
+     * @param memoryFactory forked session's memory factory
+     * @param other         memory of the parent session
+     * @param keyCopies     collects parent session's memory keys and their copies
+     */
+    SessionMemory(AbstractRuleSession<?> runtime, MemoryFactory memoryFactory, SessionMemory other, Map<MemoryKey, MemoryKey> keyCopies) {
+        this(runtime, memoryFactory);
+        other.typedMemories.forEach((tm, i) -> typedMemories.set(i, new TypeMemory(this, tm, keyCopies)));
+    }
+
     @Override
     protected void clearLocalData() {
     }
@@ -0,0 +1,155 @@
+package org.evrete.runtime;
+
+import org.evrete.api.*;
+import org.evrete.runtime.async.ForkJoinExecutor;
+import org.evrete.runtime.async.RuleMemoryInsertTask;
+import org.evrete.runtime.evaluation.MemoryAddress;
+import org.evrete.util.Mask;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * Inner condition nodes of a session's rules, keyed by their structure. Rules whose conditions
+ * join the same facts in the same way subscribe to a single node instead of building their own.
+ * Two nodes are considered equal if they have the same fact declarations and alpha memories,
+ * the same conditions, and equal sources.
+ * </p>
+ * <p>
+ * A node that has more than one subscriber is marked as shared. Shared nodes are excluded from
+ * the delta computation of their subscribers, and are computed beforehand, level by level,
+ * so that every shared node is computed once per cycle and after its shared sources.
+ * </p>
+ */
+class SharedBetaNodes {
+    private final AbstractRuleSession<?> session;
+    private final Map<Object, BetaConditionNode> nodes = new HashMap<>();
+    private final Map<BetaConditionNode, Integer> subscribers = new IdentityHashMap<>();
+    // Shared nodes by their height, nodes of the same level do not depend on each other
+    private final List<List<BetaConditionNode>> levels = new ArrayList<>();
+
+    SharedBetaNodes(AbstractRuleSession<?> session) {
+        this.session = session;
+    }
+
+    /**
+     * @param descriptor node descriptor
+     * @param factory    creates a new node if there's no equal one
+     * @return existing or new node
+     */
+    BetaConditionNode subscribe(ConditionNodeDescriptor descriptor, Function<ConditionNodeDescriptor, BetaConditionNode> factory) {
+        Object signature = signature(descriptor);
+        BetaConditionNode node = nodes.get(signature);
+        if (node == null) {
+            node = factory.apply(descriptor);
+            nodes.put(signature, node);
+            subscribers.put(node, 1);
+        } else {
+            int count = subscribers.get(node) + 1;
+            subscribers.put(node, count);
+            if (count == 2) {
+                node.setShared();
+                int level = height(descriptor) - 1;
+                while (levels.size() <= level) {
+                    levels.add(new ArrayList<>());
+                }
+                levels.get(level).add(node);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * <p>
+     * Computes deltas of the shared nodes that are affected by the changes.
+     * </p>
+     *
+     * @param executor  session's executor
+     * @param matchMask addresses of the changed memory buckets
+     */
+    void computeDeltas(ForkJoinExecutor executor, Mask<MemoryAddress> matchMask) {
+        for (List<BetaConditionNode> level : levels) {
+            List<BetaConditionNode> affected = new ArrayList<>(level.size());
+            for (BetaConditionNode node : level) {
+                if (matchMask.intersects(node.getDescriptor().getMemoryMask())) {
+                    affected.add(node);
+                }
+            }
+            if (!affected.isEmpty()) {
+                executor.invoke(new RuleMemoryInsertTask(affected, matchMask, true));
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Copies the memory of a parent session's nodes to the nodes of a forked session.
+     * </p>
+     *
+     * @param other     nodes of the parent session
+     * @param keyCopies parent session's memory keys and their copies
+     */
+    void copyMemory(SharedBetaNodes other, Map<MemoryKey, MemoryKey> keyCopies) {
+        for (Map.Entry<Object, BetaConditionNode> entry : other.nodes.entrySet()) {
+            BetaConditionNode node = nodes.get(entry.getKey());
+            if (node == null) {
+                throw new IllegalStateException("No matching node for " + entry.getValue().getDescriptor());
+            }
+            node.copyFrom(entry.getValue(), keyCopies, false);
+        }
+    }
+
+    private static int height(NodeDescriptor descriptor) {
+        int height = 0;
+        for (NodeDescriptor source : descriptor.getSources()) {
+            height = Math.max(height, height(source));
+        }
+        return descriptor.isConditionNode() ? height + 1 : height;
+    }
+
+    /**
+     * <p>
+     * Builds a node's structural key. The key includes names and memory addresses of the node's
+     * fact types in their order, so that equal nodes store their keys in the same layout.
+     * Literal conditions are compared by their sources and arguments, because equal literals of
+     * different rules are compiled into different evaluators.
+     * </p>
+     */
+    private Object signature(NodeDescriptor descriptor) {
+        List<Object> types = new ArrayList<>();
+        for (FactType type : descriptor.getTypes()) {
+            types.add(type.getName());
+            types.add(type.getMemoryAddress().getId());
+        }
+        if (!descriptor.isConditionNode()) {
+            return types;
+        }
+
+        Set<Object> conditions = new HashSet<>();
+        for (EvaluatorHandle handle : ((ConditionNodeDescriptor) descriptor).getExpression().constituents()) {
+            conditions.add(signature(handle));
+        }
+        Set<Object> sources = new HashSet<>();
+        for (NodeDescriptor source : descriptor.getSources()) {
+            sources.add(signature(source));
+        }
+        return Arrays.asList(types, conditions, sources);
+    }
+
+    private Object signature(EvaluatorHandle handle) {
+        Evaluator evaluator = session.getEvaluatorWrapper(handle, false).getDelegate();
+        if (evaluator instanceof LiteralEvaluator) {
+            List<Object> key = new ArrayList<>();
+            key.add(((LiteralEvaluator) evaluator).getSource().getSource());
+            for (FieldReference ref : evaluator.descriptor()) {
+                key.add(ref.type().getName());
+                key.add(ref.type().getType().getName());
+                key.add(ref.field().getName());
+            }
+            return key;
+        } else {
+            return handle;
+        }
+    }
+}
@@ -1,11 +1,14 @@
 package org.evrete.runtime;
 
+import org.evrete.api.Expiration;
 import org.evrete.api.FactHandle;
 import org.evrete.api.StatefulSession;
+import org.evrete.api.Type;
 
 import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 public class StatefulSessionImpl extends AbstractRuleSessionIO<StatefulSession> implements StatefulSession {
 
@@ -13,6 +16,10 @@ public class StatefulSessionImpl extends AbstractRuleSessionIO<StatefulSession>
         super(knowledge);
     }
 
+    private StatefulSessionImpl(StatefulSessionImpl parent) {
+        super(parent);
+    }
+
     @Override
     protected StatefulSession thisInstance() {
         return this;
@@ -45,6 +52,38 @@ public class StatefulSessionImpl extends AbstractRuleSessionIO<StatefulSession>
         clearInner();
     }
 
+    @Override
+    public StatefulSession fork() {
+        _assertActive();
+        synchronized (this) {
+            awaitPurge();
+            drainProducerBuffers();
+            if (actionBuffer.hasData()) {
+                throw new IllegalStateException("Session has changes that have not been fired yet");
+            }
+            return getParentContext().register(new StatefulSessionImpl(this));
+        }
+    }
+
+    @Override
+    public StatefulSession setExpiration(String type, Expiration<?> expiration) {
+        _assertActive();
+        Type<?> t = getTypeResolver().getType(type);
+        if (t == null) {
+            throw new IllegalArgumentException("Unknown type: '" + type + "'");
+        }
+        synchronized (this) {
+            expirations.set(t, expiration);
+        }
+        return this;
+    }
+
+    @Override
+    public StatefulSession setClock(LongSupplier clock) {
+        expirations.setClock(clock);
+        return this;
+    }
+
     @Override
     public final StatefulSession update(FactHandle handle, Object newValue) {
         FactRecord record = getFactRecord(handle);
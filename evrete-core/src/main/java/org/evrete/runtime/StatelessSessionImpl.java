@@ -8,9 +8,29 @@ import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 class StatelessSessionImpl extends AbstractRuleSessionIO<StatelessSession> implements StatelessSession {
+    private final boolean pooled;
+    private final int poolGeneration;
 
     StatelessSessionImpl(KnowledgeRuntime knowledge) {
         super(knowledge);
+        this.pooled = false;
+        this.poolGeneration = 0;
+    }
+
+    /**
+     * Constructor for sessions that are returned to the knowledge's pool after firing
+     *
+     * @param knowledge      parent knowledge
+     * @param poolGeneration current generation of the knowledge's session pool
+     */
+    StatelessSessionImpl(KnowledgeRuntime knowledge, int poolGeneration) {
+        super(knowledge);
+        this.pooled = true;
+        this.poolGeneration = poolGeneration;
+    }
+
+    int getPoolGeneration() {
+        return poolGeneration;
     }
 
     @Override
@@ -18,64 +38,64 @@ class StatelessSessionImpl extends AbstractRuleSessionIO<StatelessSession> imple
         return this;
     }
 
-    @Override
-    public void fire(BiConsumer<FactHandle, Object> consumer) {
+    /**
+     * <p>
+     * Fires the session, scans its memory, and then either closes the session or returns it to the pool.
+     * Sessions whose firing has failed are always closed.
+     * </p>
+     *
+     * @param memoryScan the action to perform after firing
+     */
+    private void fireAndRelease(Runnable memoryScan) {
+        boolean completed = false;
         try {
             fireInner();
-            getMemory().forEach(tm -> tm.forEachFact(consumer));
+            memoryScan.run();
+            completed = true;
         } finally {
-            closeInner();
+            if (!completed || !pooled || !getParentContext().release(this)) {
+                closeInner();
+            }
         }
     }
 
+    @Override
+    public void fire(BiConsumer<FactHandle, Object> consumer) {
+        fireAndRelease(() -> getMemory().forEach(tm -> tm.forEachFact(consumer)));
+    }
+
     @Override
     public Void fire() {
-        try {
-            fireInner();
-            return null;
-        } finally {
-            closeInner();
-        }
+        fireAndRelease(() -> {
+        });
+        return null;
     }
 
     @Override
     public void fire(Consumer<Object> consumer) {
-        try {
-            fireInner();
-            getMemory().forEach(tm -> tm.forEachFact((handle, o) -> consumer.accept(o)));
-        } finally {
-            closeInner();
-        }
+        fireAndRelease(() -> getMemory().forEach(tm -> tm.forEachFact((handle, o) -> consumer.accept(o))));
     }
 
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> void fire(String type, Consumer<T> consumer) {
-        try {
-            fireInner();
+        fireAndRelease(() -> {
             Type<?> t = getTypeResolver().getType(type);
             if (t == null) {
                 throw new IllegalArgumentException("No known type named '" + type + "'");
             }
             getMemory().get(t).forEachFact((factHandle, o) -> consumer.accept((T) o));
-        } finally {
-            closeInner();
-        }
+        });
     }
 
     @Override
     @SuppressWarnings("unchecked")
     public <T> void fire(Class<T> type, Consumer<T> consumer) {
-        try {
-            fireInner();
-            getMemory().forEach(tm -> {
-                if (type.getName().equals(tm.type.getJavaType())) {
-                    tm.forEachFact((factHandle, o) -> consumer.accept((T) o));
-                }
-            });
-        } finally {
-            closeInner();
-        }
+        fireAndRelease(() -> getMemory().forEach(tm -> {
+            if (type.getName().equals(tm.type.getJavaType())) {
+                tm.forEachFact((factHandle, o) -> consumer.accept((T) o));
+            }
+        }));
     }
 }
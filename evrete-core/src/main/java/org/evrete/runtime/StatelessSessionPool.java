@@ -0,0 +1,60 @@
+package org.evrete.runtime;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Idle stateless sessions of a knowledge instance. Each session remembers the pool's generation
+ * it was created in, and the generation changes whenever the knowledge's rules change, so that
+ * outdated sessions are never handed out again.
+ * </p>
+ */
+class StatelessSessionPool {
+    private final ConcurrentLinkedQueue<StatelessSessionImpl> idle = new ConcurrentLinkedQueue<>();
+    // Approximate number of idle sessions
+    private final AtomicInteger size = new AtomicInteger();
+    private volatile int generation;
+
+    int generation() {
+        return generation;
+    }
+
+    /**
+     * @return an idle session of the current generation, or {@code null} if there's none
+     */
+    StatelessSessionImpl poll() {
+        StatelessSessionImpl session;
+        while ((session = idle.poll()) != null) {
+            size.decrementAndGet();
+            if (session.getPoolGeneration() == generation) {
+                return session;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param session  a cleared session
+     * @param capacity maximum number of idle sessions
+     * @return {@code true} if the pool has accepted the session
+     */
+    boolean offer(StatelessSessionImpl session, int capacity) {
+        if (session.getPoolGeneration() != generation) {
+            return false;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        idle.offer(session);
+        return true;
+    }
+
+    synchronized void invalidate() {
+        generation++;
+        while (idle.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+}
@@ -4,17 +4,17 @@ import org.evrete.api.*;
 import org.evrete.runtime.evaluation.AlphaEvaluator;
 import org.evrete.runtime.evaluation.EvaluatorWrapper;
 import org.evrete.runtime.evaluation.MemoryAddress;
-import org.evrete.util.Mask;
 
-import java.util.BitSet;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.logging.Logger;
 
 public final class TypeMemory extends TypeMemoryBase {
     private static final Logger LOGGER = Logger.getLogger(TypeMemory.class.getName());
+    // Pooled insert batch, reused across fire cycles
+    private final RuntimeFactBatch insertBatch = new RuntimeFactBatch();
+    // Handles of facts that have been deleted or updated since the last purge
+    private final Set<FactHandle> retractedHandles = new HashSet<>();
     private Cache cache;
 
     TypeMemory(SessionMemory sessionMemory, int type) {
@@ -22,6 +22,19 @@ public final class TypeMemory extends TypeMemoryBase {
         updateCachedData();
     }
 
+    /**
+     * Constructor for forked sessions
+     *
+     * @param sessionMemory memory of the forked session
+     * @param other         type memory of the parent session
+     * @param keyCopies     collects parent session's memory keys and their copies
+     */
+    TypeMemory(SessionMemory sessionMemory, TypeMemory other, Map<MemoryKey, MemoryKey> keyCopies) {
+        super(sessionMemory, other, keyCopies);
+        this.retractedHandles.addAll(other.retractedHandles);
+        updateCachedData();
+    }
+
     void updateCachedData() {
         this.cache = new Cache(this.type, getRuntime());
     }
@@ -56,22 +69,60 @@ public final class TypeMemory extends TypeMemoryBase {
     }
 
 
-    public RuntimeFact createFactRuntime(FactHandle handle, FactRecord factRecord) {
+    /**
+     * @return this type's insert batch, emptied and ready for use
+     */
+    public RuntimeFactBatch getInsertBatch() {
+        insertBatch.reset(cache.fields.length);
+        cache.validateIndices();
+        return insertBatch;
+    }
+
+    public void addFactRuntime(RuntimeFactBatch batch, FactHandle handle, FactRecord factRecord) {
         FactHandleVersioned factHandle = new FactHandleVersioned(handle, factRecord.getVersion());
-        return cache.createFactRuntime(factHandle, factRecord, valueResolver);
+        cache.addFactRuntime(batch, factHandle, factRecord, valueResolver);
+    }
+
+    /**
+     * @param handle handle of a deleted or updated fact, whose memory entries are to be purged
+     */
+    public void onRetract(FactHandle handle) {
+        retractedHandles.add(handle);
+    }
+
+    public Set<FactHandle> getRetractedHandles() {
+        return retractedHandles;
+    }
+
+    void clearRetractedHandles() {
+        retractedHandles.clear();
+    }
+
+    @Override
+    protected void clearLocalData() {
+        super.clearLocalData();
+        retractedHandles.clear();
     }
 
     void onNewAlphaBucket(MemoryAddress address) {
         KeyMemoryBucket bucket = touchMemory(address);
         ReIterator<FactStorage.Entry<FactRecord>> allFacts = factStorage.iterator();
-        List<RuntimeFact> runtimeFacts = new LinkedList<>();
+        RuntimeFactBatch batch = getInsertBatch();
         while (allFacts.hasNext()) {
             FactStorage.Entry<FactRecord> rec = allFacts.next();
-            runtimeFacts.add(createFactRuntime(rec.getHandle(), rec.getInstance()));
+            // Stored records are not changed in place, they may be shared with forked sessions
+            addFactRuntime(batch, rec.getHandle(), FactRecord.copyOf(rec.getInstance()));
         }
 
-        bucket.insert(runtimeFacts);
+        bucket.insert(batch);
         bucket.commitBuffer();
+        for (int row = 0; row < batch.size(); row++) {
+            FactRecord record = batch.getRecord(row);
+            if (record.getBucketsMask().get(address)) {
+                factStorage.update(batch.getHandle(row).getHandle(), record);
+            }
+        }
+        batch.clear();
     }
 
     /**
@@ -79,7 +130,13 @@ public final class TypeMemory extends TypeMemoryBase {
      */
     static class Cache {
         final TypeField[] fields;
+        // Reads the values of all the fields at once
+        final BiConsumer<Object, Object[]> fieldsReader;
         final AlphaPredicate[] alphaEvaluators;
+        // Interval indices and the conditions they don't cover
+        final AlphaIntervalIndex[] alphaIndices;
+        final boolean[] validIndices;
+        final AlphaPredicate[] unindexedEvaluators;
         final Object[] currentValues;
         final boolean hasAlphaConditions;
 
@@ -94,6 +151,7 @@ public final class TypeMemory extends TypeMemoryBase {
                 TypeField tf = type.getField(fieldName);
                 this.fields[i] = tf;
             }
+            this.fieldsReader = type.fieldsReader(fields);
             this.currentValues = new Object[this.fields.length];
             this.hasAlphaConditions = meta.alphaEvaluators.length > 0;
             this.alphaEvaluators = new AlphaPredicate[meta.alphaEvaluators.length];
@@ -102,37 +160,63 @@ public final class TypeMemory extends TypeMemoryBase {
                     this.alphaEvaluators[i] = new AlphaPredicate(meta.alphaEvaluators[i], runtime.getEvaluators(), currentValues);
                 }
             }
+
+            this.alphaIndices = AlphaIntervalIndex.build(meta.alphaEvaluators, runtime.getEvaluators(), fields);
+            this.validIndices = new boolean[alphaIndices.length];
+            BitSet indexed = new BitSet();
+            for (AlphaIntervalIndex index : alphaIndices) {
+                for (int i : index.getAlphaIndices()) {
+                    indexed.set(i);
+                }
+            }
+            List<AlphaPredicate> unindexed = new ArrayList<>(alphaEvaluators.length);
+            for (AlphaPredicate predicate : alphaEvaluators) {
+                if (!indexed.get(predicate.getIndex())) {
+                    unindexed.add(predicate);
+                }
+            }
+            this.unindexedEvaluators = unindexed.toArray(new AlphaPredicate[0]);
+            validateIndices();
         }
 
-        private RuntimeFact createFactRuntime(FactHandleVersioned factHandle, FactRecord factRecord, ValueResolver valueResolver) {
+        void validateIndices() {
+            for (int i = 0; i < alphaIndices.length; i++) {
+                validIndices[i] = alphaIndices[i].isValid();
+            }
+        }
 
-            ValueHandle[] valueHandles = new ValueHandle[fields.length];
-            BitSet alphaTests;
+        private void addFactRuntime(RuntimeFactBatch batch, FactHandleVersioned factHandle, FactRecord factRecord, ValueResolver valueResolver) {
+            int row = batch.add(factHandle, factRecord, hasAlphaConditions);
 
             if (hasAlphaConditions) {
-                for (int i = 0; i < valueHandles.length; i++) {
-                    TypeField f = fields[i];
-                    Object fieldValue = f.readValue(factRecord.instance);
-                    currentValues[i] = fieldValue;
-                    valueHandles[i] = valueResolver.getValueHandle(f.getValueType(), fieldValue);
+                fieldsReader.accept(factRecord.instance, currentValues);
+                for (int i = 0; i < fields.length; i++) {
+                    batch.setValue(row, i, valueResolver.getValueHandle(fields[i].getValueType(), currentValues[i]));
                 }
 
-                alphaTests = new BitSet();
-                for (AlphaPredicate alphaEvaluator : alphaEvaluators) {
+                BitSet alphaTests = batch.getAlphaTests(row);
+                for (AlphaPredicate alphaEvaluator : unindexedEvaluators) {
                     if (alphaEvaluator.test()) {
                         alphaTests.set(alphaEvaluator.getIndex());
                     }
                 }
+                for (int i = 0; i < alphaIndices.length; i++) {
+                    AlphaIntervalIndex index = alphaIndices[i];
+                    if (!validIndices[i] || !index.test(currentValues, alphaTests)) {
+                        // Evaluating the index's conditions one by one
+                        for (int idx : index.getAlphaIndices()) {
+                            if (alphaEvaluators[idx].test()) {
+                                alphaTests.set(idx);
+                            }
+                        }
+                    }
+                }
 
             } else {
-                for (int i = 0; i < valueHandles.length; i++) {
-                    TypeField f = fields[i];
-                    valueHandles[i] = valueResolver.getValueHandle(f.getValueType(), f.readValue(factRecord.instance));
+                for (int i = 0; i < fields.length; i++) {
+                    batch.setValue(row, i, valueResolver.readValueHandle(fields[i], factRecord.instance));
                 }
-                alphaTests = Mask.EMPTY;
             }
-
-            return new RuntimeFact(factRecord, factHandle, valueHandles, alphaTests);
         }
 
     }
@@ -6,6 +6,7 @@ import org.evrete.collections.ArrayOf;
 import org.evrete.runtime.evaluation.MemoryAddress;
 
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Objects;
 
 class TypeMemoryBase extends MemoryComponent implements Iterable<KeyMemoryBucket> {
@@ -31,6 +32,21 @@ class TypeMemoryBase extends MemoryComponent implements Iterable<KeyMemoryBucket
         }
     }
 
+    /**
+     * Constructor for forked sessions, copies the other memory's facts and key buckets
+     *
+     * @param sessionMemory memory of the forked session
+     * @param other         type memory of the parent session
+     * @param keyCopies     collects parent session's memory keys and their copies
+     */
+    TypeMemoryBase(SessionMemory sessionMemory, TypeMemoryBase other, Map<MemoryKey, MemoryKey> keyCopies) {
+        super(sessionMemory);
+        this.memoryBuckets = new ArrayOf<>(KeyMemoryBucket.class);
+        this.type = getType(other.type.getId());
+        this.factStorage = other.factStorage.copyOf();
+        other.memoryBuckets.forEach((bucket, i) -> memoryBuckets.set(i, KeyMemoryBucket.copyOf(this, bucket, keyCopies)));
+    }
+
     FactRecord getStoredRecord(FactHandle handle) {
         return factStorage.getFact(handle);
     }
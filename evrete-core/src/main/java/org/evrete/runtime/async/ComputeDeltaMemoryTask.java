@@ -3,7 +3,6 @@ package org.evrete.runtime.async;
 import org.evrete.api.FactHandle;
 import org.evrete.api.FactStorage;
 import org.evrete.api.ReIterator;
-import org.evrete.collections.LinkedDataRWD;
 import org.evrete.runtime.*;
 import org.evrete.runtime.evaluation.MemoryAddress;
 import org.evrete.util.Mask;
@@ -54,8 +53,8 @@ public class ComputeDeltaMemoryTask extends Completer {
         private final transient FactActionBuffer buffer;
         private final transient FactStorage<FactRecord> factStorage;
         private final transient Mask<MemoryAddress> deleteMask = Mask.addressMask();
-        // Using a simplified LinkedList for faster GC
-        private final transient LinkedDataRWD<RuntimeFact> inserts = new LinkedDataRWD<>();
+        // Type memory's pooled batch
+        private final transient RuntimeFactBatch inserts;
         private final Collection<BucketInsertTask> bucketInsertTasks = new LinkedList<>();
         private final Collection<KeyMemoryBucket> bucketsToCommit = new LinkedList<>();
 
@@ -64,6 +63,7 @@ public class ComputeDeltaMemoryTask extends Completer {
             this.tm = tm;
             this.buffer = buffer;
             this.factStorage = tm.getFactStorage();
+            this.inserts = tm.getInsertBatch();
         }
 
         @Override
@@ -95,21 +95,23 @@ public class ComputeDeltaMemoryTask extends Completer {
                         FactRecord record = factStorage.getFact(handle);
                         if (record != null) {
                             deleteMask.or(record.getBucketsMask());
+                            tm.onRetract(handle);
                         }
                         factStorage.delete(handle);
                         break;
                     case INSERT:
-                        inserts.add(tm.createFactRuntime(handle, a.getDelta().getLatest()));
+                        tm.addFactRuntime(inserts, handle, a.getDelta().getLatest());
                         break;
                     case UPDATE:
                         FactRecordDelta delta = a.getDelta();
 
                         FactRecord previous = delta.getPrevious();
                         deleteMask.or(previous.getBucketsMask());
+                        tm.onRetract(handle);
 
                         FactRecord latest = a.getDelta().getLatest();
                         factStorage.update(handle, latest);
-                        inserts.add(tm.createFactRuntime(handle, latest));
+                        tm.addFactRuntime(inserts, handle, latest);
                         break;
                     default:
                         throw new IllegalStateException();
@@ -129,16 +131,17 @@ public class ComputeDeltaMemoryTask extends Completer {
         }
 
         private void postInsert() {
-            // After insert, each RuntimeFact's record contains an updated mask of all the memory buckets
+            // After insert, each batch row's record contains an updated mask of all the memory buckets
             // where that fact has gotten into. For a remote fact storage implementation we need to update
             // its entries.
 
             // Checking what kind of storage we're dealing with
-            for (RuntimeFact fact : inserts) {
-                Mask<MemoryAddress> mask = fact.factRecord.getBucketsMask();
+            for (int row = 0; row < inserts.size(); row++) {
+                FactRecord fact = inserts.getRecord(row);
+                Mask<MemoryAddress> mask = fact.getBucketsMask();
                 if (mask.cardinality() > 0) {
                     // The fact has passed at least one alpha-condition and was saved in one or more buckets.
-                    FactHandle handle = fact.factHandle.getHandle();
+                    FactHandle handle = inserts.getHandle(row).getHandle();
                     FactRecord record = factStorage.getFact(handle);
                     if (record != null) {
                         if (record.getBucketsMask().equals(mask)) {
@@ -146,7 +149,7 @@ public class ComputeDeltaMemoryTask extends Completer {
                             return;
                         } else {
                             // Fact storage is not a pass-by-reference one, so we need to update the record
-                            factStorage.update(handle, fact.factRecord);
+                            factStorage.update(handle, fact);
                         }
                     }
                 }
@@ -158,10 +161,10 @@ public class ComputeDeltaMemoryTask extends Completer {
     static class BucketInsertTask extends Completer {
         private static final long serialVersionUID = -1537128295059722535L;
         private final transient KeyMemoryBucket bucket;
-        private final transient Iterable<RuntimeFact> inserts;
+        private final transient RuntimeFactBatch inserts;
         private boolean atLeastOneInserted;
 
-        BucketInsertTask(TypeMemoryDeltaTask completer, KeyMemoryBucket bucket, Iterable<RuntimeFact> inserts) {
+        BucketInsertTask(TypeMemoryDeltaTask completer, KeyMemoryBucket bucket, RuntimeFactBatch inserts) {
             super(completer);
             this.bucket = bucket;
             this.inserts = inserts;
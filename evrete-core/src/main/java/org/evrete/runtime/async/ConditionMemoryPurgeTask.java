@@ -12,24 +12,50 @@ import org.evrete.util.Constants;
 import org.evrete.util.Mask;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class ConditionMemoryPurgeTask extends Completer {
     private static final long serialVersionUID = 7911593735991639599L;
     private final Collection<SubTask> subtasks = new LinkedList<>();
 
     public ConditionMemoryPurgeTask(Iterable<RuntimeRuleImpl> rules, Mask<MemoryAddress> keyPurgeMask) {
+        forEachAffectedNode(rules, keyPurgeMask, cn -> subtasks.add(new SubTask(ConditionMemoryPurgeTask.this, cn, keyPurgeMask)));
+    }
+
+    /**
+     * @param rules        session rules
+     * @param keyPurgeMask addresses of buckets that have deleted keys
+     * @param consumer     consumer of condition nodes that may reference the deleted keys, each node is
+     *                     consumed once even if it is shared by several rules
+     */
+    public static void forEachAffectedNode(Iterable<RuntimeRuleImpl> rules, Mask<MemoryAddress> keyPurgeMask, Consumer<BetaConditionNode> consumer) {
+        Set<BetaConditionNode> visited = new HashSet<>();
         for (RuntimeRuleImpl rule : rules) {
             for (BetaConditionNode node : rule.getLhs().getEndNodes()) {
                 BetaConditionNode.forEachConditionNode(node, cn -> {
-                    if (cn.hasMainStorage() && cn.getDescriptor().getMemoryMask().intersects(keyPurgeMask)) {
-                        subtasks.add(new SubTask(ConditionMemoryPurgeTask.this, cn, keyPurgeMask));
+                    if (cn.hasMainStorage() && cn.getDescriptor().getMemoryMask().intersects(keyPurgeMask) && visited.add(cn)) {
+                        consumer.accept(cn);
                     }
                 });
             }
         }
     }
 
+    /**
+     * <p>
+     * Purges a single condition node in the current thread.
+     * </p>
+     *
+     * @param node         condition node
+     * @param keyPurgeMask addresses of buckets that have deleted keys
+     */
+    public static void purge(BetaConditionNode node, Mask<MemoryAddress> keyPurgeMask) {
+        new SubTask(null, node, keyPurgeMask).execute();
+    }
+
     @Override
     protected void execute() {
         tailCall(subtasks, o -> o);
@@ -64,6 +90,7 @@ public class ConditionMemoryPurgeTask extends Completer {
             if (it.reset() == 0) return;
 
             int i = 0;
+            boolean dropped = false;
             tempStore.clear();
             while (it.hasNext()) {
                 MemoryKey key = it.next();
@@ -77,12 +104,18 @@ public class ConditionMemoryPurgeTask extends Completer {
                         for (MemoryKey k : buffer) {
                             tempStore.add(k);
                         }
+                    } else {
+                        dropped = true;
                     }
                 }
             }
-            // Copying the filtered data to the main storage
-            main.clear();
-            tempStore.forEach(main::add);
+            if (dropped) {
+                // Copying the filtered data to the main storage
+                main.clear();
+                tempStore.forEach(main::add);
+                node.purgeJoinIndices();
+            }
+            tempStore.clear();
         }
 
         private boolean test() {
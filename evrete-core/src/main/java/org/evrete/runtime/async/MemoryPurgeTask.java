@@ -1,5 +1,6 @@
 package org.evrete.runtime.async;
 
+import org.evrete.api.FactHandle;
 import org.evrete.api.FactHandleVersioned;
 import org.evrete.runtime.KeyMemoryBucket;
 import org.evrete.runtime.SessionMemory;
@@ -9,6 +10,7 @@ import org.evrete.util.Mask;
 
 import java.util.Collection;
 import java.util.LinkedList;
+import java.util.Set;
 import java.util.function.Predicate;
 
 public class MemoryPurgeTask extends Completer {
@@ -21,7 +23,7 @@ public class MemoryPurgeTask extends Completer {
             Predicate<FactHandleVersioned> predicate = handle -> !tm.factExists(handle);
             for (KeyMemoryBucket bucket : tm) {
                 if (factPurgeMask.get(bucket.address)) {
-                    this.subtasks.add(new TypeMemoryTask(this, bucket, predicate));
+                    this.subtasks.add(new TypeMemoryTask(this, bucket, predicate, tm.getRetractedHandles()));
                 }
             }
         }
@@ -49,12 +51,14 @@ public class MemoryPurgeTask extends Completer {
         private static final long serialVersionUID = 3628304099034857930L;
         private final transient KeyMemoryBucket bucket;
         private final transient Predicate<FactHandleVersioned> predicate;
+        private final transient Set<FactHandle> retracted;
         private boolean hasEmptyKeys = false;
 
-        TypeMemoryTask(MemoryPurgeTask parent, KeyMemoryBucket bucket, Predicate<FactHandleVersioned> predicate) {
+        TypeMemoryTask(MemoryPurgeTask parent, KeyMemoryBucket bucket, Predicate<FactHandleVersioned> predicate, Set<FactHandle> retracted) {
             super(parent);
             this.bucket = bucket;
             this.predicate = predicate;
+            this.retracted = retracted;
         }
 
         private void setHasEmptyKeys() {
@@ -63,7 +67,7 @@ public class MemoryPurgeTask extends Completer {
 
         @Override
         protected void execute() {
-            bucket.purgeDeleted(predicate, k -> setHasEmptyKeys());
+            bucket.purgeDeleted(predicate, retracted, k -> setHasEmptyKeys());
         }
     }
 }
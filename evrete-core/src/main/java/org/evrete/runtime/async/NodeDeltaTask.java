@@ -18,12 +18,15 @@ public class NodeDeltaTask extends Completer {
     NodeDeltaTask(Completer completer, Mask<MemoryAddress> matchMask, BetaConditionNode node, boolean deltaOnly) {
         super(completer);
         this.node = node;
+        // Shared nodes are computed separately
         if (matchMask != null) {
             this.sources = Arrays.stream(node.getConditionSources())
-                    .filter(n -> matchMask.intersects(n.getDescriptor().getMemoryMask()))
+                    .filter(n -> !n.isShared() && matchMask.intersects(n.getDescriptor().getMemoryMask()))
                     .collect(Collectors.toList());
         } else {
-            this.sources = Arrays.asList(node.getConditionSources());
+            this.sources = Arrays.stream(node.getConditionSources())
+                    .filter(n -> !n.isShared())
+                    .collect(Collectors.toList());
         }
         this.deltaOnly = deltaOnly;
         this.matchMask = matchMask;
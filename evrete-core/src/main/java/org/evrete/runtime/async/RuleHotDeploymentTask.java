@@ -38,6 +38,10 @@ public class RuleHotDeploymentTask extends Completer {
 
     @Override
     protected void onCompletion() {
+        if (rule.isAggregating()) {
+            // Aggregating rules consume the existing matches themselves, see RuntimeRuleImpl.initAggregation()
+            return;
+        }
         // Merging nodes' deltas
         for (BetaEndNode endNode : rule.getEndNodes()) {
             endNode.commitDelta();
@@ -1,6 +1,6 @@
 package org.evrete.runtime.async;
 
-import org.evrete.runtime.BetaEndNode;
+import org.evrete.runtime.BetaConditionNode;
 import org.evrete.runtime.evaluation.MemoryAddress;
 import org.evrete.util.Mask;
 
@@ -8,12 +8,12 @@ import java.util.Collection;
 
 public class RuleMemoryInsertTask extends Completer {
     private static final long serialVersionUID = 7911593735990639599L;
-    private final Collection<BetaEndNode> deltaEndNodes;
+    private final Collection<? extends BetaConditionNode> deltaEndNodes;
     private final boolean deltaOnly;
     private final transient Mask<MemoryAddress> matchMask;
 
 
-    public RuleMemoryInsertTask(Collection<BetaEndNode> deltaEndNodes, Mask<MemoryAddress> matchMask, boolean deltaOnly) {
+    public RuleMemoryInsertTask(Collection<? extends BetaConditionNode> deltaEndNodes, Mask<MemoryAddress> matchMask, boolean deltaOnly) {
         this.deltaEndNodes = deltaEndNodes;
         this.deltaOnly = deltaOnly;
         this.matchMask = matchMask;
@@ -0,0 +1,319 @@
+package org.evrete.runtime.compiler;
+
+import org.evrete.Configuration;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.function.UnaryOperator;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * A persistent, content-addressed cache of compiled classes. Entries are keyed by a hash of the class
+ * source, in which the class name is replaced by a stub, and of the Java and engine versions. Generated
+ * classes are named by counters that differ from run to run, so cached classes are renamed on load.
+ * </p>
+ * <p>
+ * The key can not cover the classes that the sources refer to, as they are only known after compilation.
+ * Instead, every entry records digests of the class files its classes refer to, and is served only if
+ * those class files are unchanged. Platform classes are covered by the Java version.
+ * </p>
+ *
+ * @see Configuration#CLASS_CACHE_DIR
+ */
+public class ClassCache {
+    private static final Logger LOGGER = Logger.getLogger(ClassCache.class.getName());
+    private static final int FORMAT_VERSION = 2;
+    private static final String CLASS_STUB = "CLASS_STUB";
+    private static final String EXTENSION = ".classes";
+    private static final String[] PLATFORM_PACKAGES = {"java/", "javax/", "jdk/", "sun/"};
+    private static final Pattern INTERNAL_NAME = Pattern.compile("[\\w$]+(?:/[\\w$]+)+");
+    private static final Pattern DESCRIPTOR_TYPE = Pattern.compile("L([\\w$]+(?:/[\\w$]+)*);");
+    private final Path directory;
+
+    ClassCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param configuration configuration
+     * @return class cache, or null if the cache isn't configured
+     */
+    public static ClassCache of(Configuration configuration) {
+        String dir = configuration.getProperty(Configuration.CLASS_CACHE_DIR);
+        if (dir == null || dir.trim().isEmpty()) {
+            return null;
+        } else {
+            return new ClassCache(Paths.get(dir.trim()));
+        }
+    }
+
+    /**
+     * @param binaryName binary name of the source's main class
+     * @param source     class source
+     * @return cache key of the source
+     */
+    String key(String binaryName, String source) {
+        String simpleName = ClassMeta.simpleName(binaryName);
+        String normalized = source.replaceAll("\\b" + Pattern.quote(simpleName) + "\\b", CLASS_STUB);
+        MessageDigest digest = newDigest();
+        digest.update(normalized.getBytes(StandardCharsets.UTF_8));
+        digest.update(("\n" + System.getProperty("java.version") + "\n" + ClassCache.class.getPackage().getImplementationVersion()).getBytes(StandardCharsets.UTF_8));
+        StringBuilder sb = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param key         cache key
+     * @param binaryName  binary name under which the classes are to be loaded
+     * @param classLoader classloader that resolves the classes the source refers to
+     * @return classes of the source by their binary names, or null if the cache has no such entry
+     * or if any of the referenced classes has changed since the entry was stored
+     */
+    Map<String, byte[]> load(String key, String binaryName, ClassLoader classLoader) {
+        Path file = directory.resolve(key + EXTENSION);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String storedName = in.readUTF();
+            int dependencyCount = in.readInt();
+            for (int i = 0; i < dependencyCount; i++) {
+                String dependency = in.readUTF();
+                byte[] digest = new byte[in.readInt()];
+                in.readFully(digest);
+                if (!Arrays.equals(digest, digest(classLoader, dependency))) {
+                    return null;
+                }
+            }
+            String from = internalName(storedName);
+            String to = internalName(binaryName);
+            int count = in.readInt();
+            Map<String, byte[]> classes = new HashMap<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                if (!name.equals(storedName) && !name.startsWith(storedName + "$")) {
+                    return null;
+                }
+                classes.put(binaryName + name.substring(storedName.length()), from.equals(to) ? bytes : rename(bytes, from, to));
+            }
+            return classes;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Failed to read cached classes from " + file, e);
+            return null;
+        }
+    }
+
+    /**
+     * @param key         cache key
+     * @param binaryName  binary name of the source's main class
+     * @param classes     the source's compiled classes by their binary names
+     * @param classLoader classloader that resolves the classes the source refers to
+     */
+    void store(String key, String binaryName, Map<String, byte[]> classes, ClassLoader classLoader) {
+        Path file = directory.resolve(key + EXTENSION);
+        try {
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, key, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(binaryName);
+                Set<String> dependencies = dependencies(internalName(binaryName), classes.values());
+                out.writeInt(dependencies.size());
+                for (String dependency : dependencies) {
+                    byte[] digest = digest(classLoader, dependency);
+                    out.writeUTF(dependency);
+                    out.writeInt(digest.length);
+                    out.write(digest);
+                }
+                out.writeInt(classes.size());
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().length);
+                    out.write(entry.getValue());
+                }
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to cache compiled classes in " + file, e);
+        }
+    }
+
+    private static String internalName(String binaryName) {
+        return binaryName.replace('.', '/');
+    }
+
+    /**
+     * @param classLoader  classloader
+     * @param internalName internal name of a class
+     * @return digest of the class file, or an empty array if the class file can not be found
+     * @throws IOException if the class file can not be read
+     */
+    private static byte[] digest(ClassLoader classLoader, String internalName) throws IOException {
+        try (InputStream in = classLoader.getResourceAsStream(internalName + ".class")) {
+            if (in == null) {
+                return new byte[0];
+            }
+            MessageDigest digest = newDigest();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+            return digest.digest();
+        }
+    }
+
+    /**
+     * <p>
+     * Collects the internal names of non-platform classes that the given class files refer to,
+     * either directly or in descriptors and signatures. The source's own classes are skipped.
+     * </p>
+     *
+     * @param ownName internal name of the source's main class
+     * @param classes class files
+     * @return referenced classes in a stable order
+     */
+    private static Set<String> dependencies(String ownName, Collection<byte[]> classes) {
+        Set<String> result = new TreeSet<>();
+        for (byte[] classBytes : classes) {
+            copyConstantPool(classBytes, utf8 -> {
+                if (INTERNAL_NAME.matcher(utf8).matches()) {
+                    addDependency(result, ownName, utf8);
+                }
+                Matcher matcher = DESCRIPTOR_TYPE.matcher(utf8);
+                while (matcher.find()) {
+                    addDependency(result, ownName, matcher.group(1));
+                }
+                return utf8;
+            });
+        }
+        return result;
+    }
+
+    private static void addDependency(Set<String> dest, String ownName, String name) {
+        if (name.equals(ownName) || name.startsWith(ownName + "$")) {
+            return;
+        }
+        for (String prefix : PLATFORM_PACKAGES) {
+            if (name.startsWith(prefix)) {
+                return;
+            }
+        }
+        dest.add(name);
+    }
+
+    /**
+     * <p>
+     * Renames a class by rewriting its constant pool. Every UTF-8 constant is scanned for the old
+     * internal name, including descriptors, signatures, and the names of nested classes.
+     * </p>
+     *
+     * @param classBytes class file
+     * @param from       old internal name
+     * @param to         new internal name
+     * @return renamed class file
+     */
+    static byte[] rename(byte[] classBytes, String from, String to) {
+        Pattern pattern = Pattern.compile(Pattern.quote(from) + "(?!\\w)");
+        String replacement = Matcher.quoteReplacement(to);
+        return copyConstantPool(classBytes, utf8 -> pattern.matcher(utf8).replaceAll(replacement));
+    }
+
+    /**
+     * @param classBytes class file
+     * @param utf8       mapping of the UTF-8 constants
+     * @return copy of the class file with the UTF-8 constants mapped
+     */
+    private static byte[] copyConstantPool(byte[] classBytes, UnaryOperator<String> utf8) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(classBytes));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(classBytes.length + 64);
+            DataOutputStream out = new DataOutputStream(bytes);
+            // Magic and version
+            out.writeInt(in.readInt());
+            out.writeInt(in.readInt());
+            int poolCount = in.readUnsignedShort();
+            out.writeShort(poolCount);
+            for (int i = 1; i < poolCount; i++) {
+                int tag = in.readUnsignedByte();
+                out.writeByte(tag);
+                switch (tag) {
+                    case 1:
+                        // UTF-8
+                        out.writeUTF(utf8.apply(in.readUTF()));
+                        break;
+                    case 7:
+                    case 8:
+                    case 16:
+                    case 19:
+                    case 20:
+                        // Class, String, MethodType, Module, Package
+                        out.writeShort(in.readUnsignedShort());
+                        break;
+                    case 15:
+                        // MethodHandle
+                        out.writeByte(in.readUnsignedByte());
+                        out.writeShort(in.readUnsignedShort());
+                        break;
+                    case 3:
+                    case 4:
+                    case 9:
+                    case 10:
+                    case 11:
+                    case 12:
+                    case 17:
+                    case 18:
+                        // Integer, Float, references, NameAndType, Dynamic, InvokeDynamic
+                        out.writeInt(in.readInt());
+                        break;
+                    case 5:
+                    case 6:
+                        // Long and Double take two slots
+                        out.writeLong(in.readLong());
+                        i++;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown constant pool tag " + tag);
+                }
+            }
+            // The rest of the class file refers to the constant pool by indices only
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -12,11 +12,28 @@ import java.util.stream.Collectors;
 public class SourceCompiler implements JavaSourceCompiler {
     private final static String COMPILER_PARAM_OPTION = "-parameters";
     private final RuntimeClassloader classLoader;
-    private final JavaCompiler compiler;
+    private final ClassCache classCache;
+    private JavaCompiler compiler;
 
     public SourceCompiler(RuntimeClassloader classLoader) {
+        this(classLoader, null);
+    }
+
+    /**
+     * @param classLoader the classloader that compiled classes are saved to
+     * @param classCache  optional persistent cache of compiled classes
+     */
+    public SourceCompiler(RuntimeClassloader classLoader, ClassCache classCache) {
         this.classLoader = classLoader;
-        this.compiler = Objects.requireNonNull(ToolProvider.getSystemJavaCompiler(), "No Java compiler provided by this platform");
+        this.classCache = classCache;
+    }
+
+    private synchronized JavaCompiler compiler() {
+        // The lookup is lazy so that fully cached sources can be served without a JDK
+        if (compiler == null) {
+            compiler = Objects.requireNonNull(ToolProvider.getSystemJavaCompiler(), "No Java compiler provided by this platform");
+        }
+        return compiler;
     }
 
     @Override
@@ -42,7 +59,54 @@ public class SourceCompiler implements JavaSourceCompiler {
     }
 
     @Override
-     public <S extends ClassSource> Collection<Result<S>> compile(Collection<S> sources) throws CompilationException {
+    public <S extends ClassSource> Collection<Result<S>> compile(Collection<S> sources) throws CompilationException {
+        if (classCache == null) {
+            return compileSources(sources);
+        }
+
+        Collection<Result<S>> results = new ArrayList<>(sources.size());
+        Map<S, String> misses = new IdentityHashMap<>();
+        for (S source : sources) {
+            String binaryName = source.binaryName();
+            String key = classCache.key(binaryName, source.getSource());
+            Map<String, byte[]> cached = classCache.load(key, binaryName, classLoader);
+            if (cached == null) {
+                misses.put(source, key);
+            } else {
+                for (Map.Entry<String, byte[]> entry : cached.entrySet()) {
+                    classLoader.saveClass(entry.getKey(), entry.getValue());
+                }
+                results.add(result(source, resolve(binaryName)));
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            Map<String, Map<String, byte[]>> outputs = new HashMap<>();
+            results.addAll(compileSources(misses.keySet(), outputs));
+            for (Map.Entry<S, String> entry : misses.entrySet()) {
+                String binaryName = entry.getKey().binaryName();
+                Map<String, byte[]> classes = outputs.get(binaryName);
+                if (classes != null) {
+                    classCache.store(entry.getValue(), binaryName, classes, classLoader);
+                }
+            }
+        }
+        return results;
+    }
+
+    private <S extends ClassSource> Collection<Result<S>> compileSources(Collection<S> sources) throws CompilationException {
+        return compileSources(sources, null);
+    }
+
+    /**
+     * @param sources sources to compile
+     * @param outputs if not null, receives compiled classes grouped by the binary names of their
+     *                sources. Nothing is reported if any of the classes can not be attributed to a source.
+     * @return compilation results
+     * @throws CompilationException if the sources can not be compiled
+     */
+    private <S extends ClassSource> Collection<Result<S>> compileSources(Collection<S> sources, Map<String, Map<String, byte[]>> outputs) throws CompilationException {
+        JavaCompiler compiler = compiler();
         Map<String, S> sourcesByClassName = new HashMap<>(sources.size());
         for(S s : sources) {
             sourcesByClassName.put(s.binaryName(), s);
@@ -72,39 +136,31 @@ public class SourceCompiler implements JavaSourceCompiler {
 
                 if (success) {
                     Collection<String> binaryNames = new LinkedList<>();
+                    boolean attributable = true;
                     for (DestinationClassObject compiled : fm.getOutput()) {
                         classLoader.saveClass(compiled);
                         binaryNames.add(compiled.getBinaryName());
+                        if (outputs != null) {
+                            String owner = ownerName(compiled.getBinaryName(), sourcesByClassName.keySet());
+                            if (owner == null) {
+                                attributable = false;
+                            } else {
+                                outputs.computeIfAbsent(owner, k -> new HashMap<>()).put(compiled.getBinaryName(), compiled.getBytes());
+                            }
+                        }
+                    }
+                    if (!attributable) {
+                        outputs.clear();
                     }
 
                     Collection<Class<?>> compiled = new ArrayList<>(binaryNames.size());
                     for(String binaryName : binaryNames) {
-                        try {
-                            Class<?> cl = Class.forName(binaryName, false, classLoader);
-                            compiled.add(cl);
-                        } catch (ClassNotFoundException e) {
-                            throw new IllegalStateException("Class has been compiled, but can not be resolved", e);
-                        }
+                        compiled.add(resolve(binaryName));
                     }
 
                     return compiled.stream().map(cl -> {
-                        String binaryName = cl.getName();
-                        final S source = sourcesByClassName.get(binaryName);
-                        if (source == null) {
-                            return null;
-                        } else {
-                            return new Result<S>() {
-                                @Override
-                                public S getSource() {
-                                    return source;
-                                }
-
-                                @Override
-                                public Class<?> getCompiledClass() {
-                                    return cl;
-                                }
-                            };
-                        }
+                        final S source = sourcesByClassName.get(cl.getName());
+                        return source == null ? null : result(source, cl);
                     }).filter(Objects::nonNull).collect(Collectors.toList());
                 } else {
                     List<String> otherErrors = new LinkedList<>();
@@ -128,4 +184,41 @@ public class SourceCompiler implements JavaSourceCompiler {
             throw new UncheckedIOException(e);
         }
     }
+
+    private static String ownerName(String binaryName, Set<String> sourceNames) {
+        if (sourceNames.contains(binaryName)) {
+            return binaryName;
+        }
+        int pos = binaryName.indexOf('$');
+        while (pos > 0) {
+            String outer = binaryName.substring(0, pos);
+            if (sourceNames.contains(outer)) {
+                return outer;
+            }
+            pos = binaryName.indexOf('$', pos + 1);
+        }
+        return null;
+    }
+
+    private Class<?> resolve(String binaryName) {
+        try {
+            return Class.forName(binaryName, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Class has been compiled, but can not be resolved", e);
+        }
+    }
+
+    private static <S extends ClassSource> Result<S> result(S source, Class<?> cl) {
+        return new Result<S>() {
+            @Override
+            public S getSource() {
+                return source;
+            }
+
+            @Override
+            public Class<?> getCompiledClass() {
+                return cl;
+            }
+        };
+    }
 }
@@ -21,4 +21,9 @@ public interface BetaEvaluator extends WorkUnit {
     Mask<FactType> getFactTypeMask();
 
     EvaluatorHandle[] constituents();
+
+    /**
+     * @return unordered constituents, which identify the condition regardless of the evaluation order
+     */
+    Set<EvaluatorHandle> constituentSet();
 }
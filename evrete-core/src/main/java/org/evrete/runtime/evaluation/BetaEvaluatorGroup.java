@@ -10,6 +10,7 @@ import java.util.*;
 
 public class BetaEvaluatorGroup implements BetaEvaluator {
     private final EvaluatorHandle[] constituents;
+    private final Set<EvaluatorHandle> constituentSet;
     private final BetaEvaluatorSingle[] evaluators;
     private final Mask<FactType> factTypeMask;
     private final Set<FactType> descriptor;
@@ -32,6 +33,7 @@ public class BetaEvaluatorGroup implements BetaEvaluator {
 
         this.complexity = comp;
         this.descriptor = Collections.unmodifiableSet(factTypes);
+        this.constituentSet = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(constituents)));
     }
 
     @Override
@@ -49,6 +51,11 @@ public class BetaEvaluatorGroup implements BetaEvaluator {
         return constituents;
     }
 
+    @Override
+    public Set<EvaluatorHandle> constituentSet() {
+        return constituentSet;
+    }
+
     @Override
     public double getComplexity() {
         return this.complexity;
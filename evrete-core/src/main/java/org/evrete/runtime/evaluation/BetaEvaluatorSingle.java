@@ -21,6 +21,7 @@ public class BetaEvaluatorSingle implements BetaEvaluator {
     private final Set<FactType> factTypes;
     private final Set<ActiveField> fields;
     private final EvaluatorHandle[] constituents;
+    private final Set<EvaluatorHandle> constituentSet;
     private final EvaluatorHandle delegate;
 
     BetaEvaluatorSingle(EvaluatorHandle delegate, Function<NamedType, FactType> typeFunction) {
@@ -28,6 +29,7 @@ public class BetaEvaluatorSingle implements BetaEvaluator {
         this.factTypeMask = Mask.factTypeMask();
         this.fields = new HashSet<>();
         this.constituents = new EvaluatorHandle[]{delegate};
+        this.constituentSet = Collections.singleton(delegate);
         FieldReference[] evaluatorDescriptor = delegate.descriptor();
         this.descriptor = new BetaFieldReference[evaluatorDescriptor.length];
         Set<FactType> factTypes = new HashSet<>();
@@ -50,6 +52,11 @@ public class BetaEvaluatorSingle implements BetaEvaluator {
         return constituents;
     }
 
+    @Override
+    public Set<EvaluatorHandle> constituentSet() {
+        return constituentSet;
+    }
+
     @Override
     public double getComplexity() {
         return delegate.getComplexity();
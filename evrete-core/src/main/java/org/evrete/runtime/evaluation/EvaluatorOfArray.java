@@ -33,6 +33,11 @@ public class EvaluatorOfArray implements Evaluator {
         }
     }
 
+    @Override
+    public boolean test(Object[] values) {
+        return predicate.test(values);
+    }
+
 
     @Override
     public boolean equals(Object o) {
@@ -65,6 +65,13 @@ public class EvaluatorWrapper implements Evaluator, Copyable<EvaluatorWrapper> {
         updateActiveEvaluator();
     }
 
+    /**
+     * @return true if this evaluator reports its evaluations to listeners
+     */
+    public boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
     public Evaluator getDelegate() {
         return delegate;
     }
@@ -87,6 +94,15 @@ public class EvaluatorWrapper implements Evaluator, Copyable<EvaluatorWrapper> {
         return active.test(intToValue);
     }
 
+    @Override
+    public final boolean test(Object[] values) {
+        if (active == delegate) {
+            return delegate.test(values);
+        } else {
+            return verbose.test(i -> values[i]);
+        }
+    }
+
     public final void setStateValues(IntToValue stateValues) {
         this.stateValues = stateValues;
     }
@@ -100,6 +116,11 @@ public class EvaluatorWrapper implements Evaluator, Copyable<EvaluatorWrapper> {
         return delegate.descriptor();
     }
 
+    @Override
+    public boolean impliesEquality() {
+        return delegate.impliesEquality();
+    }
+
     @Override
     public final int compare(Evaluator other) {
         return delegate.compare(unwrap(other));
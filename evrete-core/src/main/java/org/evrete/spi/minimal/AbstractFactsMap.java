@@ -9,7 +9,9 @@ import org.evrete.util.Constants;
 
 import java.util.Collection;
 import java.util.function.BiPredicate;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 abstract class AbstractFactsMap<K extends MemoryKey> {
     private static final ReIterator<FactHandleVersioned> EMPTY = ReIterator.emptyIterator();
@@ -17,10 +19,12 @@ abstract class AbstractFactsMap<K extends MemoryKey> {
     private final BiPredicate<MapKey<K>, IntToValueHandle> search;
     private final BiPredicate<MapKey<K>, K> SEARCH_PREDICATE = (entry, memoryKey) -> entry.key.equals(memoryKey);
     private final Function<MapKey<K>, MemoryKey> ENTRY_MAPPER = entry -> entry.key;
+    private final FactHandleChain.Factory chains;
 
-    AbstractFactsMap(int minCapacity) {
+    AbstractFactsMap(int minCapacity, FactHandleChain.Factory chains) {
         this.search = this::sameData;
         this.data = new LinearHashSet<>(minCapacity);
+        this.chains = chains;
     }
 
     abstract boolean sameData(MapKey<K> mapEntry, IntToValueHandle key);
@@ -31,20 +35,56 @@ abstract class AbstractFactsMap<K extends MemoryKey> {
         return data.iterator(ENTRY_MAPPER);
     }
 
-    public final void add(IntToValueHandle key, int keyHash, Collection<FactHandleVersioned> factHandles) {
+    /**
+     * @return the key the handles have been saved under
+     */
+    public final MemoryKey add(IntToValueHandle key, int keyHash, Collection<FactHandleVersioned> factHandles) {
         data.resize();
         int pos = data.findBinIndex(key, keyHash, search);
         MapKey<K> entry = data.get(pos);
         if (entry == null) {
             K k = newKeyInstance(key, keyHash);
-            entry = new MapKey<>(k);
+            entry = new MapKey<>(k, chains.newChain());
             // TODO saveDirect is doing unnecessary job
             data.saveDirect(entry, pos);
         }
         for (FactHandleVersioned h : factHandles) {
             entry.facts.add(h);
         }
+        return entry.key;
+    }
+
+    /**
+     * <p>
+     * Removes stale handles from a single key's chain. The key itself gets removed if its chain becomes empty.
+     * </p>
+     *
+     * @param k         key to purge
+     * @param predicate tells whether a handle is stale
+     * @param survivors consumer of the remaining handles
+     * @return the removed key instance, or null if the key still has handles or doesn't exist
+     */
+    @SuppressWarnings("unchecked")
+    final MemoryKey purge(MemoryKey k, Predicate<FactHandleVersioned> predicate, Consumer<FactHandleVersioned> survivors) {
+        int pos = address((K) k);
+        MapKey<K> entry = data.get(pos);
+        if (entry == null) return null;
 
+        ReIterator<FactHandleVersioned> it = entry.facts.iterator();
+        while (it.hasNext()) {
+            FactHandleVersioned handle = it.next();
+            if (predicate.test(handle)) {
+                it.remove();
+            } else {
+                survivors.accept(handle);
+            }
+        }
+        if (it.reset() == 0) {
+            data.removeAt(pos);
+            return entry.key;
+        } else {
+            return null;
+        }
     }
 
     final boolean hasKey(int hash, IntToValueHandle key) {
@@ -95,11 +135,12 @@ abstract class AbstractFactsMap<K extends MemoryKey> {
     }
 
     static class MapKey<K extends MemoryKey> {
-        final LinkedFactHandles facts = new LinkedFactHandles();
+        final FactHandleChain facts;
         final K key;
 
-        MapKey(K key) {
+        MapKey(K key, FactHandleChain facts) {
             this.key = key;
+            this.facts = facts;
         }
 
         @Override
@@ -3,16 +3,27 @@ package org.evrete.spi.minimal;
 import org.evrete.api.*;
 import org.evrete.util.CollectionUtils;
 
-import java.util.Arrays;
-import java.util.Collection;
+import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 abstract class AbstractKeyedFactStorage<T extends AbstractFactsMap<?>> implements KeyedFactStorage {
     private final T[] maps;
+    private final FactHandleChain.Factory chains;
+    // Reverse index of fact handles and their keys, null if targeted purges are off
+    private final HandleKeys handleKeys;
     private KeyState currentRecord = null;
 
-    AbstractKeyedFactStorage(Class<T> mapType, Function<KeyMode, T> mapSupplier) {
-        //this.fields = fields;
+    /**
+     * @param mapType      type of the key maps
+     * @param chains       factory of fact handle chains
+     * @param indexHandles whether to keep the reverse index that targeted purges rely on
+     * @param mapSupplier  key map factory
+     */
+    AbstractKeyedFactStorage(Class<T> mapType, FactHandleChain.Factory chains, boolean indexHandles, Function<KeyMode, T> mapSupplier) {
+        this.chains = chains;
+        this.handleKeys = indexHandles ? new HandleKeys() : null;
         this.maps = CollectionUtils.array(mapType, KeyMode.values().length);
         for (KeyMode mode : KeyMode.values()) {
             this.maps[mode.ordinal()] = mapSupplier.apply(mode);
@@ -31,16 +42,53 @@ abstract class AbstractKeyedFactStorage<T extends AbstractFactsMap<?>> implement
         for (T map : maps) {
             map.clear();
         }
+        chains.clear();
+        if (handleKeys != null) {
+            handleKeys.clear();
+        }
     }
 
     private void insert(IntToValueHandle key, int keyHash, Collection<FactHandleVersioned> factHandles) {
+        MemoryKey memoryKey;
         if (get(KeyMode.OLD_OLD).hasKey(keyHash, key)) {
             // Existing key
-            get(KeyMode.OLD_NEW).add(key, keyHash, factHandles);
+            memoryKey = get(KeyMode.OLD_NEW).add(key, keyHash, factHandles);
         } else {
             // New key
-            get(KeyMode.NEW_NEW).add(key, keyHash, factHandles);
+            memoryKey = get(KeyMode.NEW_NEW).add(key, keyHash, factHandles);
+        }
+        if (handleKeys != null) {
+            for (FactHandleVersioned h : factHandles) {
+                handleKeys.link(h.getHandle(), memoryKey);
+            }
+        }
+    }
+
+    @Override
+    public boolean purge(Set<FactHandle> handles, Predicate<FactHandleVersioned> predicate, Consumer<MemoryKey> emptyKeysConsumer) {
+        if (handleKeys == null) {
+            return false;
+        }
+        // Keys of the given handles, each to be visited once. The handles get re-linked
+        // to the keys where they survive.
+        Set<MemoryKey> keys = new HashSet<>();
+        for (FactHandle handle : handles) {
+            handleKeys.unlink(handle, keys);
+        }
+
+        T main = get(KeyMode.OLD_OLD);
+        for (MemoryKey key : keys) {
+            Consumer<FactHandleVersioned> survivors = h -> {
+                if (handles.contains(h.getHandle())) {
+                    handleKeys.link(h.copy().getHandle(), key);
+                }
+            };
+            MemoryKey deleted = main.purge(key, predicate, survivors);
+            if (deleted != null) {
+                emptyKeysConsumer.accept(deleted);
+            }
         }
+        return true;
     }
 
 
@@ -68,6 +116,36 @@ abstract class AbstractKeyedFactStorage<T extends AbstractFactsMap<?>> implement
         return Arrays.toString(maps);
     }
 
+    private static class HandleKeys {
+        // Keys the fact handles are stored under
+        private final Map<FactHandle, MemoryKey> keys = new HashMap<>();
+        // Keys of handles that have been saved under more than one key since the last purge, e.g. after an update
+        private final Map<FactHandle, Collection<MemoryKey>> extraKeys = new HashMap<>();
+
+        void link(FactHandle handle, MemoryKey key) {
+            MemoryKey existing = keys.putIfAbsent(handle, key);
+            if (existing != null && !existing.equals(key)) {
+                extraKeys.computeIfAbsent(handle, k -> new ArrayList<>(2)).add(key);
+            }
+        }
+
+        void unlink(FactHandle handle, Collection<MemoryKey> dest) {
+            MemoryKey key = keys.remove(handle);
+            if (key != null) {
+                dest.add(key);
+                Collection<MemoryKey> extra = extraKeys.remove(handle);
+                if (extra != null) {
+                    dest.addAll(extra);
+                }
+            }
+        }
+
+        void clear() {
+            keys.clear();
+            extraKeys.clear();
+        }
+    }
+
     static class KeyState {
         int hash;
         IntToValueHandle values;
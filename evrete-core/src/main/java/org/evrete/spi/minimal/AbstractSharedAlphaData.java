@@ -0,0 +1,98 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.*;
+
+import java.util.Collection;
+import java.util.NoSuchElementException;
+
+abstract class AbstractSharedAlphaData<C extends FactHandleChain> implements KeyedFactStorage {
+    private final FactHandleChain[] dataWrappers;
+    private final FactHandleChain.Factory chains;
+
+    AbstractSharedAlphaData(FactHandleChain.Factory chains) {
+        this.chains = chains;
+        this.dataWrappers = new FactHandleChain[KeyMode.values().length];
+        for (KeyMode mode : KeyMode.values()) {
+            int idx = mode.ordinal();
+            this.dataWrappers[idx] = chains.newChain();
+        }
+    }
+
+    @Override
+    public void write(ValueHandle partialKey) {
+        // We have zero keys, this method won't be called
+    }
+
+    @Override
+    public void write(Collection<FactHandleVersioned> factHandles) {
+        C data = get(KeyMode.OLD_NEW);
+        for (FactHandleVersioned h : factHandles) {
+            data.add(h);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    C get(KeyMode mode) {
+        return (C) dataWrappers[mode.ordinal()];
+    }
+
+    @Override
+    public ReIterator<MemoryKey> keys(KeyMode mode) {
+        return new KeyIterator(mode);
+    }
+
+    @Override
+    public ReIterator<FactHandleVersioned> values(KeyMode mode, MemoryKey key) {
+        return get(mode).iterator();
+    }
+
+    @Override
+    public void clear() {
+        for (FactHandleChain wrapper : this.dataWrappers) {
+            wrapper.clear();
+        }
+        chains.clear();
+    }
+
+    @Override
+    public void commitChanges() {
+        C delta = get(KeyMode.OLD_NEW);
+        get(KeyMode.OLD_OLD).consume(delta);
+    }
+
+    private static class KeyIterator implements ReIterator<MemoryKey> {
+        private final MemoryKeyMulti row;
+        private boolean hasNext = true;
+
+        KeyIterator(KeyMode mode) {
+            this.row = new MemoryKeyMulti();
+            //this.row.setMetaValue(mode.ordinal());
+        }
+
+        @Override
+        public long reset() {
+            hasNext = true;
+            return 1L;
+        }
+
+        @Override
+        public void remove() {
+            // silently skip
+        }
+
+        @Override
+        public boolean hasNext() {
+            return hasNext;
+        }
+
+        @Override
+        public MemoryKey next() {
+            if (hasNext) {
+                hasNext = false;
+                return row;
+            } else {
+                throw new NoSuchElementException();
+            }
+        }
+    }
+}
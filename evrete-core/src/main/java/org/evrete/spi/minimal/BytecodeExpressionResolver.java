@@ -0,0 +1,73 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.LiteralEvaluator;
+import org.evrete.api.LiteralExpression;
+import org.evrete.api.RuntimeContext;
+import org.evrete.api.ValuesPredicate;
+import org.evrete.runtime.compiler.CompilationException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>
+ * An expression resolver that generates condition classes directly in bytecode, without the Java compiler.
+ * Conditions outside the {@link ConditionParser} grammar are compiled by the default resolver.
+ * </p>
+ */
+class BytecodeExpressionResolver extends DefaultExpressionResolver {
+    private final static AtomicLong CLASS_COUNTER = new AtomicLong();
+    private static final String PACKAGE = BytecodeExpressionResolver.class.getPackage().getName() + ".generated";
+
+    BytecodeExpressionResolver(RuntimeContext<?> context) {
+        super(context);
+    }
+
+    @Override
+    public Collection<LiteralEvaluator> buildExpressions(Collection<LiteralExpression> expressions) throws CompilationException {
+        List<LiteralEvaluator> result = new ArrayList<>(expressions.size());
+        List<LiteralExpression> unsupported = new LinkedList<>();
+        // Classes of a batch share a class loader and get unloaded together with their evaluators
+        ConditionClassLoader classLoader = new ConditionClassLoader();
+        for (LiteralExpression expression : expressions) {
+            ConditionParser.Result condition = ConditionParser.parse(expression.getSource(), s -> resolve(s, expression.getContext()));
+            if (condition == null) {
+                unsupported.add(expression);
+            } else {
+                String className = PACKAGE + ".Condition" + CLASS_COUNTER.incrementAndGet();
+                byte[] bytes;
+                try {
+                    bytes = ConditionClassWriter.write(className, condition);
+                } catch (IllegalArgumentException e) {
+                    unsupported.add(expression);
+                    continue;
+                }
+                result.add(new GeneratedEvaluator(classLoader.newPredicate(className, bytes), expression, condition));
+            }
+        }
+
+        if (!unsupported.isEmpty()) {
+            result.addAll(super.buildExpressions(unsupported));
+        }
+        return result;
+    }
+
+    private static class ConditionClassLoader extends ClassLoader {
+
+        ConditionClassLoader() {
+            super(ValuesPredicate.class.getClassLoader());
+        }
+
+        ValuesPredicate newPredicate(String className, byte[] bytes) {
+            Class<?> cl = defineClass(className, bytes, 0, bytes.length);
+            try {
+                return (ValuesPredicate) cl.getConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to instantiate generated condition", e);
+            }
+        }
+    }
+}
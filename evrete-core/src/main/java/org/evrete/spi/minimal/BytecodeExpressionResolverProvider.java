@@ -0,0 +1,26 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.ExpressionResolver;
+import org.evrete.api.RuntimeContext;
+import org.evrete.api.spi.ExpressionResolverProvider;
+
+/**
+ * <p>
+ * An alternative expression resolver provider which turns literal conditions into bytecode directly,
+ * skipping the Java compiler. Comparisons and arithmetic over field references and numeric, boolean,
+ * or <code>null</code> literals are supported, the remaining conditions (method calls, string literals,
+ * casts, etc.) are compiled by the default resolver.
+ * </p>
+ * <p>
+ * The provider is not registered as a service and needs to be selected explicitly, either via
+ * the {@link org.evrete.Configuration#SPI_EXPRESSION_RESOLVER} property or via
+ * {@link org.evrete.KnowledgeService.Builder#withExpressionResolverProvider(Class)}.
+ * </p>
+ */
+public class BytecodeExpressionResolverProvider extends LeastImportantServiceProvider implements ExpressionResolverProvider {
+
+    @Override
+    public ExpressionResolver instance(RuntimeContext<?> context) {
+        return new BytecodeExpressionResolver(context);
+    }
+}
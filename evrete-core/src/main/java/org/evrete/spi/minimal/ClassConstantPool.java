@@ -0,0 +1,129 @@
+package org.evrete.spi.minimal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Constant pool of a class file that is being generated. Equal constants share the same pool entry.
+ * </p>
+ */
+final class ClassConstantPool {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    private final Map<String, Integer> indices = new HashMap<>();
+    private int count = 1;
+
+    int utf8(String value) {
+        return entry("U" + value, 1, () -> {
+            out.writeByte(1);
+            out.writeUTF(value);
+        });
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry("C" + internalName, 1, () -> {
+            out.writeByte(7);
+            out.writeShort(name);
+        });
+    }
+
+    int methodRef(String owner, String name, String descriptor, boolean isInterface) {
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        return entry("M" + owner + "." + name + descriptor, 1, () -> {
+            out.writeByte(isInterface ? 11 : 10);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        return entry("R" + owner + "." + name + ":" + descriptor, 1, () -> {
+            out.writeByte(9);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    int stringConstant(String value) {
+        int utf8 = utf8(value);
+        return entry("S" + value, 1, () -> {
+            out.writeByte(8);
+            out.writeShort(utf8);
+        });
+    }
+
+    int intConstant(int value) {
+        return entry("I" + value, 1, () -> {
+            out.writeByte(3);
+            out.writeInt(value);
+        });
+    }
+
+    int floatConstant(float value) {
+        int bits = Float.floatToRawIntBits(value);
+        return entry("F" + bits, 1, () -> {
+            out.writeByte(4);
+            out.writeInt(bits);
+        });
+    }
+
+    int longConstant(long value) {
+        return entry("J" + value, 2, () -> {
+            out.writeByte(5);
+            out.writeLong(value);
+        });
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        return entry("D" + bits, 2, () -> {
+            out.writeByte(6);
+            out.writeLong(bits);
+        });
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        return entry("N" + name + ":" + descriptor, 1, () -> {
+            out.writeByte(12);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+    }
+
+    private int entry(String key, int slots, Writer writer) {
+        Integer existing = indices.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            writer.write();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        int index = count;
+        count += slots;
+        indices.put(key, index);
+        return index;
+    }
+
+    void writeTo(DataOutputStream target) throws IOException {
+        out.flush();
+        target.writeShort(count);
+        bytes.writeTo(target);
+    }
+
+    @FunctionalInterface
+    private interface Writer {
+        void write() throws IOException;
+    }
+}
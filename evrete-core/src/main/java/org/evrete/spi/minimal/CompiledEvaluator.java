@@ -4,22 +4,27 @@ import org.evrete.api.*;
 
 import java.lang.invoke.MethodHandle;
 import java.util.Arrays;
+import java.util.function.Predicate;
 
 class CompiledEvaluator implements LiteralEvaluator {
     private final FieldReference[] descriptor;
     private final MethodHandle methodHandle;
+    private final Predicate<Object[]> arrayTest;
     private final LiteralExpression source;
     private final String originalCondition;
     private final String javaClassSource;
     private final String comparableClassSource;
+    private final boolean impliesEquality;
 
-    CompiledEvaluator(MethodHandle methodHandle, EvaluatorClassSource source) {
+    CompiledEvaluator(MethodHandle methodHandle, Predicate<Object[]> arrayTest, EvaluatorClassSource source, boolean impliesEquality) {
         this.source = source.getExpression();
         this.descriptor = source.getDescriptor();
         this.originalCondition = source.getExpression().getSource();
         this.javaClassSource = source.getSource();
         this.comparableClassSource = source.getComparableClassSource();
         this.methodHandle = methodHandle;
+        this.arrayTest = arrayTest;
+        this.impliesEquality = impliesEquality;
     }
 
     @Override
@@ -43,6 +48,11 @@ class CompiledEvaluator implements LiteralEvaluator {
         return LiteralEvaluator.super.compare(other);
     }
 
+    @Override
+    public boolean impliesEquality() {
+        return impliesEquality;
+    }
+
     @Override
     public FieldReference[] descriptor() {
         return descriptor;
@@ -63,6 +73,17 @@ class CompiledEvaluator implements LiteralEvaluator {
         }
     }
 
+    @Override
+    public boolean test(Object[] values) {
+        try {
+            return arrayTest.test(values);
+        } catch (SecurityException t) {
+            throw t;
+        } catch (Throwable t) {
+            throw new IllegalStateException("Evaluation exception at '" + originalCondition + "', arguments: " + Arrays.toString(descriptor) + " -> " + Arrays.toString(values), t);
+        }
+    }
+
     @Override
     public String toString() {
         return "\"" + originalCondition + "\"";
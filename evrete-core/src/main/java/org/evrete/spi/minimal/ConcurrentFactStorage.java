@@ -0,0 +1,174 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.FactStorage;
+import org.evrete.api.ReIterator;
+import org.evrete.api.Type;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * <p>
+ * A thread-safe fact storage for sessions with multiple producer threads. Facts are indexed both
+ * by their handles and by their identity, and both indices are concurrent maps, so that inserts from
+ * different threads don't block each other.
+ * </p>
+ *
+ * @param <T> storage entry type
+ */
+class ConcurrentFactStorage<T> implements FactStorage<T> {
+    private final Map<Long, DefaultFactStorage.Tuple<T>> byHandle;
+    private final Map<Identity<T>, FactHandleImpl> byFact;
+    private final BiPredicate<T, T> identityFunction;
+    private final AtomicLong handleId = new AtomicLong();
+    private final int typeId;
+
+    ConcurrentFactStorage(Type<?> type, BiPredicate<T, T> identityFunction, int minCapacity) {
+        this.byHandle = new ConcurrentHashMap<>(minCapacity);
+        this.byFact = new ConcurrentHashMap<>(minCapacity);
+        this.identityFunction = identityFunction;
+        this.typeId = type.getId();
+    }
+
+    private ConcurrentFactStorage(ConcurrentFactStorage<T> other) {
+        this.byHandle = new ConcurrentHashMap<>(other.byHandle);
+        this.byFact = new ConcurrentHashMap<>(other.byFact);
+        this.identityFunction = other.identityFunction;
+        this.typeId = other.typeId;
+        this.handleId.set(other.handleId.get());
+    }
+
+    @Override
+    public FactHandle insert(T fact) {
+        Identity<T> identity = new Identity<>(fact, identityFunction);
+        FactHandleImpl handle = new FactHandleImpl(handleId.getAndIncrement(), identity.hash, typeId);
+        if (byFact.putIfAbsent(identity, handle) == null) {
+            byHandle.put(handle.id(), new DefaultFactStorage.Tuple<>(handle, fact));
+            return handle;
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public void delete(FactHandle handle) {
+        DefaultFactStorage.Tuple<T> tuple = byHandle.remove(((FactHandleImpl) handle).id());
+        if (tuple != null) {
+            byFact.remove(new Identity<>(tuple.getInstance(), identityFunction), tuple.getHandle());
+        }
+    }
+
+    @Override
+    public void update(FactHandle handle, T newInstance) {
+        FactHandleImpl impl = (FactHandleImpl) handle;
+        DefaultFactStorage.Tuple<T> previous = byHandle.put(impl.id(), new DefaultFactStorage.Tuple<>(impl, newInstance));
+        if (previous != null) {
+            byFact.remove(new Identity<>(previous.getInstance(), identityFunction), impl);
+        }
+        byFact.put(new Identity<>(newInstance, identityFunction), impl);
+    }
+
+    @Override
+    public T getFact(FactHandle handle) {
+        DefaultFactStorage.Tuple<T> tuple = byHandle.get(((FactHandleImpl) handle).id());
+        return tuple == null ? null : tuple.getInstance();
+    }
+
+    @Override
+    public void clear() {
+        byHandle.clear();
+        byFact.clear();
+    }
+
+    @Override
+    public long size() {
+        return byHandle.size();
+    }
+
+    /**
+     * <p>
+     * Unlike the default storage, this implementation copies its indices in full.
+     * </p>
+     */
+    @Override
+    public ConcurrentFactStorage<T> copyOf() {
+        return new ConcurrentFactStorage<>(this);
+    }
+
+    @Override
+    public ReIterator<Entry<T>> iterator() {
+        return new It();
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner("\n");
+        byHandle.values().forEach(t -> sj.add(t.toString()));
+        return sj.toString();
+    }
+
+    private static final class Identity<T> {
+        private final T fact;
+        private final int hash;
+        private final BiPredicate<T, T> identityFunction;
+
+        Identity(T fact, BiPredicate<T, T> identityFunction) {
+            this.fact = fact;
+            this.hash = fact.hashCode();
+            this.identityFunction = identityFunction;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Identity<T> other = (Identity<T>) o;
+            return hash == other.hash && identityFunction.test(fact, other.fact);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private class It implements ReIterator<Entry<T>> {
+        private Iterator<DefaultFactStorage.Tuple<T>> delegate;
+        private DefaultFactStorage.Tuple<T> current;
+
+        It() {
+            reset();
+        }
+
+        @Override
+        public long reset() {
+            this.delegate = byHandle.values().iterator();
+            this.current = null;
+            return byHandle.size();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public Entry<T> next() {
+            this.current = delegate.next();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) throw new IllegalStateException();
+            delete(current.getHandle());
+            this.current = null;
+        }
+    }
+}
@@ -0,0 +1,498 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.IntToValue;
+import org.evrete.api.ValuesPredicate;
+import org.evrete.spi.minimal.ConditionParser.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Emits the bytecode of a parsed condition as a class that implements {@link ValuesPredicate}.
+ * The generated <code>test</code> method unboxes the condition's arguments into local variables and
+ * evaluates the condition with primitive JVM instructions, exactly like the Java compiler would.
+ * </p>
+ * <p>
+ * Classes are written in the Java 5 class file format, which requires no stack map frames and is
+ * still verified by every JVM.
+ * </p>
+ */
+final class ConditionClassWriter {
+    private static final int CLASS_VERSION = 49;
+    private static final String OBJECT = "java/lang/Object";
+    private static final String VALUES = IntToValue.class.getName().replace('.', '/');
+
+    // Opcodes
+    private static final int ACONST_NULL = 0x01;
+    private static final int ICONST_0 = 0x03;
+    private static final int LCONST_0 = 0x09;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ILOAD = 0x15;
+    private static final int ISTORE = 0x36;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int IMUL = 0x68;
+    private static final int IDIV = 0x6c;
+    private static final int IREM = 0x70;
+    private static final int INEG = 0x74;
+    private static final int IXOR = 0x82;
+    private static final int I2L = 0x85;
+    private static final int I2F = 0x86;
+    private static final int I2D = 0x87;
+    private static final int L2F = 0x89;
+    private static final int L2D = 0x8a;
+    private static final int F2D = 0x8d;
+    private static final int LCMP = 0x94;
+    private static final int FCMPL = 0x95;
+    private static final int FCMPG = 0x96;
+    private static final int DCMPL = 0x97;
+    private static final int DCMPG = 0x98;
+    private static final int IFEQ = 0x99;
+    private static final int IFNE = 0x9a;
+    private static final int IF_ICMPEQ = 0x9f;
+    private static final int IF_ACMPEQ = 0xa5;
+    private static final int IF_ACMPNE = 0xa6;
+    private static final int GOTO = 0xa7;
+    private static final int IRETURN = 0xac;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int CHECKCAST = 0xc0;
+
+    private final ClassConstantPool pool = new ClassConstantPool();
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    private final List<Label> labels = new ArrayList<>();
+    private int stack;
+    private int maxStack;
+
+    private ConditionClassWriter() {
+    }
+
+    /**
+     * @param binaryName binary name of the class
+     * @param condition  parsed condition
+     * @return class file bytes
+     */
+    static byte[] write(String binaryName, Result condition) {
+        return new ConditionClassWriter().writeClass(binaryName.replace('.', '/'), condition);
+    }
+
+    private byte[] writeClass(String internalName, Result condition) {
+        int thisClass = pool.classRef(internalName);
+        int superClass = pool.classRef(OBJECT);
+        int predicate = pool.classRef(ValuesPredicate.class.getName().replace('.', '/'));
+
+        // Constructor
+        emit(ALOAD_0, 1);
+        emit(INVOKESPECIAL, -1);
+        emitShort(pool.methodRef(OBJECT, "<init>", "()V", false));
+        emit(RETURN, 0);
+        byte[] constructorCode = takeCode();
+        int constructorStack = takeMaxStack();
+
+        // The test method, arguments go to local variables, starting from slot 2
+        int[] slots = new int[condition.descriptor.length];
+        Argument[] arguments = new Argument[condition.descriptor.length];
+        collectArguments(condition.root, arguments);
+        int locals = 2;
+        for (int i = 0; i < arguments.length; i++) {
+            slots[i] = locals;
+            Argument arg = arguments[i];
+            locals += arg.type.size();
+            emit(ALOAD_1, 1);
+            pushInt(i);
+            emit(INVOKEINTERFACE, -1);
+            emitShort(pool.methodRef(VALUES, "apply", "(I)Ljava/lang/Object;", true));
+            code.write(2);
+            code.write(0);
+            emitUnboxing(arg.valueType);
+            emitVariable(ISTORE, arg.type, slots[i], -arg.type.size());
+        }
+        emitNode(condition.root, slots);
+        emit(IRETURN, -1);
+        byte[] testCode = takeCode();
+        int testStack = takeMaxStack();
+        if (testCode.length > Short.MAX_VALUE || locals > 255) {
+            throw new IllegalArgumentException("Condition is too large");
+        }
+
+        int constructorName = pool.utf8("<init>");
+        int constructorDescriptor = pool.utf8("()V");
+        int testName = pool.utf8("test");
+        int testDescriptor = pool.utf8("(L" + VALUES + ";)Z");
+        int codeAttribute = pool.utf8("Code");
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + testCode.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            pool.writeTo(out);
+            // public final super
+            out.writeShort(0x0031);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(predicate);
+            // No fields
+            out.writeShort(0);
+            out.writeShort(2);
+            writeMethod(out, constructorName, constructorDescriptor, codeAttribute, constructorStack, 1, constructorCode);
+            writeMethod(out, testName, testDescriptor, codeAttribute, testStack, locals, testCode);
+            // No class attributes
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeAttribute, int maxStack, int maxLocals, byte[] code) throws IOException {
+        // public
+        out.writeShort(0x0001);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        // No exception table and code attributes
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private static void collectArguments(Node node, Argument[] arguments) {
+        if (node instanceof Argument) {
+            Argument arg = (Argument) node;
+            arguments[arg.index] = arg;
+        } else if (node instanceof Unary) {
+            collectArguments(((Unary) node).operand, arguments);
+        } else if (node instanceof Binary) {
+            collectArguments(((Binary) node).left, arguments);
+            collectArguments(((Binary) node).right, arguments);
+        }
+    }
+
+    private void emitUnboxing(Class<?> valueType) {
+        if (!valueType.isPrimitive()) {
+            // Reference values are compared by identity, no cast is needed
+            return;
+        }
+        String wrapper;
+        String descriptor;
+        if (valueType == int.class) {
+            wrapper = "java/lang/Integer";
+            descriptor = "I";
+        } else if (valueType == long.class) {
+            wrapper = "java/lang/Long";
+            descriptor = "J";
+        } else if (valueType == double.class) {
+            wrapper = "java/lang/Double";
+            descriptor = "D";
+        } else if (valueType == float.class) {
+            wrapper = "java/lang/Float";
+            descriptor = "F";
+        } else if (valueType == boolean.class) {
+            wrapper = "java/lang/Boolean";
+            descriptor = "Z";
+        } else if (valueType == short.class) {
+            wrapper = "java/lang/Short";
+            descriptor = "S";
+        } else if (valueType == byte.class) {
+            wrapper = "java/lang/Byte";
+            descriptor = "B";
+        } else if (valueType == char.class) {
+            wrapper = "java/lang/Character";
+            descriptor = "C";
+        } else {
+            throw new IllegalStateException("Unknown primitive type " + valueType);
+        }
+        emit(CHECKCAST, 0);
+        emitShort(pool.classRef(wrapper));
+        emit(INVOKEVIRTUAL, ValueType.of(valueType).size() - 1);
+        emitShort(pool.methodRef(wrapper, valueType.getName() + "Value", "()" + descriptor, false));
+    }
+
+    private void emitNode(Node node, int[] slots) {
+        if (node instanceof Literal) {
+            emitLiteral((Literal) node);
+        } else if (node instanceof Argument) {
+            Argument arg = (Argument) node;
+            emitVariable(ILOAD, arg.type, slots[arg.index], arg.type.size());
+        } else if (node instanceof Unary) {
+            Unary unary = (Unary) node;
+            emitNode(unary.operand, slots);
+            if (unary.operator.equals("!")) {
+                pushInt(1);
+                emit(IXOR, -1);
+            } else {
+                emit(INEG + typeOffset(unary.type), 0);
+            }
+        } else {
+            Binary binary = (Binary) node;
+            switch (binary.operator) {
+                case "&&":
+                case "||":
+                    emitLogical(binary, slots);
+                    break;
+                case "+":
+                case "-":
+                case "*":
+                case "/":
+                case "%":
+                    emitOperand(binary.left, binary.operandType, slots);
+                    emitOperand(binary.right, binary.operandType, slots);
+                    emit(arithmeticOpcode(binary.operator) + typeOffset(binary.operandType), -binary.operandType.size());
+                    break;
+                default:
+                    emitComparison(binary, slots);
+            }
+        }
+    }
+
+    private void emitOperand(Node node, ValueType target, int[] slots) {
+        emitNode(node, slots);
+        ValueType source = node.type;
+        if (source == target || target == ValueType.REFERENCE || target == ValueType.BOOLEAN) {
+            return;
+        }
+        switch (source) {
+            case INT:
+                emit(target == ValueType.LONG ? I2L : target == ValueType.FLOAT ? I2F : I2D, target.size() - 1);
+                break;
+            case LONG:
+                emit(target == ValueType.FLOAT ? L2F : L2D, target.size() - 2);
+                break;
+            case FLOAT:
+                emit(F2D, 1);
+                break;
+            default:
+                throw new IllegalStateException("Can not convert " + source + " to " + target);
+        }
+    }
+
+    private void emitLogical(Binary binary, int[] slots) {
+        boolean and = binary.operator.equals("&&");
+        Label shortCircuit = new Label();
+        Label end = new Label();
+        emitNode(binary.left, slots);
+        emitJump(and ? IFEQ : IFNE, shortCircuit, -1);
+        emitNode(binary.right, slots);
+        emitJump(GOTO, end, 0);
+        // Both branches leave one value on the stack
+        stack--;
+        bind(shortCircuit);
+        pushInt(and ? 0 : 1);
+        bind(end);
+    }
+
+    private void emitComparison(Binary binary, int[] slots) {
+        ValueType type = binary.operandType;
+        emitOperand(binary.left, type, slots);
+        emitOperand(binary.right, type, slots);
+        String op = binary.operator;
+        Label success = new Label();
+        Label end = new Label();
+        switch (type) {
+            case INT:
+            case BOOLEAN:
+                emitJump(IF_ICMPEQ + conditionOffset(op), success, -2);
+                break;
+            case REFERENCE:
+                emitJump(op.equals("==") ? IF_ACMPEQ : IF_ACMPNE, success, -2);
+                break;
+            default:
+                // NaN comparisons must fail, except for the inequality
+                boolean less = op.equals("<") || op.equals("<=");
+                int compare;
+                if (type == ValueType.LONG) {
+                    compare = LCMP;
+                } else if (type == ValueType.FLOAT) {
+                    compare = less ? FCMPG : FCMPL;
+                } else {
+                    compare = less ? DCMPG : DCMPL;
+                }
+                emit(compare, 1 - 2 * type.size());
+                emitJump(IFEQ + conditionOffset(op), success, -1);
+        }
+        pushInt(0);
+        emitJump(GOTO, end, 0);
+        stack--;
+        bind(success);
+        pushInt(1);
+        bind(end);
+    }
+
+    private void emitLiteral(Literal literal) {
+        switch (literal.type) {
+            case NULL:
+                emit(ACONST_NULL, 1);
+                break;
+            case BOOLEAN:
+                pushInt((Boolean) literal.value ? 1 : 0);
+                break;
+            case INT:
+                pushInt((Integer) literal.value);
+                break;
+            case LONG:
+                long l = (Long) literal.value;
+                if (l == 0L || l == 1L) {
+                    emit(LCONST_0 + (int) l, 2);
+                } else {
+                    emit(LDC2_W, 2);
+                    emitShort(pool.longConstant(l));
+                }
+                break;
+            case FLOAT:
+                emit(LDC_W, 1);
+                emitShort(pool.floatConstant((Float) literal.value));
+                break;
+            case DOUBLE:
+                emit(LDC2_W, 2);
+                emitShort(pool.doubleConstant((Double) literal.value));
+                break;
+            default:
+                throw new IllegalStateException("Unexpected literal type " + literal.type);
+        }
+    }
+
+    private void pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            emit(ICONST_0 + value, 1);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            emit(BIPUSH, 1);
+            code.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            emit(SIPUSH, 1);
+            emitShort(value);
+        } else {
+            emit(LDC_W, 1);
+            emitShort(pool.intConstant(value));
+        }
+    }
+
+    private void emitVariable(int baseOpcode, ValueType type, int slot, int stackChange) {
+        emit(baseOpcode + typeOffset(type), stackChange);
+        code.write(slot);
+    }
+
+    private void emitJump(int opcode, Label label, int stackChange) {
+        int position = code.size();
+        emit(opcode, stackChange);
+        label.jumps.add(position);
+        emitShort(0);
+    }
+
+    private void bind(Label label) {
+        label.position = code.size();
+    }
+
+    private void emit(int opcode, int stackChange) {
+        code.write(opcode);
+        stack += stackChange;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void emitShort(int value) {
+        code.write(value >>> 8);
+        code.write(value);
+    }
+
+    private byte[] takeCode() {
+        byte[] bytes = code.toByteArray();
+        code.reset();
+        for (Label label : labels) {
+            for (int jump : label.jumps) {
+                int offset = label.position - jump;
+                bytes[jump + 1] = (byte) (offset >>> 8);
+                bytes[jump + 2] = (byte) offset;
+            }
+        }
+        labels.clear();
+        return bytes;
+    }
+
+    private int takeMaxStack() {
+        int result = maxStack;
+        this.maxStack = 0;
+        this.stack = 0;
+        return result;
+    }
+
+    private static int typeOffset(ValueType type) {
+        switch (type) {
+            case INT:
+            case BOOLEAN:
+                return 0;
+            case LONG:
+                return 1;
+            case FLOAT:
+                return 2;
+            case DOUBLE:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+
+    private static int arithmeticOpcode(String operator) {
+        switch (operator) {
+            case "+":
+                return IADD;
+            case "-":
+                return ISUB;
+            case "*":
+                return IMUL;
+            case "/":
+                return IDIV;
+            default:
+                return IREM;
+        }
+    }
+
+    /**
+     * @return offset of the operator's conditional jump from <code>ifeq</code> or <code>if_icmpeq</code>
+     */
+    private static int conditionOffset(String operator) {
+        switch (operator) {
+            case "==":
+                return 0;
+            case "!=":
+                return 1;
+            case "<":
+                return 2;
+            case ">=":
+                return 3;
+            case ">":
+                return 4;
+            case "<=":
+                return 5;
+            default:
+                throw new IllegalStateException("Unknown operator " + operator);
+        }
+    }
+
+    private final class Label {
+        private final List<Integer> jumps = new ArrayList<>();
+        private int position = -1;
+
+        Label() {
+            labels.add(this);
+        }
+    }
+}
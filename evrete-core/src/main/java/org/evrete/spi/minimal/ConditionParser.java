@@ -0,0 +1,498 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.FieldReference;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * A parser of the basic condition grammar: field references, numeric and boolean literals,
+ * <code>null</code>, arithmetic, comparison and logical operators, and parentheses. Operands are typed
+ * by Java rules, with the binary numeric promotion of primitive values. Conditions outside this grammar,
+ * like method calls, string literals, casts, or comparisons that would require unboxing, are not parsed
+ * and are left to the Java compiler.
+ * </p>
+ */
+final class ConditionParser {
+    private static final String[] OPERATORS = new String[]{"||", "&&", "==", "!=", "<=", ">=", "<", ">", "+", "-", "*", "/", "%", "!"};
+    private final String source;
+    private final Function<String, FieldReference> resolver;
+    private final List<FieldReference> references = new ArrayList<>();
+    private int pos;
+    private Token token;
+
+    private ConditionParser(String source, Function<String, FieldReference> resolver) {
+        this.source = source;
+        this.resolver = resolver;
+    }
+
+    /**
+     * @param source   condition source
+     * @param resolver field reference resolver
+     * @return parsed condition, or null if the condition is outside the supported grammar
+     */
+    static Result parse(String source, Function<String, FieldReference> resolver) {
+        ConditionParser parser = new ConditionParser(source, resolver);
+        try {
+            parser.next();
+            Node root = parser.parseOr();
+            if (parser.token.kind != TokenKind.END || root.type != ValueType.BOOLEAN || parser.references.isEmpty()) {
+                return null;
+            }
+            return new Result(root, parser.references.toArray(FieldReference.ZERO_ARRAY));
+        } catch (Unsupported e) {
+            return null;
+        }
+    }
+
+    private Node parseOr() {
+        Node left = parseAnd();
+        while (token.is("||")) {
+            next();
+            left = Binary.logical("||", left, parseAnd());
+        }
+        return left;
+    }
+
+    private Node parseAnd() {
+        Node left = parseEquality();
+        while (token.is("&&")) {
+            next();
+            left = Binary.logical("&&", left, parseEquality());
+        }
+        return left;
+    }
+
+    private Node parseEquality() {
+        Node left = parseRelational();
+        while (token.is("==") || token.is("!=")) {
+            String op = token.text;
+            next();
+            left = Binary.equality(op, left, parseRelational());
+        }
+        return left;
+    }
+
+    private Node parseRelational() {
+        Node left = parseAdditive();
+        while (token.is("<") || token.is("<=") || token.is(">") || token.is(">=")) {
+            String op = token.text;
+            next();
+            left = Binary.relational(op, left, parseAdditive());
+        }
+        return left;
+    }
+
+    private Node parseAdditive() {
+        Node left = parseMultiplicative();
+        while (token.is("+") || token.is("-")) {
+            String op = token.text;
+            next();
+            left = Binary.arithmetic(op, left, parseMultiplicative());
+        }
+        return left;
+    }
+
+    private Node parseMultiplicative() {
+        Node left = parseUnary();
+        while (token.is("*") || token.is("/") || token.is("%")) {
+            String op = token.text;
+            next();
+            left = Binary.arithmetic(op, left, parseUnary());
+        }
+        return left;
+    }
+
+    private Node parseUnary() {
+        if (token.is("!")) {
+            next();
+            Node operand = parseUnary();
+            if (operand.type != ValueType.BOOLEAN) throw Unsupported.INSTANCE;
+            return new Unary("!", operand, ValueType.BOOLEAN);
+        } else if (token.is("-") || token.is("+")) {
+            String op = token.text;
+            next();
+            Node operand = parseUnary();
+            if (!operand.type.isNumeric()) throw Unsupported.INSTANCE;
+            return op.equals("+") ? operand : new Unary("-", operand, operand.type);
+        } else {
+            return parsePrimary();
+        }
+    }
+
+    private Node parsePrimary() {
+        Token t = token;
+        switch (t.kind) {
+            case LEFT_PARENTHESIS:
+                next();
+                Node inner = parseOr();
+                if (token.kind != TokenKind.RIGHT_PARENTHESIS) throw Unsupported.INSTANCE;
+                next();
+                return inner;
+            case REFERENCE:
+                next();
+                return argument(t.text);
+            case NUMBER:
+                next();
+                return Literal.number(t.text);
+            case IDENTIFIER:
+                next();
+                switch (t.text) {
+                    case "true":
+                        return new Literal(Boolean.TRUE, ValueType.BOOLEAN);
+                    case "false":
+                        return new Literal(Boolean.FALSE, ValueType.BOOLEAN);
+                    case "null":
+                        return new Literal(null, ValueType.NULL);
+                    default:
+                        throw Unsupported.INSTANCE;
+                }
+            default:
+                throw Unsupported.INSTANCE;
+        }
+    }
+
+    private Argument argument(String reference) {
+        FieldReference ref = resolver.apply(reference);
+        int index;
+        for (index = 0; index < references.size(); index++) {
+            FieldReference existing = references.get(index);
+            if (existing.type().equals(ref.type()) && existing.field().equals(ref.field())) {
+                break;
+            }
+        }
+        if (index == references.size()) {
+            references.add(ref);
+        }
+        return new Argument(index, ref.field().getValueType());
+    }
+
+    private void next() {
+        int length = source.length();
+        while (pos < length && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+        if (pos == length) {
+            token = new Token(TokenKind.END, "");
+            return;
+        }
+        char c = source.charAt(pos);
+        int start = pos;
+        if (c == '$') {
+            pos++;
+            readIdentifier();
+            while (pos + 1 < length && source.charAt(pos) == '.' && Character.isJavaIdentifierStart(source.charAt(pos + 1))) {
+                pos++;
+                readIdentifier();
+            }
+            String reference = source.substring(start, pos);
+            int after = pos;
+            while (after < length && Character.isWhitespace(source.charAt(after))) {
+                after++;
+            }
+            if (after < length && (source.charAt(after) == '(' || source.charAt(after) == '.')) {
+                // Method calls and anything else that follows a reference
+                throw Unsupported.INSTANCE;
+            }
+            token = new Token(TokenKind.REFERENCE, reference);
+        } else if (Character.isDigit(c) || (c == '.' && pos + 1 < length && Character.isDigit(source.charAt(pos + 1)))) {
+            while (pos < length && isNumberPart(source.charAt(pos), source.charAt(pos - 1 < start ? start : pos - 1))) {
+                pos++;
+            }
+            token = new Token(TokenKind.NUMBER, source.substring(start, pos));
+        } else if (Character.isJavaIdentifierStart(c)) {
+            readIdentifier();
+            token = new Token(TokenKind.IDENTIFIER, source.substring(start, pos));
+        } else if (c == '(') {
+            pos++;
+            token = new Token(TokenKind.LEFT_PARENTHESIS, "(");
+        } else if (c == ')') {
+            pos++;
+            token = new Token(TokenKind.RIGHT_PARENTHESIS, ")");
+        } else {
+            for (String op : OPERATORS) {
+                if (source.startsWith(op, pos)) {
+                    pos += op.length();
+                    token = new Token(TokenKind.OPERATOR, op);
+                    return;
+                }
+            }
+            throw Unsupported.INSTANCE;
+        }
+    }
+
+    private static boolean isNumberPart(char c, char previous) {
+        return Character.isLetterOrDigit(c) || c == '.' || c == '_' || ((c == '+' || c == '-') && (previous == 'e' || previous == 'E'));
+    }
+
+    private void readIdentifier() {
+        int length = source.length();
+        if (pos >= length || !Character.isJavaIdentifierPart(source.charAt(pos))) throw Unsupported.INSTANCE;
+        while (pos < length && Character.isJavaIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    enum ValueType {
+        BOOLEAN, INT, LONG, FLOAT, DOUBLE, REFERENCE, NULL;
+
+        boolean isNumeric() {
+            return this == INT || this == LONG || this == FLOAT || this == DOUBLE;
+        }
+
+        boolean isReference() {
+            return this == REFERENCE || this == NULL;
+        }
+
+        /**
+         * @return number of JVM stack or local variable slots
+         */
+        int size() {
+            return this == LONG || this == DOUBLE ? 2 : 1;
+        }
+
+        static ValueType of(Class<?> type) {
+            if (type == boolean.class) {
+                return BOOLEAN;
+            } else if (type == int.class || type == short.class || type == byte.class || type == char.class) {
+                return INT;
+            } else if (type == long.class) {
+                return LONG;
+            } else if (type == float.class) {
+                return FLOAT;
+            } else if (type == double.class) {
+                return DOUBLE;
+            } else {
+                return REFERENCE;
+            }
+        }
+
+        static ValueType promote(ValueType t1, ValueType t2) {
+            return t1.ordinal() > t2.ordinal() ? t1 : t2;
+        }
+    }
+
+    private enum TokenKind {
+        REFERENCE, NUMBER, IDENTIFIER, OPERATOR, LEFT_PARENTHESIS, RIGHT_PARENTHESIS, END
+    }
+
+    private static final class Token {
+        private final TokenKind kind;
+        private final String text;
+
+        Token(TokenKind kind, String text) {
+            this.kind = kind;
+            this.text = text;
+        }
+
+        boolean is(String operator) {
+            return kind == TokenKind.OPERATOR && text.equals(operator);
+        }
+    }
+
+    /**
+     * Thrown when a condition is outside the supported grammar
+     */
+    private static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = -2470936152167376284L;
+        static final Unsupported INSTANCE = new Unsupported();
+
+        private Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    static final class Result {
+        final Node root;
+        final FieldReference[] descriptor;
+
+        Result(Node root, FieldReference[] descriptor) {
+            this.root = root;
+            this.descriptor = descriptor;
+        }
+
+        /**
+         * @return true if the condition is an equality of two different fields of the same integral or boolean type
+         */
+        boolean impliesEquality() {
+            if (descriptor.length != 2 || !(root instanceof Binary)) return false;
+            Binary binary = (Binary) root;
+            if (!binary.operator.equals("==") || !(binary.left instanceof Argument) || !(binary.right instanceof Argument)) {
+                return false;
+            }
+            Argument left = (Argument) binary.left;
+            Argument right = (Argument) binary.right;
+            ValueType type = left.type;
+            return left.index != right.index
+                    && left.valueType == right.valueType
+                    && (type == ValueType.INT || type == ValueType.LONG || type == ValueType.BOOLEAN);
+        }
+
+        /**
+         * @return normalized form of the condition, which is the same for logically equal conditions on the same fields
+         */
+        String toComparableString() {
+            StringBuilder sb = new StringBuilder();
+            root.append(sb);
+            for (FieldReference ref : descriptor) {
+                sb.append(';').append(ref.type().getType().getName()).append('/').append(ref.field().getName());
+            }
+            return sb.toString();
+        }
+    }
+
+    abstract static class Node {
+        final ValueType type;
+
+        Node(ValueType type) {
+            this.type = type;
+        }
+
+        abstract void append(StringBuilder sb);
+    }
+
+    static final class Literal extends Node {
+        final Object value;
+
+        Literal(Object value, ValueType type) {
+            super(type);
+            this.value = value;
+        }
+
+        static Literal number(String text) {
+            char last = Character.toLowerCase(text.charAt(text.length() - 1));
+            String digits = Character.isDigit(last) || last == '.' ? text : text.substring(0, text.length() - 1);
+            boolean decimal = digits.indexOf('.') >= 0 || digits.indexOf('e') >= 0 || digits.indexOf('E') >= 0;
+            // Hex, octal, binary, and underscored literals are left to the compiler
+            if (digits.indexOf('_') >= 0 || !digits.matches(decimal ? "(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?" : "0|[1-9]\\d*")) {
+                throw Unsupported.INSTANCE;
+            }
+            try {
+                if (last == 'l') {
+                    if (decimal) throw Unsupported.INSTANCE;
+                    return new Literal(Long.parseLong(digits), ValueType.LONG);
+                } else if (last == 'f') {
+                    float f = Float.parseFloat(digits);
+                    if (Float.isInfinite(f) || (f == 0.0f && hasNonZeroMantissa(digits))) throw Unsupported.INSTANCE;
+                    return new Literal(f, ValueType.FLOAT);
+                } else if (last == 'd' || decimal) {
+                    double d = Double.parseDouble(digits);
+                    if (Double.isInfinite(d) || (d == 0.0 && hasNonZeroMantissa(digits))) throw Unsupported.INSTANCE;
+                    return new Literal(d, ValueType.DOUBLE);
+                } else if (Character.isDigit(last)) {
+                    return new Literal(Integer.parseInt(digits), ValueType.INT);
+                } else {
+                    throw Unsupported.INSTANCE;
+                }
+            } catch (NumberFormatException e) {
+                throw Unsupported.INSTANCE;
+            }
+        }
+
+        private static boolean hasNonZeroMantissa(String digits) {
+            for (int i = 0; i < digits.length(); i++) {
+                char c = digits.charAt(i);
+                if (c == 'e' || c == 'E') return false;
+                if (c >= '1' && c <= '9') return true;
+            }
+            return false;
+        }
+
+        @Override
+        void append(StringBuilder sb) {
+            sb.append(value).append(':').append(type);
+        }
+    }
+
+    static final class Argument extends Node {
+        final int index;
+        final Class<?> valueType;
+
+        Argument(int index, Class<?> valueType) {
+            super(ValueType.of(valueType));
+            this.index = index;
+            this.valueType = valueType;
+        }
+
+        @Override
+        void append(StringBuilder sb) {
+            sb.append("$").append(index);
+        }
+    }
+
+    static final class Unary extends Node {
+        final String operator;
+        final Node operand;
+
+        Unary(String operator, Node operand, ValueType type) {
+            super(type);
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        @Override
+        void append(StringBuilder sb) {
+            sb.append(operator).append('(');
+            operand.append(sb);
+            sb.append(')');
+        }
+    }
+
+    static final class Binary extends Node {
+        final String operator;
+        final Node left;
+        final Node right;
+        // Type to which both operands are converted
+        final ValueType operandType;
+
+        private Binary(String operator, Node left, Node right, ValueType type, ValueType operandType) {
+            super(type);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.operandType = operandType;
+        }
+
+        static Binary logical(String operator, Node left, Node right) {
+            if (left.type != ValueType.BOOLEAN || right.type != ValueType.BOOLEAN) throw Unsupported.INSTANCE;
+            return new Binary(operator, left, right, ValueType.BOOLEAN, ValueType.BOOLEAN);
+        }
+
+        static Binary equality(String operator, Node left, Node right) {
+            ValueType operandType;
+            if (left.type.isNumeric() && right.type.isNumeric()) {
+                operandType = ValueType.promote(left.type, right.type);
+            } else if (left.type == ValueType.BOOLEAN && right.type == ValueType.BOOLEAN) {
+                operandType = ValueType.BOOLEAN;
+            } else if (left.type.isReference() && right.type.isReference()) {
+                operandType = ValueType.REFERENCE;
+            } else {
+                // Mixed operands would require unboxing
+                throw Unsupported.INSTANCE;
+            }
+            return new Binary(operator, left, right, ValueType.BOOLEAN, operandType);
+        }
+
+        static Binary relational(String operator, Node left, Node right) {
+            if (!left.type.isNumeric() || !right.type.isNumeric()) throw Unsupported.INSTANCE;
+            return new Binary(operator, left, right, ValueType.BOOLEAN, ValueType.promote(left.type, right.type));
+        }
+
+        static Binary arithmetic(String operator, Node left, Node right) {
+            if (!left.type.isNumeric() || !right.type.isNumeric()) throw Unsupported.INSTANCE;
+            ValueType type = ValueType.promote(left.type, right.type);
+            return new Binary(operator, left, right, type, type);
+        }
+
+        @Override
+        void append(StringBuilder sb) {
+            sb.append('(');
+            left.append(sb);
+            sb.append(operator);
+            right.append(sb);
+            sb.append(')');
+        }
+    }
+}
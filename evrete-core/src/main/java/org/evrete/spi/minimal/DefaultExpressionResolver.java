@@ -8,6 +8,7 @@ import java.lang.invoke.MethodHandle;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static org.evrete.spi.minimal.ConditionStringTerm.resolveTerms;
@@ -77,7 +78,7 @@ class DefaultExpressionResolver implements ExpressionResolver {
             Class<?> compiledClass = r.getCompiledClass();
             try {
                 MethodHandle handle = getHandle(compiledClass);
-                result.add(new CompiledEvaluator(handle, source));
+                result.add(new CompiledEvaluator(handle, getArrayTest(compiledClass), source, impliesEquality(source.getExpression())));
             } catch (NoSuchFieldException | IllegalAccessException e) {
                 throw new IllegalStateException(e);
             }
@@ -86,8 +87,27 @@ class DefaultExpressionResolver implements ExpressionResolver {
         return result;
     }
 
+    /**
+     * <p>
+     * Conditions are compiled as they are, the parsed form only tells whether they are plain
+     * equalities that can be served by hash lookups.
+     * </p>
+     *
+     * @param expression condition
+     * @return true if the condition implies the equality of its two arguments
+     */
+    private boolean impliesEquality(LiteralExpression expression) {
+        ConditionParser.Result condition = ConditionParser.parse(expression.getSource(), s -> resolve(s, expression.getContext()));
+        return condition != null && condition.impliesEquality();
+    }
+
     static MethodHandle getHandle(Class<?> compiledClass) throws NoSuchFieldException, IllegalAccessException {
         return (MethodHandle) compiledClass.getDeclaredField("HANDLE").get(null);
     }
 
+    @SuppressWarnings("unchecked")
+    static Predicate<Object[]> getArrayTest(Class<?> compiledClass) throws NoSuchFieldException, IllegalAccessException {
+        return (Predicate<Object[]>) compiledClass.getDeclaredField("ARRAY_TEST").get(null);
+    }
+
 }
@@ -4,124 +4,236 @@ import org.evrete.api.FactHandle;
 import org.evrete.api.FactStorage;
 import org.evrete.api.ReIterator;
 import org.evrete.api.Type;
-import org.evrete.collections.AbstractLinearHash;
 
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.StringJoiner;
 import java.util.function.BiPredicate;
-import java.util.function.Function;
-import java.util.function.ToIntFunction;
 
+/**
+ * <p>
+ * Fact storage that keeps its entries in segmented arrays indexed directly by fact handles.
+ * The lower 32 bits of a handle's id is the entry's slot, and the upper bits are the slot's
+ * generation. Slots of deleted entries are reused via a free list, and the generation makes sure
+ * that stale handles never resolve to newer entries. Handle lookups, updates, and deletes are therefore
+ * plain array reads and writes, and a separate hash index is only consulted on inserts to detect duplicates.
+ * </p>
+ * <p>
+ * Copies of the storage share their segments and the hash index with the original, and each side copies
+ * a shared segment, or the index, only when it's about to change it.
+ * </p>
+ *
+ * @param <T> storage entry type
+ */
 class DefaultFactStorage<T> implements FactStorage<T> {
-    private final TupleCollection<T> collection;
-    private final Function<Tuple<T>, FactStorage.Entry<T>> ITERATOR_MAPPER = t -> t;
+    private static final int SEGMENT_BITS = 12;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private final BiPredicate<T, T> identityFunction;
+    private final int typeId;
+    private final IdentityIndex index;
+    private FactHandleImpl[][] handles = new FactHandleImpl[0][];
+    private Object[][] facts = new Object[0][];
+    private int[][] generations = new int[0][];
+    // Segments that are shared with copies of this storage, or with the storage this one was copied from
+    private boolean[] shared = new boolean[0];
+    // Index of the first never used slot
+    private int top = 0;
+    private int size = 0;
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
 
     DefaultFactStorage(Type<?> type, BiPredicate<T, T> identityFunction, int minCapacity) {
-        this.collection = new TupleCollection<>(minCapacity, type, identityFunction);
+        this.identityFunction = identityFunction;
+        this.typeId = type.getId();
+        this.index = new IdentityIndex(minCapacity);
+    }
+
+    private DefaultFactStorage(DefaultFactStorage<T> other) {
+        this.identityFunction = other.identityFunction;
+        this.typeId = other.typeId;
+        this.index = new IdentityIndex(other.index);
+        this.handles = other.handles.clone();
+        this.facts = other.facts.clone();
+        this.generations = other.generations.clone();
+        this.shared = new boolean[handles.length];
+        this.top = other.top;
+        this.size = other.size;
+        this.freeSlots = other.freeSlots.clone();
+        this.freeCount = other.freeCount;
+        Arrays.fill(this.shared, true);
+        Arrays.fill(other.shared, true);
+    }
+
+    private static int slot(long id) {
+        return (int) id;
+    }
+
+    private static long id(int generation, int slot) {
+        return ((long) generation << 32) | slot;
     }
 
     @Override
     public FactHandle insert(T fact) {
-        return collection.insert(fact);
+        int hash = fact.hashCode();
+        if (index.find(fact, hash) >= 0) {
+            return null;
+        }
+        int slot = allocate();
+        writable(slot >>> SEGMENT_BITS);
+        FactHandleImpl handle = new FactHandleImpl(id(generations[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK], slot), hash, typeId);
+        handles[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK] = handle;
+        facts[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK] = fact;
+        index.add(slot, hash);
+        size++;
+        return handle;
     }
 
     @Override
     public void delete(FactHandle handle) {
-        this.collection.delete(handle);
+        int slot = find((FactHandleImpl) handle);
+        if (slot >= 0) {
+            release(slot);
+        }
     }
 
     @Override
     public void update(FactHandle handle, T newInstance) {
-        this.collection.addSilent(new Tuple<>((FactHandleImpl) handle, newInstance));
+        int slot = find((FactHandleImpl) handle);
+        if (slot >= 0) {
+            writable(slot >>> SEGMENT_BITS);
+            facts[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK] = newInstance;
+        }
     }
 
     @Override
     public T getFact(FactHandle handle) {
-        return this.collection.getFact((FactHandleImpl) handle);
+        int slot = find((FactHandleImpl) handle);
+        return slot < 0 ? null : fact(slot);
     }
 
     @Override
     public void clear() {
-        this.collection.clear();
+        for (int slot = 0; slot < top; slot++) {
+            int segment = slot >>> SEGMENT_BITS;
+            int offset = slot & SEGMENT_MASK;
+            if (handles[segment][offset] != null) {
+                writable(segment);
+                handles[segment][offset] = null;
+                facts[segment][offset] = null;
+                generations[segment][offset]++;
+            }
+        }
+        // Every slot below the top becomes free
+        this.freeCount = 0;
+        for (int slot = top - 1; slot >= 0; slot--) {
+            pushFree(slot);
+        }
+        this.size = 0;
+        this.index.clear();
     }
 
     @Override
-    public String toString() {
-        StringJoiner sj = new StringJoiner("\n");
-        collection.forEachDataEntry(t -> sj.add(t.toString()));
-        return sj.toString();
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public DefaultFactStorage<T> copyOf() {
+        return new DefaultFactStorage<>(this);
     }
 
     @Override
     public ReIterator<Entry<T>> iterator() {
-        return collection.iterator(ITERATOR_MAPPER);
-    }
-
-    static class TupleCollection<T> extends AbstractLinearHash<DefaultFactStorage.Tuple<T>> {
-        private static final ToIntFunction<Object> HASH_FUNCTION = Object::hashCode;
-        private final BiPredicate<T, T> identityFunction;
-        private final BiPredicate<Object, Object> EQ_PREDICATE = new BiPredicate<Object, Object>() {
-            @Override
-            @SuppressWarnings("unchecked")
-            public boolean test(Object o1, Object o2) {
-                Tuple<T> t1 = (Tuple<T>) o1;
-                Tuple<T> t2 = (Tuple<T>) o2;
-                return identityFunction.test(t1.object, t2.object);
-            }
-        };
-        private final BiPredicate<Tuple<T>, FactHandleImpl> searchByHandle = (tuple, o) -> tuple.handle.id == o.id;
-        private final BiPredicate<Tuple<T>, T> searchByFact = new BiPredicate<Tuple<T>, T>() {
-            @Override
-            public boolean test(Tuple<T> tuple, T o) {
-                return identityFunction.test(tuple.object, o);
-            }
-        };
-        private final Type<?> type;
-        private long handleId = 0L;
+        return new It();
+    }
 
-        TupleCollection(int minCapacity, Type<?> type, BiPredicate<T, T> identityFunction) {
-            super(minCapacity);
-            this.identityFunction = identityFunction;
-            this.type = type;
+    @Override
+    public String toString() {
+        StringJoiner sj = new StringJoiner("\n");
+        for (int slot = 0; slot < top; slot++) {
+            FactHandleImpl handle = handle(slot);
+            if (handle != null) {
+                sj.add(handle + " -> " + fact(slot));
+            }
         }
+        return sj.toString();
+    }
 
-        @Override
-        protected ToIntFunction<Object> getHashFunction() {
-            return HASH_FUNCTION;
-        }
+    /**
+     * @param handle fact handle
+     * @return the handle's slot, or -1 if the handle is unknown or stale
+     */
+    private int find(FactHandleImpl handle) {
+        int slot = slot(handle.id());
+        if (slot < 0 || slot >= top) return -1;
+        FactHandleImpl stored = handles[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK];
+        return stored != null && stored.id() == handle.id() ? slot : -1;
+    }
 
-        @Override
-        protected BiPredicate<Object, Object> getEqualsPredicate() {
-            return EQ_PREDICATE;
-        }
-
-        FactHandleImpl insert(T fact) {
-            resize();
-            int hash = HASH_FUNCTION.applyAsInt(fact);
-            int pos = findBinIndex(fact, hash, searchByFact);
-            Tuple<T> tuple = get(pos);
-            if (tuple == null) {
-                // Object id unknown, creating new handle...
-                FactHandleImpl handle = new FactHandleImpl(handleId++, hash, this.type.getId());
-                tuple = new Tuple<>(handle, fact);
-                saveDirect(tuple, pos);
-                return handle;
-            } else {
-                return null;
-            }
+    private FactHandleImpl handle(int slot) {
+        return handles[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK];
+    }
+
+    @SuppressWarnings("unchecked")
+    private T fact(int slot) {
+        return (T) facts[slot >>> SEGMENT_BITS][slot & SEGMENT_MASK];
+    }
+
+    private int allocate() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        int slot = top++;
+        if (slot < 0) {
+            throw new IllegalStateException("Fact storage capacity exceeded");
+        }
+        int segment = slot >>> SEGMENT_BITS;
+        if (segment == handles.length) {
+            handles = Arrays.copyOf(handles, segment + 1);
+            facts = Arrays.copyOf(facts, segment + 1);
+            generations = Arrays.copyOf(generations, segment + 1);
+            handles[segment] = new FactHandleImpl[SEGMENT_SIZE];
+            facts[segment] = new Object[SEGMENT_SIZE];
+            generations[segment] = new int[SEGMENT_SIZE];
+            shared = Arrays.copyOf(shared, segment + 1);
         }
+        return slot;
+    }
 
-        void delete(FactHandle handle) {
-            FactHandleImpl impl = (FactHandleImpl) handle;
-            int pos = findBinIndex(impl, impl.hash, searchByHandle);
-            if (get(pos) != null) {
-                markDeleted(pos);
-            }
+    /**
+     * <p>
+     * Makes sure the segment is not shared with other storages before changing it.
+     * </p>
+     *
+     * @param segment segment index
+     */
+    private void writable(int segment) {
+        if (shared[segment]) {
+            handles[segment] = handles[segment].clone();
+            facts[segment] = facts[segment].clone();
+            generations[segment] = generations[segment].clone();
+            shared[segment] = false;
         }
+    }
 
-        T getFact(FactHandleImpl impl) {
-            Tuple<T> t = get(findBinIndex(impl, impl.hash, searchByHandle));
-            return t == null ? null : t.object;
+    private void release(int slot) {
+        int segment = slot >>> SEGMENT_BITS;
+        int offset = slot & SEGMENT_MASK;
+        index.remove(slot, handles[segment][offset].hashCode());
+        writable(segment);
+        handles[segment][offset] = null;
+        facts[segment][offset] = null;
+        generations[segment][offset]++;
+        pushFree(slot);
+        size--;
+    }
+
+    private void pushFree(int slot) {
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
         }
+        freeSlots[freeCount++] = slot;
     }
 
     static class Tuple<Z> implements FactStorage.Entry<Z> {
@@ -145,7 +257,7 @@ class DefaultFactStorage<T> implements FactStorage<T> {
 
         @Override
         public int hashCode() {
-            return handle.hash;
+            return handle.hashCode();
         }
 
         @Override
@@ -155,4 +267,166 @@ class DefaultFactStorage<T> implements FactStorage<T> {
 
     }
 
+    /**
+     * <p>
+     * Open-addressing hash index of occupied slots, used for duplicate detection only.
+     * Entries are slot numbers shifted by one, so that zero denotes an empty cell.
+     * </p>
+     */
+    private class IdentityIndex {
+        private static final int EMPTY = 0;
+        private static final int REMOVED = -1;
+        private int[] table;
+        private int mask;
+        // Occupied and removed cells
+        private int used = 0;
+        // Whether the table is shared with another storage's index
+        private boolean sharedTable = false;
+
+        IdentityIndex(int minCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(16, minCapacity) - 1) << 1;
+            this.table = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        IdentityIndex(IdentityIndex other) {
+            this.table = other.table;
+            this.mask = other.mask;
+            this.used = other.used;
+            this.sharedTable = true;
+            other.sharedTable = true;
+        }
+
+        private void writableTable() {
+            if (sharedTable) {
+                this.table = table.clone();
+                this.sharedTable = false;
+            }
+        }
+
+        private int spread(int hash) {
+            return (hash ^ (hash >>> 16)) & mask;
+        }
+
+        /**
+         * @return slot of an identical fact, or -1 if there's none
+         */
+        int find(T fact, int hash) {
+            for (int pos = spread(hash); ; pos = (pos + 1) & mask) {
+                int cell = table[pos];
+                if (cell == EMPTY) {
+                    return -1;
+                } else if (cell != REMOVED) {
+                    int slot = cell - 1;
+                    if (handle(slot).hashCode() == hash && identityFunction.test(fact(slot), fact)) {
+                        return slot;
+                    }
+                }
+            }
+        }
+
+        void add(int slot, int hash) {
+            if ((used + 1) * 2 > table.length) {
+                rebuild();
+            }
+            writableTable();
+            int pos = spread(hash);
+            while (table[pos] > 0) {
+                pos = (pos + 1) & mask;
+            }
+            if (table[pos] == EMPTY) {
+                used++;
+            }
+            table[pos] = slot + 1;
+        }
+
+        void remove(int slot, int hash) {
+            int cell = slot + 1;
+            writableTable();
+            for (int pos = spread(hash); table[pos] != EMPTY; pos = (pos + 1) & mask) {
+                if (table[pos] == cell) {
+                    table[pos] = REMOVED;
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            if (sharedTable) {
+                this.table = new int[table.length];
+                this.sharedTable = false;
+            } else {
+                Arrays.fill(table, EMPTY);
+            }
+            this.used = 0;
+        }
+
+        private void rebuild() {
+            int[] old = this.table;
+            // Growing only if live entries need it, otherwise just dropping the removed cells
+            int capacity = (size + 1) * 4 > old.length ? old.length * 2 : old.length;
+            this.table = new int[capacity];
+            this.mask = capacity - 1;
+            this.used = 0;
+            this.sharedTable = false;
+            for (int cell : old) {
+                if (cell > 0) {
+                    int pos = spread(handle(cell - 1).hashCode());
+                    while (table[pos] != EMPTY) {
+                        pos = (pos + 1) & mask;
+                    }
+                    table[pos] = cell;
+                    used++;
+                }
+            }
+        }
+    }
+
+    private class It implements ReIterator<Entry<T>> {
+        private int next;
+        private int current;
+
+        It() {
+            reset();
+        }
+
+        @Override
+        public long reset() {
+            this.next = advance(0);
+            this.current = -1;
+            return size;
+        }
+
+        private int advance(int from) {
+            int slot = from;
+            while (slot < top && handle(slot) == null) {
+                slot++;
+            }
+            return slot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < top;
+        }
+
+        @Override
+        public Entry<T> next() {
+            if (next >= top) {
+                throw new NoSuchElementException();
+            }
+            this.current = next;
+            this.next = advance(next + 1);
+            return new Tuple<>(handle(current), fact(current));
+        }
+
+        @Override
+        public void remove() {
+            if (current < 0) throw new IllegalStateException();
+            if (handle(current) != null) {
+                release(current);
+            }
+            this.current = -1;
+        }
+    }
 }
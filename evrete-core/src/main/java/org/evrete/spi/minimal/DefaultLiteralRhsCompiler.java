@@ -1,15 +1,12 @@
 package org.evrete.spi.minimal;
 
-import org.evrete.api.Imports;
-import org.evrete.api.NamedType;
-import org.evrete.api.RhsContext;
-import org.evrete.api.RuntimeContext;
+import org.evrete.api.*;
 import org.evrete.api.spi.LiteralRhsCompiler;
 import org.evrete.runtime.compiler.CompilationException;
 
 import aQute.bnd.annotation.spi.ServiceProvider;
 
-import java.util.StringJoiner;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -19,11 +16,10 @@ public class DefaultLiteralRhsCompiler extends LeastImportantServiceProvider imp
     private static final String classPackage = DefaultLiteralRhsCompiler.class.getPackage().getName() + ".rhs";
 
 
-    @SuppressWarnings("unchecked")
-    private static Class<? extends AbstractLiteralRhs> buildClass(RuntimeContext<?> context, NamedType[] types, String literalRhs, Imports imports) throws CompilationException {
+    private static RhsClassSource buildSource(RhsSource rhs, Imports imports) {
         String simpleName = "Rhs" + classCounter.getAndIncrement();
-        String source = buildSource(simpleName, types, literalRhs, imports);
-        return (Class<? extends AbstractLiteralRhs>) context.getSourceCompiler().compile(source);
+        String source = buildSource(simpleName, rhs.getFactTypes(), rhs.getLiteralRhs(), imports);
+        return new RhsClassSource(classPackage + "." + simpleName, source, rhs);
     }
 
     private static String buildSource(String className, NamedType[] types, String literalRhs, Imports imports) {
@@ -67,14 +63,65 @@ public class DefaultLiteralRhsCompiler extends LeastImportantServiceProvider imp
 
     @Override
     public Consumer<RhsContext> compileRhs(RuntimeContext<?> context, String literalRhs, NamedType[] types) throws CompilationException {
-        try {
-            Imports imports = context.getImports();
-            Class<? extends AbstractLiteralRhs> clazz = buildClass(context, types, literalRhs, imports);
-            return clazz.getDeclaredConstructor().newInstance();
-        } catch (CompilationException e) {
-            throw e;
-        } catch (Throwable e) {
-            throw new RuntimeException("Failed to compile RHS:\n" + literalRhs);
+        RhsSource source = new RhsSource() {
+            @Override
+            public String getLiteralRhs() {
+                return literalRhs;
+            }
+
+            @Override
+            public NamedType[] getFactTypes() {
+                return types;
+            }
+        };
+        return compileRhs(context, Collections.singletonList(source)).get(0);
+    }
+
+    @Override
+    public List<Consumer<RhsContext>> compileRhs(RuntimeContext<?> context, List<? extends RhsSource> sources) throws CompilationException {
+        Imports imports = context.getImports();
+        List<RhsClassSource> classSources = new ArrayList<>(sources.size());
+        for (RhsSource source : sources) {
+            classSources.add(buildSource(source, imports));
+        }
+
+        // All actions are compiled in a single compiler task
+        Map<RhsClassSource, Class<?>> compiled = new IdentityHashMap<>();
+        for (JavaSourceCompiler.Result<RhsClassSource> r : context.getSourceCompiler().compile(classSources)) {
+            compiled.put(r.getSource(), r.getCompiledClass());
+        }
+
+        List<Consumer<RhsContext>> result = new ArrayList<>(sources.size());
+        for (RhsClassSource source : classSources) {
+            try {
+                Class<?> clazz = Objects.requireNonNull(compiled.get(source));
+                result.add((AbstractLiteralRhs) clazz.getDeclaredConstructor().newInstance());
+            } catch (Throwable e) {
+                throw new RuntimeException("Failed to compile RHS:\n" + source.rhs.getLiteralRhs());
+            }
+        }
+        return result;
+    }
+
+    private static class RhsClassSource implements JavaSourceCompiler.ClassSource {
+        private final String binaryName;
+        private final String source;
+        private final RhsSource rhs;
+
+        RhsClassSource(String binaryName, String source, RhsSource rhs) {
+            this.binaryName = binaryName;
+            this.source = source;
+            this.rhs = rhs;
+        }
+
+        @Override
+        public String binaryName() {
+            return binaryName;
+        }
+
+        @Override
+        public String getSource() {
+            return source;
         }
     }
 }
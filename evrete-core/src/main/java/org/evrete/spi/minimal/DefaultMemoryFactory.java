@@ -9,13 +9,19 @@ import java.util.function.BiPredicate;
 class DefaultMemoryFactory implements MemoryFactory {
     private static final String CONFIG_BETA_INITIAL_SIZE = "evrete.impl.beta-memory-initial-size";
     private static final String CONFIG_FACT_STORAGE_CAPACITY = "evrete.impl.fact-storage-initial-size";
+    static final String CONFIG_TARGETED_PURGE = "evrete.impl.targeted-purge";
     private static final int FACT_STORAGE_CAPACITY_DEFAULT = 8192;
     private static final int BETA_INITIAL_SIZE_DEFAULT = 4096;
-    private final DefaultValueResolver valueResolver = new DefaultValueResolver();
-    private final Configuration configuration;
+    private final ValueResolver valueResolver;
+    final Configuration configuration;
 
     DefaultMemoryFactory(RuntimeContext<?> context) {
+        this(context, new DefaultValueResolver());
+    }
+
+    DefaultMemoryFactory(RuntimeContext<?> context, ValueResolver valueResolver) {
         this.configuration = context.getConfiguration();
+        this.valueResolver = valueResolver;
     }
 
     @Override
@@ -31,19 +37,41 @@ class DefaultMemoryFactory implements MemoryFactory {
     @Override
     public <Z> FactStorage<Z> newFactStorage(Type<?> type, Class<Z> storageClass, BiPredicate<Z, Z> identityFunction) {
         int minCapacity = configuration.getAsInteger(CONFIG_FACT_STORAGE_CAPACITY, FACT_STORAGE_CAPACITY_DEFAULT);
-        return new DefaultFactStorage<>(type, identityFunction, minCapacity);
+        if (configuration.getAsBoolean(Configuration.CONCURRENT_INSERTS, false)) {
+            return new ConcurrentFactStorage<>(type, identityFunction, minCapacity);
+        } else {
+            return new DefaultFactStorage<>(type, identityFunction, minCapacity);
+        }
+    }
+
+    final int betaInitialSize() {
+        return configuration.getAsInteger(CONFIG_BETA_INITIAL_SIZE, BETA_INITIAL_SIZE_DEFAULT);
+    }
+
+    /**
+     * <p>
+     * Tells whether keyed storages should index their fact handles for targeted purges. The index costs
+     * a map entry per stored fact and key, without it purges scan whole storages.
+     * </p>
+     *
+     * @param defaultValue default of the factory
+     * @return whether targeted purges are on
+     */
+    final boolean targetedPurge(boolean defaultValue) {
+        return configuration.getAsBoolean(CONFIG_TARGETED_PURGE, defaultValue);
     }
 
     @Override
     public KeyedFactStorage newBetaStorage(int fieldCount) {
-        int initialSize = configuration.getAsInteger(CONFIG_BETA_INITIAL_SIZE, BETA_INITIAL_SIZE_DEFAULT);
+        int initialSize = betaInitialSize();
         if (fieldCount == 0) {
             return new SharedAlphaData();
         } else {
+            boolean indexHandles = targetedPurge(true);
             return fieldCount == 1 ?
-                    new KeyedFactStorageSingle(initialSize)
+                    new KeyedFactStorageSingle(initialSize, FactHandleChain.Factory.HEAP, indexHandles)
                     :
-                    new KeyedFactStorageMulti(initialSize, fieldCount)
+                    new KeyedFactStorageMulti(initialSize, fieldCount, FactHandleChain.Factory.HEAP, indexHandles)
                     ;
         }
     }
@@ -8,6 +8,7 @@ import org.evrete.api.annotations.Nullable;
 import org.evrete.collections.ArrayOf;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 class DefaultTypeResolver implements TypeResolver {
@@ -16,7 +17,7 @@ class DefaultTypeResolver implements TypeResolver {
     private final Map<Integer, Type<?>> typesById = new HashMap<>();
     private final Map<String, ArrayOf<Type<?>>> typesByJavaType = new HashMap<>();
 
-    private final Map<String, TypeCacheEntry> typeInheritanceCache = new HashMap<>();
+    private final Map<String, TypeCacheEntry> typeInheritanceCache = new ConcurrentHashMap<>();
     private final ClassLoader classLoader;
     private int fieldSetsCounter = 0;
 
@@ -17,6 +17,7 @@ class EvaluatorClassSource implements JavaSourceCompiler.ClassSource {
             "\n" +
             "public final class %s extends %s {\n" +
             "    public static final java.lang.invoke.MethodHandle HANDLE;\n" +
+            "    public static final java.util.function.Predicate<Object[]> ARRAY_TEST = args -> __$testInner(%s);\n" +
             "\n" +
             "    static {\n" +
             "        try {\n" +
@@ -60,6 +61,7 @@ class EvaluatorClassSource implements JavaSourceCompiler.ClassSource {
         int castVarIndex = 0;
         StringJoiner argTypes = new StringJoiner(", ");
         StringJoiner argCasts = new StringJoiner(", ");
+        StringJoiner arrayCasts = new StringJoiner(", ");
         StringJoiner methodArgs = new StringJoiner(", ");
         for (ConditionStringTerm term : terms) {
             String original = encodedExpression.substring(term.start + accumulatedShift, term.end + accumulatedShift);
@@ -78,6 +80,7 @@ class EvaluatorClassSource implements JavaSourceCompiler.ClassSource {
 
                 argTypes.add(term.type().getType().getName() + "/" + term.field().getName());
                 argCasts.add("(" + fieldType.getCanonicalName() + ") values.apply(" + castVarIndex + ")");
+                arrayCasts.add("(" + fieldType.getCanonicalName() + ") args[" + castVarIndex + "]");
                 methodArgs.add(fieldType.getCanonicalName() + " " + javaArgVar);
                 castVarIndex++;
                 // Mark as processed
@@ -100,6 +103,7 @@ class EvaluatorClassSource implements JavaSourceCompiler.ClassSource {
                 importsBuilder,
                 classSimpleName,
                 baseClassName,
+                arrayCasts,
                 classSimpleName,
                 IntToValue.class.getName() + ".class",
                 methodArgs,
@@ -0,0 +1,44 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.FactHandleVersioned;
+import org.evrete.api.ReIterable;
+
+/**
+ * <p>
+ * A sequence of fact handles stored under a memory key.
+ * </p>
+ */
+interface FactHandleChain extends ReIterable<FactHandleVersioned> {
+
+    FactHandleChain add(FactHandleVersioned handle);
+
+    /**
+     * <p>
+     * Moves other chain's data to the end of this chain. The argument gets emptied upon completion.
+     * Both chains are expected to be created by the same {@link Factory}.
+     * </p>
+     *
+     * @param other chain to consume
+     */
+    void consume(FactHandleChain other);
+
+    long size();
+
+    void clear();
+
+    /**
+     * <p>
+     * Creates chains for a single {@link org.evrete.api.KeyedFactStorage} and releases them
+     * altogether when the storage is cleared.
+     * </p>
+     */
+    @FunctionalInterface
+    interface Factory {
+        Factory HEAP = LinkedFactHandles::new;
+
+        FactHandleChain newChain();
+
+        default void clear() {
+        }
+    }
+}
@@ -4,8 +4,8 @@ import org.evrete.api.FactHandle;
 
 class FactHandleImpl implements FactHandle {
     private static final long serialVersionUID = -7110831365624326343L;
-    final long id;
-    final int hash;
+    private final long id;
+    private final int hash;
     private final int type;
 
     FactHandleImpl(long id, int hash, int typeId) {
@@ -14,6 +14,10 @@ class FactHandleImpl implements FactHandle {
         this.type = typeId;
     }
 
+    long id() {
+        return this.id;
+    }
+
     @Override
     public int getTypeId() {
         return this.type;
@@ -22,9 +26,9 @@ class FactHandleImpl implements FactHandle {
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof FactHandleImpl)) return false;
         FactHandleImpl that = (FactHandleImpl) o;
-        return type == that.type && id == that.id;
+        return getTypeId() == that.getTypeId() && id() == that.id();
     }
 
     @Override
@@ -35,8 +39,8 @@ class FactHandleImpl implements FactHandle {
     @Override
     public String toString() {
         return "{" +
-                "type=" + type +
-                ", id=" + id +
+                "type=" + getTypeId() +
+                ", id=" + id() +
                 '}';
     }
 }
@@ -7,8 +7,8 @@ import java.util.Objects;
 class FactsMapMulti extends AbstractFactsMap<MemoryKeyMulti> {
     private final int fieldCount;
 
-    FactsMapMulti(int fieldCount, int minCapacity) {
-        super(minCapacity);
+    FactsMapMulti(int fieldCount, int minCapacity, FactHandleChain.Factory chains) {
+        super(minCapacity, chains);
         this.fieldCount = fieldCount;
     }
 
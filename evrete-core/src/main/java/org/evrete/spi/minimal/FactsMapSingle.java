@@ -7,8 +7,8 @@ import java.util.Objects;
 
 class FactsMapSingle extends AbstractFactsMap<MemoryKeySingle> {
 
-    FactsMapSingle(int minCapacity) {
-        super(minCapacity);
+    FactsMapSingle(int minCapacity, FactHandleChain.Factory chains) {
+        super(minCapacity, chains);
     }
 
     @Override
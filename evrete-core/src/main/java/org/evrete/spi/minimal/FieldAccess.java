@@ -0,0 +1,94 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.TypeField;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Describes how generated code can read a field's value without calling the field's function: either
+ * by a chain of public fields and getters, or by looking up a constant key in a {@link Map}. Fields that
+ * are declared with arbitrary functions are read via {@link TypeField#readValue(Object)}.
+ * </p>
+ */
+final class FieldAccess {
+    static final FieldAccess FUNCTION = new FieldAccess(new Class<?>[0], new Member[0], null);
+    // Classes the members are resolved against, they may differ from the members' declaring classes
+    final Class<?>[] owners;
+    final Member[] members;
+    final String mapKey;
+
+    private FieldAccess(Class<?>[] owners, Member[] members, String mapKey) {
+        this.owners = owners;
+        this.members = members;
+        this.mapKey = mapKey;
+    }
+
+    static FieldAccess path(Class<?>[] owners, Member[] members) {
+        return new FieldAccess(owners, members, null);
+    }
+
+    static FieldAccess mapKey(String key) {
+        return new FieldAccess(new Class<?>[0], new Member[0], Objects.requireNonNull(key));
+    }
+
+    static Class<?> valueType(Member member) {
+        if (member instanceof Field) {
+            return ((Field) member).getType();
+        } else {
+            return ((Method) member).getReturnType();
+        }
+    }
+
+    private static boolean sameClass(Class<?> clazz, ClassLoader loader) {
+        Class<?> c = clazz;
+        while (c.isArray()) {
+            c = c.getComponentType();
+        }
+        if (c.isPrimitive()) {
+            return true;
+        }
+        try {
+            return Class.forName(c.getName(), false, loader) == c;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    boolean isFunction() {
+        return members.length == 0 && mapKey == null;
+    }
+
+    /**
+     * @param loader class loader of the generated code
+     * @return true if code that is defined in the given class loader can read the value directly
+     */
+    boolean accessibleFrom(ClassLoader loader) {
+        for (int i = 0; i < members.length; i++) {
+            Class<?> owner = owners[i];
+            if (!Modifier.isPublic(owner.getModifiers()) || !sameClass(owner, loader) || !sameClass(valueType(members[i]), loader)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FieldAccess that = (FieldAccess) o;
+        return Arrays.equals(owners, that.owners) && Arrays.equals(members, that.members) && Objects.equals(mapKey, that.mapKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(members) * 31 + Objects.hashCode(mapKey);
+    }
+}
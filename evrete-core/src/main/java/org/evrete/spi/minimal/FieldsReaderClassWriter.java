@@ -0,0 +1,330 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.TypeField;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * Emits a class that implements {@link BiConsumer} and reads the values of several fields of a type at once.
+ * The generated <code>accept(fact, values)</code> method reads resolved fields and getters directly,
+ * looks up {@link java.util.Map} values by constant keys, and calls {@link TypeField#readValue(Object)}
+ * on the fields it was constructed with for everything else.
+ * </p>
+ * <p>
+ * Like in {@link ConditionClassWriter}, classes are written in the Java 5 class file format.
+ * </p>
+ */
+final class FieldsReaderClassWriter {
+    private static final int CLASS_VERSION = 49;
+    private static final String OBJECT = "java/lang/Object";
+    private static final String MAP = "java/util/Map";
+    private static final String TYPE_FIELD = TypeField.class.getName().replace('.', '/');
+    private static final String FIELDS_DESCRIPTOR = "[L" + TYPE_FIELD + ";";
+    private static final String FIELDS = "fields";
+
+    // Opcodes
+    private static final int ICONST_0 = 0x03;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_2 = 0x2c;
+    private static final int ALOAD_3 = 0x2d;
+    private static final int AALOAD = 0x32;
+    private static final int ASTORE_3 = 0x4e;
+    private static final int AASTORE = 0x53;
+    private static final int DUP = 0x59;
+    private static final int RETURN = 0xb1;
+    private static final int GETFIELD = 0xb4;
+    private static final int PUTFIELD = 0xb5;
+    private static final int INVOKEVIRTUAL = 0xb6;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int CHECKCAST = 0xc0;
+    private static final int IFNULL = 0xc6;
+
+    private final ClassConstantPool pool = new ClassConstantPool();
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    // Positions of forward jumps and their targets
+    private final List<int[]> jumps = new ArrayList<>();
+    private int stack;
+    private int maxStack;
+
+    private FieldsReaderClassWriter() {
+    }
+
+    /**
+     * @param binaryName binary name of the class
+     * @param accesses   how to read each of the fields, in the order of the values
+     * @return class file bytes
+     */
+    static byte[] write(String binaryName, FieldAccess[] accesses) {
+        return new FieldsReaderClassWriter().writeClass(binaryName.replace('.', '/'), accesses);
+    }
+
+    private static String internalName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/');
+    }
+
+    private static String descriptor(Class<?> clazz) {
+        if (clazz.isArray()) {
+            return internalName(clazz);
+        } else if (clazz == int.class) {
+            return "I";
+        } else if (clazz == long.class) {
+            return "J";
+        } else if (clazz == double.class) {
+            return "D";
+        } else if (clazz == float.class) {
+            return "F";
+        } else if (clazz == boolean.class) {
+            return "Z";
+        } else if (clazz == short.class) {
+            return "S";
+        } else if (clazz == byte.class) {
+            return "B";
+        } else if (clazz == char.class) {
+            return "C";
+        } else {
+            return "L" + internalName(clazz) + ";";
+        }
+    }
+
+    private static Class<?> wrapper(Class<?> primitive) {
+        if (primitive == int.class) {
+            return Integer.class;
+        } else if (primitive == long.class) {
+            return Long.class;
+        } else if (primitive == double.class) {
+            return Double.class;
+        } else if (primitive == float.class) {
+            return Float.class;
+        } else if (primitive == boolean.class) {
+            return Boolean.class;
+        } else if (primitive == short.class) {
+            return Short.class;
+        } else if (primitive == byte.class) {
+            return Byte.class;
+        } else if (primitive == char.class) {
+            return Character.class;
+        } else {
+            throw new IllegalStateException("Unknown primitive type " + primitive);
+        }
+    }
+
+    private static int size(Class<?> type) {
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeAttribute, int maxStack, int maxLocals, byte[] code) throws IOException {
+        // public
+        out.writeShort(0x0001);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        // No exception table and code attributes
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    private byte[] writeClass(String internalName, FieldAccess[] accesses) {
+        int thisClass = pool.classRef(internalName);
+        int superClass = pool.classRef(OBJECT);
+        int consumer = pool.classRef(internalName(BiConsumer.class));
+        int fieldsRef = pool.fieldRef(internalName, FIELDS, FIELDS_DESCRIPTOR);
+
+        // Constructor, stores the fields to fall back to
+        emit(ALOAD_0, 1);
+        emit(INVOKESPECIAL, -1);
+        emitShort(pool.methodRef(OBJECT, "<init>", "()V", false));
+        emit(ALOAD_0, 1);
+        emit(ALOAD_1, 1);
+        emit(PUTFIELD, -2);
+        emitShort(fieldsRef);
+        emit(RETURN, 0);
+        byte[] constructorCode = takeCode();
+        int constructorStack = takeMaxStack();
+
+        // The accept method, the value array goes to local variable 3
+        emit(ALOAD_2, 1);
+        emit(CHECKCAST, 0);
+        emitShort(pool.classRef("[L" + OBJECT + ";"));
+        emit(ASTORE_3, -1);
+        for (int i = 0; i < accesses.length; i++) {
+            FieldAccess access = accesses[i];
+            emit(ALOAD_3, 1);
+            pushInt(i);
+            if (access.mapKey != null) {
+                emit(ALOAD_1, 1);
+                emit(CHECKCAST, 0);
+                emitShort(pool.classRef(MAP));
+                emit(LDC_W, 1);
+                emitShort(pool.stringConstant(access.mapKey));
+                emitInterfaceCall(pool.methodRef(MAP, "get", "(L" + OBJECT + ";)L" + OBJECT + ";", true), 2, -1);
+            } else if (access.isFunction()) {
+                emit(ALOAD_0, 1);
+                emit(GETFIELD, 0);
+                emitShort(fieldsRef);
+                pushInt(i);
+                emit(AALOAD, -1);
+                emit(ALOAD_1, 1);
+                emitInterfaceCall(pool.methodRef(TYPE_FIELD, "readValue", "(L" + OBJECT + ";)L" + OBJECT + ";", true), 2, -1);
+            } else {
+                emitPath(access);
+            }
+            emit(AASTORE, -3);
+        }
+        emit(RETURN, 0);
+        byte[] acceptCode = takeCode();
+        int acceptStack = takeMaxStack();
+        if (acceptCode.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many fields");
+        }
+
+        int fieldsName = pool.utf8(FIELDS);
+        int fieldsDescriptor = pool.utf8(FIELDS_DESCRIPTOR);
+        int constructorName = pool.utf8("<init>");
+        int constructorDescriptor = pool.utf8("(" + FIELDS_DESCRIPTOR + ")V");
+        int acceptName = pool.utf8("accept");
+        int acceptDescriptor = pool.utf8("(L" + OBJECT + ";L" + OBJECT + ";)V");
+        int codeAttribute = pool.utf8("Code");
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 + acceptCode.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            pool.writeTo(out);
+            // public final super
+            out.writeShort(0x0031);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(consumer);
+            // private final fields
+            out.writeShort(1);
+            out.writeShort(0x0012);
+            out.writeShort(fieldsName);
+            out.writeShort(fieldsDescriptor);
+            out.writeShort(0);
+            out.writeShort(2);
+            writeMethod(out, constructorName, constructorDescriptor, codeAttribute, constructorStack, 2, constructorCode);
+            writeMethod(out, acceptName, acceptDescriptor, codeAttribute, acceptStack, 4, acceptCode);
+            // No class attributes
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * <p>
+     * Reads the fact's nested value, a {@code null} in the middle of the path makes the whole value {@code null}.
+     * </p>
+     */
+    private void emitPath(FieldAccess access) {
+        List<Integer> nullJumps = new ArrayList<>();
+        Class<?> valueType = null;
+        emit(ALOAD_1, 1);
+        for (int i = 0; i < access.members.length; i++) {
+            if (i > 0) {
+                // Previous value is a reference
+                emit(DUP, 1);
+                nullJumps.add(code.size());
+                emit(IFNULL, -1);
+                emitShort(0);
+            }
+            Class<?> owner = access.owners[i];
+            Member member = access.members[i];
+            valueType = FieldAccess.valueType(member);
+            emit(CHECKCAST, 0);
+            emitShort(pool.classRef(internalName(owner)));
+            if (member instanceof Field) {
+                emit(GETFIELD, size(valueType) - 1);
+                emitShort(pool.fieldRef(internalName(owner), member.getName(), descriptor(valueType)));
+            } else if (owner.isInterface()) {
+                emitInterfaceCall(pool.methodRef(internalName(owner), member.getName(), "()" + descriptor(valueType), true), 1, size(valueType) - 1);
+            } else {
+                emit(INVOKEVIRTUAL, size(valueType) - 1);
+                emitShort(pool.methodRef(internalName(owner), member.getName(), "()" + descriptor(valueType), false));
+            }
+        }
+        if (valueType != null && valueType.isPrimitive()) {
+            Class<?> wrapper = wrapper(valueType);
+            emit(INVOKESTATIC, 1 - size(valueType));
+            emitShort(pool.methodRef(internalName(wrapper), "valueOf", "(" + descriptor(valueType) + ")" + descriptor(wrapper), false));
+        }
+        // The null jumps land right before the value is stored
+        for (int jump : nullJumps) {
+            jumps.add(new int[]{jump, code.size()});
+        }
+    }
+
+    private void emitInterfaceCall(int methodRef, int argSlots, int stackChange) {
+        emit(INVOKEINTERFACE, stackChange);
+        emitShort(methodRef);
+        code.write(argSlots);
+        code.write(0);
+    }
+
+    private void pushInt(int value) {
+        if (value <= 5) {
+            emit(ICONST_0 + value, 1);
+        } else if (value <= Byte.MAX_VALUE) {
+            emit(BIPUSH, 1);
+            code.write(value);
+        } else {
+            emit(SIPUSH, 1);
+            emitShort(value);
+        }
+    }
+
+    private void emit(int opcode, int stackChange) {
+        code.write(opcode);
+        stack += stackChange;
+        maxStack = Math.max(maxStack, stack);
+    }
+
+    private void emitShort(int value) {
+        code.write(value >>> 8);
+        code.write(value);
+    }
+
+    private byte[] takeCode() {
+        byte[] bytes = code.toByteArray();
+        code.reset();
+        for (int[] jump : jumps) {
+            int offset = jump[1] - jump[0];
+            bytes[jump[0] + 1] = (byte) (offset >>> 8);
+            bytes[jump[0] + 2] = (byte) offset;
+        }
+        jumps.clear();
+        return bytes;
+    }
+
+    private int takeMaxStack() {
+        int result = maxStack;
+        this.maxStack = 0;
+        this.stack = 0;
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.*;
+
+import java.util.Arrays;
+
+/**
+ * A literal condition whose class has been generated directly in bytecode, see {@link ConditionClassWriter}
+ */
+class GeneratedEvaluator implements LiteralEvaluator {
+    private final FieldReference[] descriptor;
+    private final ValuesPredicate predicate;
+    private final LiteralExpression source;
+    private final String comparableSource;
+    private final boolean impliesEquality;
+
+    GeneratedEvaluator(ValuesPredicate predicate, LiteralExpression source, ConditionParser.Result condition) {
+        this.predicate = predicate;
+        this.source = source;
+        this.descriptor = condition.descriptor;
+        this.comparableSource = condition.toComparableString();
+        this.impliesEquality = condition.impliesEquality();
+    }
+
+    @Override
+    public LiteralExpression getSource() {
+        return source;
+    }
+
+    @Override
+    public int compare(Evaluator other) {
+        if (other instanceof GeneratedEvaluator) {
+            GeneratedEvaluator o = (GeneratedEvaluator) other;
+            if (o.descriptor.length == 1 && this.descriptor.length == 1 && o.comparableSource.equals(this.comparableSource)) {
+                return RELATION_EQUALS;
+            }
+        }
+
+        return LiteralEvaluator.super.compare(other);
+    }
+
+    @Override
+    public boolean impliesEquality() {
+        return impliesEquality;
+    }
+
+    @Override
+    public FieldReference[] descriptor() {
+        return descriptor;
+    }
+
+    @Override
+    public boolean test(IntToValue values) {
+        try {
+            return predicate.test(values);
+        } catch (SecurityException t) {
+            throw t;
+        } catch (RuntimeException t) {
+            Object[] args = new Object[descriptor.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = values.apply(i);
+            }
+            throw new IllegalStateException("Evaluation exception at '" + source.getSource() + "', arguments: " + Arrays.toString(descriptor) + " -> " + Arrays.toString(args), t);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "\"" + source.getSource() + "\"";
+    }
+}
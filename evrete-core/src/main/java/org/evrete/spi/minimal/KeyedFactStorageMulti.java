@@ -7,7 +7,11 @@ class KeyedFactStorageMulti extends AbstractKeyedFactStorage<FactsMapMulti> {
     private final MultiState multiState;
 
     KeyedFactStorageMulti(int initialSize, int fieldCount) {
-        super(FactsMapMulti.class, mode -> new FactsMapMulti(fieldCount, initialSize));
+        this(initialSize, fieldCount, FactHandleChain.Factory.HEAP, true);
+    }
+
+    KeyedFactStorageMulti(int initialSize, int fieldCount, FactHandleChain.Factory chains, boolean indexHandles) {
+        super(FactsMapMulti.class, chains, indexHandles, mode -> new FactsMapMulti(fieldCount, initialSize, chains));
         this.multiState = new MultiState(fieldCount);
     }
 
@@ -8,7 +8,11 @@ class KeyedFactStorageSingle extends AbstractKeyedFactStorage<FactsMapSingle> {
     private final SingleState state = new SingleState();
 
     KeyedFactStorageSingle(int initialSize) {
-        super(FactsMapSingle.class, mode -> new FactsMapSingle(initialSize));
+        this(initialSize, FactHandleChain.Factory.HEAP, true);
+    }
+
+    KeyedFactStorageSingle(int initialSize, FactHandleChain.Factory chains, boolean indexHandles) {
+        super(FactsMapSingle.class, chains, indexHandles, mode -> new FactsMapSingle(initialSize, chains));
     }
 
     @Override
@@ -3,6 +3,16 @@ package org.evrete.spi.minimal;
 import org.evrete.api.FactHandleVersioned;
 import org.evrete.collections.LinkedDataRWD;
 
-class LinkedFactHandles extends LinkedDataRWD<FactHandleVersioned> {
+class LinkedFactHandles extends LinkedDataRWD<FactHandleVersioned> implements FactHandleChain {
 
+    @Override
+    public LinkedFactHandles add(FactHandleVersioned handle) {
+        super.add(handle);
+        return this;
+    }
+
+    @Override
+    public void consume(FactHandleChain other) {
+        super.consume((LinkedFactHandles) other);
+    }
 }
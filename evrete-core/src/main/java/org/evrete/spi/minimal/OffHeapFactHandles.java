@@ -0,0 +1,308 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.FactHandleVersioned;
+import org.evrete.api.ReIterator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.StringJoiner;
+
+/**
+ * <p>
+ * An arena of fact handle chains which keeps its data in direct (off-heap) memory. Each fact handle
+ * occupies a fixed-size record, chains are singly-linked lists of record indices, and records
+ * released by deletes are reused via a free list. Each iterator reads the records into a single reusable
+ * view, so that neither the arena's heap footprint nor iterations allocate per stored fact. Views are
+ * private to this class, callers that keep the returned handles get them via {@link FactHandleVersioned#copy()}.
+ * </p>
+ * <p>
+ * All chains that share an arena can be moved into each other in constant time, which is why
+ * one arena serves all the {@link org.evrete.api.KeyMode} generations of a single storage.
+ * </p>
+ */
+class OffHeapFactHandles implements FactHandleChain.Factory {
+    private static final int NULL = -1;
+    private static final int OFFSET_ID = 0;
+    private static final int OFFSET_HASH = 8;
+    private static final int OFFSET_TYPE = 12;
+    private static final int OFFSET_VERSION = 16;
+    private static final int OFFSET_NEXT = 20;
+    private static final int RECORD_SIZE = 24;
+    private final int segmentBits;
+    private final int segmentMask;
+    private ByteBuffer[] segments = new ByteBuffer[0];
+    // Index of the first never used record
+    private int top = 0;
+    // Head of the released records' list
+    private int freeHead = NULL;
+
+    /**
+     * @param segmentBits power of two of the records count that a single off-heap segment can hold
+     */
+    OffHeapFactHandles(int segmentBits) {
+        if (segmentBits < 1 || segmentBits > 24) {
+            throw new IllegalArgumentException("Segment bits must be in [1..24] range");
+        }
+        this.segmentBits = segmentBits;
+        this.segmentMask = (1 << segmentBits) - 1;
+    }
+
+    @Override
+    public Chain newChain() {
+        return new Chain();
+    }
+
+    /**
+     * <p>
+     * Releases all the records at once. The allocated segments are kept for reuse.
+     * </p>
+     */
+    @Override
+    public void clear() {
+        this.top = 0;
+        this.freeHead = NULL;
+    }
+
+    private int allocate(FactHandleVersioned h) {
+        FactHandle handle = h.getHandle();
+        if (!(handle instanceof FactHandleImpl)) {
+            throw new IllegalArgumentException("Unsupported fact handle implementation: " + handle.getClass());
+        }
+        FactHandleImpl impl = (FactHandleImpl) handle;
+
+        int idx;
+        if (freeHead == NULL) {
+            idx = top++;
+            if (idx < 0) {
+                throw new IllegalStateException("Off-heap storage capacity exceeded");
+            }
+            int segment = idx >>> segmentBits;
+            if (segment == segments.length) {
+                segments = Arrays.copyOf(segments, segment + 1);
+                segments[segment] = ByteBuffer.allocateDirect(RECORD_SIZE << segmentBits);
+            }
+        } else {
+            idx = freeHead;
+            freeHead = next(idx);
+        }
+
+        ByteBuffer buffer = segment(idx);
+        int offset = offset(idx);
+        buffer.putLong(offset + OFFSET_ID, impl.id());
+        buffer.putInt(offset + OFFSET_HASH, impl.hashCode());
+        buffer.putInt(offset + OFFSET_TYPE, impl.getTypeId());
+        buffer.putInt(offset + OFFSET_VERSION, h.getVersion());
+        buffer.putInt(offset + OFFSET_NEXT, NULL);
+        return idx;
+    }
+
+    private void release(int idx) {
+        next(idx, freeHead);
+        this.freeHead = idx;
+    }
+
+    private FactHandleVersioned read(int idx, VersionedView dest) {
+        ByteBuffer buffer = segment(idx);
+        int offset = offset(idx);
+        dest.read(buffer, offset);
+        return dest;
+    }
+
+    private int next(int idx) {
+        return segment(idx).getInt(offset(idx) + OFFSET_NEXT);
+    }
+
+    private void next(int idx, int next) {
+        segment(idx).putInt(offset(idx) + OFFSET_NEXT, next);
+    }
+
+    private ByteBuffer segment(int idx) {
+        return segments[idx >>> segmentBits];
+    }
+
+    private int offset(int idx) {
+        return (idx & segmentMask) * RECORD_SIZE;
+    }
+
+    class Chain implements FactHandleChain {
+        private int head = NULL;
+        private int tail = NULL;
+        private long size = 0L;
+
+        @Override
+        public Chain add(FactHandleVersioned handle) {
+            int idx = allocate(handle);
+            if (tail == NULL) {
+                head = idx;
+            } else {
+                next(tail, idx);
+            }
+            tail = idx;
+            size++;
+            return this;
+        }
+
+        @Override
+        public void consume(FactHandleChain other) {
+            Chain o = (Chain) other;
+            if (o.size > 0) {
+                if (tail == NULL) {
+                    head = o.head;
+                } else {
+                    next(tail, o.head);
+                }
+                tail = o.tail;
+                size += o.size;
+                o.clear();
+            }
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        /**
+         * <p>
+         * Empties the chain without releasing its records, the records are expected
+         * to be either moved to another chain or released by the arena's {@link OffHeapFactHandles#clear()}
+         * </p>
+         */
+        @Override
+        public void clear() {
+            head = NULL;
+            tail = NULL;
+            size = 0L;
+        }
+
+        @Override
+        public ReIterator<FactHandleVersioned> iterator() {
+            return new It();
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner sj = new StringJoiner(",", "[", "]");
+            iterator().forEachRemaining(t -> sj.add(t.toString()));
+            return sj.toString();
+        }
+
+        private class It implements ReIterator<FactHandleVersioned> {
+            private int prev;
+            private int last;
+            private int next;
+            // Re-used on each step, so that iterations don't allocate heap objects
+            private final VersionedView current = new VersionedView();
+
+            It() {
+                reset();
+            }
+
+            @Override
+            public long reset() {
+                this.prev = NULL;
+                this.last = NULL;
+                this.next = head;
+                return size;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != NULL;
+            }
+
+            @Override
+            public FactHandleVersioned next() {
+                if (next == NULL) {
+                    throw new NoSuchElementException();
+                }
+                if (last != NULL) {
+                    // The previously returned record is still in the chain
+                    prev = last;
+                }
+                last = next;
+                next = OffHeapFactHandles.this.next(last);
+                return read(last, current);
+            }
+
+            @Override
+            public void remove() {
+                if (last == NULL) throw new IllegalStateException("Iterator: remove() without next()");
+                if (prev == NULL) {
+                    head = next;
+                } else {
+                    OffHeapFactHandles.this.next(prev, next);
+                }
+                if (tail == last) {
+                    tail = prev;
+                }
+                size--;
+                release(last);
+                last = NULL;
+            }
+        }
+    }
+
+    /**
+     * A fact handle that is re-pointed to the records an iterator reads
+     */
+    private static final class HandleView extends FactHandleImpl {
+        private static final long serialVersionUID = -3521337839146209184L;
+        private long id;
+        private int hash;
+        private int type;
+
+        HandleView() {
+            super(0L, 0, 0);
+        }
+
+        @Override
+        long id() {
+            return id;
+        }
+
+        @Override
+        public int getTypeId() {
+            return type;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class VersionedView extends FactHandleVersioned {
+        private static final long serialVersionUID = 2934120941376487632L;
+        private final HandleView handle = new HandleView();
+        private int version;
+
+        VersionedView() {
+            super(null, 0);
+        }
+
+        void read(ByteBuffer buffer, int offset) {
+            handle.id = buffer.getLong(offset + OFFSET_ID);
+            handle.hash = buffer.getInt(offset + OFFSET_HASH);
+            handle.type = buffer.getInt(offset + OFFSET_TYPE);
+            version = buffer.getInt(offset + OFFSET_VERSION);
+        }
+
+        @Override
+        public FactHandle getHandle() {
+            return handle;
+        }
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public FactHandleVersioned copy() {
+            return new FactHandleVersioned(new FactHandleImpl(handle.id, handle.hash, handle.type), version);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.KeyedFactStorage;
+import org.evrete.api.RuntimeContext;
+
+class OffHeapMemoryFactory extends DefaultMemoryFactory {
+    private static final String CONFIG_SEGMENT_BITS = "evrete.impl.off-heap-segment-bits";
+    private static final int SEGMENT_BITS_DEFAULT = 14;
+
+    OffHeapMemoryFactory(RuntimeContext<?> context) {
+        super(context);
+    }
+
+    @Override
+    public KeyedFactStorage newBetaStorage(int fieldCount) {
+        OffHeapFactHandles chains = new OffHeapFactHandles(configuration.getAsInteger(CONFIG_SEGMENT_BITS, SEGMENT_BITS_DEFAULT));
+        if (fieldCount == 0) {
+            return new OffHeapAlphaData(chains);
+        } else {
+            int initialSize = betaInitialSize();
+            // The reverse index of targeted purges would keep a heap entry per stored fact
+            boolean indexHandles = targetedPurge(false);
+            return fieldCount == 1 ?
+                    new KeyedFactStorageSingle(initialSize, chains, indexHandles)
+                    :
+                    new KeyedFactStorageMulti(initialSize, fieldCount, chains, indexHandles)
+                    ;
+        }
+    }
+
+    private static class OffHeapAlphaData extends AbstractSharedAlphaData<OffHeapFactHandles.Chain> {
+        OffHeapAlphaData(OffHeapFactHandles chains) {
+            super(chains);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.MemoryFactory;
+import org.evrete.api.RuntimeContext;
+import org.evrete.api.spi.MemoryFactoryProvider;
+
+import java.util.WeakHashMap;
+
+/**
+ * <p>
+ * A memory factory provider for very large working memories. Fact handles of beta and alpha memories
+ * are stored in direct (off-heap) buffers, so that the heap usage and GC pauses do not grow with
+ * the number of facts. Memory keys, i.e. field values, remain on the heap.
+ * </p>
+ * <p>
+ * Keyed memories of this provider don't index their fact handles, so that purges of deleted facts
+ * scan whole memories. The index can be turned on with the {@code evrete.impl.targeted-purge} property,
+ * at the cost of a heap map entry per stored fact.
+ * </p>
+ * <p>
+ * The provider is not registered as a service and needs to be selected explicitly, either via
+ * the {@link org.evrete.Configuration#SPI_MEMORY_FACTORY} property or via
+ * {@link org.evrete.KnowledgeService.Builder#withMemoryFactoryProvider(Class)}.
+ * </p>
+ */
+public class OffHeapMemoryFactoryProvider extends LeastImportantServiceProvider implements MemoryFactoryProvider {
+    private final WeakHashMap<RuntimeContext<?>, DefaultMemoryFactory> instances = new WeakHashMap<>();
+
+    @Override
+    public MemoryFactory instance(RuntimeContext<?> context) {
+        return instances.computeIfAbsent(context, k -> new OffHeapMemoryFactory(context));
+    }
+}
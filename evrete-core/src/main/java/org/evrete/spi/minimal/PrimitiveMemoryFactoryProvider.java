@@ -0,0 +1,29 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.MemoryFactory;
+import org.evrete.api.RuntimeContext;
+import org.evrete.api.spi.MemoryFactoryProvider;
+
+import java.util.WeakHashMap;
+
+/**
+ * <p>
+ * An alternative memory factory provider which stores {@code int}, {@code long}, {@code double}
+ * and {@code boolean} field values in typed value handles. Fields declared via
+ * {@link org.evrete.api.Type#declareIntField(String, java.util.function.ToIntFunction)} and the like,
+ * as well as resolved getters with primitive return types, are then read without boxing.
+ * </p>
+ * <p>
+ * The provider is not registered as a service and needs to be selected explicitly, either via
+ * the {@link org.evrete.Configuration#SPI_MEMORY_FACTORY} property or via
+ * {@link org.evrete.KnowledgeService.Builder#withMemoryFactoryProvider(Class)}.
+ * </p>
+ */
+public class PrimitiveMemoryFactoryProvider extends LeastImportantServiceProvider implements MemoryFactoryProvider {
+    private final WeakHashMap<RuntimeContext<?>, DefaultMemoryFactory> instances = new WeakHashMap<>();
+
+    @Override
+    public MemoryFactory instance(RuntimeContext<?> context) {
+        return instances.computeIfAbsent(context, k -> new DefaultMemoryFactory(context, new PrimitiveValueResolver()));
+    }
+}
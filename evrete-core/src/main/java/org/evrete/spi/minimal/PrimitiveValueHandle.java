@@ -0,0 +1,163 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.ValueHandle;
+
+/**
+ * <p>
+ * Typed value handles. Primitive values are stored as they are, so that
+ * equality checks and hash codes never need to box them.
+ * </p>
+ */
+abstract class PrimitiveValueHandle implements ValueHandle {
+    static final PrimitiveValueHandle NULL = new OfReference(null);
+
+    static PrimitiveValueHandle of(Object value) {
+        if (value == null) {
+            return NULL;
+        } else if (value instanceof Integer) {
+            return new OfInt((Integer) value);
+        } else if (value instanceof Long) {
+            return new OfLong((Long) value);
+        } else if (value instanceof Double) {
+            return new OfDouble((Double) value);
+        } else if (value instanceof Boolean) {
+            return OfBoolean.valueOf((Boolean) value);
+        } else {
+            return new OfReference(value);
+        }
+    }
+
+    abstract Object value();
+
+    @Override
+    public String toString() {
+        return String.valueOf(value());
+    }
+
+    static final class OfInt extends PrimitiveValueHandle {
+        private final int value;
+
+        OfInt(int value) {
+            this.value = value;
+        }
+
+        @Override
+        Object value() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            return o instanceof OfInt && ((OfInt) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Integer.hashCode(value);
+        }
+    }
+
+    static final class OfLong extends PrimitiveValueHandle {
+        private final long value;
+
+        OfLong(long value) {
+            this.value = value;
+        }
+
+        @Override
+        Object value() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            return o instanceof OfLong && ((OfLong) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(value);
+        }
+    }
+
+    static final class OfDouble extends PrimitiveValueHandle {
+        private final double value;
+
+        OfDouble(double value) {
+            this.value = value;
+        }
+
+        @Override
+        Object value() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            // Same semantics as Double.equals()
+            return o instanceof OfDouble && Double.doubleToLongBits(((OfDouble) o).value) == Double.doubleToLongBits(value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Double.hashCode(value);
+        }
+    }
+
+    static final class OfBoolean extends PrimitiveValueHandle {
+        static final OfBoolean TRUE = new OfBoolean(true);
+        static final OfBoolean FALSE = new OfBoolean(false);
+        private final boolean value;
+
+        private OfBoolean(boolean value) {
+            this.value = value;
+        }
+
+        static OfBoolean valueOf(boolean value) {
+            return value ? TRUE : FALSE;
+        }
+
+        @Override
+        Object value() {
+            return value;
+        }
+
+        // Only two instances exist, identity-based equals() is sufficient
+
+        @Override
+        public int hashCode() {
+            return Boolean.hashCode(value);
+        }
+    }
+
+    static final class OfReference extends PrimitiveValueHandle {
+        private final Object value;
+        private final int hash;
+
+        OfReference(Object value) {
+            this.value = value;
+            this.hash = value == null ? 0 : value.hashCode();
+        }
+
+        @Override
+        Object value() {
+            return value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || o.getClass() != OfReference.class) return false;
+            OfReference other = (OfReference) o;
+            return hash == other.hash && (value == other.value || (value != null && value.equals(other.value)));
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.TypeField;
+import org.evrete.api.ValueHandle;
+import org.evrete.api.ValueResolver;
+
+import java.util.function.Function;
+
+class PrimitiveValueResolver implements ValueResolver {
+
+    PrimitiveValueResolver() {
+    }
+
+    @Override
+    public PrimitiveValueHandle getValueHandle(Class<?> valueType, Object value) {
+        return PrimitiveValueHandle.of(value);
+    }
+
+    @Override
+    public ValueHandle readValueHandle(TypeField field, Object subject) {
+        if (field instanceof TypeFieldImpl) {
+            Function<Object, PrimitiveValueHandle> reader = ((TypeFieldImpl) field).getHandleReader();
+            if (reader != null) {
+                return reader.apply(subject);
+            }
+        }
+        return PrimitiveValueHandle.of(field.readValue(subject));
+    }
+
+    @Override
+    public Object getValue(ValueHandle handle) {
+        return ((PrimitiveValueHandle) handle).value();
+    }
+}
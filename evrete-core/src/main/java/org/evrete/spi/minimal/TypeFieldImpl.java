@@ -10,20 +10,44 @@ class TypeFieldImpl implements TypeField {
     private final Class<?> valueType;
     private final TypeImpl<?> declaringType;
     private Function<Object, ?> function;
+    private Function<Object, PrimitiveValueHandle> handleReader;
+    private FieldAccess access;
 
-    TypeFieldImpl(TypeImpl<?> declaringType, String name, Class<?> valueType, Function<Object, ?> function) {
+    TypeFieldImpl(TypeImpl<?> declaringType, String name, Class<?> valueType, Function<Object, ?> function, Function<Object, PrimitiveValueHandle> handleReader, FieldAccess access) {
         this.name = name;
         this.valueType = valueType;
         this.function = function;
+        this.handleReader = handleReader;
+        this.access = access;
         this.declaringType = declaringType;
     }
 
     TypeFieldImpl(TypeFieldImpl other, TypeImpl<?> newType) {
-        this(newType, other.name, other.valueType, other.function);
+        this(newType, other.name, other.valueType, other.function, other.handleReader, other.access);
     }
 
-    public void setFunction(Function<Object, ?> function) {
+    public void setFunction(Function<Object, ?> function, Function<Object, PrimitiveValueHandle> handleReader, FieldAccess access) {
         this.function = function;
+        this.handleReader = handleReader;
+        this.access = access;
+    }
+
+    Function<Object, ?> getFunction() {
+        return function;
+    }
+
+    /**
+     * @return a non-boxing value reader, or {@code null} if the field has none
+     */
+    Function<Object, PrimitiveValueHandle> getHandleReader() {
+        return handleReader;
+    }
+
+    /**
+     * @return how generated code can read the field's value
+     */
+    FieldAccess getAccess() {
+        return access;
     }
 
     TypeFieldImpl copy(TypeImpl<?> newType) {
@@ -5,22 +5,24 @@ import org.evrete.api.TypeField;
 import org.evrete.api.annotations.NonNull;
 import org.evrete.collections.ArrayOf;
 
-import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
+import java.lang.invoke.*;
+import java.lang.reflect.*;
 import java.util.*;
-import java.util.function.Function;
-import java.util.function.Supplier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.*;
 
 class TypeImpl<T> implements Type<T> {
+    private static final String FIELDS_READER_PREFIX = "org.evrete.spi.minimal.generated.FieldsReader";
+    private static final AtomicInteger FIELDS_READER_COUNTER = new AtomicInteger();
     private final int id;
     private final String name;
     private final ClassResolver classResolver;
     private final Map<String, TypeFieldImpl> fieldMap = new HashMap<>();
     private final String javaType;
     private final Supplier<Class<T>> classSupplier;
+    // Generated field readers are shared by all copies of the type
+    private final Map<List<FieldAccess>, Function<TypeField[], BiConsumer<Object, Object[]>>> fieldsReaders;
 
     TypeImpl(String name, String javaType, int id, Supplier<Class<T>> classSupplier) {
         Objects.requireNonNull(name);
@@ -29,6 +31,7 @@ class TypeImpl<T> implements Type<T> {
         this.name = name;
         this.javaType = javaType;
         this.id = id;
+        this.fieldsReaders = new ConcurrentHashMap<>();
     }
 
     private TypeImpl(TypeImpl<T> other) {
@@ -38,6 +41,7 @@ class TypeImpl<T> implements Type<T> {
         this.name = other.name;
         this.javaType = other.javaType;
         this.id = other.id;
+        this.fieldsReaders = other.fieldsReaders;
         for (Map.Entry<String, TypeFieldImpl> entry : other.fieldMap.entrySet()) {
             TypeFieldImpl f = entry.getValue().copy(this);
             save(f);
@@ -45,15 +49,12 @@ class TypeImpl<T> implements Type<T> {
     }
 
     private static ValueReader resolve(MethodHandles.Lookup lookup, Class<?> clazz, String prop) {
-        MethodHandle handle = null;
-
         // Scanning fields first
         for (Field field : clazz.getFields()) {
             if (field.getName().equals(prop)) {
                 if (!Modifier.isStatic(field.getModifiers())) {
                     try {
-                        handle = lookup.unreflectGetter(field);
-                        break;
+                        return new ValueReader(lookup.unreflectGetter(field), null, field);
                     } catch (IllegalAccessException e) {
                         // Field is not accessible, skipping
                     }
@@ -61,10 +62,6 @@ class TypeImpl<T> implements Type<T> {
             }
         }
 
-        if (handle != null) {
-            return new ValueReader(handle);
-        }
-
         // Scanning methods
         for (MethodMeta meta : MethodMeta.values()) {
             String methodName = meta.buildName(prop);
@@ -72,23 +69,35 @@ class TypeImpl<T> implements Type<T> {
                 if (method.getName().equals(methodName)) {
                     if (meta.validMethod(method)) {
                         try {
-                            handle = lookup.unreflect(method);
-                            break;
+                            return new ValueReader(lookup.unreflect(method), visibleFromHere(clazz) ? lookup : null, method);
                         } catch (IllegalAccessException e) {
                             // Method is not accessible, skipping
                         }
                     }
                 }
             }
-
-            if (handle != null) {
-                return new ValueReader(handle);
-            }
         }
 
         return null;
     }
 
+    /**
+     * <p>
+     * Classes that are spun by the {@link LambdaMetafactory} are defined in the class loader of this
+     * class, so they can call only those getters whose classes are visible from that loader.
+     * </p>
+     *
+     * @param clazz class to test
+     * @return true if the class is visible from this class's class loader
+     */
+    private static boolean visibleFromHere(Class<?> clazz) {
+        try {
+            return Class.forName(clazz.getName(), false, TypeImpl.class.getClassLoader()) == clazz;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
     private static String capitalizeFirst(String str) {
         return str.substring(0, 1).toUpperCase() + str.substring(1);
     }
@@ -147,7 +156,36 @@ class TypeImpl<T> implements Type<T> {
     @Override
     @SuppressWarnings("unchecked")
     public <V> TypeField declareField(String name, Class<V> type, Function<T, V> function) {
-        return innerDeclare(name, type, o -> function.apply((T) o));
+        return innerDeclare(name, type, o -> function.apply((T) o), null, FieldAccess.FUNCTION);
+    }
+
+    @Override
+    public <V> TypeField declareMapField(String name, Class<V> type, String key) {
+        return innerDeclare(name, type, new MapKeyFunction(key), null, FieldAccess.mapKey(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TypeField declareIntField(String name, ToIntFunction<T> function) {
+        return innerDeclare(name, int.class, o -> function.applyAsInt((T) o), o -> new PrimitiveValueHandle.OfInt(function.applyAsInt((T) o)), FieldAccess.FUNCTION);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TypeField declareLongField(String name, ToLongFunction<T> function) {
+        return innerDeclare(name, long.class, o -> function.applyAsLong((T) o), o -> new PrimitiveValueHandle.OfLong(function.applyAsLong((T) o)), FieldAccess.FUNCTION);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TypeField declareDoubleField(String name, ToDoubleFunction<T> function) {
+        return innerDeclare(name, double.class, o -> function.applyAsDouble((T) o), o -> new PrimitiveValueHandle.OfDouble(function.applyAsDouble((T) o)), FieldAccess.FUNCTION);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TypeField declareBooleanField(String name, Predicate<T> function) {
+        return innerDeclare(name, boolean.class, o -> function.test((T) o), o -> PrimitiveValueHandle.OfBoolean.valueOf(function.test((T) o)), FieldAccess.FUNCTION);
     }
 
     @Override
@@ -165,20 +203,72 @@ class TypeImpl<T> implements Type<T> {
         return Collections.unmodifiableCollection(fieldMap.values());
     }
 
+    @Override
+    public BiConsumer<Object, Object[]> fieldsReader(TypeField[] fields) {
+        FieldAccess[] accesses = new FieldAccess[fields.length];
+        boolean direct = false;
+        for (int i = 0; i < fields.length; i++) {
+            TypeField field = fields[i];
+            FieldAccess access = field instanceof TypeFieldImpl ? ((TypeFieldImpl) field).getAccess() : FieldAccess.FUNCTION;
+            accesses[i] = access;
+            direct |= !access.isFunction();
+        }
+        if (!direct) {
+            return Type.super.fieldsReader(fields);
+        }
+        return fieldsReaders
+                .computeIfAbsent(Arrays.asList(accesses), k -> newFieldsReader(accesses))
+                .apply(fields.clone());
+    }
+
+    /**
+     * <p>
+     * Generates a reader class for the given field accesses. Fields that the generated class can't
+     * access directly are read via their functions.
+     * </p>
+     *
+     * @param accesses field accesses
+     * @return reader factory
+     */
+    @SuppressWarnings("unchecked")
+    private Function<TypeField[], BiConsumer<Object, Object[]>> newFieldsReader(FieldAccess[] accesses) {
+        try {
+            FieldsReaderClassLoader loader = new FieldsReaderClassLoader(classResolver.get().getClassLoader());
+            FieldAccess[] generated = new FieldAccess[accesses.length];
+            for (int i = 0; i < accesses.length; i++) {
+                FieldAccess access = accesses[i];
+                generated[i] = access.accessibleFrom(loader) ? access : FieldAccess.FUNCTION;
+            }
+            String binaryName = FIELDS_READER_PREFIX + FIELDS_READER_COUNTER.incrementAndGet();
+            Class<?> readerClass = loader.define(binaryName, FieldsReaderClassWriter.write(binaryName, generated));
+            Constructor<?> constructor = readerClass.getConstructor(TypeField[].class);
+            return fields -> {
+                try {
+                    return (BiConsumer<Object, Object[]>) constructor.newInstance((Object) fields);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Reading the fields one by one
+            return fields -> Type.super.fieldsReader(fields);
+        }
+    }
+
     @Override
     public String toString() {
         return "{name='" + name + '\'' +
                 '}';
     }
 
-    private synchronized TypeField innerDeclare(final String name, final Class<?> type, final Function<Object, ?> function) {
+    private synchronized TypeField innerDeclare(final String name, final Class<?> type, final Function<Object, ?> function, final Function<Object, PrimitiveValueHandle> handleReader, final FieldAccess access) {
         Const.assertName(name);
         TypeFieldImpl field = fieldMap.get(name);
         if (field == null) {
-            field = new TypeFieldImpl(this, name, type, function);
+            field = new TypeFieldImpl(this, name, type, function, handleReader, access);
             this.fieldMap.put(name, field);
         } else {
-            field.setFunction(function);
+            field.setFunction(function, handleReader, access);
         }
 
         return field;
@@ -186,36 +276,48 @@ class TypeImpl<T> implements Type<T> {
 
     private TypeField resolveField(@NonNull String fieldName) {
         Function<Object, Object> func;
+        Function<Object, PrimitiveValueHandle> handleReader = null;
+        FieldAccess access;
         Class<?> valueType;
         if (fieldName.isEmpty()) {
             // "this" field
             valueType = classResolver.get();
             func = o -> o;
+            access = FieldAccess.FUNCTION;
         } else {
             String[] parts = fieldName.split("\\.");
             ArrayOf<ValueReader> getters = new ArrayOf<>(ValueReader.class);
+            Class<?>[] owners = new Class<?>[parts.length];
+            Member[] members = new Member[parts.length];
 
             MethodHandles.Lookup lookup = MethodHandles.lookup();
 
             valueType = classResolver.get();
-            for (String part : parts) {
+            for (int i = 0; i < parts.length; i++) {
+                String part = parts[i];
                 Const.assertName(part);
                 ValueReader reader = resolve(lookup, valueType, part);
                 if (reader == null) {
                     return null;
                 } else {
+                    owners[i] = valueType;
+                    members[i] = reader.member;
                     valueType = reader.valueType();
                     getters.append(reader);
                 }
             }
+            access = FieldAccess.path(owners, members);
 
-            func = getters.data.length == 1 ?
-                    new AtomicFunction(getters.data[0])
-                    :
-                    new NestedFunction(getters.data);
-
+            if (getters.data.length == 1) {
+                func = getters.data[0].function;
+                handleReader = getters.data[0].primitiveHandleReader();
+            } else if (getters.data.length == 2) {
+                func = new NestedFunction2(getters.data[0].function, getters.data[1].function);
+            } else {
+                func = new NestedFunction(getters.data);
+            }
         }
-        return innerDeclare(fieldName, valueType, func);
+        return innerDeclare(fieldName, valueType, func, handleReader, access);
     }
 
     private enum MethodMeta {
@@ -254,58 +356,222 @@ class TypeImpl<T> implements Type<T> {
     }
 
     private static class NestedFunction implements Function<Object, Object> {
-        private final ValueReader[] readers;
+        private final Function<Object, Object>[] functions;
 
+        @SuppressWarnings("unchecked")
         NestedFunction(ValueReader[] readers) {
-            this.readers = readers;
+            this.functions = new Function[readers.length];
+            for (int i = 0; i < readers.length; i++) {
+                this.functions[i] = readers[i].function;
+            }
         }
 
         @Override
         public Object apply(Object o) {
+            Object current = o;
+            for (Function<Object, Object> function : functions) {
+                if ((current = function.apply(current)) == null) {
+                    return null;
+                }
+            }
+            return current;
+        }
+    }
+
+    private static class NestedFunction2 implements Function<Object, Object> {
+        private final Function<Object, Object> first;
+        private final Function<Object, Object> second;
+
+        NestedFunction2(Function<Object, Object> first, Function<Object, Object> second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public Object apply(Object o) {
+            Object value = first.apply(o);
+            return value == null ? null : second.apply(value);
+        }
+    }
+
+    private static final class ValueReader {
+        private final MethodHandle handle;
+        private final MethodHandles.Lookup lookup;
+        final Member member;
+        final Function<Object, Object> function;
+
+        /**
+         * @param handle getter handle
+         * @param lookup lookup to spin getter functions with, or {@code null} if the getter must be
+         *               invoked via its method handle
+         * @param member the getter's field or method
+         */
+        @SuppressWarnings("unchecked")
+        ValueReader(MethodHandle handle, MethodHandles.Lookup lookup, Member member) {
+            this.handle = handle;
+            this.lookup = lookup;
+            this.member = member;
+            Function<Object, Object> f = spin(Function.class, "apply", Object.class);
+            this.function = f == null ? new HandleFunction(handle) : f;
+        }
+
+        Class<?> valueType() {
+            return handle.type().returnType();
+        }
+
+        /**
+         * <p>
+         * Creates an implementation of the given functional interface that calls the getter directly,
+         * just like a lambda expression would.
+         * </p>
+         *
+         * @param functionalInterface functional interface
+         * @param methodName          name of the interface's method
+         * @param returnType          return type of the interface's method
+         * @return interface implementation, or {@code null} if the getter can not be called directly
+         */
+        private <F> F spin(Class<F> functionalInterface, String methodName, Class<?> returnType) {
+            if (lookup == null) {
+                return null;
+            }
             try {
-                Object current = o;
-                for (ValueReader reader : readers) {
-                    if ((current = reader.read(current)) == null) {
-                        return null;
+                CallSite site = LambdaMetafactory.metafactory(
+                        lookup,
+                        methodName,
+                        MethodType.methodType(functionalInterface),
+                        MethodType.methodType(returnType, Object.class),
+                        handle,
+                        returnType.isPrimitive() ? handle.type() : handle.type().wrap()
+                );
+                return functionalInterface.cast(site.getTarget().invoke());
+            } catch (Throwable t) {
+                return null;
+            }
+        }
+
+        /**
+         * @return a reader that invokes the getter without boxing its primitive result,
+         * or {@code null} if the getter's return type has no typed value handle
+         */
+        @SuppressWarnings("unchecked")
+        Function<Object, PrimitiveValueHandle> primitiveHandleReader() {
+            Class<?> type = valueType();
+            final MethodHandle typed = handle.asType(MethodType.methodType(type, Object.class));
+            if (type == int.class) {
+                ToIntFunction<Object> f = spin(ToIntFunction.class, "applyAsInt", int.class);
+                if (f != null) {
+                    return o -> new PrimitiveValueHandle.OfInt(f.applyAsInt(o));
+                }
+                return o -> {
+                    try {
+                        return new PrimitiveValueHandle.OfInt((int) typed.invokeExact(o));
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
                     }
+                };
+            } else if (type == long.class) {
+                ToLongFunction<Object> f = spin(ToLongFunction.class, "applyAsLong", long.class);
+                if (f != null) {
+                    return o -> new PrimitiveValueHandle.OfLong(f.applyAsLong(o));
                 }
-                return current;
-            } catch (Throwable t) {
-                throw new IllegalStateException(t);
+                return o -> {
+                    try {
+                        return new PrimitiveValueHandle.OfLong((long) typed.invokeExact(o));
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                };
+            } else if (type == double.class) {
+                ToDoubleFunction<Object> f = spin(ToDoubleFunction.class, "applyAsDouble", double.class);
+                if (f != null) {
+                    return o -> new PrimitiveValueHandle.OfDouble(f.applyAsDouble(o));
+                }
+                return o -> {
+                    try {
+                        return new PrimitiveValueHandle.OfDouble((double) typed.invokeExact(o));
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                };
+            } else if (type == boolean.class) {
+                Predicate<Object> f = spin(Predicate.class, "test", boolean.class);
+                if (f != null) {
+                    return o -> PrimitiveValueHandle.OfBoolean.valueOf(f.test(o));
+                }
+                return o -> {
+                    try {
+                        return PrimitiveValueHandle.OfBoolean.valueOf((boolean) typed.invokeExact(o));
+                    } catch (Throwable t) {
+                        throw new IllegalStateException(t);
+                    }
+                };
+            } else {
+                return null;
             }
         }
     }
 
-    private static class AtomicFunction implements Function<Object, Object> {
-        private final ValueReader reader;
+    /**
+     * <p>
+     * A fallback getter function for public fields and for classes that are not visible
+     * from this class's class loader.
+     * </p>
+     */
+    private static class HandleFunction implements Function<Object, Object> {
+        private final MethodHandle handle;
 
-        AtomicFunction(ValueReader reader) {
-            this.reader = reader;
+        HandleFunction(MethodHandle handle) {
+            this.handle = handle.asType(MethodType.methodType(Object.class, Object.class));
         }
 
         @Override
         public Object apply(Object o) {
             try {
-                return reader.read(o);
+                return handle.invokeExact(o);
             } catch (Throwable t) {
                 throw new IllegalStateException(t);
             }
         }
     }
 
-    private static final class ValueReader {
-        private final MethodHandle handle;
+    private static final class MapKeyFunction implements Function<Object, Object> {
+        private final String key;
 
-        ValueReader(MethodHandle handle) {
-            this.handle = handle;
+        MapKeyFunction(String key) {
+            this.key = Objects.requireNonNull(key);
         }
 
-        Object read(Object o) throws Throwable {
-            return handle.invoke(o);
+        @Override
+        public Object apply(Object o) {
+            return ((Map<?, ?>) o).get(key);
         }
+    }
 
-        Class<?> valueType() {
-            return handle.type().returnType();
+    /**
+     * <p>
+     * Generated field readers refer to both the engine's classes and the fact classes, so their
+     * class loader delegates to the former and then falls back to the latter.
+     * </p>
+     */
+    private static final class FieldsReaderClassLoader extends ClassLoader {
+        private final ClassLoader factClassLoader;
+
+        FieldsReaderClassLoader(ClassLoader factClassLoader) {
+            super(TypeImpl.class.getClassLoader());
+            this.factClassLoader = factClassLoader;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            if (factClassLoader == null) {
+                throw new ClassNotFoundException(name);
+            } else {
+                return Class.forName(name, false, factClassLoader);
+            }
+        }
+
+        Class<?> define(String binaryName, byte[] bytes) {
+            return defineClass(binaryName, bytes, 0, bytes.length);
         }
     }
 
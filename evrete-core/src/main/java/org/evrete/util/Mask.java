@@ -31,6 +31,14 @@ public final class Mask<T> {
         delegate.set(intMapper.applyAsInt(obj));
     }
 
+    public void clear(T obj) {
+        delegate.clear(intMapper.applyAsInt(obj));
+    }
+
+    public void clear() {
+        delegate.clear();
+    }
+
     public boolean get(T obj) {
         return delegate.get(intMapper.applyAsInt(obj));
     }
@@ -41,6 +41,11 @@ public class RuntimeContextWrapper<D extends RuleSetContext<C, R>, C extends Run
         delegate.addRule(builder);
     }
 
+    @Override
+    public final void addRules(Collection<? extends RuleBuilder<?>> builders) {
+        delegate.addRules(builders);
+    }
+
     @Override
     public final void setRuleBuilderExceptionHandler(RuleBuilderExceptionHandler handler) {
         delegate.setRuleBuilderExceptionHandler(handler);
@@ -121,6 +126,17 @@ public class RuntimeContextWrapper<D extends RuleSetContext<C, R>, C extends Run
         return self();
     }
 
+    @Override
+    public C setConflictResolution(Comparator<Activation> strategy) {
+        delegate.setConflictResolution(strategy);
+        return self();
+    }
+
+    @Override
+    public Comparator<Activation> getConflictResolution() {
+        return delegate.getConflictResolution();
+    }
+
     @Override
     public EvaluatorHandle addEvaluator(Evaluator evaluator, double complexity) {
         return delegate.addEvaluator(evaluator, complexity);
@@ -0,0 +1,263 @@
+package org.evrete;
+
+import org.evrete.api.*;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.helper.TestUtils;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.evrete.api.FactBuilder.fact;
+import static org.evrete.helper.TestUtils.initFact;
+
+class AgendaTests {
+    private final List<String> fired = new ArrayList<>();
+    private static KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = service.newKnowledge();
+    }
+
+    private StatefulSession newSession(Comparator<Activation> strategy) {
+        return knowledge.newStatefulSession()
+                .setActivationMode(ActivationMode.AGENDA)
+                .setConflictResolution(strategy);
+    }
+
+    @Test
+    void salienceAcrossActivations() {
+        knowledge.newRule("low")
+                .salience(1)
+                .forEach("$a", TypeA.class)
+                .execute(ctx -> fired.add("low:" + ctx.<TypeA>get("$a").getId()));
+        knowledge.newRule("high")
+                .salience(10)
+                .forEach("$a", TypeA.class)
+                .execute(ctx -> {
+                    TypeA a = ctx.get("$a");
+                    fired.add("high:" + a.getId());
+                    if (a.getI() > 0) {
+                        ctx.insert(initFact(new TypeA(), a.getId() + "'", 0));
+                    }
+                });
+
+        try (StatefulSession session = newSession(Activation.SALIENCE)) {
+            session.insert(initFact(new TypeA(), "a", 1));
+            session.fire();
+            // New activations of the higher salience fire before the pending ones,
+            // activations of the same salience fire in the order of their facts' recency
+            assert fired.equals(Arrays.asList("high:a", "high:a'", "low:a'", "low:a")) : fired;
+        }
+    }
+
+    @Test
+    void fifoAndLifo() {
+        knowledge.newRule("log")
+                .forEach("$a", TypeA.class)
+                .execute(ctx -> fired.add(ctx.<TypeA>get("$a").getId()));
+        knowledge.newRule("chain")
+                .forEach("$a", TypeA.class)
+                .where("$a.i < 3")
+                .execute(ctx -> {
+                    int i = ctx.<TypeA>get("$a").getI() + 1;
+                    ctx.insert(initFact(new TypeA(), "a" + i, i));
+                });
+
+        try (StatefulSession session = newSession(Activation.FIFO)) {
+            session.insert(initFact(new TypeA(), "a0", 0));
+            session.fire();
+            assert fired.equals(Arrays.asList("a0", "a1", "a2", "a3")) : fired;
+        }
+
+        fired.clear();
+        try (StatefulSession session = newSession(Activation.LIFO)) {
+            session.insert(initFact(new TypeA(), "a0", 0));
+            session.fire();
+            assert fired.equals(Arrays.asList("a3", "a2", "a1", "a0")) : fired;
+        }
+    }
+
+    @Test
+    void lexicographic() {
+        // Every fact is inserted in its own cycle, the last one joins all the others
+        knowledge.newRule("chain")
+                .forEach("$b", TypeB.class)
+                .execute(ctx -> {
+                    int i = ctx.<TypeB>get("$b").getI();
+                    if (i < 3) {
+                        ctx.insert(initFact(new TypeB(), "b" + (i + 1), i + 1));
+                    } else {
+                        ctx.insert(initFact(new TypeA(), "a", 0));
+                    }
+                });
+        knowledge.newRule("join")
+                .forEach(fact("$a", TypeA.class), fact("$b", TypeB.class))
+                .execute(ctx -> fired.add(ctx.<TypeB>get("$b").getId()));
+
+        try (StatefulSession session = newSession(Activation.LEXICOGRAPHIC)) {
+            session.insert(initFact(new TypeB(), "b0", 0));
+            session.fire();
+            assert fired.equals(Arrays.asList("b3", "b2", "b1", "b0")) : fired;
+        }
+    }
+
+    @Test
+    void deletesCancelActivations() {
+        knowledge.newRule("cleanup")
+                .salience(10)
+                .forEach(fact("$a", TypeA.class), fact("$b", TypeB.class))
+                .where("$a.i == $b.i")
+                .execute(ctx -> {
+                    fired.add("cleanup:" + ctx.<TypeB>get("$b").getId());
+                    ctx.deleteFact("$b");
+                });
+        knowledge.newRule("b")
+                .forEach("$b", TypeB.class)
+                .execute(ctx -> fired.add("b:" + ctx.<TypeB>get("$b").getId()));
+
+        try (StatefulSession session = newSession(Activation.SALIENCE)) {
+            session.insert(initFact(new TypeA(), "a1", 1));
+            session.insert(initFact(new TypeA(), "a2", 1));
+            session.insert(initFact(new TypeB(), "b1", 1));
+            session.insert(initFact(new TypeB(), "b2", 2));
+            session.fire();
+            // The second join of b1 and the activation of the lower salience are cancelled
+            assert fired.equals(Arrays.asList("cleanup:b1", "b:b2")) : fired;
+        }
+    }
+
+    @Test
+    void salienceAndNot() {
+        knowledge.newRule("block")
+                .salience(10)
+                .forEach("$a", TypeA.class)
+                .where("$a.i > 0")
+                .execute(ctx -> {
+                    TypeA a = ctx.get("$a");
+                    fired.add("block:" + a.getId());
+                    ctx.insert(initFact(new TypeB(), "b" + a.getI(), a.getI()));
+                });
+        knowledge.newRule("unblock")
+                .salience(5)
+                .forEach("$b", TypeB.class)
+                .where("$b.i == 2")
+                .execute(ctx -> {
+                    fired.add("unblock:" + ctx.<TypeB>get("$b").getId());
+                    ctx.deleteFact("$b");
+                });
+        knowledge.newRule("not b")
+                .salience(1)
+                .forEach("$a", TypeA.class)
+                .not(TypeB.class, TypeB::getI, ctx -> ctx.<TypeA>get("$a").getI())
+                .execute(ctx -> fired.add("not b:" + ctx.<TypeA>get("$a").getId()));
+
+        try (StatefulSession session = newSession(Activation.SALIENCE)) {
+            session.insert(initFact(new TypeA(), "a0", 0));
+            session.insert(initFact(new TypeA(), "a1", 1));
+            session.insert(initFact(new TypeA(), "a2", 2));
+            session.fire();
+            // The activation of a1 is cancelled for good, the one of a2 is cancelled and then activated again
+            assert fired.size() == 5 : fired;
+            assert new HashSet<>(fired.subList(0, 2)).equals(new HashSet<>(Arrays.asList("block:a1", "block:a2"))) : fired;
+            assert fired.get(2).equals("unblock:b2") : fired;
+            assert new HashSet<>(fired.subList(3, 5)).equals(new HashSet<>(Arrays.asList("not b:a0", "not b:a2"))) : fired;
+        }
+    }
+
+    @Test
+    void salienceAndExists() {
+        knowledge.newRule("consume")
+                .salience(10)
+                .forEach("$b", TypeB.class)
+                .execute(ctx -> {
+                    fired.add("consume:" + ctx.<TypeB>get("$b").getId());
+                    ctx.deleteFact("$b");
+                });
+        knowledge.newRule("some b")
+                .salience(1)
+                .forEach("$a", TypeA.class)
+                .exists(TypeB.class, TypeB::getI, ctx -> ctx.<TypeA>get("$a").getI())
+                .execute(ctx -> fired.add("some b:" + ctx.<TypeA>get("$a").getId()));
+
+        try (StatefulSession session = newSession(Activation.SALIENCE)) {
+            session.insert(initFact(new TypeA(), "a1", 1));
+            session.insert(initFact(new TypeB(), "b1", 1));
+            session.fire();
+            // Deleting the last supporting fact cancels the activation
+            assert fired.equals(Collections.singletonList("consume:b1")) : fired;
+        }
+    }
+
+    @Test
+    void updatesRefireAndForks() {
+        knowledge.newRule("count")
+                .forEach("$a", TypeA.class)
+                .where("$a.i < 3")
+                .execute(ctx -> {
+                    TypeA a = ctx.get("$a");
+                    fired.add(a.getId() + a.getI());
+                    a.setI(a.getI() + 1);
+                    ctx.update(a);
+                });
+
+        try (StatefulSession session = newSession(Activation.FIFO)) {
+            session.insert(initFact(new TypeA(), "a", 0));
+            session.fire();
+            assert fired.equals(Arrays.asList("a0", "a1", "a2")) : fired;
+
+            try (StatefulSession fork = session.fork()) {
+                fork.insert(initFact(new TypeA(), "b", 1));
+                fork.fire();
+                assert fired.equals(Arrays.asList("a0", "a1", "a2", "b1", "b2")) : fired;
+            }
+        }
+    }
+
+    private int sieve(Comparator<Activation> strategy) {
+        knowledge.newRule("prime numbers")
+                .forEach(
+                        "$i1", Integer.class,
+                        "$i2", Integer.class,
+                        "$i3", Integer.class
+                )
+                .where("$i1 * $i2 == $i3")
+                .execute(ctx -> ctx.delete(ctx.get("$i3")));
+
+        try (StatefulSession session = newSession(strategy)) {
+            for (int i = 2; i <= 100; i++) {
+                session.insert(i);
+            }
+            session.fire();
+            return TestUtils.sessionFacts(session).size();
+        }
+    }
+
+    @Test
+    void sieveByRecency() {
+        // Products are deleted before their factors, so that every product gets deleted
+        assert sieve(Activation.SALIENCE) == 25;
+    }
+
+    @Test
+    void sieveByCreationOrder() {
+        // Deleted factors cancel the activations of their products, unlike the whole-rule sweeps
+        int remaining = sieve(Activation.FIFO);
+        assert remaining > 25 : remaining;
+    }
+}
@@ -0,0 +1,249 @@
+package org.evrete;
+
+import org.evrete.api.Aggregate;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+import static org.evrete.helper.TestUtils.initFact;
+
+class AggregateTests {
+    private static KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = service.newKnowledge();
+    }
+
+    /**
+     * Derived fact of the tests
+     */
+    public static class Total {
+        public final int group;
+        public final long value;
+
+        Total(int group, long value) {
+            this.group = group;
+            this.value = value;
+        }
+    }
+
+    private static Map<Integer, Long> totals(StatefulSession session) {
+        Map<Integer, Long> result = new HashMap<>();
+        session.forEachFact(Total.class, t -> {
+            if (result.put(t.group, t.value) != null) {
+                throw new IllegalStateException("Duplicate total " + t.group);
+            }
+        });
+        return result;
+    }
+
+    private static Map<Integer, Long> expectedTotals(Collection<TypeA> as, Collection<TypeB> bs) {
+        Map<Integer, Long> result = new HashMap<>();
+        for (TypeB b : bs) {
+            for (TypeA a : as) {
+                if (a.getI() == b.getI() && a.getL() > 0) {
+                    result.merge(b.getI(), a.getL(), Long::sum);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void groupedSumOfJoin() {
+        knowledge.newRule("totals")
+                .forEach(fact("$a", TypeA.class), fact("$b", TypeB.class))
+                .where("$a.i == $b.i")
+                .where("$a.l > 0")
+                .aggregate(
+                        ctx -> ctx.<TypeB>get("$b").getI(),
+                        Aggregate.sumLong(ctx -> ctx.<TypeA>get("$a").getL()),
+                        Total::new
+                );
+
+        Random random = new Random(7);
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            Map<FactHandle, TypeA> as = new HashMap<>();
+            Map<FactHandle, TypeB> bs = new HashMap<>();
+            for (int i = 0; i < 5; i++) {
+                TypeB b = new TypeB(i);
+                bs.put(session.insert(b), b);
+            }
+            for (int cycle = 0; cycle < 20; cycle++) {
+                for (int i = 0; i < 10; i++) {
+                    TypeA a = initFact(new TypeA(), null, random.nextInt(7));
+                    a.setL(random.nextInt(5) - 1);
+                    as.put(session.insert(a), a);
+                }
+                List<FactHandle> handles = new ArrayList<>(as.keySet());
+                for (int i = 0; i < 4; i++) {
+                    FactHandle handle = handles.get(random.nextInt(handles.size()));
+                    if (random.nextBoolean()) {
+                        session.delete(handle);
+                        as.remove(handle);
+                    } else {
+                        TypeA a = as.get(handle);
+                        a.setL(random.nextInt(5) - 1);
+                        a.setI(random.nextInt(7));
+                        session.update(handle, a);
+                    }
+                }
+                if (cycle % 5 == 4) {
+                    // Removing a whole group and adding it again
+                    FactHandle handle = bs.keySet().iterator().next();
+                    TypeB b = bs.remove(handle);
+                    session.delete(handle);
+                    session.fire();
+                    assert totals(session).equals(expectedTotals(as.values(), bs.values()));
+                    bs.put(session.insert(b), b);
+                }
+                session.fire();
+                Map<Integer, Long> expected = expectedTotals(as.values(), bs.values());
+                assert totals(session).equals(expected) : "Cycle " + cycle + ", expected " + expected + ", actual " + totals(session);
+            }
+        }
+    }
+
+    @Test
+    void derivedFactsAreVisibleToRules() {
+        knowledge.newRule("count")
+                .forEach("$a", TypeA.class)
+                .where("$a.i > 0")
+                .aggregate(Aggregate.count(), count -> new Total(0, count));
+
+        List<Long> seen = new ArrayList<>();
+        knowledge.newRule("report")
+                .forEach("$t", Total.class)
+                .execute(ctx -> seen.add(ctx.<Total>get("$t").value));
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            List<FactHandle> handles = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                handles.add(session.insert(initFact(new TypeA(), null, 1)));
+            }
+            session.insert(initFact(new TypeA(), null, -1));
+            session.fire();
+            assert seen.equals(Collections.singletonList(3L)) : seen;
+
+            // Unchanged results do not replace derived facts
+            seen.clear();
+            session.insert(initFact(new TypeA(), null, -2));
+            session.fire();
+            assert seen.isEmpty();
+
+            session.delete(handles.get(0));
+            session.fire();
+            assert seen.equals(Collections.singletonList(2L)) : seen;
+
+            seen.clear();
+            session.delete(handles.get(1));
+            session.delete(handles.get(2));
+            session.fire();
+            assert seen.isEmpty();
+            assert totals(session).isEmpty();
+        }
+    }
+
+    @Test
+    void minAndMax() {
+        knowledge.newRule("min")
+                .forEach("$a", TypeA.class)
+                .aggregate(
+                        ctx -> 0,
+                        Aggregate.min(ctx -> ctx.<TypeA>get("$a").getL()),
+                        Total::new
+                );
+        knowledge.newRule("max")
+                .forEach("$a", TypeA.class)
+                .aggregate(
+                        ctx -> 1,
+                        Aggregate.max(ctx -> ctx.<TypeA>get("$a").getL()),
+                        Total::new
+                );
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            FactHandle h1 = session.insert(initFact(new TypeA(), null, 5));
+            FactHandle h2 = session.insert(initFact(new TypeA(), null, 1));
+            FactHandle h3 = session.insert(initFact(new TypeA(), null, 9));
+            session.insert(initFact(new TypeA(), null, 1));
+            session.fire();
+            Map<Integer, Long> totals = totals(session);
+            assert totals.get(0) == 1L && totals.get(1) == 9L : totals;
+
+            session.delete(h3);
+            session.delete(h2);
+            session.fire();
+            totals = totals(session);
+            assert totals.get(0) == 1L && totals.get(1) == 5L : totals;
+
+            session.update(h1, initFact(new TypeA(), null, -3));
+            session.fire();
+            totals = totals(session);
+            assert totals.get(0) == -3L && totals.get(1) == 1L : totals;
+        }
+    }
+
+    @Test
+    void hotDeploymentAndForks() {
+        AtomicInteger fired = new AtomicInteger();
+        knowledge.newRule("existing")
+                .forEach("$a", TypeA.class)
+                .execute(ctx -> fired.incrementAndGet());
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            for (int i = 0; i < 10; i++) {
+                TypeA a = initFact(new TypeA(), null, i);
+                a.setI(i % 3);
+                session.insert(a);
+            }
+            session.fire();
+            assert fired.get() == 10;
+            AtomicInteger calls = new AtomicInteger();
+            session.newRule("totals")
+                    .forEach("$a", TypeA.class)
+                    .aggregate(
+                            ctx -> {
+                                calls.incrementAndGet();
+                                return ctx.<TypeA>get("$a").getI();
+                            },
+                            Aggregate.sumLong(ctx -> ctx.<TypeA>get("$a").getL()),
+                            Total::new
+                    );
+            assert calls.get() == 10;
+            session.fire();
+            Map<Integer, Long> totals = totals(session);
+            assert totals.get(0) == 18L && totals.get(1) == 12L && totals.get(2) == 15L : totals;
+
+            try (StatefulSession fork = session.fork()) {
+                TypeA a = initFact(new TypeA(), null, 100);
+                a.setI(1);
+                fork.insert(a);
+                fork.fire();
+                assert totals(fork).get(1) == 112L;
+            }
+            assert totals(session).get(1) == 12L;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package org.evrete;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+class AlphaIndexTests {
+    private static final String[] CONDITIONS = new String[]{
+            "$a.i > 3",
+            "$a.i <= 10",
+            "5 < $a.i",
+            "$a.i == 7",
+            "$a.i != 7",
+            "$a.i >= -2",
+            "$a.l < 12L",
+            "$a.l > 4",
+            "$a.d >= 2.5",
+            "$a.d < 8",
+            "$a.d == 6.0",
+            "$a.f > 1.5f",
+            "$a.f <= 9.25",
+            "$a.s > 3",
+            "$a.s < 9"
+    };
+    private static KnowledgeService service;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    private static int[][] fire(UnaryOperator<String> conditionMapper) {
+        AtomicInteger[] counters = new AtomicInteger[CONDITIONS.length + 1];
+        Knowledge knowledge = service.newKnowledge();
+        for (int i = 0; i < CONDITIONS.length; i++) {
+            AtomicInteger counter = new AtomicInteger();
+            counters[i] = counter;
+            knowledge.newRule("rule " + i)
+                    .forEach("$a", TypeA.class)
+                    .where(conditionMapper.apply(CONDITIONS[i]))
+                    .execute(ctx -> counter.incrementAndGet());
+        }
+        // A rule with a pair of conditions on the same field
+        AtomicInteger pairCounter = new AtomicInteger();
+        counters[CONDITIONS.length] = pairCounter;
+        knowledge.newRule("pair")
+                .forEach("$a", TypeA.class)
+                .where(conditionMapper.apply("$a.i > 3"), conditionMapper.apply("$a.i <= 10"))
+                .execute(ctx -> pairCounter.incrementAndGet());
+
+        int[][] result = new int[3][];
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            List<FactHandle> handles = new ArrayList<>();
+            List<TypeA> facts = new ArrayList<>();
+            for (int i = -5; i < 20; i++) {
+                TypeA a = new TypeA();
+                a.setAllNumeric(i);
+                handles.add(session.insert(a));
+                facts.add(a);
+            }
+            // Values in between the constants
+            TypeA a = new TypeA();
+            a.setAllNumeric(7);
+            a.setD(2.4999);
+            a.setF(9.2501f);
+            session.insert(a);
+            // Not a number
+            TypeA nan = new TypeA();
+            nan.setAllNumeric(6);
+            nan.setD(Double.NaN);
+            nan.setF(Float.NaN);
+            session.insert(nan);
+
+            session.fire();
+            result[0] = counts(counters);
+
+            // Updates
+            for (int i = 0; i < facts.size(); i += 2) {
+                TypeA fact = facts.get(i);
+                fact.setAllNumeric(i % 9);
+                session.update(handles.get(i), fact);
+            }
+            session.fire();
+            result[1] = counts(counters);
+        }
+
+        // Listeners disable the index
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            AtomicInteger evaluations = new AtomicInteger();
+            session.addListener((evaluator, values, result1) -> evaluations.incrementAndGet());
+            for (int i = 0; i < 10; i++) {
+                TypeA fact = new TypeA();
+                fact.setAllNumeric(i);
+                session.insert(fact);
+            }
+            session.fire();
+            result[2] = counts(counters);
+            assert evaluations.get() > 0;
+        }
+        return result;
+    }
+
+    private static int[] counts(AtomicInteger[] counters) {
+        int[] result = new int[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            result[i] = counters[i].getAndSet(0);
+        }
+        return result;
+    }
+
+    @Test
+    void sameAsDirectEvaluation() {
+        // Comparisons with constants which are eligible for interval indexing
+        int[][] indexed = fire(UnaryOperator.identity());
+        // Same conditions which are not recognized as comparisons with constants
+        int[][] direct = fire(condition -> "(" + condition + ") == true");
+        for (int step = 0; step < indexed.length; step++) {
+            for (int i = 0; i < indexed[step].length; i++) {
+                assert indexed[step][i] == direct[step][i] : "Step " + step + ", condition " + i + ", expected " + direct[step][i] + ", actual " + indexed[step][i];
+            }
+        }
+        assert direct[0][3] == 2;
+    }
+}
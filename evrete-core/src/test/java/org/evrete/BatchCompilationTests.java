@@ -0,0 +1,125 @@
+package org.evrete;
+
+import org.evrete.api.*;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.runtime.compiler.CompilationException;
+import org.evrete.spi.minimal.DefaultLiteralRhsCompiler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+class BatchCompilationTests {
+    private static final int RULES = 12;
+
+    private static <C extends RuntimeContext<C>> List<RuleBuilder<C>> builders(RuntimeContext<C> context) {
+        List<RuleBuilder<C>> builders = new ArrayList<>(RULES);
+        for (int i = 0; i < RULES; i++) {
+            builders.add(context
+                    .newRule("rule " + i)
+                    .forEach("$a", TypeA.class, "$b", TypeB.class)
+                    .where("$a.i == $b.i")
+                    .where("$a.l > " + i)
+                    .setRhs("$b.setL($b.getL() + 1L);")
+            );
+        }
+        return builders;
+    }
+
+    private static long[] fire(Knowledge knowledge) {
+        long[] result = new long[RULES];
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            TypeB[] bs = new TypeB[RULES];
+            for (int i = 0; i < RULES; i++) {
+                TypeA a = new TypeA();
+                a.setAllNumeric(i);
+                TypeB b = new TypeB();
+                b.setI(i);
+                bs[i] = b;
+                session.insert(a, b);
+            }
+            session.fire();
+            for (int i = 0; i < RULES; i++) {
+                result[i] = bs[i].getL();
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void sameAsSeparate() {
+        KnowledgeService service = KnowledgeService.builder()
+                .withLiteralRhsCompiler(CountingRhsCompiler.class)
+                .build();
+        try {
+            Knowledge separate = service.newKnowledge();
+            for (RuleBuilder<Knowledge> builder : builders(separate)) {
+                separate.addRule(builder);
+            }
+            int separateBatches = CountingRhsCompiler.batches;
+
+            Knowledge batch = service.newKnowledge();
+            batch.addRules(builders(batch));
+            assert CountingRhsCompiler.batches - separateBatches == 1;
+            assert batch.getRules().size() == RULES;
+
+            long[] expected = fire(separate);
+            long[] actual = fire(batch);
+            for (int i = 0; i < RULES; i++) {
+                assert expected[i] == actual[i];
+                assert actual[i] == i;
+            }
+
+            // Rules added to a session at once
+            try (StatefulSession session = service.newKnowledge().newStatefulSession()) {
+                session.addRules(builders(session));
+                assert session.getRules().size() == RULES;
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void compilationErrors() {
+        KnowledgeService service = new KnowledgeService();
+        try {
+            Knowledge knowledge = service.newKnowledge();
+            List<String> failed = new ArrayList<>();
+            knowledge.setRuleBuilderExceptionHandler((context, builder, exception) -> failed.add(builder.getName()));
+
+            List<RuleBuilder<Knowledge>> builders = builders(knowledge);
+            builders.add(knowledge
+                    .newRule("bad condition")
+                    .forEach("$a", TypeA.class)
+                    .where("$a.i >>> true")
+                    .create()
+            );
+            builders.add(knowledge
+                    .newRule("bad action")
+                    .forEach("$a", TypeA.class)
+                    .setRhs("$a.unknown();")
+            );
+            knowledge.addRules(builders);
+
+            assert failed.size() == 2 : failed;
+            assert failed.contains("bad condition");
+            assert failed.contains("bad action");
+            assert knowledge.getRules().size() == RULES;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    public static class CountingRhsCompiler extends DefaultLiteralRhsCompiler {
+        static int batches;
+
+        @Override
+        public List<Consumer<RhsContext>> compileRhs(RuntimeContext<?> context, List<? extends RhsSource> sources) throws CompilationException {
+            batches++;
+            return super.compileRhs(context, sources);
+        }
+    }
+}
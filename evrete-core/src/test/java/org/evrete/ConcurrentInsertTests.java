@@ -0,0 +1,157 @@
+package org.evrete;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ConcurrentInsertTests {
+    private static KnowledgeService service;
+
+    @BeforeAll
+    static void setUpClass() {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.CONCURRENT_INSERTS, "true");
+        service = new KnowledgeService(conf);
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @Test
+    void multipleProducers() throws Exception {
+        final int threads = 4;
+        final int perThread = 2000;
+        AtomicInteger alphaCounter = new AtomicInteger();
+        AtomicInteger betaCounter = new AtomicInteger();
+
+        Knowledge knowledge = service.newKnowledge()
+                .newRule("alpha")
+                .forEach("$a", TypeA.class)
+                .execute(ctx -> alphaCounter.incrementAndGet())
+                .newRule("beta")
+                .forEach("$a", TypeA.class, "$b", TypeB.class)
+                .where("$a.i == $b.i")
+                .execute(ctx -> betaCounter.incrementAndGet());
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            CountDownLatch start = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(threads);
+            List<Throwable> errors = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int thread = t;
+                new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < perThread; i++) {
+                            int id = thread * perThread + i;
+                            TypeA a = new TypeA();
+                            a.setAllNumeric(id);
+                            TypeB b = new TypeB();
+                            b.setAllNumeric(id);
+                            session.insert(a);
+                            FactHandle h = session.insert(b);
+                            if (i % 2 == 0) {
+                                // Every other B gets deleted by the same thread
+                                session.delete(h);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+
+            start.countDown();
+            // Firing while producers are still active
+            while (done.getCount() > 0) {
+                session.fire();
+            }
+            session.fire();
+            assert errors.isEmpty() : errors;
+
+            int total = threads * perThread;
+            assert alphaCounter.get() == total : "Actual: " + alphaCounter.get();
+
+            AtomicInteger aCount = new AtomicInteger();
+            AtomicInteger bCount = new AtomicInteger();
+            session.forEachFact((h, o) -> {
+                if (o instanceof TypeA) {
+                    aCount.incrementAndGet();
+                } else if (o instanceof TypeB) {
+                    bCount.incrementAndGet();
+                }
+            });
+            assert aCount.get() == total;
+            assert bCount.get() == total / 2 : "Actual: " + bCount.get();
+
+            // Each remaining B has exactly one matching A, yet a B might have been matched before its deletion
+            assert betaCounter.get() >= total / 2 && betaCounter.get() <= total : "Actual: " + betaCounter.get();
+        }
+    }
+
+    @Test
+    void updateFromAnotherProducer() throws Exception {
+        AtomicInteger firedValue = new AtomicInteger(-1);
+        Knowledge knowledge = service.newKnowledge()
+                .newRule("test")
+                .forEach("$a", TypeA.class)
+                .where("$a.i > 0")
+                .execute(ctx -> firedValue.set(ctx.<TypeA>get("$a").getI()));
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            TypeA a = new TypeA();
+            a.setAllNumeric(1);
+            TypeA b = new TypeA();
+            b.setAllNumeric(2);
+            FactHandle[] handles = new FactHandle[2];
+
+            Thread producerA = new Thread(() -> {
+                handles[0] = session.insert(a);
+                handles[1] = session.insert(b);
+            });
+            producerA.start();
+            producerA.join();
+
+            Thread producerB = new Thread(() -> {
+                TypeA updated = new TypeA();
+                updated.setAllNumeric(10);
+                session.update(handles[0], updated);
+                session.delete(handles[1]);
+            });
+            producerB.start();
+            producerB.join();
+
+            session.fire();
+            assert firedValue.get() == 10 : "Actual: " + firedValue.get();
+            assert session.<TypeA>getFact(handles[0]).getI() == 10;
+            assert session.getFact(handles[1]) == null;
+
+            // Updating a fact that has already been drained and committed
+            Thread producerC = new Thread(() -> {
+                TypeA updated = new TypeA();
+                updated.setAllNumeric(20);
+                session.update(handles[0], updated);
+            });
+            producerC.start();
+            producerC.join();
+            session.fire();
+            assert firedValue.get() == 20 : "Actual: " + firedValue.get();
+        }
+    }
+}
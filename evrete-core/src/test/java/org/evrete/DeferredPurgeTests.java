@@ -0,0 +1,113 @@
+package org.evrete;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class DeferredPurgeTests {
+
+    private static int[][] fire(Configuration conf) {
+        KnowledgeService service = new KnowledgeService(conf);
+        try {
+            AtomicInteger joined = new AtomicInteger();
+            AtomicInteger single = new AtomicInteger();
+            AtomicInteger hot = new AtomicInteger();
+            Knowledge knowledge = service.newKnowledge();
+            knowledge.newRule("join")
+                    .forEach("$a", TypeA.class, "$b", TypeB.class)
+                    .where("$a.i == $b.i")
+                    .where("$a.l >= 0")
+                    .execute(ctx -> joined.incrementAndGet());
+            knowledge.newRule("single")
+                    .forEach("$a", TypeA.class)
+                    .where("$a.d > 2.0")
+                    .execute(ctx -> single.incrementAndGet());
+
+            List<int[]> result = new ArrayList<>();
+            try (StatefulSession session = knowledge.newStatefulSession()) {
+                List<FactHandle> aHandles = new ArrayList<>();
+                List<TypeA> aFacts = new ArrayList<>();
+                List<FactHandle> bHandles = new ArrayList<>();
+                for (int cycle = 0; cycle < 12; cycle++) {
+                    for (int i = 0; i < 20; i++) {
+                        TypeA a = new TypeA();
+                        a.setAllNumeric((i + cycle) % 7);
+                        aHandles.add(session.insert(a));
+                        aFacts.add(a);
+                    }
+                    if (cycle % 3 == 0) {
+                        for (int i = 0; i < 7; i++) {
+                            TypeB b = new TypeB();
+                            b.setAllNumeric(i);
+                            bHandles.add(session.insert(b));
+                        }
+                    }
+                    // Deleting and updating previously inserted facts
+                    for (int i = cycle; i < aHandles.size(); i += 3) {
+                        FactHandle handle = aHandles.get(i);
+                        if (i % 2 == 0) {
+                            session.delete(handle);
+                        } else {
+                            TypeA a = aFacts.get(i);
+                            a.setAllNumeric(a.getI() + 1);
+                            session.update(handle, a);
+                        }
+                    }
+                    if (cycle % 4 == 1) {
+                        // Deleting a whole join key
+                        for (int i = 0; i < bHandles.size(); i += 7) {
+                            session.delete(bHandles.get(i));
+                        }
+                    }
+                    if (cycle == 5) {
+                        session.newRule("hot")
+                                .forEach("$a", TypeA.class, "$b", TypeB.class)
+                                .where("$a.s > $b.s")
+                                .execute(ctx -> hot.incrementAndGet());
+                    }
+                    session.fire();
+                    List<Object> facts = new ArrayList<>();
+                    session.forEachFact((h, o) -> facts.add(o));
+                    result.add(new int[]{joined.getAndSet(0), single.getAndSet(0), hot.getAndSet(0), facts.size()});
+
+                    if (cycle == 8) {
+                        session.clear();
+                        aHandles.clear();
+                        aFacts.clear();
+                        bHandles.clear();
+                    }
+                }
+            }
+            return result.toArray(new int[0][]);
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0.0,0", "0.25,0", "0.25,1", "1.0,5"})
+    void sameAsImmediatePurge(double threshold, int budget) {
+        int[][] expected = fire(new Configuration());
+
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.DEFERRED_PURGE, "true");
+        conf.setProperty(Configuration.PURGE_THRESHOLD, String.valueOf(threshold));
+        conf.setProperty(Configuration.PURGE_BUDGET, String.valueOf(budget));
+        int[][] actual = fire(conf);
+
+        assert expected.length == actual.length;
+        for (int i = 0; i < expected.length; i++) {
+            assert Arrays.equals(expected[i], actual[i]) : "Cycle " + i + ", expected " + Arrays.toString(expected[i]) + ", actual " + Arrays.toString(actual[i]);
+        }
+        assert expected[0][0] > 0;
+    }
+}
@@ -0,0 +1,171 @@
+package org.evrete;
+
+import org.evrete.api.*;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class EqualityJoinTests {
+    private static KnowledgeService service;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    private static int[] fire(String... conditions) {
+        AtomicInteger counter = new AtomicInteger();
+        Knowledge knowledge = service.newKnowledge();
+        knowledge.newRule()
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$b", TypeB.class),
+                        fact("$c", TypeC.class)
+                )
+                .where(conditions)
+                .execute(ctx -> counter.incrementAndGet());
+
+        int[] result = new int[4];
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            List<FactHandle> handles = new ArrayList<>();
+            List<TypeB> bs = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                TypeA a = new TypeA();
+                a.setAllNumeric(i % 7);
+                TypeB b = new TypeB();
+                b.setAllNumeric(i % 5);
+                TypeC c = new TypeC();
+                c.setAllNumeric(i % 3);
+                handles.add(session.insert(a));
+                handles.add(session.insert(b));
+                bs.add(b);
+                session.insert(c);
+            }
+            session.fire();
+            result[0] = counter.getAndSet(0);
+
+            // Delta-only computation
+            for (int i = 0; i < 10; i++) {
+                TypeC c = new TypeC();
+                c.setAllNumeric(i % 4);
+                session.insert(c);
+            }
+            session.fire();
+            result[1] = counter.getAndSet(0);
+
+            // Updates that move facts between index buckets
+            for (int i = 0; i < 20; i++) {
+                TypeB b = bs.get(i);
+                b.setAllNumeric(i % 2);
+                session.update(handles.get(i * 2 + 1), b);
+            }
+            session.fire();
+            result[2] = counter.getAndSet(0);
+
+            // Deletes
+            for (int i = 0; i < handles.size(); i += 3) {
+                session.delete(handles.get(i));
+            }
+            TypeA a = new TypeA();
+            a.setAllNumeric(1);
+            session.insert(a);
+            session.fire();
+            result[3] = counter.getAndSet(0);
+        }
+        return result;
+    }
+
+    @Test
+    void sameAsNestedLoop() {
+        // Equality terms which are eligible for hash joins
+        int[] indexed = fire("$a.i == $b.i", "$b.l == $c.l", "$a.s >= $c.s");
+        // Same conditions which are not recognized as equality terms
+        int[] nestedLoop = fire("$a.i - $b.i == 0", "$b.l - $c.l == 0", "$a.s >= $c.s");
+        for (int i = 0; i < indexed.length; i++) {
+            assert nestedLoop[i] > 0;
+            assert indexed[i] == nestedLoop[i] : "Step " + i + ", expected " + nestedLoop[i] + ", actual " + indexed[i];
+        }
+    }
+
+    private static long[] fireCustom(boolean impliesEquality) {
+        AtomicInteger counter = new AtomicInteger();
+        AtomicLong evaluations = new AtomicLong();
+        Knowledge knowledge = service.newKnowledge();
+        RuleBuilder<Knowledge> rule = knowledge.newRule();
+        LhsBuilder<Knowledge> lhs = rule.forEach("$a", TypeA.class, "$b", TypeB.class);
+        FieldReference[] descriptor = knowledge.getExpressionResolver().resolve(lhs, "$a.i", "$b.i");
+        EvaluatorHandle handle = knowledge.addEvaluator(new Evaluator() {
+            @Override
+            public FieldReference[] descriptor() {
+                return descriptor;
+            }
+
+            @Override
+            public boolean impliesEquality() {
+                return impliesEquality;
+            }
+
+            @Override
+            public boolean test(IntToValue values) {
+                evaluations.incrementAndGet();
+                return values.apply(0).equals(values.apply(1));
+            }
+        });
+        lhs.where(handle).execute(ctx -> counter.incrementAndGet());
+
+        long[] result = new long[2];
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            List<FactHandle> handles = new ArrayList<>();
+            for (int cycle = 0; cycle < 5; cycle++) {
+                for (int i = 0; i < 30; i++) {
+                    TypeA a = new TypeA();
+                    a.setAllNumeric(i % 11);
+                    TypeB b = new TypeB();
+                    b.setAllNumeric(i % 13);
+                    handles.add(session.insert(a));
+                    handles.add(session.insert(b));
+                }
+                // Deletes of committed facts on both sides
+                for (int i = cycle; i < handles.size(); i += 7) {
+                    session.delete(handles.get(i));
+                }
+                session.fire();
+                // Updates that keep the facts' keys
+                for (int i = cycle + 1; i < handles.size(); i += 5) {
+                    Object fact = session.getFact(handles.get(i));
+                    if (fact != null) {
+                        session.update(handles.get(i), fact);
+                    }
+                }
+                session.fire();
+            }
+        }
+        result[0] = counter.get();
+        result[1] = evaluations.get();
+        return result;
+    }
+
+    @Test
+    void customEvaluator() {
+        long[] indexed = fireCustom(true);
+        long[] nestedLoop = fireCustom(false);
+        assert nestedLoop[0] > 0;
+        assert indexed[0] == nestedLoop[0] : "Expected " + nestedLoop[0] + ", actual " + indexed[0];
+        assert indexed[1] < nestedLoop[1];
+    }
+}
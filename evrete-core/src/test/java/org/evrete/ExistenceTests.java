@@ -0,0 +1,256 @@
+package org.evrete;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.evrete.api.FactBuilder.fact;
+import static org.evrete.helper.TestUtils.initFact;
+
+class ExistenceTests {
+    private static KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = service.newKnowledge();
+    }
+
+    @Test
+    void notBlocksAndReleases() {
+        List<String> fired = new ArrayList<>();
+        knowledge.newRule("no b")
+                .forEach("$a", TypeA.class)
+                .not(TypeB.class, TypeB::getI, ctx -> ctx.<TypeA>get("$a").getI())
+                .execute(ctx -> fired.add(ctx.<TypeA>get("$a").getId()));
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            session.insert(initFact(new TypeA(), "a1", 1));
+            FactHandle a2 = session.insert(initFact(new TypeA(), "a2", 2));
+            FactHandle b1 = session.insert(new TypeB(1));
+            session.fire();
+            assert fired.equals(Collections.singletonList("a2")) : fired;
+
+            // Deleting the blocking fact activates the match again
+            fired.clear();
+            session.delete(b1);
+            session.fire();
+            assert fired.equals(Collections.singletonList("a1")) : fired;
+
+            // Blocking an activated match has no effect
+            fired.clear();
+            FactHandle b2 = session.insert(new TypeB(2));
+            session.fire();
+            assert fired.isEmpty();
+
+            // Updated facts are matched again
+            session.update(a2, initFact(new TypeA(), "a2", 3));
+            session.fire();
+            assert fired.equals(Collections.singletonList("a2")) : fired;
+
+            // Changing the key of a blocking fact
+            fired.clear();
+            session.update(b2, new TypeB(1));
+            session.fire();
+            assert fired.isEmpty();
+            session.update(b2, new TypeB(5));
+            session.fire();
+            assert fired.equals(Collections.singletonList("a1")) : fired;
+        }
+    }
+
+    @Test
+    void existsActivatesOnce() {
+        List<String> fired = new ArrayList<>();
+        knowledge.newRule("some b")
+                .forEach("$a", TypeA.class)
+                .exists(TypeB.class, TypeB::getI, ctx -> ctx.<TypeA>get("$a").getI())
+                .execute(ctx -> fired.add(ctx.<TypeA>get("$a").getId()));
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            session.insert(initFact(new TypeA(), "a1", 1));
+            session.insert(initFact(new TypeA(), "a2", 2));
+            session.fire();
+            assert fired.isEmpty();
+
+            FactHandle b1 = session.insert(new TypeB(1));
+            session.insert(new TypeB(1));
+            session.fire();
+            assert fired.equals(Collections.singletonList("a1")) : fired;
+
+            fired.clear();
+            session.delete(b1);
+            session.insert(new TypeB(1));
+            session.fire();
+            assert fired.isEmpty();
+        }
+    }
+
+    @Test
+    void rhsChangesAreCounted() {
+        List<String> fired = new ArrayList<>();
+        // The first rule blocks the second one in the same fire
+        knowledge.newRule("block")
+                .forEach("$a", TypeA.class)
+                .where("$a.i > 0")
+                .execute(ctx -> ctx.insert(new TypeB(ctx.<TypeA>get("$a").getI())));
+        knowledge.newRule("no b")
+                .forEach("$a", TypeA.class)
+                .not(TypeB.class, TypeB::getI, ctx -> ctx.<TypeA>get("$a").getI())
+                .execute(ctx -> {
+                    fired.add(ctx.<TypeA>get("$a").getId());
+                    ctx.insert(new TypeB(ctx.<TypeA>get("$a").getI()));
+                });
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            session.insert(initFact(new TypeA(), "a1", 1));
+            session.insert(initFact(new TypeA(), "a2", -1));
+            session.fire();
+            // Both rules are on the first agenda, later activations are blocked by the inserted facts
+            assert fired.equals(Arrays.asList("a1", "a2")) : fired;
+            Set<Integer> keys = new HashSet<>();
+            session.forEachFact(TypeB.class, b -> keys.add(b.getI()));
+            assert keys.equals(new HashSet<>(Arrays.asList(1, -1)));
+        }
+    }
+
+    /**
+     * Compares activations of a join with a negation against a model of the working memory
+     */
+    @Test
+    void randomizedJoin() {
+        List<String> fired = new ArrayList<>();
+        knowledge.newRule("join")
+                .forEach(fact("$a", TypeA.class), fact("$c", TypeC.class))
+                .where("$a.i == $c.i")
+                .not(TypeB.class, TypeB::getI, ctx -> (int) ctx.<TypeC>get("$c").getL())
+                .execute(ctx -> fired.add(ctx.<TypeA>get("$a").getId() + ":" + ctx.<TypeC>get("$c").getId()));
+
+        Random random = new Random(11);
+        Map<FactHandle, TypeA> as = new HashMap<>();
+        Map<FactHandle, TypeC> cs = new HashMap<>();
+        Map<FactHandle, TypeB> bs = new HashMap<>();
+        int ids = 0;
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            Set<String> satisfiedBefore = new HashSet<>();
+            for (int cycle = 0; cycle < 30; cycle++) {
+                Set<String> changed = new HashSet<>();
+                for (int i = 0; i < 3; i++) {
+                    TypeA a = initFact(new TypeA(), "a" + ids++, random.nextInt(4));
+                    as.put(session.insert(a), a);
+                    TypeC c = new TypeC();
+                    c.setId("c" + ids++);
+                    c.setI(random.nextInt(4));
+                    c.setL(random.nextInt(4));
+                    cs.put(session.insert(c), c);
+                    TypeB b = new TypeB(random.nextInt(4));
+                    bs.put(session.insert(b), b);
+                }
+                for (Map<FactHandle, ?> facts : Arrays.asList(as, cs, bs)) {
+                    List<FactHandle> handles = new ArrayList<>(facts.keySet());
+                    for (int i = 0; i < 2; i++) {
+                        FactHandle handle = handles.get(random.nextInt(handles.size()));
+                        Object fact = facts.get(handle);
+                        if (fact == null) continue;
+                        if (random.nextBoolean()) {
+                            session.delete(handle);
+                            facts.remove(handle);
+                        } else {
+                            if (fact instanceof TypeA) {
+                                ((TypeA) fact).setI(random.nextInt(4));
+                                changed.add(((TypeA) fact).getId());
+                            } else if (fact instanceof TypeC) {
+                                ((TypeC) fact).setL(random.nextInt(4));
+                                changed.add(((TypeC) fact).getId());
+                            } else {
+                                ((TypeB) fact).setI(random.nextInt(4));
+                            }
+                            session.update(handle, fact);
+                        }
+                    }
+                }
+                fired.clear();
+                session.fire();
+
+                Set<Long> blocked = new HashSet<>();
+                for (TypeB b : bs.values()) {
+                    blocked.add((long) b.getI());
+                }
+                Set<String> satisfied = new HashSet<>();
+                List<String> expected = new ArrayList<>();
+                for (TypeA a : as.values()) {
+                    for (TypeC c : cs.values()) {
+                        if (a.getI() == c.getI() && !blocked.contains(c.getL())) {
+                            String id = a.getId() + ":" + c.getId();
+                            satisfied.add(id);
+                            boolean unchanged = !changed.contains(a.getId()) && !changed.contains(c.getId());
+                            if (!unchanged || !satisfiedBefore.contains(id)) {
+                                expected.add(id);
+                            }
+                        }
+                    }
+                }
+                Collections.sort(expected);
+                Collections.sort(fired);
+                assert expected.equals(fired) : "Cycle " + cycle + ", expected " + expected + ", actual " + fired;
+                satisfiedBefore = satisfied;
+            }
+        }
+    }
+
+    @Test
+    void hotDeploymentAndForks() {
+        knowledge.newRule("existing")
+                .forEach(fact("$a", TypeA.class), fact("$b", TypeB.class))
+                .where("$a.i == $b.i")
+                .execute();
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            session.insert(initFact(new TypeA(), "a1", 1));
+            session.insert(initFact(new TypeA(), "a2", 2));
+            FactHandle b1 = session.insert(new TypeB(1));
+            session.fire();
+
+            List<String> fired = new ArrayList<>();
+            session.newRule("no b")
+                    .forEach("$a", TypeA.class)
+                    .not(TypeB.class, TypeB::getI, ctx -> ctx.<TypeA>get("$a").getI())
+                    .execute(ctx -> fired.add(ctx.<TypeA>get("$a").getId()));
+            session.fire();
+            // Hot-deployed rules are not activated by existing matches
+            assert fired.isEmpty();
+
+            try (StatefulSession fork = session.fork()) {
+                fork.delete(b1);
+                fork.fire();
+                assert fired.equals(Collections.singletonList("a1")) : fired;
+            }
+            assert session.getFact(b1) != null;
+
+            fired.clear();
+            session.insert(new TypeB(2));
+            session.delete(b1);
+            session.fire();
+            assert fired.equals(Collections.singletonList("a1")) : fired;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package org.evrete;
+
+import org.evrete.api.Expiration;
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.evrete.helper.TestUtils.initFact;
+
+class ExpirationTests {
+    private final AtomicLong clock = new AtomicLong();
+    private final List<String> fired = new ArrayList<>();
+    private static KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = new KnowledgeService();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @BeforeEach
+    void init() {
+        knowledge = service.newKnowledge();
+        knowledge.newRule("a")
+                .forEach("$a", TypeA.class)
+                .execute(ctx -> fired.add(ctx.<TypeA>get("$a").getId()));
+    }
+
+    private static Set<String> ids(StatefulSession session) {
+        Set<String> ids = new HashSet<>();
+        session.forEachFact(TypeA.class, a -> ids.add(a.getId()));
+        return ids;
+    }
+
+    private static Set<String> set(String... ids) {
+        return new HashSet<>(Arrays.asList(ids));
+    }
+
+    private StatefulSession newSession() {
+        return knowledge.newStatefulSession().setClock(clock::get);
+    }
+
+    @Test
+    void timeToLive() {
+        try (StatefulSession session = newSession()) {
+            session.setExpiration(TypeA.class, Expiration.timeToLive(10, TimeUnit.MILLISECONDS));
+            session.insert(initFact(new TypeA(), "a1", 0));
+            session.fire();
+            clock.set(5);
+            FactHandle a2 = session.insert(initFact(new TypeA(), "a2", 0));
+            session.fire();
+            assert ids(session).equals(set("a1", "a2"));
+
+            clock.set(10);
+            session.fire();
+            assert ids(session).equals(set("a2"));
+
+            // Updates restart the time to live
+            clock.set(12);
+            session.update(a2, initFact(new TypeA(), "a2", 1));
+            session.fire();
+            clock.set(20);
+            session.fire();
+            assert ids(session).equals(set("a2"));
+            clock.set(22);
+            session.fire();
+            assert ids(session).isEmpty();
+        }
+    }
+
+    @Test
+    void slidingWindow() {
+        try (StatefulSession session = newSession()) {
+            session.setExpiration(TypeA.class, Expiration.slidingWindow(10, TimeUnit.MILLISECONDS, TypeA::getL));
+            clock.set(100);
+            session.insert(initFact(new TypeA(), "e95", 95));
+            session.insert(initFact(new TypeA(), "e85", 85));
+            FactHandle e99 = session.insert(initFact(new TypeA(), "e99", 99));
+            session.fire();
+            // Late events are deleted before they get into the working memory
+            assert ids(session).equals(set("e95", "e99"));
+            Collections.sort(fired);
+            assert fired.equals(Arrays.asList("e95", "e99")) : fired;
+
+            clock.set(106);
+            session.update(e99, initFact(new TypeA(), "e99", 105));
+            session.fire();
+            assert ids(session).equals(set("e99"));
+
+            clock.set(114);
+            session.fire();
+            assert ids(session).equals(set("e99"));
+            clock.set(115);
+            session.fire();
+            assert ids(session).isEmpty();
+        }
+    }
+
+    @Test
+    void countWindow() {
+        try (StatefulSession session = newSession()) {
+            for (int i = 0; i < 2; i++) {
+                session.insert(initFact(new TypeA(), "a" + i, 0));
+            }
+            session.fire();
+            session.setExpiration(TypeA.class, Expiration.countWindow(3));
+            for (int i = 2; i < 5; i++) {
+                session.insert(initFact(new TypeA(), "a" + i, 0));
+            }
+            session.fire();
+            assert ids(session).equals(set("a2", "a3", "a4"));
+
+            FactHandle a5 = session.insert(initFact(new TypeA(), "a5", 0));
+            session.fire();
+            assert ids(session).equals(set("a3", "a4", "a5"));
+
+            session.delete(a5);
+            session.insert(initFact(new TypeA(), "a6", 0));
+            session.fire();
+            assert ids(session).equals(set("a3", "a4", "a6"));
+
+            // Existing facts exceeding a new policy
+            session.setExpiration(TypeA.class, Expiration.countWindow(1));
+            session.fire();
+            assert ids(session).size() == 1;
+            session.setExpiration(TypeA.class, null);
+            session.insert(initFact(new TypeA(), "a7", 0));
+            session.fire();
+            assert ids(session).size() == 2;
+        }
+    }
+
+    @Test
+    void expiredFactsReleaseNegations() {
+        List<Integer> released = new ArrayList<>();
+        knowledge.newRule("no b")
+                .forEach("$a", TypeA.class)
+                .not(TypeB.class, TypeB::getI, ctx -> ctx.<TypeA>get("$a").getI())
+                .execute(ctx -> released.add(ctx.<TypeA>get("$a").getI()));
+
+        try (StatefulSession session = newSession()) {
+            session.setExpiration(TypeB.class, Expiration.timeToLive(1, TimeUnit.SECONDS));
+            TypeB b = new TypeB();
+            b.setI(7);
+            session.insert(b);
+            TypeA a = initFact(new TypeA(), "a", 0);
+            a.setI(7);
+            session.insert(a);
+            session.fire();
+            assert released.isEmpty();
+
+            clock.set(1000);
+            session.fire();
+            assert released.equals(Collections.singletonList(7));
+        }
+    }
+
+    @Test
+    void forks() {
+        try (StatefulSession session = newSession()) {
+            session.setExpiration(TypeA.class, Expiration.timeToLive(10, TimeUnit.MILLISECONDS));
+            session.insert(initFact(new TypeA(), "a1", 0));
+            session.fire();
+            try (StatefulSession fork = session.fork()) {
+                clock.set(5);
+                fork.insert(initFact(new TypeA(), "a2", 0));
+                fork.fire();
+                clock.set(10);
+                fork.fire();
+                assert ids(fork).equals(set("a2"));
+            }
+            assert ids(session).equals(set("a1"));
+            session.fire();
+            assert ids(session).isEmpty();
+        }
+    }
+}
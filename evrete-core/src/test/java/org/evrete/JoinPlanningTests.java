@@ -0,0 +1,144 @@
+package org.evrete;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.evrete.classes.TypeD;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.evrete.api.FactBuilder.fact;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JoinPlanningTests {
+
+    private static int[] fire(int replanInterval) {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.JOIN_REPLAN_INTERVAL, String.valueOf(replanInterval));
+        KnowledgeService service = new KnowledgeService(conf);
+        try {
+            AtomicInteger counter = new AtomicInteger();
+            Knowledge knowledge = service.newKnowledge();
+            knowledge.newRule()
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class),
+                            fact("$c", TypeC.class),
+                            fact("$d", TypeD.class)
+                    )
+                    .where("$a.i == $b.i")
+                    .where("$c.i == $d.i")
+                    .where("$a.l > $c.l", 10.0)
+                    .where("$b.s != $d.s", 5.0)
+                    .execute(ctx -> counter.incrementAndGet());
+
+            int[] result = new int[4];
+            try (StatefulSession session = knowledge.newStatefulSession()) {
+                List<FactHandle> handles = new ArrayList<>();
+                for (int i = 0; i < 10; i++) {
+                    TypeA a = new TypeA();
+                    a.setAllNumeric(i % 4);
+                    TypeC c = new TypeC();
+                    c.setAllNumeric(i % 3);
+                    handles.add(session.insert(a));
+                    session.insert(c);
+                }
+                for (int i = 0; i < 3; i++) {
+                    TypeB b = new TypeB();
+                    b.setAllNumeric(i);
+                    TypeD d = new TypeD();
+                    d.setAllNumeric(i);
+                    session.insert(b, d);
+                }
+                session.fire();
+                result[0] = counter.getAndSet(0);
+
+                // Cardinalities drift, smaller sources become the largest ones
+                for (int cycle = 1; cycle < 4; cycle++) {
+                    for (int i = 0; i < 30 * cycle; i++) {
+                        TypeB b = new TypeB();
+                        b.setAllNumeric(i % 5);
+                        TypeD d = new TypeD();
+                        d.setAllNumeric(i % 6);
+                        session.insert(b, d);
+                    }
+                    session.delete(handles.get(cycle));
+                    session.fire();
+                    result[cycle] = counter.getAndSet(0);
+                }
+            }
+            return result;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 16})
+    void sameAsPlannerOrder(int replanInterval) {
+        int[] fixed = fire(0);
+        int[] replanned = fire(replanInterval);
+        for (int i = 0; i < fixed.length; i++) {
+            assert fixed[i] > 0;
+            assert fixed[i] == replanned[i] : "Step " + i + ", expected " + fixed[i] + ", actual " + replanned[i];
+        }
+    }
+
+    /**
+     * @return true if type A's facts are iterated in the outer loop
+     */
+    private static boolean outerTypeA(Knowledge knowledge, List<Object[]> evaluations, int countA, int countB) {
+        evaluations.clear();
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            for (int i = 0; i < countA; i++) {
+                TypeA a = new TypeA();
+                a.setI(i);
+                session.insert(a);
+            }
+            for (int i = 0; i < countB; i++) {
+                TypeB b = new TypeB();
+                b.setI(i);
+                session.insert(b);
+            }
+            session.fire();
+        }
+        assert evaluations.size() == countA * countB;
+        return evaluations.get(0)[0].equals(evaluations.get(1)[0]);
+    }
+
+    @Test
+    void initialOrderKept() {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.JOIN_REPLAN_INTERVAL, "2");
+        KnowledgeService service = new KnowledgeService(conf);
+        try {
+            List<Object[]> evaluations = new ArrayList<>();
+            Knowledge knowledge = service.newKnowledge();
+            knowledge.newRule()
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class)
+                    )
+                    .where((Predicate<Object[]>) values -> {
+                        evaluations.add(values.clone());
+                        return true;
+                    }, "$a.i", "$b.i")
+                    .execute();
+
+            // A single delta computation is not enough to re-plan, both sessions
+            // follow the planner's order whatever their sources' cardinalities are
+            assertEquals(outerTypeA(knowledge, evaluations, 2, 10), outerTypeA(knowledge, evaluations, 10, 2));
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.evrete;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+
+class ParallelDeltaTests {
+
+    private static int[] fire(int threshold) {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.PARALLEL_DELTA_THRESHOLD, String.valueOf(threshold));
+        conf.setProperty(Configuration.PARALLELISM, "4");
+        KnowledgeService service = new KnowledgeService(conf);
+        try {
+            AtomicInteger counter = new AtomicInteger();
+            Knowledge knowledge = service.newKnowledge();
+            knowledge.newRule()
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class),
+                            fact("$c", TypeC.class)
+                    )
+                    .where("$a.i % 7 == $b.i % 7")
+                    .where("$b.l % 3 != $c.l % 3")
+                    .execute(ctx -> counter.incrementAndGet());
+
+            int[] result = new int[3];
+            try (StatefulSession session = knowledge.newStatefulSession()) {
+                List<FactHandle> handles = new ArrayList<>();
+                for (int i = 0; i < 60; i++) {
+                    TypeA a = new TypeA();
+                    a.setAllNumeric(i);
+                    TypeB b = new TypeB();
+                    b.setAllNumeric(i);
+                    TypeC c = new TypeC();
+                    c.setAllNumeric(i);
+                    handles.add(session.insert(a));
+                    session.insert(b, c);
+                }
+                session.fire();
+                result[0] = counter.getAndSet(0);
+
+                // Delta-only computation
+                for (int i = 60; i < 80; i++) {
+                    TypeB b = new TypeB();
+                    b.setAllNumeric(i);
+                    session.insert(b);
+                }
+                session.fire();
+                result[1] = counter.getAndSet(0);
+
+                // Computation after deletes
+                for (int i = 0; i < handles.size(); i += 3) {
+                    session.delete(handles.get(i));
+                }
+                session.fire();
+                for (int i = 80; i < 90; i++) {
+                    TypeC c = new TypeC();
+                    c.setAllNumeric(i);
+                    session.insert(c);
+                }
+                session.fire();
+                result[2] = counter.getAndSet(0);
+            }
+            return result;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 100})
+    void sameAsSequential(int threshold) {
+        int[] sequential = fire(0);
+        int[] parallel = fire(threshold);
+        assert sequential[0] > 0 && sequential[1] > 0 && sequential[2] > 0;
+        for (int i = 0; i < sequential.length; i++) {
+            assert sequential[i] == parallel[i] : "Step " + i + ", expected " + sequential[i] + ", actual " + parallel[i];
+        }
+    }
+}
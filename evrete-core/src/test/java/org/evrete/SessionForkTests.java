@@ -0,0 +1,270 @@
+package org.evrete;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.helper.TestUtils.initFact;
+
+class SessionForkTests {
+    private final AtomicInteger joined = new AtomicInteger();
+    private final AtomicInteger single = new AtomicInteger();
+    private final AtomicInteger loose = new AtomicInteger();
+    private final AtomicInteger hot = new AtomicInteger();
+    private KnowledgeService service;
+
+    @BeforeEach
+    void init() {
+        joined.set(0);
+        single.set(0);
+        loose.set(0);
+        hot.set(0);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    private Knowledge knowledge(Configuration conf) {
+        service = new KnowledgeService(conf);
+        Knowledge knowledge = service.newKnowledge();
+        knowledge.newRule("join")
+                .forEach("$a", TypeA.class, "$b", TypeB.class)
+                .where("$a.i == $b.i")
+                .where("$a.l >= 0")
+                .execute(ctx -> joined.incrementAndGet());
+        knowledge.newRule("single")
+                .forEach("$a", TypeA.class)
+                .where("$a.d > 2.0")
+                .execute(ctx -> single.incrementAndGet());
+        knowledge.newRule("loose")
+                .forEach("$b", TypeB.class, "$c", TypeC.class)
+                .execute(ctx -> loose.incrementAndGet());
+        return knowledge;
+    }
+
+    /**
+     * Fills a session with facts and fires it a few times, deleting and updating facts in between
+     */
+    private static List<FactHandle> prepare(StatefulSession session) {
+        List<FactHandle> handles = new ArrayList<>();
+        for (int cycle = 0; cycle < 4; cycle++) {
+            for (int i = 0; i < 50; i++) {
+                handles.add(session.insert(initFact(new TypeA(), null, (i + cycle) % 7)));
+            }
+            TypeB b = new TypeB();
+            b.setAllNumeric(cycle);
+            handles.add(session.insert(b));
+            for (int i = cycle; i < handles.size(); i += 5) {
+                if (session.getFact(handles.get(i)) instanceof TypeA) {
+                    if (i % 2 == 0) {
+                        session.delete(handles.get(i));
+                    } else {
+                        session.update(handles.get(i), initFact(new TypeA(), null, i % 5));
+                    }
+                }
+            }
+            session.fire();
+        }
+        session.insert(new TypeC());
+        session.fire();
+        return handles;
+    }
+
+    /**
+     * Makes hypothetical changes to a session, fires it, and returns the number of activations and facts
+     */
+    private int[] whatIf(StatefulSession session, List<FactHandle> handles) {
+        joined.set(0);
+        single.set(0);
+        loose.set(0);
+        for (int i = 0; i < 4; i++) {
+            TypeB b = new TypeB();
+            b.setAllNumeric(i + 2);
+            session.insert(b);
+        }
+        for (int i = 1; i < handles.size(); i += 7) {
+            if (session.getFact(handles.get(i)) != null) {
+                if (i % 2 == 0) {
+                    session.delete(handles.get(i));
+                } else {
+                    session.update(handles.get(i), initFact(new TypeA(), null, 3));
+                }
+            }
+        }
+        session.insert(initFact(new TypeA(), null, 4));
+        session.fire();
+        List<Object> facts = new ArrayList<>();
+        session.forEachFact((h, o) -> facts.add(o));
+        return new int[]{joined.get(), single.get(), loose.get(), facts.size()};
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false,false", "true,false", "false,true"})
+    void forkIsIndependent(boolean deferredPurge, boolean concurrentInserts) {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.DEFERRED_PURGE, String.valueOf(deferredPurge));
+        conf.setProperty(Configuration.PURGE_THRESHOLD, "0.9");
+        conf.setProperty(Configuration.CONCURRENT_INSERTS, String.valueOf(concurrentInserts));
+        Knowledge knowledge = knowledge(conf);
+
+        StatefulSession reference = knowledge.newStatefulSession();
+        int[] expected = whatIf(reference, prepare(reference));
+        assert expected[0] > 0 && expected[1] > 0 && expected[2] > 0;
+
+        StatefulSession parent = knowledge.newStatefulSession();
+        List<FactHandle> handles = prepare(parent);
+        List<Object> parentFacts = new ArrayList<>();
+        parent.forEachFact((h, o) -> parentFacts.add(o));
+
+        StatefulSession fork = parent.fork();
+        assert knowledge.getSessions().contains(fork);
+        assert fork.getRules().size() == parent.getRules().size();
+        for (FactHandle handle : handles) {
+            assert fork.getFact(handle) == parent.getFact(handle);
+        }
+        int[] actual = whatIf(fork, handles);
+        assert Arrays.equals(expected, actual) : "Expected " + Arrays.toString(expected) + ", actual " + Arrays.toString(actual);
+
+        // The parent session is not affected by the fork
+        List<Object> facts = new ArrayList<>();
+        parent.forEachFact((h, o) -> facts.add(o));
+        assert facts.size() == parentFacts.size() && facts.containsAll(parentFacts);
+        actual = whatIf(parent, handles);
+        assert Arrays.equals(expected, actual) : "Expected " + Arrays.toString(expected) + ", actual " + Arrays.toString(actual);
+
+        // Forks of forks
+        StatefulSession second = fork.fork();
+        fork.close();
+        int[] forkOfFork = whatIf(second, handles);
+        int[] repeated = whatIf(parent, handles);
+        assert Arrays.equals(forkOfFork, repeated) : "Expected " + Arrays.toString(repeated) + ", actual " + Arrays.toString(forkOfFork);
+
+        reference.close();
+        parent.close();
+        second.close();
+    }
+
+    @Test
+    void hotDeploymentInFork() {
+        Knowledge knowledge = knowledge(new Configuration());
+
+        StatefulSession reference = knowledge.newStatefulSession();
+        prepare(reference);
+        reference.newRule("hot")
+                .forEach("$a", TypeA.class)
+                .where("$a.i > 3")
+                .execute(ctx -> hot.incrementAndGet());
+        reference.insert(initFact(new TypeA(), null, 5));
+        reference.insert(initFact(new TypeA(), null, 1));
+        reference.fire();
+        int expectedHot = hot.getAndSet(0);
+        assert expectedHot > 0;
+
+        StatefulSession parent = knowledge.newStatefulSession();
+        List<FactHandle> handles = prepare(parent);
+        StatefulSession fork = parent.fork();
+        fork.newRule("hot")
+                .forEach("$a", TypeA.class)
+                .where("$a.i > 3")
+                .execute(ctx -> hot.incrementAndGet());
+        fork.insert(initFact(new TypeA(), null, 5));
+        fork.insert(initFact(new TypeA(), null, 1));
+        fork.fire();
+        assert hot.getAndSet(0) == expectedHot;
+        assert parent.getRule("hot") == null;
+
+        // Parent's records know nothing about the fork's new memory buckets
+        for (FactHandle handle : handles) {
+            parent.delete(handle);
+        }
+        parent.fire();
+        List<Object> facts = new ArrayList<>();
+        parent.forEachFact((h, o) -> facts.add(o));
+        assert facts.size() == 1 : facts;
+
+        // Session rules are inherited by forks
+        StatefulSession second = fork.fork();
+        assert second.getRule("hot") != null;
+        second.insert(initFact(new TypeA(), null, 5));
+        second.fire();
+        assert hot.get() == 1;
+
+        reference.close();
+        parent.close();
+        fork.close();
+        second.close();
+    }
+
+    /**
+     * Bytes allocated by forking a fired session with the given number of joined facts
+     */
+    private static long forkAllocation(Knowledge knowledge, com.sun.management.ThreadMXBean threads, int size) {
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            for (int i = 0; i < size; i++) {
+                TypeB b = new TypeB();
+                b.setAllNumeric(i);
+                session.insert(initFact(new TypeA(), null, i));
+                session.insert(b);
+            }
+            session.fire();
+            session.fork().close();
+            long before = threads.getCurrentThreadAllocatedBytes();
+            StatefulSession fork = session.fork();
+            long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+            fork.close();
+            return allocated;
+        }
+    }
+
+    @Test
+    void forkCostIsLinear() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        Assumptions.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+        Knowledge knowledge = knowledge(new Configuration());
+        long small = forkAllocation(knowledge, threads, 2_000);
+        long large = forkAllocation(knowledge, threads, 16_000);
+        // Condition memories are copied in full, so the cost follows the memory size
+        double ratio = (double) large / small;
+        assert ratio > 4.0 && ratio < 16.0 : "Fork allocations: " + small + " vs " + large;
+    }
+
+    @Test
+    void unfiredChangesPreventForking() {
+        Knowledge knowledge = knowledge(new Configuration());
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            session.insert(initFact(new TypeA(), null, 1));
+            try {
+                session.fork();
+                assert false;
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+            session.fire();
+            try (StatefulSession fork = session.fork()) {
+                assert fork.getRules().size() == 3;
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.evrete;
+
+import org.evrete.api.FactHandle;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.classes.TypeC;
+import org.evrete.runtime.BetaConditionNode;
+import org.evrete.runtime.RuntimeRuleImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.evrete.api.FactBuilder.fact;
+import static org.evrete.helper.TestUtils.initFact;
+
+class SharedBetaNodesTests {
+    private static final String[] CONDITIONS = {"$b.l > $c.l", "$b.l < $c.l", "$b.l == $c.l"};
+    private final AtomicInteger[] counters = new AtomicInteger[CONDITIONS.length + 1];
+    private KnowledgeService service;
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    private Knowledge knowledge(boolean share, boolean deferredPurge) {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.SHARE_BETA_NODES, String.valueOf(share));
+        conf.setProperty(Configuration.DEFERRED_PURGE, String.valueOf(deferredPurge));
+        conf.setProperty(Configuration.PURGE_THRESHOLD, "0.9");
+        service = new KnowledgeService(conf);
+        Knowledge knowledge = service.newKnowledge();
+        for (int i = 0; i < CONDITIONS.length; i++) {
+            AtomicInteger counter = new AtomicInteger();
+            counters[i] = counter;
+            knowledge.newRule("rule" + i)
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class),
+                            fact("$c", TypeC.class)
+                    )
+                    .where("$a.i == $b.i")
+                    .where(CONDITIONS[i], 10.0)
+                    .execute(ctx -> counter.incrementAndGet());
+        }
+        counters[CONDITIONS.length] = new AtomicInteger();
+        return knowledge;
+    }
+
+    private int[] counts() {
+        int[] result = new int[counters.length];
+        for (int i = 0; i < counters.length; i++) {
+            result[i] = counters[i].getAndSet(0);
+        }
+        return result;
+    }
+
+    private static BetaConditionNode prefixNode(StatefulSession session, String rule) {
+        RuntimeRuleImpl r = (RuntimeRuleImpl) session.getRule(rule);
+        BetaConditionNode[] sources = r.getEndNodes()[0].getConditionSources();
+        assert sources.length == 1;
+        return sources[0];
+    }
+
+    /**
+     * Fires a session a few times, inserting, updating, and deleting facts in between
+     */
+    private List<int[]> run(StatefulSession session) {
+        List<int[]> results = new ArrayList<>();
+        List<FactHandle> handles = new ArrayList<>();
+        for (int cycle = 0; cycle < 5; cycle++) {
+            for (int i = 0; i < 20; i++) {
+                handles.add(session.insert(initFact(new TypeA(), null, (i + cycle) % 6)));
+            }
+            TypeB b = new TypeB();
+            b.setAllNumeric(cycle % 4);
+            session.insert(b);
+            TypeC c = new TypeC();
+            c.setAllNumeric(cycle % 3);
+            session.insert(c);
+            for (int i = cycle; i < handles.size(); i += 4) {
+                if (session.getFact(handles.get(i)) != null) {
+                    if (i % 2 == 0) {
+                        session.delete(handles.get(i));
+                    } else {
+                        session.update(handles.get(i), initFact(new TypeA(), null, i % 4));
+                    }
+                }
+            }
+            session.fire();
+            results.add(counts());
+        }
+        return results;
+    }
+
+    private static void assertEquals(List<int[]> expected, List<int[]> actual) {
+        assert expected.size() == actual.size();
+        for (int i = 0; i < expected.size(); i++) {
+            assert Arrays.equals(expected.get(i), actual.get(i)) : "Cycle " + i + ", expected " + Arrays.toString(expected.get(i)) + ", actual " + Arrays.toString(actual.get(i));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void sharedNodesProduceSameActivations(boolean deferredPurge) {
+        List<int[]> expected;
+        try (StatefulSession session = knowledge(false, deferredPurge).newStatefulSession()) {
+            assert prefixNode(session, "rule0") != prefixNode(session, "rule1");
+            expected = run(session);
+        }
+        service.shutdown();
+        int total = 0;
+        for (int[] cycle : expected) {
+            total += cycle[0] + cycle[1] + cycle[2];
+        }
+        assert total > 0;
+
+        try (StatefulSession session = knowledge(true, deferredPurge).newStatefulSession()) {
+            BetaConditionNode shared = prefixNode(session, "rule0");
+            assert shared.isShared();
+            for (int i = 1; i < CONDITIONS.length; i++) {
+                assert prefixNode(session, "rule" + i) == shared;
+            }
+            assert !((RuntimeRuleImpl) session.getRule("rule0")).getEndNodes()[0].isShared();
+            assertEquals(expected, run(session));
+        }
+    }
+
+    @Test
+    void differentDeclarationsAreNotShared() {
+        Knowledge knowledge = knowledge(true, false);
+        knowledge.newRule("other")
+                .forEach(
+                        fact("$a", TypeA.class),
+                        fact("$x", TypeB.class),
+                        fact("$c", TypeC.class)
+                )
+                .where("$a.i == $x.i")
+                .where("$x.l > $c.l", 10.0)
+                .execute(ctx -> counters[CONDITIONS.length].incrementAndGet());
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            assert prefixNode(session, "other") != prefixNode(session, "rule0");
+            assert prefixNode(session, "rule1") == prefixNode(session, "rule0");
+            List<int[]> results = run(session);
+            for (int[] cycle : results) {
+                assert cycle[0] == cycle[CONDITIONS.length];
+            }
+        }
+    }
+
+    @Test
+    void hotDeployedRulesAndForks() {
+        Knowledge knowledge = knowledge(true, false);
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            run(session);
+            AtomicInteger hot = counters[CONDITIONS.length];
+            session.newRule("hot")
+                    .forEach(
+                            fact("$a", TypeA.class),
+                            fact("$b", TypeB.class),
+                            fact("$c", TypeC.class)
+                    )
+                    .where("$a.i == $b.i")
+                    .where("$b.l >= $c.l", 10.0)
+                    .execute(ctx -> hot.incrementAndGet());
+            assert prefixNode(session, "hot") == prefixNode(session, "rule0");
+
+            try (StatefulSession fork = session.fork()) {
+                assert prefixNode(fork, "hot") == prefixNode(fork, "rule0");
+                assert prefixNode(fork, "rule0") != prefixNode(session, "rule0");
+                // The hot rule matches what the first and the third rules match
+                for (int[] cycle : run(fork)) {
+                    assert cycle[CONDITIONS.length] == cycle[0] + cycle[2];
+                }
+            }
+            for (int[] cycle : run(session)) {
+                assert cycle[CONDITIONS.length] == cycle[0] + cycle[2];
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.evrete;
+
+import org.evrete.api.*;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class StatelessSessionPoolTests {
+    private KnowledgeService service;
+    private Knowledge knowledge;
+
+    @BeforeEach
+    void init() {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.STATELESS_SESSION_POOL_SIZE, "2");
+        service = new KnowledgeService(conf);
+        knowledge = service.newKnowledge();
+    }
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    private static int run(StatelessSession session, int... values) {
+        List<TypeA> facts = new ArrayList<>();
+        for (int value : values) {
+            TypeA a = new TypeA();
+            a.setI(value);
+            facts.add(a);
+            session.insert(a);
+        }
+        AtomicInteger count = new AtomicInteger();
+        session.fire(o -> count.incrementAndGet());
+        int positive = 0;
+        for (TypeA a : facts) {
+            if (a.getL() == 1L) {
+                positive++;
+            }
+        }
+        assert count.get() == values.length;
+        return positive;
+    }
+
+    private void addRule(String name, String condition) {
+        knowledge
+                .newRule(name)
+                .forEach("$a", TypeA.class)
+                .where(condition)
+                .execute(ctx -> ctx.<TypeA>get("$a").setL(1L));
+    }
+
+    @Test
+    void sessionsAreReused() {
+        addRule("positive", "$a.i > 0");
+
+        StatelessSession first = knowledge.newStatelessSession();
+        assert run(first, -1, 1, 2) == 2;
+        assert knowledge.getSessions().isEmpty();
+
+        // Memory of the previous run is gone
+        StatelessSession second = knowledge.newStatelessSession();
+        assert second == first;
+        assert knowledge.getSessions().size() == 1;
+        assert run(second, 3, -4) == 1;
+
+        // Two sessions at once
+        StatelessSession third = knowledge.newStatelessSession();
+        StatelessSession fourth = knowledge.newStatelessSession();
+        assert third == first;
+        assert fourth != first;
+        assert run(third, 5) == 1;
+        assert run(fourth, -5) == 0;
+    }
+
+    @Test
+    void newRulesInvalidatePool() {
+        addRule("positive", "$a.i > 0");
+        StatelessSession first = knowledge.newStatelessSession();
+        assert run(first, 1) == 1;
+
+        addRule("negative", "$a.i < 0");
+        StatelessSession second = knowledge.newStatelessSession();
+        assert second != first;
+        assert second.getRules().size() == 2;
+        assert run(second, 1, -1, 0) == 2;
+        assert knowledge.newStatelessSession() == second;
+    }
+
+    @Test
+    void customizedSessionsAreNotReused() {
+        addRule("positive", "$a.i > 0");
+        StatelessSession first = knowledge.newStatelessSession();
+        first.newRule("negative")
+                .forEach("$a", TypeA.class)
+                .where("$a.i < 0")
+                .execute(ctx -> ctx.<TypeA>get("$a").setL(1L));
+        assert run(first, 1, -1) == 2;
+        assert knowledge.newStatelessSession() != first;
+    }
+
+    @Test
+    void changedSessionsAreNotReused() {
+        addRule("positive", "$a.i > 0");
+        StatelessSession first = knowledge.newStatelessSession();
+        first.getRule("positive").setRhs(ctx -> ctx.<TypeA>get("$a").setL(2L));
+        assert run(first, 1) == 0;
+
+        // The next session runs the knowledge's RHS
+        StatelessSession second = knowledge.newStatelessSession();
+        assert second != first;
+        // Same for the environment and types
+        second.set("key", "value");
+        assert run(second, 1) == 1;
+        StatelessSession third = knowledge.newStatelessSession();
+        assert third != second;
+        third.getTypeResolver().declare("custom", TypeB.class);
+        assert run(third, 1) == 1;
+        assert knowledge.newStatelessSession() != third;
+    }
+
+    @Test
+    void settingsAreReset() {
+        addRule("positive", "$a.i > 0");
+        StatelessSession first = knowledge.newStatelessSession();
+        List<SessionLifecycleListener.Event> events = new ArrayList<>();
+        first.addEventListener(events::add);
+        first.setExecutionPredicate(() -> false);
+        assert run(first, 1) == 0;
+        assert events.contains(SessionLifecycleListener.Event.PRE_CLOSE);
+
+        events.clear();
+        StatelessSession second = knowledge.newStatelessSession();
+        assert second == first;
+        assert run(second, 1) == 1;
+        assert events.isEmpty();
+    }
+
+    @Test
+    void failedSessionsAreClosed() {
+        knowledge
+                .newRule("failing")
+                .forEach("$a", TypeA.class)
+                .execute(ctx -> {
+                    throw new IllegalStateException("Expected");
+                });
+        StatelessSession first = knowledge.newStatelessSession();
+        first.insert(new TypeA());
+        try {
+            first.fire();
+            assert false;
+        } catch (RuntimeException e) {
+            // Expected
+        }
+        assert knowledge.newStatelessSession() != first;
+    }
+}
@@ -2,6 +2,7 @@ package org.evrete.helper;
 
 import org.evrete.api.ReIterator;
 import org.evrete.api.StatefulSession;
+import org.evrete.classes.Base;
 import org.evrete.collections.CollectionReIterator;
 import org.evrete.collections.LinearHashSet;
 import org.evrete.collections.LinkedDataRWD;
@@ -33,6 +34,15 @@ public final class TestUtils {
         }
     }
 
+    /**
+     * Sets the id of a test fact and all its numeric fields to the given value
+     */
+    public static <T extends Base> T initFact(T fact, String id, int value) {
+        fact.setId(id);
+        fact.setAllNumeric(value);
+        return fact;
+    }
+
     public static void sleep(long ms) {
         try {
             Thread.sleep(ms);
@@ -0,0 +1,89 @@
+package org.evrete.runtime;
+
+import org.evrete.api.FactHandleVersioned;
+import org.evrete.api.ValueHandle;
+import org.evrete.util.Mask;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Objects;
+
+class RuntimeFactBatchTest {
+
+    private static int fill(RuntimeFactBatch batch, int count, boolean alpha) {
+        for (int i = 0; i < count; i++) {
+            int row = batch.add(new FactHandleVersioned(null, i), new FactRecord("fact" + i), alpha);
+            assert row == i;
+            batch.setValue(row, 0, new Value(i % 3));
+            batch.setValue(row, 1, new Value(0));
+            if (alpha && i % 2 == 0) {
+                batch.getAlphaTests(row).set(1);
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void growAndReuse() {
+        RuntimeFactBatch batch = new RuntimeFactBatch();
+        batch.reset(2);
+        int count = fill(batch, 100, true);
+        assert batch.size() == count;
+
+        for (int row = 0; row < count; row++) {
+            assert batch.getHandle(row).getVersion() == row;
+            assert batch.getRecord(row).instance.equals("fact" + row);
+            assert batch.getAlphaTests(row).get(1) == (row % 2 == 0);
+            assert batch.sameValues(row, row % 3);
+            assert !batch.sameValues(row, (row + 1) % 3);
+        }
+
+        BitSet bits = batch.getAlphaTests(3);
+        batch.clear();
+        assert batch.size() == 0;
+
+        // Alpha bit sets must be reused and cleared
+        fill(batch, 10, true);
+        assert batch.getAlphaTests(3) == bits;
+        assert bits.isEmpty();
+
+        // Types without alpha conditions share the empty mask
+        batch.reset(2);
+        fill(batch, 10, false);
+        assert batch.getAlphaTests(3) == Mask.EMPTY;
+    }
+
+    @Test
+    void fieldCountChange() {
+        RuntimeFactBatch batch = new RuntimeFactBatch();
+        batch.reset(0);
+        batch.add(new FactHandleVersioned(null, 0), new FactRecord("a"), false);
+        batch.add(new FactHandleVersioned(null, 0), new FactRecord("b"), false);
+        assert batch.sameValues(0, 1);
+
+        batch.reset(2);
+        fill(batch, 40, false);
+        assert batch.sameValues(0, 3);
+        assert !batch.sameValues(0, 1);
+    }
+
+    private static class Value implements ValueHandle {
+        private final int value;
+
+        Value(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            return value == ((Value) o).value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(value);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.evrete.runtime.compiler;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+class ClassCacheTest {
+
+    private static String source(String name, int value) {
+        return "package test.cache;\n" +
+                "public class " + name + " implements java.util.concurrent.Callable<Object> {\n" +
+                "    private final Runnable nested = new Runnable() { public void run() {} };\n" +
+                "    public " + name + " self() { return this; }\n" +
+                "    public Object call() { nested.run(); return self().getClass().getName() + \":" + value + "\"; }\n" +
+                "}";
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object call(SourceCompiler compiler, String source) throws Exception {
+        Map<String, Class<?>> compiled = compiler.compile(Collections.singleton(source));
+        Class<?> cl = compiled.get(source);
+        return ((Callable<Object>) cl.getConstructor().newInstance()).call();
+    }
+
+    private static SourceCompiler newCompiler(ClassCache cache) {
+        return new SourceCompiler(new RuntimeClassloader(Thread.currentThread().getContextClassLoader()), cache);
+    }
+
+    private static long count(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void renamedOnLoad(@TempDir Path dir) throws Exception {
+        ClassCache cache = new ClassCache(dir);
+        assert call(newCompiler(cache), source("First", 1)).equals("test.cache.First:1");
+        assert count(dir) == 1;
+
+        // Same source modulo the class name is served from the cache
+        String second = source("Second", 1);
+        String key = cache.key("test.cache.Second", second);
+        assert Files.exists(dir.resolve(key + ".classes"));
+        assert call(newCompiler(cache), second).equals("test.cache.Second:1");
+        assert count(dir) == 1;
+
+        // Different source
+        assert call(newCompiler(cache), source("Third", 2)).equals("test.cache.Third:2");
+        assert count(dir) == 2;
+    }
+
+    @Test
+    void cacheIsConsulted(@TempDir Path dir) throws Exception {
+        ClassCache cache = new ClassCache(dir);
+        SourceCompiler compiler = newCompiler(cache);
+        call(compiler, source("Original", 1));
+        call(compiler, source("Replacement", 2));
+
+        // Storing the classes of one source under the key of the other
+        String original = source("Original", 1);
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        Map<String, byte[]> replacement = cache.load(cache.key("test.cache.Replacement", source("Replacement", 2)), "test.cache.Original", loader);
+        assert replacement != null;
+        cache.store(cache.key("test.cache.Original", original), "test.cache.Original", replacement, loader);
+
+        assert call(newCompiler(cache), source("Another", 1)).equals("test.cache.Another:2");
+    }
+
+    @Test
+    void changedDependencies(@TempDir Path dir) throws Exception {
+        ClassCache cache = new ClassCache(dir);
+        String client = "package test.cache;\n" +
+                "public class Client implements java.util.concurrent.Callable<Object> {\n" +
+                "    public Object call() { return \"\" + new Model().value(); }\n" +
+                "}";
+
+        // The model is compiled without the cache, so that only the client's entry exists
+        assert call(withModel(cache, "public int value() { return 1; }"), client).equals("1");
+        assert count(dir) == 1;
+
+        // A changed signature would fail with a NoSuchMethodError if the stale entry was served
+        assert call(withModel(cache, "public long value() { return 2L; }"), client).equals("2");
+        assert count(dir) == 1;
+
+        // The refreshed entry is served for the same model
+        assert call(withModel(cache, "public long value() { return 2L; }"), client).equals("2");
+        assert count(dir) == 1;
+    }
+
+    private static SourceCompiler withModel(ClassCache cache, String method) throws Exception {
+        RuntimeClassloader classloader = new RuntimeClassloader(Thread.currentThread().getContextClassLoader());
+        new SourceCompiler(classloader).compile(Collections.singleton("package test.cache; public class Model { " + method + " }"));
+        return new SourceCompiler(classloader, cache);
+    }
+
+    @Test
+    void knowledgeAcrossServices(@TempDir Path dir) throws Exception {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.CLASS_CACHE_DIR, dir.toString());
+
+        long cached = 0;
+        for (int run = 0; run < 2; run++) {
+            KnowledgeService service = new KnowledgeService(conf);
+            try {
+                Knowledge knowledge = service.newKnowledge();
+                knowledge.newRule()
+                        .forEach("$a", TypeA.class)
+                        .where("$a.i > 2")
+                        .execute("$a.setL(-1L);");
+
+                try (StatefulSession session = knowledge.newStatefulSession()) {
+                    TypeA[] facts = new TypeA[5];
+                    for (int i = 0; i < facts.length; i++) {
+                        facts[i] = new TypeA();
+                        facts[i].setI(i);
+                        session.insert(facts[i]);
+                    }
+                    session.fire();
+                    for (TypeA a : facts) {
+                        assert (a.getL() == -1L) == (a.getI() > 2);
+                    }
+                }
+            } finally {
+                service.shutdown();
+            }
+            if (run == 0) {
+                cached = count(dir);
+                assert cached >= 2;
+            } else {
+                assert count(dir) == cached;
+            }
+        }
+    }
+}
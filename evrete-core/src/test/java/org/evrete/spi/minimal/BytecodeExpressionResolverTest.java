@@ -0,0 +1,155 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.*;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.runtime.KnowledgeRuntime;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+class BytecodeExpressionResolverTest {
+    private static final String[] GENERATED = new String[]{
+            "$a.i > 3",
+            "$a.i * 2 + 1 <= $b.i - (-4)",
+            "$a.i / 3 == $b.i % 4",
+            "$a.l >= $b.i * 3L",
+            "$a.l != 5L && $a.s < 9",
+            "$a.d < $b.f || $a.d > 10.5",
+            "-$a.d == $b.d - 2.0 * $b.d",
+            "$a.f >= 1.5f && $a.f <= 1e1",
+            "$a.f != $b.f",
+            "!($a.i == $b.i) || $a.s == $b.s",
+            "$a.d / $b.d > 0.5",
+            "$a.str == null",
+            "$a.str != $b.id",
+            "($a.i > 2) == ($b.i > 2)",
+            "$a.i + $a.l + $a.f + $a.d > 12"
+    };
+    private static final String[] COMPILED = new String[]{
+            "\"x\".equals($a.str)",
+            "$a.i > 0x3",
+            "(long) $a.d > 3",
+            "$a.i > 3 ? true : false",
+            "($a.i & 1) == 0"
+    };
+
+    private static int[] fire(Class<?> provider) throws Exception {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.SPI_EXPRESSION_RESOLVER, provider.getName());
+        KnowledgeService service = new KnowledgeService(conf);
+        try {
+            KnowledgeRuntime knowledge = (KnowledgeRuntime) service.newKnowledge();
+            int total = GENERATED.length + COMPILED.length;
+            AtomicInteger[] counters = new AtomicInteger[total];
+            for (int i = 0; i < total; i++) {
+                String condition = i < GENERATED.length ? GENERATED[i] : COMPILED[i - GENERATED.length];
+                AtomicInteger counter = new AtomicInteger();
+                counters[i] = counter;
+                RuleBuilder<Knowledge> builder = knowledge.newRule("rule " + i);
+                LhsBuilder<Knowledge> lhs = builder.forEach("$a", TypeA.class, "$b", TypeB.class);
+                EvaluatorHandle handle = builder.createCondition(condition);
+                Evaluator evaluator = knowledge.getEvaluator(handle);
+                if (provider == BytecodeExpressionResolverProvider.class) {
+                    assert (evaluator instanceof GeneratedEvaluator) == (i < GENERATED.length) : condition;
+                } else {
+                    assert evaluator instanceof CompiledEvaluator;
+                }
+                lhs
+                        .where(handle)
+                        .execute(ctx -> counter.incrementAndGet());
+            }
+
+            try (StatefulSession session = knowledge.newStatefulSession()) {
+                for (int i = -6; i < 10; i++) {
+                    TypeA a = new TypeA(String.valueOf(i));
+                    a.setAllNumeric(i);
+                    if (i % 3 == 0) {
+                        a.setStr(null);
+                    }
+                    TypeB b = new TypeB(String.valueOf(i));
+                    b.setAllNumeric(i % 4);
+                    if (i == 7) {
+                        a.setD(Double.NaN);
+                        b.setF(Float.NaN);
+                    }
+                    session.insert(a, b);
+                }
+                session.fire();
+            }
+
+            int[] result = new int[total];
+            for (int i = 0; i < total; i++) {
+                result[i] = counters[i].get();
+            }
+            return result;
+        } finally {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void sameAsCompiled() throws Exception {
+        int[] compiled = fire(DefaultExpressionResolverProvider.class);
+        int[] generated = fire(BytecodeExpressionResolverProvider.class);
+        for (int i = 0; i < compiled.length; i++) {
+            assert compiled[i] == generated[i] : "Condition " + i + ", expected " + compiled[i] + ", actual " + generated[i];
+        }
+        assert compiled[0] > 0;
+    }
+
+    @Test
+    void impliesEquality() throws Exception {
+        String[] equalities = new String[]{"$a.i == $b.i", "($b.l) == ($a.l)", "$a.s == $b.s"};
+        String[] others = new String[]{"$a.i - $b.i == 0", "$a.i == $b.l", "$a.d == $b.d", "$a.str == $b.id", "$a.i == $a.i", "$a.i != $b.i", "$a.i == 3"};
+        for (Class<?> provider : new Class<?>[]{DefaultExpressionResolverProvider.class, BytecodeExpressionResolverProvider.class}) {
+            Configuration conf = new Configuration();
+            conf.setProperty(Configuration.SPI_EXPRESSION_RESOLVER, provider.getName());
+            KnowledgeService service = new KnowledgeService(conf);
+            try {
+                KnowledgeRuntime knowledge = (KnowledgeRuntime) service.newKnowledge();
+                RuleBuilder<Knowledge> builder = knowledge.newRule();
+                builder.forEach("$a", TypeA.class, "$b", TypeB.class);
+                for (String condition : equalities) {
+                    assert knowledge.getEvaluator(builder.createCondition(condition)).impliesEquality() : condition;
+                }
+                for (String condition : others) {
+                    assert !knowledge.getEvaluator(builder.createCondition(condition)).impliesEquality() : condition;
+                }
+            } finally {
+                service.shutdown();
+            }
+        }
+    }
+
+    @Test
+    void evaluationErrors() throws Exception {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.SPI_EXPRESSION_RESOLVER, BytecodeExpressionResolverProvider.class.getName());
+        KnowledgeService service = new KnowledgeService(conf);
+        try {
+            KnowledgeRuntime knowledge = (KnowledgeRuntime) service.newKnowledge();
+            RuleBuilder<Knowledge> builder = knowledge.newRule();
+            LhsBuilder<Knowledge> lhs = builder.forEach("$a", TypeA.class, "$b", TypeB.class);
+            EvaluatorHandle handle = builder.createCondition("$a.i / $b.i > 0");
+            assert knowledge.getEvaluator(handle) instanceof GeneratedEvaluator;
+            lhs.where(handle)
+                    .execute();
+            try (StatefulSession session = knowledge.newStatefulSession()) {
+                session.insert(new TypeA(), new TypeB());
+                session.fire();
+                assert false;
+            } catch (IllegalStateException e) {
+                Throwable cause = e;
+                while (cause.getCause() != null) {
+                    cause = cause.getCause();
+                }
+                assert cause instanceof ArithmeticException;
+            }
+        } finally {
+            service.shutdown();
+        }
+    }
+}
@@ -4,6 +4,8 @@ import org.evrete.KnowledgeService;
 import org.evrete.api.FactHandle;
 import org.evrete.api.FactStorage;
 import org.evrete.api.KeyMode;
+import org.evrete.api.ReIterator;
+import org.evrete.api.Type;
 import org.evrete.classes.TypeA;
 import org.evrete.runtime.KnowledgeRuntime;
 import org.evrete.runtime.StatefulSessionImpl;
@@ -14,6 +16,11 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 class DefaultFactStorageTest {
     private static KnowledgeService service;
     private KnowledgeRuntime knowledge;
@@ -76,4 +83,61 @@ class DefaultFactStorageTest {
 
 
     }
-}
\ No newline at end of file
+
+    @Test
+    void handleSlots() {
+        Type<?> type = knowledge.getTypeResolver().declare(TypeA.class);
+        DefaultFactStorage<String> storage = new DefaultFactStorage<>(type, String::equals, 4);
+
+        List<FactHandle> handles = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            handles.add(storage.insert("fact" + i));
+        }
+        // Duplicates are detected
+        assert storage.insert("fact5") == null;
+        assert storage.iterator().reset() == 10_000;
+
+        // Deleting every other fact
+        for (int i = 0; i < handles.size(); i += 2) {
+            storage.delete(handles.get(i));
+        }
+        assert storage.getFact(handles.get(0)) == null;
+        assert storage.getFact(handles.get(1)).equals("fact1");
+        assert storage.iterator().reset() == 5_000;
+
+        // Released slots are reused, but stale handles must not resolve to new facts
+        Set<FactHandle> newHandles = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            FactHandle h = storage.insert("new" + i);
+            assert h != null;
+            newHandles.add(h);
+        }
+        for (int i = 0; i < handles.size(); i += 2) {
+            assert storage.getFact(handles.get(i)) == null;
+            assert !newHandles.contains(handles.get(i));
+        }
+        // Deleted facts can be inserted again
+        assert storage.insert("fact0") != null;
+
+        storage.update(handles.get(1), "updated");
+        assert storage.getFact(handles.get(1)).equals("updated");
+
+        int count = 0;
+        ReIterator<FactStorage.Entry<String>> it = storage.iterator();
+        while (it.hasNext()) {
+            FactStorage.Entry<String> e = it.next();
+            assert storage.getFact(e.getHandle()).equals(e.getInstance());
+            if (e.getInstance().startsWith("new")) {
+                it.remove();
+            }
+            count++;
+        }
+        assert count == 10_001;
+        assert it.reset() == 5_001;
+
+        storage.clear();
+        assert storage.iterator().reset() == 0;
+        assert storage.getFact(handles.get(1)) == null;
+        assert storage.insert("fact1") != null;
+    }
+}
@@ -94,6 +94,28 @@ class EvaluatorCompilerTest {
         testRhs(lhsBuilder);
     }
 
+    @Test
+    void testArrayArguments() throws Exception {
+        RuleBuilder<Knowledge> ruleBuilder = knowledge.newRule();
+        ruleBuilder.forEach("$a", TypeA.class, "$b", TypeB.class);
+
+        EvaluatorHandle handle = ruleBuilder.createCondition("$a.i + $b.l > $a.d");
+        Evaluator condition = knowledge.getEvaluator(handle);
+        assert condition instanceof CompiledEvaluator;
+
+        for (int i = -3; i < 3; i++) {
+            Object[] args = new Object[]{i, 2L, 0.5};
+            assert condition.test(args) == condition.test(index -> args[index]);
+        }
+
+        try {
+            condition.test(new Object[]{null, 2L, 0.5});
+            assert false;
+        } catch (IllegalStateException e) {
+            assert e.getMessage().contains("$a.i + $b.l > $a.d");
+        }
+    }
+
     private void testRhs(LhsBuilder<Knowledge> lhsBuilder) {
         AtomicInteger counter = new AtomicInteger();
         Knowledge k = lhsBuilder.execute(ctx -> {
@@ -0,0 +1,89 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.api.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+class KeyedFactStoragePurgeTest {
+
+    private static void write(KeyedFactStorage storage, Object key, FactHandleVersioned... handles) {
+        storage.write(new ValueHandleImpl(key));
+        storage.write(Arrays.asList(handles));
+    }
+
+    private static Map<ValueHandle, Set<FactHandleVersioned>> contents(KeyedFactStorage storage) {
+        Map<ValueHandle, Set<FactHandleVersioned>> result = new HashMap<>();
+        ReIterator<MemoryKey> keys = storage.keys(KeyMode.OLD_OLD);
+        while (keys.hasNext()) {
+            MemoryKey key = keys.next();
+            Set<FactHandleVersioned> handles = new HashSet<>();
+            storage.values(KeyMode.OLD_OLD, key).forEachRemaining(handles::add);
+            result.put(key.get(0), handles);
+        }
+        return result;
+    }
+
+    @Test
+    void targetedPurge() {
+        KeyedFactStorage storage = new KeyedFactStorageSingle(16);
+        FactHandle a = new FactHandleImpl(1, 1, 0);
+        FactHandle b = new FactHandleImpl(2, 2, 0);
+        FactHandle c = new FactHandleImpl(3, 3, 0);
+        FactHandleVersioned a0 = new FactHandleVersioned(a, 0);
+        FactHandleVersioned b0 = new FactHandleVersioned(b, 0);
+        FactHandleVersioned c0 = new FactHandleVersioned(c, 0);
+
+        write(storage, "x", a0, b0);
+        write(storage, "y", c0);
+        storage.commitChanges();
+
+        // Fact 'a' gets updated and moves to another key
+        FactHandleVersioned a1 = new FactHandleVersioned(a, 1);
+        write(storage, "y", a1);
+        storage.commitChanges();
+
+        Set<FactHandleVersioned> live = new HashSet<>(Arrays.asList(a1, b0, c0));
+        Predicate<FactHandleVersioned> stale = h -> !live.contains(h);
+        List<MemoryKey> emptyKeys = new ArrayList<>();
+        assert storage.purge(Collections.singleton(a), stale, emptyKeys::add);
+        assert emptyKeys.isEmpty();
+
+        Map<ValueHandle, Set<FactHandleVersioned>> contents = contents(storage);
+        assert contents.get(new ValueHandleImpl("x")).equals(Collections.singleton(b0));
+        assert contents.get(new ValueHandleImpl("y")).equals(new HashSet<>(Arrays.asList(c0, a1)));
+
+        // Deleting the only fact of a key
+        live.remove(b0);
+        assert storage.purge(Collections.singleton(b), stale, emptyKeys::add);
+        assert emptyKeys.size() == 1;
+        assert emptyKeys.get(0).get(0).equals(new ValueHandleImpl("x"));
+        assert !contents(storage).containsKey(new ValueHandleImpl("x"));
+
+        // The updated fact must still be reachable under its new key
+        live.remove(a1);
+        emptyKeys.clear();
+        assert storage.purge(Collections.singleton(a), stale, emptyKeys::add);
+        assert emptyKeys.isEmpty();
+        assert contents(storage).get(new ValueHandleImpl("y")).equals(Collections.singleton(c0));
+
+        // Unknown handles are ignored
+        assert storage.purge(Collections.singleton(new FactHandleImpl(4, 4, 0)), stale, emptyKeys::add);
+        assert emptyKeys.isEmpty();
+    }
+
+    @Test
+    void unindexedStorage() {
+        KeyedFactStorage storage = new KeyedFactStorageMulti(16, 2, FactHandleChain.Factory.HEAP, false);
+        FactHandle a = new FactHandleImpl(1, 1, 0);
+        storage.write(new ValueHandleImpl("x"));
+        storage.write(new ValueHandleImpl("y"));
+        storage.write(Collections.singleton(new FactHandleVersioned(a, 0)));
+        storage.commitChanges();
+        // The caller is expected to fall back to a full scan
+        assert !storage.purge(Collections.singleton(a), h -> true, k -> {
+            throw new IllegalStateException();
+        });
+    }
+}
@@ -0,0 +1,159 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.KnowledgeService;
+import org.evrete.api.FactHandle;
+import org.evrete.api.FactHandleVersioned;
+import org.evrete.api.ReIterator;
+import org.evrete.api.StatefulSession;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.util.NextIntSupplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class OffHeapFactHandlesTest {
+    private static KnowledgeService service;
+
+    @BeforeAll
+    static void setUpClass() {
+        service = KnowledgeService.builder()
+                .withMemoryFactoryProvider(OffHeapMemoryFactoryProvider.class)
+                .build();
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    private static FactHandleVersioned handle(long id) {
+        return new FactHandleVersioned(new FactHandleImpl(id, (int) id, 3), (int) id * 2);
+    }
+
+    private static List<Long> ids(FactHandleChain chain) {
+        List<Long> result = new ArrayList<>();
+        for (FactHandleVersioned h : chain) {
+            FactHandleImpl impl = (FactHandleImpl) h.getHandle();
+            assert impl.getTypeId() == 3;
+            assert h.getVersion() == impl.id() * 2;
+            result.add(impl.id());
+        }
+        return result;
+    }
+
+    @Test
+    void chains() {
+        // Small segments to test segment allocation
+        OffHeapFactHandles arena = new OffHeapFactHandles(2);
+        FactHandleChain c1 = arena.newChain();
+        FactHandleChain c2 = arena.newChain();
+        for (long i = 0; i < 10; i++) {
+            c1.add(handle(i));
+        }
+        for (long i = 10; i < 15; i++) {
+            c2.add(handle(i));
+        }
+        assert c1.size() == 10;
+        assert ids(c1).get(9) == 9L;
+
+        // Remove even ids, including the head and the tail
+        ReIterator<FactHandleVersioned> it = c1.iterator();
+        while (it.hasNext()) {
+            FactHandleImpl impl = (FactHandleImpl) it.next().getHandle();
+            if (impl.id() % 2 == 0 || impl.id() == 9) {
+                it.remove();
+            }
+        }
+        assert it.reset() == 4;
+        assert ids(c1).toString().equals("[1, 3, 5, 7]") : ids(c1);
+
+        c1.consume(c2);
+        assert c2.size() == 0;
+        assert !c2.iterator().hasNext();
+        assert c1.size() == 9;
+        assert ids(c1).toString().equals("[1, 3, 5, 7, 10, 11, 12, 13, 14]") : ids(c1);
+
+        // Released records are reused and the chain remains consistent
+        c1.add(handle(100));
+        c2.add(handle(200));
+        assert ids(c1).toString().equals("[1, 3, 5, 7, 10, 11, 12, 13, 14, 100]") : ids(c1);
+        assert ids(c2).toString().equals("[200]") : ids(c2);
+
+        c1.clear();
+        c2.clear();
+        arena.clear();
+        c1.add(handle(1));
+        assert ids(c1).toString().equals("[1]");
+    }
+
+    @Test
+    void iterationDoesNotAllocateHandles() {
+        OffHeapFactHandles arena = new OffHeapFactHandles(4);
+        FactHandleChain chain = arena.newChain();
+        for (long i = 0; i < 3; i++) {
+            chain.add(handle(i));
+        }
+        ReIterator<FactHandleVersioned> it = chain.iterator();
+        FactHandleVersioned first = it.next();
+        FactHandleVersioned copy = first.copy();
+        assert copy != first;
+        assert copy.copy() == copy;
+        assert copy.getHandle().equals(first.getHandle());
+        assert first.getHandle().equals(copy.getHandle());
+
+        FactHandleVersioned second = it.next();
+        assert second == first;
+        assert ((FactHandleImpl) second.getHandle()).id() == 1L;
+        // Copies are not affected by the iteration
+        assert ((FactHandleImpl) copy.getHandle()).id() == 0L;
+        assert copy.getVersion() == 0;
+        assert copy.getHandle().equals(new FactHandleImpl(0L, 0, 3));
+    }
+
+    @Test
+    void sessionTest() {
+        NextIntSupplier counter = new NextIntSupplier();
+        try (StatefulSession session = service.newKnowledge()
+                .newRule()
+                .forEach("$a", TypeA.class, "$b", TypeB.class)
+                .where("$a.i == $b.i")
+                .execute(ctx -> counter.next())
+                .newStatefulSession()) {
+
+            List<FactHandle> as = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                TypeA a = new TypeA();
+                a.setAllNumeric(i % 5);
+                TypeB b = new TypeB();
+                b.setAllNumeric(i);
+                as.add(session.insert(a));
+                session.insert(b);
+            }
+            session.fire();
+            // each of 5 b's with i < 5 matches 4 a's
+            assert counter.get() == 20 : "Actual: " + counter.get();
+
+            // Deleting half of a's must reach the off-heap chains
+            for (int i = 0; i < as.size(); i += 2) {
+                session.delete(as.get(i));
+            }
+            session.fire();
+            counter.set(0);
+
+            TypeA a = new TypeA();
+            a.setAllNumeric(1);
+            session.insert(a);
+            session.fire();
+            // New a matches the single b with i == 1
+            assert counter.get() == 1 : "Actual: " + counter.get();
+
+            NextIntSupplier total = new NextIntSupplier();
+            session.forEachFact((h, o) -> total.next());
+            assert total.get() == 31 : "Actual: " + total.get();
+        }
+    }
+}
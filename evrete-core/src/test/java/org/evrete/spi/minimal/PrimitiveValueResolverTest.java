@@ -0,0 +1,96 @@
+package org.evrete.spi.minimal;
+
+import org.evrete.Configuration;
+import org.evrete.KnowledgeService;
+import org.evrete.api.Knowledge;
+import org.evrete.api.StatefulSession;
+import org.evrete.api.Type;
+import org.evrete.api.TypeField;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeB;
+import org.evrete.util.NextIntSupplier;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class PrimitiveValueResolverTest {
+    private static KnowledgeService service;
+
+    @BeforeAll
+    static void setUpClass() {
+        Configuration conf = new Configuration();
+        conf.setProperty(Configuration.SPI_MEMORY_FACTORY, PrimitiveMemoryFactoryProvider.class.getName());
+        service = new KnowledgeService(conf);
+    }
+
+    @AfterAll
+    static void shutDownClass() {
+        service.shutdown();
+    }
+
+    @Test
+    void handles() {
+        PrimitiveValueResolver resolver = new PrimitiveValueResolver();
+        assert resolver.getValueHandle(int.class, 1).equals(resolver.getValueHandle(int.class, 1));
+        assert resolver.getValueHandle(int.class, 1).hashCode() == Integer.hashCode(1);
+        assert !resolver.getValueHandle(int.class, 1).equals(resolver.getValueHandle(long.class, 1L));
+        assert resolver.getValueHandle(double.class, Double.NaN).equals(resolver.getValueHandle(double.class, Double.NaN));
+        assert resolver.getValueHandle(boolean.class, true) == resolver.getValueHandle(boolean.class, true);
+        assert resolver.getValueHandle(String.class, null) == PrimitiveValueHandle.NULL;
+        assert resolver.getValueHandle(String.class, "a").equals(resolver.getValueHandle(String.class, "a"));
+
+        Object value = resolver.getValue(resolver.getValueHandle(float.class, 1.0f));
+        assert value instanceof Float;
+        assert resolver.getValue(resolver.getValueHandle(long.class, 3L)).equals(3L);
+    }
+
+    @Test
+    void fieldReaders() {
+        Knowledge knowledge = service.newKnowledge();
+        Type<TypeA> type = knowledge.getTypeResolver().declare(TypeA.class);
+        TypeField declared = type.declareIntField("twice", a -> a.getI() * 2);
+        TypeField resolved = type.getField("l");
+        TypeField floatField = type.getField("f");
+
+        TypeA a = new TypeA();
+        a.setAllNumeric(5);
+
+        PrimitiveValueResolver resolver = new PrimitiveValueResolver();
+        assert resolver.readValueHandle(declared, a) instanceof PrimitiveValueHandle.OfInt;
+        assert resolver.getValue(resolver.readValueHandle(declared, a)).equals(10);
+        assert resolver.readValueHandle(resolved, a) instanceof PrimitiveValueHandle.OfLong;
+        assert resolver.getValue(resolver.readValueHandle(resolved, a)).equals(5L);
+        assert resolver.getValue(resolver.readValueHandle(floatField, a)).equals(5.0f);
+
+        // Re-declaring a field with a generic function drops the primitive reader
+        type.declareField("twice", Integer.class, o -> o.getI() * 3);
+        assert resolver.getValue(resolver.readValueHandle(type.getField("twice"), a)).equals(15);
+    }
+
+    @Test
+    void sessionTest() {
+        NextIntSupplier counter = new NextIntSupplier();
+        Knowledge knowledge = service.newKnowledge();
+        knowledge.getTypeResolver().declare(TypeA.class).declareIntField("half", a -> a.getI() / 2);
+
+        try (StatefulSession session = knowledge
+                .newRule()
+                .forEach("$a", TypeA.class, "$b", TypeB.class)
+                .where("$a.half == $b.i")
+                .where("$a.l > 0")
+                .execute(ctx -> counter.next())
+                .newStatefulSession()) {
+
+            for (int i = 0; i < 10; i++) {
+                TypeA a = new TypeA();
+                a.setAllNumeric(i);
+                TypeB b = new TypeB();
+                b.setAllNumeric(i);
+                session.insert(a, b);
+            }
+            session.fire();
+            // $a.i in [1..9] joined with $b.i == $a.i / 2
+            assert counter.get() == 9 : "Actual: " + counter.get();
+        }
+    }
+}
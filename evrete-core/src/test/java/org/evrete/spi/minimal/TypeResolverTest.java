@@ -2,18 +2,17 @@ package org.evrete.spi.minimal;
 
 import org.evrete.Configuration;
 import org.evrete.KnowledgeService;
-import org.evrete.api.Knowledge;
-import org.evrete.api.StatefulSession;
-import org.evrete.api.Type;
-import org.evrete.api.TypeResolver;
+import org.evrete.api.*;
+import org.evrete.classes.TypeA;
+import org.evrete.classes.TypeD;
 import org.evrete.util.RhsAssert;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 class TypeResolverTest {
     private static KnowledgeService service;
@@ -28,6 +27,114 @@ class TypeResolverTest {
         service.shutdown();
     }
 
+    @Test
+    void testFieldAccessors() {
+        TypeResolver resolver = service.newKnowledge().getTypeResolver();
+        Type<TypeA> type = resolver.declare(TypeA.class);
+        TypeA a = new TypeA();
+        a.setAllNumeric(3);
+        TypeD d = new TypeD();
+        d.setAllNumeric(5);
+        a.setTypeD(d);
+
+        // Getters are called via generated functions, public fields via method handles
+        TypeFieldImpl l = (TypeFieldImpl) type.getField("l");
+        assert !l.getFunction().getClass().getName().contains("HandleFunction");
+        assert l.<Long>readValue(a) == 3L;
+        assert l.getHandleReader().apply(a).equals(new PrimitiveValueHandle.OfLong(3L));
+        TypeFieldImpl i = (TypeFieldImpl) type.getField("i");
+        assert i.<Integer>readValue(a) == 3;
+        assert i.getHandleReader().apply(a).equals(new PrimitiveValueHandle.OfInt(3));
+        assert ((TypeFieldImpl) type.getField("d")).getHandleReader().apply(a).equals(new PrimitiveValueHandle.OfDouble(3.0));
+        assert type.getField("f").<Float>readValue(a) == 3.0f;
+
+        // Nested fields
+        assert type.getField("typeD.l").<Long>readValue(a) == 5L;
+        assert type.getField("typeD.i").<Integer>readValue(a) == 5;
+        assert type.getField("typeD.id.length").<Integer>readValue(a) == 0;
+        a.setTypeD(null);
+        assert type.getField("typeD.l").readValue(a) == null;
+        assert type.getField("typeD.id.length").readValue(a) == null;
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void testFieldsReader() {
+        TypeResolver resolver = service.newKnowledge().getTypeResolver();
+        Type<TypeA> type = resolver.declare(TypeA.class);
+        type.declareIntField("twice", o -> o.getI() * 2);
+        TypeA a = new TypeA("a");
+        a.setAllNumeric(3);
+        TypeD d = new TypeD("d");
+        d.setAllNumeric(5);
+        a.setTypeD(d);
+
+        String[] names = new String[]{"i", "l", "d", "str", "typeD.l", "typeD.id.length", "", "twice"};
+        TypeField[] fields = new TypeField[names.length];
+        for (int i = 0; i < names.length; i++) {
+            fields[i] = type.getField(names[i]);
+        }
+        BiConsumer<Object, Object[]> reader = type.fieldsReader(fields);
+        assert reader.getClass().getName().contains(".generated.");
+        // Same accesses share the generated class
+        assert type.copyOf().fieldsReader(fields).getClass() == reader.getClass();
+
+        Object[] values = new Object[fields.length];
+        reader.accept(a, values);
+        for (int i = 0; i < fields.length; i++) {
+            assert Objects.equals(values[i], fields[i].readValue(a)) : names[i];
+        }
+        assert values[6] == a;
+        assert values[7].equals(6);
+
+        a.setTypeD(null);
+        reader.accept(a, values);
+        assert values[4] == null;
+        assert values[5] == null;
+
+        // Map fields
+        Type<Map> mapType = resolver.declare("Order", Map.class);
+        TypeField price = mapType.declareMapField("price", Double.class, "price");
+        TypeField id = mapType.declareMapField("id", String.class, "id");
+        Map<String, Object> order = new HashMap<>();
+        order.put("price", 12.5);
+        order.put("id", "order-1");
+        assert price.<Double>readValue(order) == 12.5;
+        Object[] orderValues = new Object[2];
+        BiConsumer<Object, Object[]> orderReader = mapType.fieldsReader(new TypeField[]{id, price});
+        assert orderReader.getClass().getName().contains(".generated.");
+        orderReader.accept(order, orderValues);
+        assert orderValues[0].equals("order-1");
+        assert orderValues[1].equals(12.5);
+    }
+
+    @Test
+    @SuppressWarnings("rawtypes")
+    void testMapFacts() {
+        Knowledge knowledge = service.newKnowledge();
+        Type<Map> type = knowledge.getTypeResolver().declare("Order", Map.class);
+        type.declareMapField("price", Double.class, "price");
+        type.declareMapField("qty", Integer.class, "qty");
+
+        AtomicInteger counter = new AtomicInteger();
+        knowledge
+                .newRule()
+                .forEach("$o", "Order")
+                .where("$o.price * $o.qty > 100.0")
+                .execute(ctx -> counter.incrementAndGet());
+
+        try (StatefulSession session = knowledge.newStatefulSession()) {
+            for (int i = 0; i < 10; i++) {
+                Map<String, Object> order = new HashMap<>();
+                order.put("price", 20.0);
+                order.put("qty", i);
+                session.insertAs("Order", order);
+            }
+            session.fire();
+        }
+        assert counter.get() == 4;
+    }
+
     @Test
     void testInheritance1() {
         RhsAssert rhsAssert = new RhsAssert("$s", StatefulSession.class);
@@ -35,15 +35,15 @@ class DSLKnowledge extends KnowledgeWrapper {
         // Building rules
         RuleSet.Sort defaultSort = Utils.deriveSort(meta.javaClass);
         meta.ruleMethods.sort(new RuleComparator(defaultSort));
+        // Saving current base class
+        String currentConditionBaseClass = delegate.getConfiguration().getProperty(CONDITION_BASE_CLASS);
+        // Setting new base class for conditions
+        delegate
+                .getConfiguration()
+                .setProperty(CONDITION_BASE_CLASS, canonicalName(meta.javaClass));
+
+        List<RuleBuilder<Knowledge>> builders = new ArrayList<>(meta.ruleMethods.size());
         for (RuleMethod rm : meta.ruleMethods) {
-            // Saving current base class
-            String currentConditionBaseClass = delegate.getConfiguration().getProperty(CONDITION_BASE_CLASS);
-            // Setting new base class for conditions
-            delegate
-                    .getConfiguration()
-                    .setProperty(CONDITION_BASE_CLASS, canonicalName(meta.javaClass));
-
-
             RuleBuilder<Knowledge> builder = this
                     .newRule(rm.getRuleName());
 
@@ -84,17 +84,21 @@ class DSLKnowledge extends KnowledgeWrapper {
             }
 
             // Assigning dummy RHS to finalize builder
-            lhs.execute(c -> {
+            builder.setRhs(c -> {
                 throw new IllegalStateException();
             });
+            builders.add(builder);
             rules.add(new DSLRule(rm, predicateMethods));
-            // Restoring the original base class
-            if(currentConditionBaseClass != null) {
-                delegate
-                        .getConfiguration()
-                        .setProperty(CONDITION_BASE_CLASS, currentConditionBaseClass);
-            }
+        }
 
+        // Compiling all the rules at once
+        addRules(builders);
+
+        // Restoring the original base class
+        if(currentConditionBaseClass != null) {
+            delegate
+                    .getConfiguration()
+                    .setProperty(CONDITION_BASE_CLASS, currentConditionBaseClass);
         }
 
         // There is one listener that should be called right now
@@ -112,7 +116,11 @@ class DSLKnowledge extends KnowledgeWrapper {
 
     @Override
     public StatefulSession newStatefulSession() {
-        return new DSLStatefulSession(super.newStatefulSession(), meta, meta.fieldDeclarations, rules, classInstance());
+        return wrap(super.newStatefulSession());
+    }
+
+    StatefulSession wrap(StatefulSession session) {
+        return new DSLStatefulSession(this, session, meta, meta.fieldDeclarations, rules, classInstance());
     }
 
     @Override
@@ -1,5 +1,6 @@
 package org.evrete.dsl;
 
+import org.evrete.api.Expiration;
 import org.evrete.api.FactHandle;
 import org.evrete.api.StatefulSession;
 
@@ -7,11 +8,14 @@ import java.util.List;
 import java.util.concurrent.Future;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 class DSLStatefulSession extends AbstractDSLSession<StatefulSession> implements StatefulSession {
+    private final DSLKnowledge knowledge;
 
-    DSLStatefulSession(StatefulSession delegate, RulesetMeta meta, FieldDeclarations fieldDeclarations, List<DSLRule> rules, Object classInstance) {
+    DSLStatefulSession(DSLKnowledge knowledge, StatefulSession delegate, RulesetMeta meta, FieldDeclarations fieldDeclarations, List<DSLRule> rules, Object classInstance) {
         super(delegate, meta, fieldDeclarations, rules, classInstance);
+        this.knowledge = knowledge;
     }
 
     @Override
@@ -42,11 +46,29 @@ class DSLStatefulSession extends AbstractDSLSession<StatefulSession> implements
         return this;
     }
 
+    @Override
+    public StatefulSession setExpiration(String type, Expiration<?> expiration) {
+        delegate.setExpiration(type, expiration);
+        return this;
+    }
+
+    @Override
+    public StatefulSession setClock(LongSupplier clock) {
+        delegate.setClock(clock);
+        return this;
+    }
+
     @Override
     public <T> T getFact(FactHandle handle) {
         return delegate.getFact(handle);
     }
 
+    @Override
+    public StatefulSession fork() {
+        // The fork gets its own instance of the ruleset class
+        return knowledge.wrap(delegate.fork());
+    }
+
     @Override
     public void clear() {
         delegate.clear();